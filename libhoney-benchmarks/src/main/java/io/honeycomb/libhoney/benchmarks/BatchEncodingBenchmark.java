@@ -0,0 +1,85 @@
+package io.honeycomb.libhoney.benchmarks;
+
+import io.honeycomb.libhoney.TransportOptions;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.json.StreamingBatchRequestSerializer;
+import io.honeycomb.libhoney.transport.json.StreamingJsonSerializer;
+import io.honeycomb.libhoney.transport.msgpack.MsgPackBatchRequestSerializer;
+import io.honeycomb.libhoney.utils.ByteBufferPool;
+import io.honeycomb.libhoney.utils.PooledByteArrayOutputStream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time it takes to encode a batch request body as JSON and as MessagePack, for events with a mix of
+ * field types and for events with only numeric fields. The resulting body size is reported as the secondary result
+ * {@code bodyBytes}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchEncodingBenchmark {
+    @Param({"JSON", "MSGPACK"})
+    private TransportOptions.BatchEncoding encoding;
+
+    @Param({"MIXED", "NUMERIC"})
+    private String fieldTypes;
+
+    @Param({"50", "500"})
+    private int batchSize;
+
+    @Param({"20"})
+    private int fieldCount;
+
+    private final ByteBufferPool bufferPool = new ByteBufferPool(16 * 1024, 4 * 1024 * 1024, 1);
+    private StreamingJsonSerializer<List<ResolvedEvent>> serializer;
+    private List<ResolvedEvent> batch;
+
+    @Setup
+    public void setUp() throws IOException {
+        serializer = (encoding == TransportOptions.BatchEncoding.MSGPACK)
+            ? new MsgPackBatchRequestSerializer()
+            : new StreamingBatchRequestSerializer();
+        batch = "NUMERIC".equals(fieldTypes)
+            ? BenchmarkEvents.numericBatch(batchSize, fieldCount)
+            : BenchmarkEvents.batch(batchSize, fieldCount);
+    }
+
+    @Benchmark
+    public int encode(final BodySize bodySize) throws IOException {
+        final PooledByteArrayOutputStream buffer = bufferPool.acquire();
+        try {
+            serializer.serialize(batch, buffer);
+            bodySize.bodyBytes = buffer.size();
+            return buffer.size();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Holds the size of the last body encoded by the benchmark thread, which doesn't vary between invocations.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class BodySize {
+        public long bodyBytes;
+    }
+}
@@ -0,0 +1,114 @@
+package io.honeycomb.libhoney.benchmarks;
+
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.batch.impl.SystemClockProvider;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixtures shared by the benchmarks, so that all suites operate on events of a comparable shape.
+ * Field values cycle through the types that are typical for instrumentation data (strings, longs, doubles and
+ * booleans).
+ */
+public final class BenchmarkEvents {
+    public static final URI API_HOST = URI.create("http://localhost:1");
+    public static final String WRITE_KEY = "0123456789abcdef0123456789abcdef";
+    public static final String DATASET = "benchmark";
+
+    private BenchmarkEvents() {
+        // utils
+    }
+
+    public static Map<String, Object> fields(final String prefix, final int count) {
+        final Map<String, Object> fields = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            final String key = prefix + "." + i;
+            switch (i % 4) {
+                case 0:
+                    fields.put(key, "value-" + i + "-of-a-typical-length");
+                    break;
+                case 1:
+                    fields.put(key, 1_000_000L + i);
+                    break;
+                case 2:
+                    fields.put(key, i * 1.5d);
+                    break;
+                default:
+                    fields.put(key, (i & 1) == 0);
+                    break;
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * @param prefix of the field names.
+     * @param count  of fields.
+     * @return fields with only numeric values, typical for metrics-like events.
+     */
+    public static Map<String, Object> numericFields(final String prefix, final int count) {
+        final Map<String, Object> fields = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            final String key = prefix + "." + i;
+            if ((i & 1) == 0) {
+                fields.put(key, (long) i * 37);
+            } else {
+                fields.put(key, i * 0.25d);
+            }
+        }
+        return fields;
+    }
+
+    public static ResolvedEvent resolvedEvent(final int fieldCount) {
+        return resolvedEvent(fields("field", fieldCount));
+    }
+
+    private static ResolvedEvent resolvedEvent(final Map<String, Object> fields) {
+        return new ResolvedEvent(
+            API_HOST,
+            WRITE_KEY,
+            DATASET,
+            1,
+            System.currentTimeMillis(),
+            fields,
+            Collections.<String, Object>emptyMap(),
+            SystemClockProvider.getInstance());
+    }
+
+    public static List<ResolvedEvent> batch(final int batchSize, final int fieldCount) {
+        final List<ResolvedEvent> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(resolvedEvent(fieldCount));
+        }
+        return batch;
+    }
+
+    public static List<ResolvedEvent> numericBatch(final int batchSize, final int fieldCount) {
+        final List<ResolvedEvent> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(resolvedEvent(numericFields("metric", fieldCount)));
+        }
+        return batch;
+    }
+
+    /**
+     * @param batchSize number of elements.
+     * @return a batch response body as returned by the server when every event was accepted.
+     */
+    public static byte[] allAcceptedResponseBody(final int batchSize) {
+        final StringBuilder body = new StringBuilder(batchSize * 16 + 2).append('[');
+        for (int i = 0; i < batchSize; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"status\":202}");
+        }
+        return body.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
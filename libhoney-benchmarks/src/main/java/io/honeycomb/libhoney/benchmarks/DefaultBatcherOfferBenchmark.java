@@ -0,0 +1,146 @@
+package io.honeycomb.libhoney.benchmarks;
+
+import io.honeycomb.libhoney.TransportOptions;
+import io.honeycomb.libhoney.eventdata.EventRoute;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.batch.BatchConsumer;
+import io.honeycomb.libhoney.transport.batch.impl.DefaultBatcher;
+import io.honeycomb.libhoney.transport.batch.impl.EventRouteBatchKeyStrategy;
+import io.honeycomb.libhoney.transport.batch.impl.MpscRingBufferQueue;
+import io.honeycomb.libhoney.transport.batch.impl.SystemClockProvider;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DefaultBatcher#offerEvent(Object)} under contention from several producer threads, with the
+ * batching worker running against a consumer that discards batches. The score is the rate at which producers get an
+ * answer from the batcher; the rate at which the batcher accepted events is reported as the secondary result
+ * {@code accepted}, so that a throughput gained by rejecting events (i.e. queue overflow) is visible. Both pending queue implementations are
+ * compared, as well as a single batch key against many keys (i.e. many dataset and write key combinations).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DefaultBatcherOfferBenchmark {
+    @Param({"50", "500"})
+    private int batchSize;
+
+    @Param({"20"})
+    private int fieldCount;
+
+    @Param({"ARRAY_BLOCKING_QUEUE", "MPSC_RING_BUFFER"})
+    private TransportOptions.QueueType queueType;
+
+    @Param({"1", "500"})
+    private int keyCount;
+
+    private DefaultBatcher<ResolvedEvent, EventRoute> batcher;
+    private ResolvedEvent[] events;
+
+    @Setup
+    public void setUp() {
+        events = new ResolvedEvent[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            events[i] = BenchmarkEvents.resolvedEvent(fieldCount);
+            events[i].setDataset(BenchmarkEvents.DATASET + i);
+        }
+        batcher = new DefaultBatcher<>(
+            new EventRouteBatchKeyStrategy(),
+            new DiscardingConsumer(),
+            SystemClockProvider.getInstance(),
+            createQueue(queueType),
+            batchSize,
+            TransportOptions.DEFAULT_BATCH_TIMEOUT);
+    }
+
+    private static BlockingQueue<ResolvedEvent> createQueue(final TransportOptions.QueueType queueType) {
+        if (queueType == TransportOptions.QueueType.MPSC_RING_BUFFER) {
+            return new MpscRingBufferQueue<>(TransportOptions.DEFAULT_QUEUE_CAPACITY);
+        }
+        return new ArrayBlockingQueue<>(TransportOptions.DEFAULT_QUEUE_CAPACITY);
+    }
+
+    @TearDown
+    public void tearDown() {
+        batcher.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean offer_1Thread(final Producer producer) {
+        return producer.offered(batcher.offerEvent(producer.next(events)));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean offer_4Threads(final Producer producer) {
+        return producer.offered(batcher.offerEvent(producer.next(events)));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean offer_maxThreads(final Producer producer) {
+        return producer.offered(batcher.offerEvent(producer.next(events)));
+    }
+
+    /**
+     * Cycles each producer thread through the events, and so through the batch keys, and counts the events that the
+     * batcher accepted.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Producer {
+        public long accepted;
+        private int index;
+
+        @Setup(Level.Iteration)
+        public void resetCounter() {
+            accepted = 0;
+        }
+
+        ResolvedEvent next(final ResolvedEvent[] events) {
+            index = (index + 1) % events.length;
+            return events[index];
+        }
+
+        boolean offered(final boolean wasAccepted) {
+            if (wasAccepted) {
+                accepted++;
+            }
+            return wasAccepted;
+        }
+    }
+
+    private static class DiscardingConsumer implements BatchConsumer<ResolvedEvent> {
+        @Override
+        public void consume(final List<ResolvedEvent> batch) {
+            // batches are discarded
+        }
+
+        @Override
+        public void close() {
+            // nothing to release
+        }
+    }
+}
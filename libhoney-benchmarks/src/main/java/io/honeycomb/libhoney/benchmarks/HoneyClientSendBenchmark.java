@@ -0,0 +1,110 @@
+package io.honeycomb.libhoney.benchmarks;
+
+import io.honeycomb.libhoney.HoneyClient;
+import io.honeycomb.libhoney.LibHoney;
+import io.honeycomb.libhoney.Options;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.ResponseObservable;
+import io.honeycomb.libhoney.transport.Transport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the caller-side cost of {@code Event.send()}: sampling, dynamic field resolution and
+ * {@code HoneyClient.constructResolvedEvent}, up to the hand-off to the transport. The transport simply discards
+ * the event, so the batching and HTTP layers are excluded (see {@link DefaultBatcherOfferBenchmark} for those).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HoneyClientSendBenchmark {
+    @Param({"5", "40"})
+    private int globalFieldCount;
+
+    @Param({"10"})
+    private int eventFieldCount;
+
+    private HoneyClient client;
+    private Map<String, Object> eventFields;
+
+    @Setup
+    public void setUp() {
+        final Options options = LibHoney.options()
+            .setApiHost(BenchmarkEvents.API_HOST)
+            .setWriteKey(BenchmarkEvents.WRITE_KEY)
+            .setDataset(BenchmarkEvents.DATASET)
+            .setGlobalFields(BenchmarkEvents.fields("global", globalFieldCount))
+            .build();
+        client = new HoneyClient(options, new DiscardingTransport());
+        eventFields = BenchmarkEvents.fields("event", eventFieldCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void send_1Thread() {
+        send();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void send_4Threads() {
+        send();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void send_maxThreads() {
+        send();
+    }
+
+    private void send() {
+        client.createEvent().addFields(eventFields).send();
+    }
+
+    /**
+     * Accepts every event without doing anything with it. Writing the last event to a field stops the JIT from
+     * treating the resolved event as dead code.
+     */
+    private static class DiscardingTransport implements Transport {
+        private final ResponseObservable observable = new ResponseObservable();
+        private ResolvedEvent last;
+
+        @Override
+        public boolean submit(final ResolvedEvent event) {
+            last = event;
+            return true;
+        }
+
+        @Override
+        public ResponseObservable getResponseObservable() {
+            return observable;
+        }
+
+        @Override
+        public void close() {
+            last = null;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.honeycomb.libhoney.benchmarks;
+
+import io.honeycomb.libhoney.ResponseObserver;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.ClientRejected;
+import io.honeycomb.libhoney.responses.ResponseObservable;
+import io.honeycomb.libhoney.responses.ServerAccepted;
+import io.honeycomb.libhoney.responses.ServerRejected;
+import io.honeycomb.libhoney.responses.Unknown;
+import io.honeycomb.libhoney.responses.impl.LazyServerResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the handling of a successful batch response, as done on the HTTP client's IO thread when observers are
+ * registered: {@link LazyServerResponse#createEventsWithServerResponse} followed by publishing every response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LazyServerResponseBenchmark {
+    @Param({"50", "500"})
+    private int batchSize;
+
+    private List<ResolvedEvent> batch;
+    private byte[] responseBody;
+    private ResponseObservable observable;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        batch = BenchmarkEvents.batch(batchSize, 5);
+        responseBody = BenchmarkEvents.allAcceptedResponseBody(batchSize);
+        observable = new ResponseObservable();
+        observable.add(new BlackholeObserver(blackhole));
+    }
+
+    @Benchmark
+    public List<LazyServerResponse> createResponses() {
+        return LazyServerResponse.createEventsWithServerResponse(batch, responseBody, 200);
+    }
+
+    @Benchmark
+    public void createAndPublishResponses() {
+        final List<LazyServerResponse> responses =
+            LazyServerResponse.createEventsWithServerResponse(batch, responseBody, 200);
+        for (final LazyServerResponse response : responses) {
+            response.publishTo(observable);
+        }
+    }
+
+    private static class BlackholeObserver implements ResponseObserver {
+        private final Blackhole blackhole;
+
+        BlackholeObserver(final Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onServerAccepted(final ServerAccepted serverAccepted) {
+            blackhole.consume(serverAccepted);
+        }
+
+        @Override
+        public void onServerRejected(final ServerRejected serverRejected) {
+            blackhole.consume(serverRejected);
+        }
+
+        @Override
+        public void onClientRejected(final ClientRejected clientRejected) {
+            blackhole.consume(clientRejected);
+        }
+
+        @Override
+        public void onUnknown(final Unknown unknown) {
+            blackhole.consume(unknown);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.honeycomb.libhoney.benchmarks;
+
+import io.honeycomb.libhoney.utils.ObjectUtils;
+import io.honeycomb.libhoney.utils.RFC3339TimestampFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares formatting the timestamps of a batch with a per-batch {@link SimpleDateFormat}, as the consumer used to,
+ * with {@link RFC3339TimestampFormatter}. Timestamps are spread over a few seconds, as they are in a real batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimestampFormatBenchmark {
+    private static final int BATCH_SIZE = 500;
+
+    private final long[] timestamps = new long[BATCH_SIZE];
+    private final char[] destination = new char[RFC3339TimestampFormatter.FORMATTED_LENGTH];
+
+    @Setup
+    public void setUp() {
+        final long start = System.currentTimeMillis();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            timestamps[i] = start + i * 7;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void simpleDateFormat(final Blackhole blackhole) {
+        final SimpleDateFormat format = ObjectUtils.getRFC3339DateTimeFormatter();
+        for (final long timestamp : timestamps) {
+            blackhole.consume(format.format(new Date(timestamp)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void cachedFormatterToString(final Blackhole blackhole) {
+        for (final long timestamp : timestamps) {
+            blackhole.consume(RFC3339TimestampFormatter.format(timestamp));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void cachedFormatterToCharArray(final Blackhole blackhole) {
+        for (final long timestamp : timestamps) {
+            blackhole.consume(RFC3339TimestampFormatter.format(timestamp, destination, 0));
+        }
+    }
+}
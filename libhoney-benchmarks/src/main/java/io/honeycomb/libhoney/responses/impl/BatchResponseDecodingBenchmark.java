@@ -0,0 +1,75 @@
+package io.honeycomb.libhoney.responses.impl;
+
+import io.honeycomb.libhoney.benchmarks.BenchmarkEvents;
+import io.honeycomb.libhoney.utils.JsonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the decoding of a batch response body with Jackson's data binding into an array of elements, as
+ * {@link BatchResponseBody} used to do, compared to the streaming {@link BatchResponseElements#decode(byte[])} and to
+ * the check for an all-accepted body. Run with {@code -prof gc} to compare allocation rates.
+ * <p>
+ * Lives in the response package to be able to reach its package-private classes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchResponseDecodingBenchmark {
+    @Param({"50", "500"})
+    private int batchSize;
+
+    /** Whether every element is accepted, otherwise every tenth one carries an error. */
+    @Param({"true", "false"})
+    private boolean allAccepted;
+
+    private byte[] responseBody;
+
+    @Setup
+    public void setUp() {
+        if (allAccepted) {
+            responseBody = BenchmarkEvents.allAcceptedResponseBody(batchSize);
+        } else {
+            final StringBuilder body = new StringBuilder(batchSize * 32 + 2).append('[');
+            for (int i = 0; i < batchSize; i++) {
+                if (i > 0) {
+                    body.append(',');
+                }
+                body.append((i % 10 == 9) ? "{\"status\":400,\"error\":\"Invalid event\"}" : "{\"status\":202}");
+            }
+            responseBody = body.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public BatchResponseBody.BatchResponseElement[] dataBinding() throws IOException {
+        // Jackson is shaded into the library, so its types cannot be referenced here
+        return JsonUtils.OBJECT_MAPPER.readValue(responseBody, BatchResponseBody.BatchResponseElement[].class);
+    }
+
+    @Benchmark
+    public BatchResponseElements streamingDecoder() throws IOException {
+        return BatchResponseElements.decode(responseBody);
+    }
+
+    @Benchmark
+    public int allAcceptedCheck() {
+        return BatchResponseBody.countAllAccepted(responseBody);
+    }
+}
@@ -0,0 +1,93 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.benchmarks.BenchmarkEvents;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.batch.impl.HoneycombBatchConsumer.BatchRequestElement;
+import io.honeycomb.libhoney.transport.json.BatchRequestSerializer;
+import io.honeycomb.libhoney.transport.json.StreamingBatchRequestSerializer;
+import io.honeycomb.libhoney.utils.ByteBufferPool;
+import io.honeycomb.libhoney.utils.GzipCompressor;
+import io.honeycomb.libhoney.utils.PooledByteArrayOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Measures the work done by {@link HoneycombBatchConsumer} on the batching thread to turn a batch into a request body:
+ * the transformation into the batch API's structure and its JSON serialization, compared to streaming the batch
+ * straight into a pooled buffer, and the additional cost of compressing that buffer with gzip.
+ * <p>
+ * Lives in the consumer's package to be able to reach its package-private transformation step.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchSerializationBenchmark {
+    @Param({"50", "500"})
+    private int batchSize;
+
+    @Param({"5", "20", "50"})
+    private int fieldCount;
+
+    private final BatchRequestSerializer serializer = new BatchRequestSerializer();
+    private final StreamingBatchRequestSerializer streamingSerializer = new StreamingBatchRequestSerializer();
+    private final ByteBufferPool bufferPool = new ByteBufferPool(16 * 1024, 1024 * 1024, 2);
+    private final GzipCompressor gzipCompressor = new GzipCompressor(Deflater.DEFAULT_COMPRESSION, 1);
+    private List<ResolvedEvent> batch;
+
+    @Setup
+    public void setUp() {
+        batch = BenchmarkEvents.batch(batchSize, fieldCount);
+    }
+
+    @Benchmark
+    public List<BatchRequestElement> transform() {
+        return HoneycombBatchConsumer.transformToBatchRequestFormat(batch);
+    }
+
+    @Benchmark
+    public byte[] transformAndSerialize() throws IOException {
+        return serializer.serialize(HoneycombBatchConsumer.transformToBatchRequestFormat(batch));
+    }
+
+    @Benchmark
+    public int streamToPooledBuffer() throws IOException {
+        final PooledByteArrayOutputStream buffer = bufferPool.acquire();
+        try {
+            streamingSerializer.serialize(batch, buffer);
+            return buffer.size();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Benchmark
+    public int streamAndGzipToPooledBuffer() throws IOException {
+        final PooledByteArrayOutputStream buffer = bufferPool.acquire();
+        final PooledByteArrayOutputStream compressed = bufferPool.acquire();
+        try {
+            streamingSerializer.serialize(batch, buffer);
+            gzipCompressor.compress(buffer.getBuffer(), 0, buffer.size(), compressed);
+            return compressed.size();
+        } finally {
+            buffer.release();
+            compressed.release();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package io.honeycomb.libhoney;
+
+import io.honeycomb.libhoney.responses.BatchResponse;
+
+/**
+ * If registered with {@link HoneyClient#addBatchResponseObserver(BatchResponseObserver)}, this is notified once for
+ * every batch of events that the honeycomb server responded to, rather than once per event as with
+ * {@link ResponseObserver}.
+ * <p>
+ * As a batch response only holds compact per-event status arrays and the list of event metadata, this avoids creating a
+ * response object for every event, which makes it the cheaper choice for high throughput clients that merely count or
+ * sample outcomes.
+ * <p>
+ * Only server responses are published to this observer. Events that are rejected on the client side, or whose batch
+ * failed to get a response at all, are still only published to the {@link ResponseObserver}s, as
+ * {@link io.honeycomb.libhoney.responses.ClientRejected} or {@link io.honeycomb.libhoney.responses.Unknown}.
+ * <p>
+ * <b>The same threading caveats as for {@link ResponseObserver} apply.</b>
+ */
+public interface BatchResponseObserver {
+    /**
+     * This method will be notified for every batch that the server responded to, whether it was accepted or not.
+     * See {@link BatchResponse} for details.
+     *
+     * @param batchResponse response.
+     */
+    void onBatchResponse(BatchResponse batchResponse);
+}
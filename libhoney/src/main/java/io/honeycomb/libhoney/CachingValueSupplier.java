@@ -0,0 +1,199 @@
+package io.honeycomb.libhoney;
+
+import io.honeycomb.libhoney.transport.batch.ClockProvider;
+import io.honeycomb.libhoney.transport.batch.impl.SystemClockProvider;
+import io.honeycomb.libhoney.utils.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link ValueSupplier} that caches the value of another, expensive supplier (e.g. one that reads JVM memory or
+ * thread statistics) for a given time to live. Rather than resolving the delegate on the thread that sends an event,
+ * the value is refreshed in the background by a scheduler thread that is shared by all caching suppliers, so
+ * {@link #supply()} merely reads the last value without any locking.
+ * <p>
+ * The delegate is resolved once on construction, so that a value is available straight away; exceptions thrown by
+ * that first resolution are propagated. Should a later refresh fail, the last value is kept and the failure is
+ * counted, see {@link #getRefreshFailureCount()}. The cost of refreshing is available through the other getters.
+ * <p>
+ * Refreshing stops once this supplier is closed, or becomes unreachable. A {@link HoneyClient} only closes the caching
+ * suppliers it owns when it is closed, i.e. those created by its builder, see
+ * {@link Options.Builder#setOwnedValueSuppliers(java.util.Collection)}. Suppliers can be created with
+ * {@link #of(ValueSupplier, long, TimeUnit)}, or directly through
+ * {@link io.honeycomb.libhoney.builders.HoneyClientBuilder#addGlobalDynamicFields(String, ValueSupplier, long,
+ * TimeUnit)} and {@link EventFactory.Builder#addDynamicField(String, ValueSupplier, long, TimeUnit)}.
+ * <p>
+ * Threadsafe.
+ *
+ * @param <V> The type of the field value.
+ */
+public final class CachingValueSupplier<V> implements ValueSupplier<V>, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(CachingValueSupplier.class);
+
+    private final ValueSupplier<? extends V> delegate;
+    private final ClockProvider clock;
+    private final ScheduledFuture<?> refreshTask;
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong refreshFailureCount = new AtomicLong();
+    private final AtomicLong totalRefreshNanos = new AtomicLong();
+
+    private volatile V value;
+    private volatile long lastRefreshNanos;
+
+    // visible for testing
+    CachingValueSupplier(final ValueSupplier<? extends V> delegate,
+                         final long timeToLive,
+                         final TimeUnit unit,
+                         final ClockProvider clock) {
+        Assert.notNull(delegate, "delegate must not be null");
+        Assert.isTrue(timeToLive > 0, "timeToLive must be greater than 0");
+        Assert.notNull(unit, "unit must not be null");
+        this.delegate = delegate;
+        this.clock = clock;
+        this.value = delegate.supply();
+        this.refreshTask = Refresher.EXECUTOR.scheduleWithFixedDelay(
+            new Refresher(this), timeToLive, timeToLive, unit);
+    }
+
+    /**
+     * @param delegate   the supplier to cache the value of.
+     * @param timeToLive how long a value is used before it is refreshed. Must be greater than 0.
+     * @param unit       of the time to live.
+     * @param <V>        The type of the field value.
+     * @return a new caching supplier.
+     * @throws IllegalArgumentException if the arguments are invalid.
+     */
+    public static <V> CachingValueSupplier<V> of(final ValueSupplier<? extends V> delegate,
+                                                 final long timeToLive,
+                                                 final TimeUnit unit) {
+        return new CachingValueSupplier<>(delegate, timeToLive, unit, SystemClockProvider.getInstance());
+    }
+
+    @Override
+    public V supply() {
+        return value;
+    }
+
+    // visible for testing
+    // Catch-all, as a failing delegate must neither stop the refreshing nor tank the shared scheduler thread.
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    void refresh() {
+        final long start = clock.getMonotonicTime();
+        try {
+            value = delegate.supply();
+        } catch (final RuntimeException e) {
+            if (refreshFailureCount.getAndIncrement() == 0) {
+                LOG.warn("Refreshing a cached dynamic field value failed, so the previous value is kept. Further " +
+                    "failures are not logged, but are counted by CachingValueSupplier.getRefreshFailureCount().", e);
+            }
+        } finally {
+            final long elapsed = clock.getMonotonicTime() - start;
+            lastRefreshNanos = elapsed;
+            totalRefreshNanos.addAndGet(elapsed);
+            refreshCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the number of times the value has been refreshed in the background, whether successfully or not.
+     */
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    /**
+     * @return the number of background refreshes in which the delegate threw an exception.
+     */
+    public long getRefreshFailureCount() {
+        return refreshFailureCount.get();
+    }
+
+    /**
+     * @return the time the delegate took during the last background refresh, in nanoseconds, or 0 if there has
+     * been none yet.
+     */
+    public long getLastRefreshNanos() {
+        return lastRefreshNanos;
+    }
+
+    /**
+     * @return the time the delegate took over all background refreshes, in nanoseconds.
+     */
+    public long getTotalRefreshNanos() {
+        return totalRefreshNanos.get();
+    }
+
+    /**
+     * Stops refreshing the value. The last value continues to be supplied.
+     */
+    @Override
+    public void close() {
+        refreshTask.cancel(false);
+    }
+
+    // visible for testing
+    boolean isClosed() {
+        return refreshTask.isCancelled();
+    }
+
+    /*
+     * Only weakly references the supplier, so that suppliers that are no longer in use (e.g. those of an EventFactory
+     * that has been discarded) stop being refreshed without having to be closed.
+     */
+    private static final class Refresher implements Runnable {
+        private static final ScheduledExecutorService EXECUTOR = createExecutor();
+
+        private final WeakReference<CachingValueSupplier<?>> supplier;
+
+        // Java 7 cannot infer the wildcard type argument
+        @SuppressWarnings("PMD.UseDiamondOperator")
+        private Refresher(final CachingValueSupplier<?> supplier) {
+            this.supplier = new WeakReference<CachingValueSupplier<?>>(supplier);
+        }
+
+        private static ScheduledExecutorService createExecutor() {
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "libhoney-value-refresher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            // closed suppliers would otherwise stay queued until their next refresh would have been due
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+
+        // the supplier is only refreshed here, it is closed by its owner
+        @SuppressWarnings("PMD.CloseResource")
+        @Override
+        public void run() {
+            final CachingValueSupplier<?> cachingSupplier = supplier.get();
+            if (cachingSupplier == null) {
+                throw new CancellationSignal();
+            }
+            cachingSupplier.refresh();
+        }
+    }
+
+    /*
+     * Thrown to stop a periodic task from being run again, which is how the scheduled executor lets a task cancel
+     * itself. Never observed by anyone.
+     */
+    private static final class CancellationSignal extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private CancellationSignal() {
+            super(null, null, false, false);
+        }
+    }
+}
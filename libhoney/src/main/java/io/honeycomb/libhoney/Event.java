@@ -1,6 +1,8 @@
 package io.honeycomb.libhoney;
 
 import io.honeycomb.libhoney.eventdata.EventData;
+import io.honeycomb.libhoney.eventdata.EventRoute;
+import io.honeycomb.libhoney.eventdata.LayeredFieldMap;
 
 import java.net.URI;
 import java.util.HashMap;
@@ -21,7 +23,9 @@ import java.util.Map;
  */
 public class Event extends EventData<Event> {
     private final HoneyClient client;
-    private final Map<String, ValueSupplier<?>> dynamicFields;
+    private Map<String, ValueSupplier<?>> dynamicFields;
+    // whether dynamicFields is still the factory's map, which is copied before it is handed out for modification
+    private boolean sharedDynamicFields;
 
     Event(final HoneyClient client,
           final URI apiHost,
@@ -35,6 +39,21 @@ public class Event extends EventData<Event> {
         this.dynamicFields = new HashMap<>(dynamicFields);
     }
 
+    /*
+     * Used by EventFactory: the fields are layered over, and the dynamic fields shared with, the factory's own maps,
+     * which it never modifies. The dynamic fields are copied once they are accessed through getDynamicFields.
+     */
+    Event(final HoneyClient client,
+          final EventRoute route,
+          final int sampleRate,
+          final LayeredFieldMap fields,
+          final Map<String, ValueSupplier<?>> dynamicFields) {
+        super(route, sampleRate, null, fields, new HashMap<String, Object>());
+        this.client = client;
+        this.dynamicFields = dynamicFields;
+        this.sharedDynamicFields = true;
+    }
+
     @Override
     protected Event getSelf() {
         return this;
@@ -75,7 +94,22 @@ public class Event extends EventData<Event> {
         return getSelf();
     }
 
+    /**
+     * @return this event's own, modifiable, dynamic fields.
+     */
     Map<String, ValueSupplier<?>> getDynamicFields() {
+        if (sharedDynamicFields) {
+            dynamicFields = new HashMap<>(dynamicFields);
+            sharedDynamicFields = false;
+        }
+        return dynamicFields;
+    }
+
+    /**
+     * @return the dynamic fields for reading only, which avoids copying them if they are still shared with the
+     * {@link EventFactory}.
+     */
+    Map<String, ValueSupplier<?>> readDynamicFields() {
         return dynamicFields;
     }
 
@@ -1,8 +1,14 @@
 package io.honeycomb.libhoney;
 
+import io.honeycomb.libhoney.eventdata.EventRoute;
+import io.honeycomb.libhoney.eventdata.LayeredFieldMap;
+import io.honeycomb.libhoney.eventdata.SharedFieldMap;
+
 import java.net.URI;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is used to generate Events with a shared set of properties. An instance can be constructed using
@@ -19,6 +25,7 @@ public class EventFactory {
     private final URI apiHost;
     private final String writeKey;
     private final String dataset;
+    private final EventRoute route;
     private final int sampleRate;
     private final Map<String, Object> fields;
     private final Map<String, ValueSupplier<?>> dynamicFields;
@@ -34,9 +41,11 @@ public class EventFactory {
         this.apiHost = apiHost;
         this.writeKey = writeKey;
         this.dataset = dataset;
+        this.route = new EventRoute(apiHost, writeKey, dataset);
         this.sampleRate = sampleRate;
-        this.fields = new HashMap<>(fields);
-        this.dynamicFields = new HashMap<>(dynamicFields);
+        // shared with the events this creates, so must not be modified
+        this.fields = new SharedFieldMap(fields);
+        this.dynamicFields = Collections.unmodifiableMap(new HashMap<>(dynamicFields));
     }
 
     EventFactory(final HoneyClient client, final Options options) {
@@ -55,7 +64,7 @@ public class EventFactory {
      * @return an event.
      */
     public Event createEvent() {
-        return new Event(client, apiHost, writeKey, dataset, sampleRate, fields, dynamicFields);
+        return new Event(client, route, sampleRate, new LayeredFieldMap(fields), dynamicFields);
     }
 
     /**
@@ -204,6 +213,24 @@ public class EventFactory {
             return this;
         }
 
+        /**
+         * Adds the key-value as a dynamic field, whose value is cached for a time to live and refreshed in the
+         * background, see {@link CachingValueSupplier}.
+         *
+         * @param dynamicFieldKey      to add.
+         * @param dynamicFieldSupplier to add.
+         * @param timeToLive           how long a value is used before it is refreshed. Must be greater than 0.
+         * @param unit                 of the time to live.
+         * @return this.
+         * @see Options.Builder#setGlobalDynamicFields(Map)
+         */
+        public Builder addDynamicField(final String dynamicFieldKey,
+                                       final ValueSupplier<?> dynamicFieldSupplier,
+                                       final long timeToLive,
+                                       final TimeUnit unit) {
+            return addDynamicField(dynamicFieldKey, CachingValueSupplier.of(dynamicFieldSupplier, timeToLive, unit));
+        }
+
         public static Builder newBuilder(final HoneyClient client) {
             return new Builder(client);
         }
@@ -1,18 +1,20 @@
 package io.honeycomb.libhoney;
 
+import io.honeycomb.libhoney.eventdata.LayeredFieldMap;
 import io.honeycomb.libhoney.eventdata.ResolvedEvent;
 import io.honeycomb.libhoney.responses.impl.EventResponseFactory;
 import io.honeycomb.libhoney.transport.Transport;
 import io.honeycomb.libhoney.transport.batch.ClockProvider;
 import io.honeycomb.libhoney.transport.batch.impl.SystemClockProvider;
+import io.honeycomb.libhoney.transport.batch.impl.TransportMetrics;
 import io.honeycomb.libhoney.transport.impl.BatchingHttpTransport;
 import io.honeycomb.libhoney.utils.Assert;
+import io.honeycomb.libhoney.utils.StripedCounter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -78,6 +80,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * Any global state that a user may want to observe, or any global manipulation of events, is encapsulated within the
  * post processor that a HoneyClient instance can be configured with. See the interface documentation of
  * {@link EventPostProcessor} for details.
+ *
+ * <h2>Stats</h2>
+ * {@link #getStats()} returns a snapshot of aggregate metrics of the client and its transport, such as the depth of
+ * the queue, the requests in flight, the bytes sent and the events rejected. See {@link TransportStats} for details.
  */
 public class HoneyClient implements AutoCloseable {
     private static final Logger LOG = LoggerFactory.getLogger(HoneyClient.class);
@@ -95,9 +101,15 @@ public class HoneyClient implements AutoCloseable {
 
     private final Transport transport;
     private final EventFactory globalEventFactory;
-    private final Random sampler;
+    private final Sampler sampler;
+    private final List<CachingValueSupplier<?>> ownedValueSuppliers;
     private final EventPostProcessor postProcessor;
     private final ClockProvider clock;
+    private final TransportMetrics metrics;
+    private final StripedCounter submittedEvents;
+    private final StripedCounter notSampledEvents;
+    private final StripedCounter rejectedEvents;
+    private final StripedCounter failedEvents;
 
     /**
      * Constructor that assumes that the default transport is being used.
@@ -139,27 +151,36 @@ public class HoneyClient implements AutoCloseable {
      * @param clock     used to override the clock for testing
      */
     public HoneyClient(final Options options, final Transport transport, final ClockProvider clock) {
-        this.sampler = new Random();
+        this.sampler = options.getSampler();
+        this.ownedValueSuppliers = options.getOwnedValueSuppliers();
         this.transport = transport;
         this.globalEventFactory = new EventFactory(this, options);
         this.postProcessor = options.getEventPostProcessor();
         this.clock = clock;
+        // a custom transport has no metrics of its own, so only those of this client are available
+        this.metrics = (transport instanceof BatchingHttpTransport)
+            ? ((BatchingHttpTransport) transport).getMetrics()
+            : new TransportMetrics(clock);
+        this.submittedEvents = metrics.counter(TransportStats.EVENTS_SUBMITTED);
+        this.notSampledEvents = metrics.counter(TransportStats.EVENTS_NOT_SAMPLED);
+        this.rejectedEvents = metrics.counter(TransportStats.EVENTS_REJECTED);
+        this.failedEvents = metrics.counter(TransportStats.EVENTS_FAILED);
     }
 
     private boolean isSampled(final Event event) {
-        return sampler.nextInt(event.getSampleRate()) == 0;
+        return sampler.sample(event);
     }
 
     // Catch-all, so this doesn't tank in case of an exception. It's also part of the documented contract.
     @SuppressWarnings("PMD.AvoidCatchingGenericException")
     private ResolvedEvent constructResolvedEvent(final Event event) {
-        final int fieldsSize = event.getDynamicFields().size() + event.getFields().size();
-
-        final Map<String, Object> resolvedFields = new HashMap<>(fieldsSize);
+        // a snapshot of the event's fields, so that the event may be changed and sent again
+        final LayeredFieldMap resolvedFields = LayeredFieldMap.copyOf(event.getFields());
 
         try {
-            resolveDynamicFields(event.getDynamicFields(), resolvedFields);
+            resolveDynamicFields(event.readDynamicFields(), resolvedFields);
         } catch (final Exception e) {
+            failedEvents.increment();
             transport.getResponseObservable().publish(EventResponseFactory.dynamicFieldResolutionError(event, e));
             if (logAdditionalDynamicFieldsErrors.compareAndSet(true, false)) {
                 LOG.error(DYNAMIC_FIELDS_ERROR_LOG_MESSAGE, e);
@@ -169,9 +190,6 @@ public class HoneyClient implements AutoCloseable {
             return null;
         }
 
-        // we add fields last, to make sure the map parameter to the send(Map) method overwrites other fields
-        resolvedFields.putAll(event.getFields());
-
         final ResolvedEvent internalEvent = ResolvedEvent.of(
             resolvedFields,
             event,
@@ -186,6 +204,7 @@ public class HoneyClient implements AutoCloseable {
             try {
                 postProcessor.process(internalEvent);
             } catch (final Exception e) {
+                failedEvents.increment();
                 transport.getResponseObservable().publish(EventResponseFactory.postProcessorError(internalEvent, e));
                 if (logAdditionalPostProcessorErrors.compareAndSet(true, false)) {
                     LOG.error(POST_PROCESSING_ERROR_LOG_MESSAGE, e);
@@ -216,10 +235,15 @@ public class HoneyClient implements AutoCloseable {
             "Validation failed: event must have at least 1 key-value pair in its fields");
     }
 
+    /*
+     * Fields take precedence over dynamic fields (this also makes sure the map parameter to the send(Map) method
+     * overwrites them), so dynamic fields are only added where there is no field of the same name.
+     */
     private void resolveDynamicFields(final Map<String, ValueSupplier<?>> dynamicFields,
-                                      final Map<String, Object> dataMap) {
+                                      final LayeredFieldMap dataMap) {
         for (final Map.Entry<String, ValueSupplier<?>> next : dynamicFields.entrySet()) {
-            dataMap.put(next.getKey(), next.getValue().supply());
+            final Object value = next.getValue().supply();
+            dataMap.putIfNotContained(next.getKey(), value);
         }
     }
 
@@ -233,6 +257,7 @@ public class HoneyClient implements AutoCloseable {
             sendEventPresampled(event);
         } else {
             LOG.trace("Event not sampled: {}", event);
+            notSampledEvents.increment();
             transport.getResponseObservable().publish(EventResponseFactory.notSampled(event));
         }
     }
@@ -247,7 +272,10 @@ public class HoneyClient implements AutoCloseable {
         if (resolvedEvent != null) {
             final boolean submitted = transport.submit(resolvedEvent);
             LOG.debug("Resolved event accepted onto queue: {}", resolvedEvent);
-            if (!submitted) {
+            if (submitted) {
+                submittedEvents.increment();
+            } else {
+                rejectedEvents.increment();
                 LOG.debug("Resolved event rejected due to queue overflow: {}", resolvedEvent);
                 transport.getResponseObservable().publish(EventResponseFactory.queueOverflow(resolvedEvent));
             }
@@ -307,6 +335,38 @@ public class HoneyClient implements AutoCloseable {
         transport.getResponseObservable().remove(observer);
     }
 
+    /**
+     * Add an observer that gets notified once about the outcome of every batch of events that the server responded
+     * to. This is cheaper than a {@link ResponseObserver} when events are sent at high throughput.
+     *
+     * @param observer to register.
+     */
+    public void addBatchResponseObserver(final BatchResponseObserver observer) {
+        transport.getResponseObservable().add(observer);
+    }
+
+    /**
+     * Remove the given batch observer, if response notifications are no longer required, or the reference
+     * should be released.
+     * Note that when cleaning up calling {@link #close()} will have the effect of clearing all observers.
+     *
+     * @param observer to remove.
+     */
+    public void removeBatchResponseObserver(final BatchResponseObserver observer) {
+        transport.getResponseObservable().remove(observer);
+    }
+
+    /**
+     * Takes a snapshot of the metrics of this client and its transport, such as the depth of the queue, the requests
+     * in flight and the events rejected so far. This is cheap enough to be polled periodically, e.g. to alarm on a
+     * queue that is filling up before events are rejected. See {@link TransportStats} for the metrics available.
+     *
+     * @return a snapshot of the metrics.
+     */
+    public TransportStats getStats() {
+        return metrics.snapshot();
+    }
+
     /**
      * Can be used to set this LibHoney instance as a global default. Shortcut for {@link LibHoney#getDefault()}.
      */
@@ -328,15 +388,27 @@ public class HoneyClient implements AutoCloseable {
      * After the initial call, further calls to this method have no effect.
      */
     // Catch-all, so this doesn't tank the caller in case of an exception. We log an error instead.
-    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    // CloseResource: false positive, the owned suppliers are closed in the loop
+    @SuppressWarnings({"PMD.AvoidCatchingGenericException", "PMD.CloseResource"})
     @Override
     public void close() {
         LOG.info("Close called on HoneyClient. Closing...");
+        // each is closed on its own, so that a failure to close one does not leave the others' threads running
+        closeQuietly(transport);
+        // suppliers passed in by the caller may be shared, so only those created on the caller's behalf are closed
+        for (final CachingValueSupplier<?> valueSupplier : ownedValueSuppliers) {
+            valueSupplier.close();
+        }
+        LOG.info("Finished close.");
+    }
+
+    // Catch-all, see close()
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private static void closeQuietly(final AutoCloseable closeable) {
         try {
-            transport.close();
+            closeable.close();
         } catch (final Exception e) {
             LOG.error("Closing HoneyClient's internals threw an exception", e);
         }
-        LOG.info("Finished close.");
     }
 }
@@ -23,6 +23,7 @@ public final class Metrics {
     private volatile Long enqueueTime;
     private volatile Long startOfHttpRequestTime;
     private volatile Long endOfHttpRequestTime;
+    private volatile int retryCount;
 
     // explicit init to null for clarity.
     @SuppressWarnings("PMD.NullAssignment")
@@ -75,6 +76,24 @@ public final class Metrics {
         this.endOfHttpRequestTime = clock.getMonotonicTime();
     }
 
+    /**
+     * Used by the {@link HoneyClient} internals to record that the event is going to be sent again, after its batch
+     * request failed. An event is only ever retried by one thread at a time.
+     */
+    public void markRetry() {
+        this.retryCount++;
+    }
+
+    /**
+     * Get the number of times the event was sent again after a failure, see
+     * {@link TransportOptions.Builder#setMaxRetries(int)}. The other measurements relate to the last attempt.
+     *
+     * @return the number of retries, 0 if the event was sent only once.
+     */
+    public int getRetryCount() {
+        return retryCount;
+    }
+
     /**
      * Get the elapsed time from the event being accepted by the {@link HoneyClient} until the event was submitted to
      * the HTTP client as part of a batch request.
@@ -137,6 +156,7 @@ public final class Metrics {
             ", enqueueTime=" + enqueueTime +
             ", startOfHttpRequestTime=" + startOfHttpRequestTime +
             ", endOfHttpRequestTime=" + endOfHttpRequestTime +
+            ", retryCount=" + retryCount +
             '}';
     }
 }
@@ -1,10 +1,14 @@
 package io.honeycomb.libhoney;
 
+import io.honeycomb.libhoney.sampling.ThreadLocalRandomSampler;
 import io.honeycomb.libhoney.utils.Assert;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
@@ -27,6 +31,7 @@ public class Options {
     public static final Map<String, Object> DEFAULT_FIELDS = Collections.emptyMap();
     public static final Map<String, ValueSupplier<?>> DEFAULT_DYNAMIC_FIELDS = Collections.emptyMap();
     public static final EventPostProcessor DEFAULT_EVENT_POST_PROCESSOR = null;
+    public static final Sampler DEFAULT_SAMPLER = ThreadLocalRandomSampler.getInstance();
     private static final Pattern CLASSIC_KEY_REGEX = Pattern.compile("^[a-f0-9]*$");
     private static final Pattern INGEST_CLASSIC_KEY_REGEX = Pattern.compile("^hc[a-z]ic_[a-z0-9]*$");
 
@@ -38,6 +43,8 @@ public class Options {
     private final Map<String, Object> globalFields;
     private final Map<String, ValueSupplier<?>> globalDynamicFields;
     private final EventPostProcessor eventPostProcessor;
+    private final Sampler sampler;
+    private final List<CachingValueSupplier<?>> ownedValueSuppliers;
 
     Options(final URI apiHost,
             final String writeKey,
@@ -45,7 +52,9 @@ public class Options {
             final Integer sampleRate,
             final Map<String, Object> globalFields,
             final Map<String, ValueSupplier<?>> globalDynamicFields,
-            final EventPostProcessor eventPostProcessor) {
+            final EventPostProcessor eventPostProcessor,
+            final Sampler sampler,
+            final List<CachingValueSupplier<?>> ownedValueSuppliers) {
         this.apiHost = getOrDefault(apiHost, DEFAULT_API_HOST);
         this.writeKey = getOrDefault(writeKey, DEFAULT_WRITE_KEY);
         this.dataset = getOrDefault(dataset, DEFAULT_DATASET);
@@ -53,6 +62,9 @@ public class Options {
         this.globalDynamicFields = new HashMap<>(getOrDefault(globalDynamicFields, DEFAULT_DYNAMIC_FIELDS));
         this.sampleRate = getOrDefault(sampleRate, DEFAULT_SAMPLE_RATE);
         this.eventPostProcessor = getOrDefault(eventPostProcessor, DEFAULT_EVENT_POST_PROCESSOR);
+        this.sampler = getOrDefault(sampler, DEFAULT_SAMPLER);
+        this.ownedValueSuppliers = new ArrayList<>(
+            getOrDefault(ownedValueSuppliers, Collections.<CachingValueSupplier<?>>emptyList()));
 
         Assert.isTrue(this.sampleRate >= 1, "sampleRate must be 1 or greater");
     }
@@ -141,6 +153,22 @@ public class Options {
         return eventPostProcessor;
     }
 
+    /**
+     * @return sampler.
+     * @see Builder#setSampler(Sampler)
+     */
+    public Sampler getSampler() {
+        return sampler;
+    }
+
+    /**
+     * @return suppliers owned by the client.
+     * @see Builder#setOwnedValueSuppliers(Collection)
+     */
+    public List<CachingValueSupplier<?>> getOwnedValueSuppliers() {
+        return ownedValueSuppliers;
+    }
+
     static Builder builder() {
         return new Builder();
     }
@@ -155,12 +183,15 @@ public class Options {
             ", globalFields=" + globalFields +
             ", globalDynamicFields=" + globalDynamicFields +
             ", eventPostProcessor=" + eventPostProcessor +
+            ", sampler=" + sampler +
             '}';
     }
 
     /**
      * Helper class to construct {@link Options}.
      */
+    // the setters return the builder so that calls can be chained
+    @SuppressWarnings("PMD.LinguisticNaming")
     public static class Builder {
         private URI apiHost;
         private String writeKey;
@@ -169,6 +200,8 @@ public class Options {
         private Map<String, Object> globalFields;
         private Map<String, ValueSupplier<?>> globalDynamicFields;
         private EventPostProcessor eventPostProcessor;
+        private Sampler sampler;
+        private List<CachingValueSupplier<?>> ownedValueSuppliers;
 
         /**
          * This creates a {@link Options} instance.
@@ -184,7 +217,9 @@ public class Options {
                 sampleRate,
                 globalFields,
                 globalDynamicFields,
-                eventPostProcessor);
+                eventPostProcessor,
+                sampler,
+                ownedValueSuppliers);
         }
 
         /**
@@ -347,6 +382,53 @@ public class Options {
             this.eventPostProcessor = eventPostProcessor;
             return this;
         }
+
+        /**
+         * @return the currently set sampler.
+         * @see Builder#setSampler
+         */
+        public Sampler getSampler() {
+            return sampler;
+        }
+
+        /**
+         * Set this to control which events get sent by {@link Event#send()}, based on their sample rate.
+         * See {@link Sampler} for details, and the {@link io.honeycomb.libhoney.sampling} package for implementations,
+         * e.g. to sample deterministically by trace ID or to apply sample rates per key. The client does not close
+         * the sampler, so one that is {@link AutoCloseable} must be closed by the caller.
+         * <p>
+         * Default: {@link ThreadLocalRandomSampler}
+         *
+         * @param sampler to set.
+         * @return this.
+         */
+        public Builder setSampler(final Sampler sampler) {
+            this.sampler = sampler;
+            return this;
+        }
+
+        /**
+         * @return the currently set ownedValueSuppliers.
+         * @see Builder#setOwnedValueSuppliers
+         */
+        public List<CachingValueSupplier<?>> getOwnedValueSuppliers() {
+            return ownedValueSuppliers;
+        }
+
+        /**
+         * Set this to hand ownership of caching suppliers over to the {@link HoneyClient}, which then closes them
+         * when it is closed. Any other supplier, e.g. one set with {@link #setGlobalDynamicFields(Map)} and shared
+         * with other clients, is never closed by the client.
+         * <p>
+         * Default: None
+         *
+         * @param ownedValueSuppliers to set.
+         * @return this.
+         */
+        public Builder setOwnedValueSuppliers(final Collection<? extends CachingValueSupplier<?>> ownedValueSuppliers) {
+            this.ownedValueSuppliers = new ArrayList<>(ownedValueSuppliers);
+            return this;
+        }
     }
 
 }
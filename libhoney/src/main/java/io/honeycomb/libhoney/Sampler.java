@@ -0,0 +1,25 @@
+package io.honeycomb.libhoney;
+
+/**
+ * Decides whether an event is sent to Honeycomb, as part of {@link Event#send()} and {@link EventFactory#send}.
+ * Events that are not sampled are reported back as a {@link io.honeycomb.libhoney.responses.ClientRejected} response
+ * with reason {@link io.honeycomb.libhoney.responses.ClientRejected.RejectionReason#NOT_SAMPLED}. Events sent with
+ * {@link Event#sendPresampled()} bypass the sampler.
+ * <p>
+ * The sampler sees the event before its dynamic fields are resolved, so only its fixed fields are available to it.
+ * A sampler may change the event's sample rate (e.g. to apply a rate per key), in which case the decision must be made
+ * based on the new rate, as that is the rate the event is sent with. The default is
+ * {@link io.honeycomb.libhoney.sampling.ThreadLocalRandomSampler}, and further implementations are in the
+ * {@link io.honeycomb.libhoney.sampling} package.
+ * <p>
+ * Sampling occurs on the thread that invokes any of the send*() methods, so implementations must be threadsafe.
+ * A sampler may be shared by several clients, so {@link HoneyClient} never closes it; samplers that also implement
+ * {@link AutoCloseable} must be closed by the caller, once all clients using them are closed.
+ */
+public interface Sampler {
+    /**
+     * @param event to make the sampling decision for.
+     * @return true if the event should be sent.
+     */
+    boolean sample(Event event);
+}
@@ -9,6 +9,7 @@ import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
 import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.client.CredentialsProvider;
 
+import java.io.File;
 import java.net.URI;
 import javax.net.ssl.SSLContext;
 
@@ -26,8 +27,21 @@ public class TransportOptions {
     /// batching defaults
     public static final int DEFAULT_BATCH_SIZE = 50;
     public static final long DEFAULT_BATCH_TIMEOUT = 100L;
+    public static final int DEFAULT_MAX_BATCH_BYTES = 5_000_000;
+    public static final int DEFAULT_MAX_EVENT_BYTES = 1_000_000;
     public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    public static final QueueType DEFAULT_QUEUE_TYPE = QueueType.ARRAY_BLOCKING_QUEUE;
+    public static final QueueOverflowPolicy DEFAULT_QUEUE_OVERFLOW_POLICY = QueueOverflowPolicy.REJECT;
+    public static final long DEFAULT_QUEUE_OFFER_TIMEOUT_MILLIS = 100L;
+    public static final double DEFAULT_QUEUE_SHED_THRESHOLD = 0.5;
     public static final int DEFAULT_MAX_PENDING_BATCH_REQUESTS = 250;
+    public static final ConcurrencyLimiterType DEFAULT_CONCURRENCY_LIMITER = ConcurrencyLimiterType.FIXED;
+    public static final int DEFAULT_BATCHER_SHARDS = 1;
+    public static final int DEFAULT_SERIALIZER_THREADS = 0;
+    public static final int DEFAULT_SERIALIZER_QUEUE_CAPACITY = 100;
+    public static final int DEFAULT_RESPONSE_DISPATCH_THREADS = 0;
+    public static final int DEFAULT_RESPONSE_QUEUE_CAPACITY = 10_000;
+    public static final ResponseOverflowPolicy DEFAULT_RESPONSE_OVERFLOW_POLICY = ResponseOverflowPolicy.DROP_NEWEST;
 
     /// HTTP client defaults
     public static final int DEFAULT_MAX_CONNECTIONS = 200;
@@ -39,12 +53,35 @@ public class TransportOptions {
     public static final int DEFAULT_IO_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
     public static final long DEFAULT_MAX_HTTP_REQUEST_SHUTDOWN_WAIT = 2000L;
     public static final String DEFAULT_ADDITIONAL_USER_AGENT = "";
+    public static final BatchEncoding DEFAULT_BATCH_ENCODING = BatchEncoding.JSON;
+    public static final RequestCompression DEFAULT_REQUEST_COMPRESSION = RequestCompression.NONE;
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+    public static final int DEFAULT_MAX_RETRIES = 0;
+    public static final long DEFAULT_RETRY_INITIAL_BACKOFF_MILLIS = 100L;
+    public static final long DEFAULT_RETRY_MAX_BACKOFF_MILLIS = 10_000L;
+    public static final double DEFAULT_RETRY_BUDGET_RATIO = 0.1;
+    public static final int DEFAULT_SPOOL_SEGMENT_BYTES = 16 * 1024 * 1024;
+    public static final long DEFAULT_SPOOL_MAX_BYTES = 256L * 1024 * 1024;
+    public static final boolean DEFAULT_JMX_ENABLED = false;
 
     /// batching properties
     private final int batchSize;
     private final long batchTimeoutMillis;
+    private final int maxBatchBytes;
+    private final int maxEventBytes;
     private final int queueCapacity;
+    private final QueueType queueType;
+    private final QueueOverflowPolicy queueOverflowPolicy;
+    private final long queueOfferTimeoutMillis;
+    private final double queueShedThreshold;
     private final int maxPendingBatchRequests;
+    private final ConcurrencyLimiterType concurrencyLimiter;
+    private final int batcherShards;
+    private final int serializerThreads;
+    private final int serializerQueueCapacity;
+    private final int responseDispatchThreads;
+    private final int responseQueueCapacity;
+    private final ResponseOverflowPolicy responseOverflowPolicy;
 
     /// HTTP client properties
     private final int maxConnections;
@@ -56,6 +93,18 @@ public class TransportOptions {
     private final int ioThreadCount;
     private final long maximumHttpRequestShutdownWait;
     private final String additionalUserAgent;
+    private final BatchEncoding batchEncoding;
+    private final RequestCompression requestCompression;
+    private final int compressionThreshold;
+    private final int maxRetries;
+    private final long retryInitialBackoffMillis;
+    private final long retryMaxBackoffMillis;
+    private final double retryBudgetRatio;
+    //Nullable
+    private final File spoolDirectory;
+    private final int spoolSegmentBytes;
+    private final long spoolMaxBytes;
+    private final boolean jmxEnabled;
     private final HttpHost proxy;
     private final SSLContext sslContext;
     private final CredentialsProvider credentialsProvider;
@@ -64,8 +113,21 @@ public class TransportOptions {
     @SuppressWarnings("PMD.ExcessiveParameterList")
     TransportOptions(final Integer batchSize,
                      final Long batchTimeoutMillis,
+                     final Integer maxBatchBytes,
+                     final Integer maxEventBytes,
                      final Integer queueCapacity,
+                     final QueueType queueType,
+                     final QueueOverflowPolicy queueOverflowPolicy,
+                     final Long queueOfferTimeoutMillis,
+                     final Double queueShedThreshold,
                      final Integer maxPendingBatchRequests,
+                     final ConcurrencyLimiterType concurrencyLimiter,
+                     final Integer batcherShards,
+                     final Integer serializerThreads,
+                     final Integer serializerQueueCapacity,
+                     final Integer responseDispatchThreads,
+                     final Integer responseQueueCapacity,
+                     final ResponseOverflowPolicy responseOverflowPolicy,
                      final Integer maxConnections,
                      final Integer maxConnectionsPerApiHost,
                      final Integer connectTimeout,
@@ -75,6 +137,17 @@ public class TransportOptions {
                      final Integer ioThreadCount,
                      final Long maximumHttpRequestShutdownWait,
                      final String additionalUserAgent,
+                     final BatchEncoding batchEncoding,
+                     final RequestCompression requestCompression,
+                     final Integer compressionThreshold,
+                     final Integer maxRetries,
+                     final Long retryInitialBackoffMillis,
+                     final Long retryMaxBackoffMillis,
+                     final Double retryBudgetRatio,
+                     final File spoolDirectory,
+                     final Integer spoolSegmentBytes,
+                     final Long spoolMaxBytes,
+                     final Boolean jmxEnabled,
                      final HttpHost proxy,
                      final SSLContext sslContext,
                      final CredentialsProvider credentialsProvider) {
@@ -82,8 +155,21 @@ public class TransportOptions {
         //Batching-specific
         this.batchSize = getOrDefault(batchSize, DEFAULT_BATCH_SIZE);
         this.batchTimeoutMillis = getOrDefault(batchTimeoutMillis, DEFAULT_BATCH_TIMEOUT);
+        this.maxBatchBytes = getOrDefault(maxBatchBytes, DEFAULT_MAX_BATCH_BYTES);
+        this.maxEventBytes = getOrDefault(maxEventBytes, DEFAULT_MAX_EVENT_BYTES);
         this.queueCapacity = getOrDefault(queueCapacity, DEFAULT_QUEUE_CAPACITY);
+        this.queueType = getOrDefault(queueType, DEFAULT_QUEUE_TYPE);
+        this.queueOverflowPolicy = getOrDefault(queueOverflowPolicy, DEFAULT_QUEUE_OVERFLOW_POLICY);
+        this.queueOfferTimeoutMillis = getOrDefault(queueOfferTimeoutMillis, DEFAULT_QUEUE_OFFER_TIMEOUT_MILLIS);
+        this.queueShedThreshold = getOrDefault(queueShedThreshold, DEFAULT_QUEUE_SHED_THRESHOLD);
         this.maxPendingBatchRequests = getOrDefault(maxPendingBatchRequests, DEFAULT_MAX_PENDING_BATCH_REQUESTS);
+        this.concurrencyLimiter = getOrDefault(concurrencyLimiter, DEFAULT_CONCURRENCY_LIMITER);
+        this.batcherShards = getOrDefault(batcherShards, DEFAULT_BATCHER_SHARDS);
+        this.serializerThreads = getOrDefault(serializerThreads, DEFAULT_SERIALIZER_THREADS);
+        this.serializerQueueCapacity = getOrDefault(serializerQueueCapacity, DEFAULT_SERIALIZER_QUEUE_CAPACITY);
+        this.responseDispatchThreads = getOrDefault(responseDispatchThreads, DEFAULT_RESPONSE_DISPATCH_THREADS);
+        this.responseQueueCapacity = getOrDefault(responseQueueCapacity, DEFAULT_RESPONSE_QUEUE_CAPACITY);
+        this.responseOverflowPolicy = getOrDefault(responseOverflowPolicy, DEFAULT_RESPONSE_OVERFLOW_POLICY);
 
         //HTTP client-specific
         this.maxConnections = getOrDefault(maxConnections, DEFAULT_MAX_CONNECTIONS);
@@ -96,15 +182,42 @@ public class TransportOptions {
         this.maximumHttpRequestShutdownWait = getOrDefault(maximumHttpRequestShutdownWait,
             DEFAULT_MAX_HTTP_REQUEST_SHUTDOWN_WAIT);
         this.additionalUserAgent = getOrDefault(additionalUserAgent, DEFAULT_ADDITIONAL_USER_AGENT);
+        this.batchEncoding = getOrDefault(batchEncoding, DEFAULT_BATCH_ENCODING);
+        this.requestCompression = getOrDefault(requestCompression, DEFAULT_REQUEST_COMPRESSION);
+        this.compressionThreshold = getOrDefault(compressionThreshold, DEFAULT_COMPRESSION_THRESHOLD);
+        this.maxRetries = getOrDefault(maxRetries, DEFAULT_MAX_RETRIES);
+        this.retryInitialBackoffMillis = getOrDefault(retryInitialBackoffMillis, DEFAULT_RETRY_INITIAL_BACKOFF_MILLIS);
+        this.retryMaxBackoffMillis = getOrDefault(retryMaxBackoffMillis, DEFAULT_RETRY_MAX_BACKOFF_MILLIS);
+        this.retryBudgetRatio = getOrDefault(retryBudgetRatio, DEFAULT_RETRY_BUDGET_RATIO);
+        this.spoolDirectory = spoolDirectory;
+        this.spoolSegmentBytes = getOrDefault(spoolSegmentBytes, DEFAULT_SPOOL_SEGMENT_BYTES);
+        this.spoolMaxBytes = getOrDefault(spoolMaxBytes, DEFAULT_SPOOL_MAX_BYTES);
+        this.jmxEnabled = getOrDefault(jmxEnabled, DEFAULT_JMX_ENABLED);
         this.proxy = proxy;
         this.sslContext = sslContext;
         this.credentialsProvider = credentialsProvider;
 
         Assert.isTrue(this.batchSize >= 1, "batchSize must be 1 or greater");
         Assert.isTrue(this.batchTimeoutMillis >= 1, "batchTimeoutMillis must be 1 or greater");
+        Assert.isTrue(this.maxBatchBytes >= 1, "maxBatchBytes must be 1 or greater");
+        Assert.isTrue(this.maxEventBytes >= 1, "maxEventBytes must be 1 or greater");
         Assert.isTrue(this.queueCapacity >= 1, "queueCapacity must be 1 or greater");
+        Assert.isTrue(this.queueOfferTimeoutMillis >= 1, "queueOfferTimeoutMillis must be 1 or greater");
+        Assert.isTrue((this.queueShedThreshold >= 0) && (this.queueShedThreshold < 1),
+            "queueShedThreshold must be at least 0 and less than 1");
+        // dropping the oldest event takes it off the queue on the sending thread, which the ring buffer does not allow
+        Assert.isFalse(this.queueType == QueueType.MPSC_RING_BUFFER
+                && this.queueOverflowPolicy == QueueOverflowPolicy.DROP_OLDEST,
+            "queueOverflowPolicy DROP_OLDEST cannot be combined with queueType MPSC_RING_BUFFER");
         Assert.isFalse(this.maxPendingBatchRequests == 0, "maxPendingBatchRequests must not be 0");
         Assert.isFalse(this.maxPendingBatchRequests < -1, "maxPendingBatchRequests must not be less than -1");
+        Assert.isFalse(this.concurrencyLimiter != ConcurrencyLimiterType.FIXED && this.maxPendingBatchRequests == -1,
+            "maxPendingBatchRequests must not be -1 with an adaptive concurrencyLimiter");
+        Assert.isTrue(this.batcherShards >= 1, "batcherShards must be 1 or greater");
+        Assert.isTrue(this.serializerThreads >= 0, "serializerThreads must be 0 or greater");
+        Assert.isTrue(this.serializerQueueCapacity >= 1, "serializerQueueCapacity must be 1 or greater");
+        Assert.isTrue(this.responseDispatchThreads >= 0, "responseDispatchThreads must be 0 or greater");
+        Assert.isTrue(this.responseQueueCapacity >= 1, "responseQueueCapacity must be 1 or greater");
 
         Assert.isTrue(this.maxConnections >= 1, "maxConnections must be 1 or greater");
         Assert.isTrue(this.maxConnectionsPerApiHost >= 1, "maxConnectionsPerApiHost must be 1 or greater");
@@ -114,6 +227,16 @@ public class TransportOptions {
             "ioThreadCount must be at least 1 and at most the number of available CPU cores");
         Assert.isTrue(this.maximumHttpRequestShutdownWait > 0,
             "maximumHttpRequestShutdownWait must be positive");
+        Assert.isTrue(this.compressionThreshold >= 0, "compressionThreshold must be 0 or greater");
+        Assert.isTrue(this.maxRetries >= 0, "maxRetries must be 0 or greater");
+        Assert.isTrue(this.retryInitialBackoffMillis >= 1, "retryInitialBackoffMillis must be 1 or greater");
+        Assert.isTrue(this.retryMaxBackoffMillis >= this.retryInitialBackoffMillis,
+            "retryMaxBackoffMillis must not be less than retryInitialBackoffMillis");
+        Assert.isTrue((this.retryBudgetRatio >= 0) && (this.retryBudgetRatio <= 1),
+            "retryBudgetRatio must be between 0 and 1");
+        Assert.isTrue(this.spoolSegmentBytes >= 4096, "spoolSegmentBytes must be 4096 or greater");
+        Assert.isTrue(this.spoolMaxBytes >= this.spoolSegmentBytes,
+            "spoolMaxBytes must not be less than spoolSegmentBytes");
     }
 
     /**
@@ -132,6 +255,22 @@ public class TransportOptions {
         return batchTimeoutMillis;
     }
 
+    /**
+     * @return max batch bytes.
+     * @see TransportOptions.Builder#setMaxBatchBytes(int)
+     */
+    public int getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    /**
+     * @return max event bytes.
+     * @see TransportOptions.Builder#setMaxEventBytes(int)
+     */
+    public int getMaxEventBytes() {
+        return maxEventBytes;
+    }
+
     /**
      * @return queue capacity.
      * @see TransportOptions.Builder#setQueueCapacity(int)
@@ -140,6 +279,38 @@ public class TransportOptions {
         return queueCapacity;
     }
 
+    /**
+     * @return queue type.
+     * @see TransportOptions.Builder#setQueueType(QueueType)
+     */
+    public QueueType getQueueType() {
+        return queueType;
+    }
+
+    /**
+     * @return queue overflow policy.
+     * @see TransportOptions.Builder#setQueueOverflowPolicy(QueueOverflowPolicy)
+     */
+    public QueueOverflowPolicy getQueueOverflowPolicy() {
+        return queueOverflowPolicy;
+    }
+
+    /**
+     * @return maximum wait for space in the queue (ms).
+     * @see TransportOptions.Builder#setQueueOfferTimeoutMillis(long)
+     */
+    public long getQueueOfferTimeoutMillis() {
+        return queueOfferTimeoutMillis;
+    }
+
+    /**
+     * @return fill level of the queue from which on events are shed.
+     * @see TransportOptions.Builder#setQueueShedThreshold(double)
+     */
+    public double getQueueShedThreshold() {
+        return queueShedThreshold;
+    }
+
     /**
      * @return maximum pending connections.
      * @see TransportOptions.Builder#setMaximumPendingBatchRequests(int)
@@ -148,6 +319,62 @@ public class TransportOptions {
         return maxPendingBatchRequests;
     }
 
+    /**
+     * @return how the number of pending batch requests is limited.
+     * @see TransportOptions.Builder#setConcurrencyLimiter(ConcurrencyLimiterType)
+     */
+    public ConcurrencyLimiterType getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * @return number of batcher shards.
+     * @see TransportOptions.Builder#setBatcherShards(int)
+     */
+    public int getBatcherShards() {
+        return batcherShards;
+    }
+
+    /**
+     * @return number of serializer threads.
+     * @see TransportOptions.Builder#setSerializerThreads(int)
+     */
+    public int getSerializerThreads() {
+        return serializerThreads;
+    }
+
+    /**
+     * @return serializer queue capacity.
+     * @see TransportOptions.Builder#setSerializerQueueCapacity(int)
+     */
+    public int getSerializerQueueCapacity() {
+        return serializerQueueCapacity;
+    }
+
+    /**
+     * @return number of response dispatch threads.
+     * @see TransportOptions.Builder#setResponseDispatchThreads(int)
+     */
+    public int getResponseDispatchThreads() {
+        return responseDispatchThreads;
+    }
+
+    /**
+     * @return response queue capacity.
+     * @see TransportOptions.Builder#setResponseQueueCapacity(int)
+     */
+    public int getResponseQueueCapacity() {
+        return responseQueueCapacity;
+    }
+
+    /**
+     * @return response overflow policy.
+     * @see TransportOptions.Builder#setResponseOverflowPolicy(ResponseOverflowPolicy)
+     */
+    public ResponseOverflowPolicy getResponseOverflowPolicy() {
+        return responseOverflowPolicy;
+    }
+
     /**
      * @return max connections.
      * @see TransportOptions.Builder#setMaxConnections(int)
@@ -216,6 +443,94 @@ public class TransportOptions {
         return additionalUserAgent;
     }
 
+    /**
+     * @return batch encoding.
+     * @see TransportOptions.Builder#setBatchEncoding(BatchEncoding)
+     */
+    public BatchEncoding getBatchEncoding() {
+        return batchEncoding;
+    }
+
+    /**
+     * @return request compression.
+     * @see TransportOptions.Builder#setRequestCompression(RequestCompression)
+     */
+    public RequestCompression getRequestCompression() {
+        return requestCompression;
+    }
+
+    /**
+     * @return compression threshold in bytes.
+     * @see TransportOptions.Builder#setCompressionThreshold(int)
+     */
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * @return maximum number of retries per event.
+     * @see TransportOptions.Builder#setMaxRetries(int)
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @return backoff before the first retry.
+     * @see TransportOptions.Builder#setRetryInitialBackoffMillis(long)
+     */
+    public long getRetryInitialBackoffMillis() {
+        return retryInitialBackoffMillis;
+    }
+
+    /**
+     * @return maximum backoff before a retry.
+     * @see TransportOptions.Builder#setRetryMaxBackoffMillis(long)
+     */
+    public long getRetryMaxBackoffMillis() {
+        return retryMaxBackoffMillis;
+    }
+
+    /**
+     * @return ratio of retried to sent events.
+     * @see TransportOptions.Builder#setRetryBudgetRatio(double)
+     */
+    public double getRetryBudgetRatio() {
+        return retryBudgetRatio;
+    }
+
+    /**
+     * @return directory of the spool, or null if events are not spooled.
+     * @see TransportOptions.Builder#setSpoolDirectory(File)
+     */
+    public File getSpoolDirectory() {
+        return spoolDirectory;
+    }
+
+    /**
+     * @return size of a spool segment in bytes.
+     * @see TransportOptions.Builder#setSpoolSegmentBytes(int)
+     */
+    public int getSpoolSegmentBytes() {
+        return spoolSegmentBytes;
+    }
+
+    /**
+     * @return maximum size of the spool in bytes.
+     * @see TransportOptions.Builder#setSpoolMaxBytes(long)
+     */
+    public long getSpoolMaxBytes() {
+        return spoolMaxBytes;
+    }
+
+    /**
+     * @return whether the transport is registered as an MBean.
+     * @see TransportOptions.Builder#setJmxEnabled(boolean)
+     */
+    public boolean isJmxEnabled() {
+        return jmxEnabled;
+    }
+
     public HttpHost getProxy() {
         return proxy;
     }
@@ -237,8 +552,21 @@ public class TransportOptions {
         return "TransportOptions{" +
             "batchSize=" + batchSize +
             ", batchTimeoutMillis=" + batchTimeoutMillis +
+            ", maxBatchBytes=" + maxBatchBytes +
+            ", maxEventBytes=" + maxEventBytes +
             ", queueCapacity=" + queueCapacity +
+            ", queueType=" + queueType +
+            ", queueOverflowPolicy=" + queueOverflowPolicy +
+            ", queueOfferTimeoutMillis=" + queueOfferTimeoutMillis +
+            ", queueShedThreshold=" + queueShedThreshold +
             ", maxPendingBatchRequests=" + maxPendingBatchRequests +
+            ", concurrencyLimiter=" + concurrencyLimiter +
+            ", batcherShards=" + batcherShards +
+            ", serializerThreads=" + serializerThreads +
+            ", serializerQueueCapacity=" + serializerQueueCapacity +
+            ", responseDispatchThreads=" + responseDispatchThreads +
+            ", responseQueueCapacity=" + responseQueueCapacity +
+            ", responseOverflowPolicy=" + responseOverflowPolicy +
             ", maxConnections=" + maxConnections +
             ", maxConnectionsPerApiHost=" + maxConnectionsPerApiHost +
             ", connectTimeout=" + connectTimeout +
@@ -248,18 +576,45 @@ public class TransportOptions {
             ", ioThreadCount=" + ioThreadCount +
             ", maximumHttpRequestShutdownWait=" + maximumHttpRequestShutdownWait +
             ", additionalUserAgent=" + additionalUserAgent +
+            ", batchEncoding=" + batchEncoding +
+            ", requestCompression=" + requestCompression +
+            ", compressionThreshold=" + compressionThreshold +
+            ", maxRetries=" + maxRetries +
+            ", retryInitialBackoffMillis=" + retryInitialBackoffMillis +
+            ", retryMaxBackoffMillis=" + retryMaxBackoffMillis +
+            ", retryBudgetRatio=" + retryBudgetRatio +
+            ", spoolDirectory=" + spoolDirectory +
+            ", spoolSegmentBytes=" + spoolSegmentBytes +
+            ", spoolMaxBytes=" + spoolMaxBytes +
+            ", jmxEnabled=" + jmxEnabled +
             '}';
     }
 
     /**
      * Helper class to construct {@link TransportOptions}.
      */
+    // LinguisticNaming: the setters return the builder so that calls can be chained.
+    // CyclomaticComplexity: the total is high only because there is a getter and setter for every option.
+    @SuppressWarnings({"PMD.LinguisticNaming", "PMD.CyclomaticComplexity"})
     public static class Builder {
         /// batching properties
         private Integer batchSize;
         private Long batchTimeoutMillis;
+        private Integer maxBatchBytes;
+        private Integer maxEventBytes;
         private Integer queueCapacity;
+        private QueueType queueType;
+        private QueueOverflowPolicy queueOverflowPolicy;
+        private Long queueOfferTimeoutMillis;
+        private Double queueShedThreshold;
         private Integer maximumPendingBatchRequests;
+        private ConcurrencyLimiterType concurrencyLimiter;
+        private Integer batcherShards;
+        private Integer serializerThreads;
+        private Integer serializerQueueCapacity;
+        private Integer responseDispatchThreads;
+        private Integer responseQueueCapacity;
+        private ResponseOverflowPolicy responseOverflowPolicy;
 
         /// HTTP client properties
         private Integer maxConnections;
@@ -271,6 +626,17 @@ public class TransportOptions {
         private Integer ioThreadCount;
         private Long maximumHttpRequestShutdownWait;
         private String additionalUserAgent;
+        private BatchEncoding batchEncoding;
+        private RequestCompression requestCompression;
+        private Integer compressionThreshold;
+        private Integer maxRetries;
+        private Long retryInitialBackoffMillis;
+        private Long retryMaxBackoffMillis;
+        private Double retryBudgetRatio;
+        private File spoolDirectory;
+        private Integer spoolSegmentBytes;
+        private Long spoolMaxBytes;
+        private Boolean jmxEnabled;
         private HttpHost proxy;
         private SSLContext sslContext;
         private CredentialsProvider credentialsProvider;
@@ -285,8 +651,21 @@ public class TransportOptions {
             return new TransportOptions(
                 batchSize,
                 batchTimeoutMillis,
+                maxBatchBytes,
+                maxEventBytes,
                 queueCapacity,
+                queueType,
+                queueOverflowPolicy,
+                queueOfferTimeoutMillis,
+                queueShedThreshold,
                 maximumPendingBatchRequests,
+                concurrencyLimiter,
+                batcherShards,
+                serializerThreads,
+                serializerQueueCapacity,
+                responseDispatchThreads,
+                responseQueueCapacity,
+                responseOverflowPolicy,
                 maxConnections,
                 maxConnectionsPerApiHost,
                 connectTimeout,
@@ -296,6 +675,17 @@ public class TransportOptions {
                 ioThreadCount,
                 maximumHttpRequestShutdownWait,
                 additionalUserAgent,
+                batchEncoding,
+                requestCompression,
+                compressionThreshold,
+                maxRetries,
+                retryInitialBackoffMillis,
+                retryMaxBackoffMillis,
+                retryBudgetRatio,
+                spoolDirectory,
+                spoolSegmentBytes,
+                spoolMaxBytes,
+                jmxEnabled,
                 proxy,
                 sslContext,
                 credentialsProvider);
@@ -355,6 +745,52 @@ public class TransportOptions {
             return this;
         }
 
+        /**
+         * @return the currently set maxBatchBytes.
+         * @see TransportOptions.Builder#setMaxBatchBytes(int)
+         */
+        public Integer getMaxBatchBytes() {
+            return maxBatchBytes;
+        }
+
+        /**
+         * This sets the maximum size in bytes of a batch, as estimated from its events' fields. A batch is sent as
+         * soon as it reaches either this size or the {@link #setBatchSize(int) batch size}, whichever comes first.
+         * This keeps the body of batch requests below the limit of the Honeycomb API.
+         * <p>
+         * Default: 5000000
+         *
+         * @param maxBatchBytes to set.
+         * @return this.
+         */
+        public TransportOptions.Builder setMaxBatchBytes(final int maxBatchBytes) {
+            this.maxBatchBytes = maxBatchBytes;
+            return this;
+        }
+
+        /**
+         * @return the currently set maxEventBytes.
+         * @see TransportOptions.Builder#setMaxEventBytes(int)
+         */
+        public Integer getMaxEventBytes() {
+            return maxEventBytes;
+        }
+
+        /**
+         * This sets the maximum size in bytes of a single event, as estimated from its fields. Larger events are
+         * rejected before they are queued, since the Honeycomb API would reject them anyway.
+         * <p>
+         * Default: 1000000
+         *
+         * @param maxEventBytes to set.
+         * @return this.
+         * @see io.honeycomb.libhoney.responses.ClientRejected.RejectionReason#EVENT_TOO_LARGE
+         */
+        public TransportOptions.Builder setMaxEventBytes(final int maxEventBytes) {
+            this.maxEventBytes = maxEventBytes;
+            return this;
+        }
+
         /**
          * @return the currently set queueCapacity.
          * @see TransportOptions.Builder#setQueueCapacity(int)
@@ -382,6 +818,100 @@ public class TransportOptions {
             return this;
         }
 
+        /**
+         * @return the currently set queueType.
+         * @see TransportOptions.Builder#setQueueType(QueueType)
+         */
+        public QueueType getQueueType() {
+            return queueType;
+        }
+
+        /**
+         * This sets the implementation of the queue that events are submitted to before they get processed for
+         * batching. See {@link QueueType} for the available implementations.
+         * <p>
+         * Default: {@link QueueType#ARRAY_BLOCKING_QUEUE}
+         *
+         * @param queueType to set.
+         * @return this.
+         * @see #setQueueCapacity(int)
+         */
+        public TransportOptions.Builder setQueueType(final QueueType queueType) {
+            this.queueType = queueType;
+            return this;
+        }
+
+        /**
+         * @return the currently set queueOverflowPolicy.
+         * @see TransportOptions.Builder#setQueueOverflowPolicy(QueueOverflowPolicy)
+         */
+        public QueueOverflowPolicy getQueueOverflowPolicy() {
+            return queueOverflowPolicy;
+        }
+
+        /**
+         * This sets what happens to events that are sent while the queue is full, or, with
+         * {@link QueueOverflowPolicy#SHED}, filling up. See {@link QueueOverflowPolicy} for the available policies.
+         * <p>
+         * Default: {@link QueueOverflowPolicy#REJECT}
+         *
+         * @param queueOverflowPolicy to set.
+         * @return this.
+         * @see #setQueueCapacity(int)
+         */
+        public TransportOptions.Builder setQueueOverflowPolicy(final QueueOverflowPolicy queueOverflowPolicy) {
+            this.queueOverflowPolicy = queueOverflowPolicy;
+            return this;
+        }
+
+        /**
+         * @return the currently set queueOfferTimeoutMillis.
+         * @see TransportOptions.Builder#setQueueOfferTimeoutMillis(long)
+         */
+        public Long getQueueOfferTimeoutMillis() {
+            return queueOfferTimeoutMillis;
+        }
+
+        /**
+         * This sets how long the thread sending an event waits for space in a full queue before the event is
+         * rejected.
+         * <p>
+         * Only applies with {@link QueueOverflowPolicy#BLOCK}.
+         * <p>
+         * Default: 100
+         *
+         * @param queueOfferTimeoutMillis to set.
+         * @return this.
+         */
+        public TransportOptions.Builder setQueueOfferTimeoutMillis(final long queueOfferTimeoutMillis) {
+            this.queueOfferTimeoutMillis = queueOfferTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * @return the currently set queueShedThreshold.
+         * @see TransportOptions.Builder#setQueueShedThreshold(double)
+         */
+        public Double getQueueShedThreshold() {
+            return queueShedThreshold;
+        }
+
+        /**
+         * This sets the fill level of the queue, as a share of its capacity, from which on events are shed. Beyond it,
+         * the share of events kept falls in line with the remaining capacity.
+         * <p>
+         * Only applies with {@link QueueOverflowPolicy#SHED}.
+         * <p>
+         * Default: 0.5
+         *
+         * @param queueShedThreshold to set, at least 0 and less than 1.
+         * @return this.
+         */
+        public TransportOptions.Builder setQueueShedThreshold(final double queueShedThreshold) {
+            this.queueShedThreshold = queueShedThreshold;
+            return this;
+        }
+
         /**
          * @return the currently set maxPendingBatchRequests
          * @see io.honeycomb.libhoney.transport.batch.BatchConsumer#consume(java.util.List)
@@ -428,6 +958,192 @@ public class TransportOptions {
             return this;
         }
 
+        /**
+         * @return the currently set concurrencyLimiter.
+         * @see TransportOptions.Builder#setConcurrencyLimiter(ConcurrencyLimiterType)
+         */
+        public ConcurrencyLimiterType getConcurrencyLimiter() {
+            return concurrencyLimiter;
+        }
+
+        /**
+         * This determines how the number of batch requests pending completion is limited. With
+         * {@link ConcurrencyLimiterType#FIXED}, up to {@link #setMaximumPendingBatchRequests(int)} requests may be
+         * pending at any time. With {@link ConcurrencyLimiterType#AIMD}, the limit adapts to the latency and failures
+         * of requests, within the bounds of 1 and that maximum, which must then not be -1.
+         * <p>
+         * The current limit is available from
+         * {@link io.honeycomb.libhoney.transport.batch.impl.HoneycombBatchConsumer#getConcurrencyLimit()}.
+         * <p>
+         * Default: {@link ConcurrencyLimiterType#FIXED}
+         *
+         * @param concurrencyLimiter to set.
+         * @return this.
+         * @see #setMaximumPendingBatchRequests(int)
+         */
+        public TransportOptions.Builder setConcurrencyLimiter(final ConcurrencyLimiterType concurrencyLimiter) {
+            this.concurrencyLimiter = concurrencyLimiter;
+            return this;
+        }
+
+        /**
+         * @return the currently set batcherShards.
+         * @see TransportOptions.Builder#setBatcherShards(int)
+         */
+        public Integer getBatcherShards() {
+            return batcherShards;
+        }
+
+        /**
+         * This sets the number of independent shards the batching work is split across. Each shard has its own queue,
+         * batches and worker thread, which does the batching and submits batch requests to the
+         * {@link io.honeycomb.libhoney.transport.batch.BatchConsumer}.
+         * <p>
+         * Events are assigned to shards by the hash of their batch key, so this only increases throughput for
+         * applications that send events with several distinct combinations of write key, dataset name and API host.
+         * See {@link Event#setWriteKey(String)}, {@link Event#setDataset(String)}, and {@link Event#setApiHost(URI)}.
+         * <p>
+         * The queue capacity (see {@link #setQueueCapacity(int)}) is divided evenly between the shards' queues.
+         * <p>
+         * Default: 1
+         *
+         * @param batcherShards to set.
+         * @return this.
+         * @see io.honeycomb.libhoney.transport.batch.impl.ShardedBatcher
+         */
+        public TransportOptions.Builder setBatcherShards(final int batcherShards) {
+            this.batcherShards = batcherShards;
+            return this;
+        }
+
+        /**
+         * @return the currently set serializerThreads.
+         * @see TransportOptions.Builder#setSerializerThreads(int)
+         */
+        public Integer getSerializerThreads() {
+            return serializerThreads;
+        }
+
+        /**
+         * This sets the number of threads that serialize batches into HTTP requests and submit them to the HTTP
+         * client. Set to 0 to do this on the batching thread itself.
+         * <p>
+         * With dedicated threads, full batches are handed over via a bounded queue (see
+         * {@link #setSerializerQueueCapacity(int)}), so the batching thread keeps draining the event queue while
+         * batches are being serialized, or are waiting for the number of pending batch requests to drop
+         * (see {@link #setMaximumPendingBatchRequests(int)}).
+         * <p>
+         * Default: 0
+         *
+         * @param serializerThreads to set.
+         * @return this.
+         * @see io.honeycomb.libhoney.transport.batch.impl.PipelinedBatchConsumer
+         */
+        public TransportOptions.Builder setSerializerThreads(final int serializerThreads) {
+            this.serializerThreads = serializerThreads;
+            return this;
+        }
+
+        /**
+         * @return the currently set serializerQueueCapacity.
+         * @see TransportOptions.Builder#setSerializerQueueCapacity(int)
+         */
+        public Integer getSerializerQueueCapacity() {
+            return serializerQueueCapacity;
+        }
+
+        /**
+         * This sets the maximum number of full batches that can wait for a serializer thread. Once reached, the
+         * batching thread blocks until a batch has been taken off this queue, which in turn lets the event queue
+         * fill up and eventually overflow.
+         * <p>
+         * Only applies if {@link #setSerializerThreads(int)} is greater than 0.
+         * <p>
+         * Default: 100
+         *
+         * @param serializerQueueCapacity to set.
+         * @return this.
+         */
+        public TransportOptions.Builder setSerializerQueueCapacity(final int serializerQueueCapacity) {
+            this.serializerQueueCapacity = serializerQueueCapacity;
+            return this;
+        }
+
+        /**
+         * @return the currently set responseDispatchThreads.
+         * @see TransportOptions.Builder#setResponseDispatchThreads(int)
+         */
+        public Integer getResponseDispatchThreads() {
+            return responseDispatchThreads;
+        }
+
+        /**
+         * This sets the number of threads that publish responses to the
+         * {@link io.honeycomb.libhoney.ResponseObserver}s. Set to 0 to publish them on the thread that produces
+         * them, which for server responses is an IO thread of the HTTP client, so slow observers delay all requests.
+         * <p>
+         * With dedicated threads, responses are handed over via a bounded queue (see
+         * {@link #setResponseQueueCapacity(int)} and {@link #setResponseOverflowPolicy(ResponseOverflowPolicy)}).
+         * With more than one thread, observers may see responses out of order.
+         * <p>
+         * Default: 0
+         *
+         * @param responseDispatchThreads to set.
+         * @return this.
+         * @see io.honeycomb.libhoney.responses.ResponseObservable
+         */
+        public TransportOptions.Builder setResponseDispatchThreads(final int responseDispatchThreads) {
+            this.responseDispatchThreads = responseDispatchThreads;
+            return this;
+        }
+
+        /**
+         * @return the currently set responseQueueCapacity.
+         * @see TransportOptions.Builder#setResponseQueueCapacity(int)
+         */
+        public Integer getResponseQueueCapacity() {
+            return responseQueueCapacity;
+        }
+
+        /**
+         * This sets the maximum number of responses that can wait for a response dispatch thread. Once reached, the
+         * {@link #setResponseOverflowPolicy(ResponseOverflowPolicy)} applies.
+         * <p>
+         * Only applies if {@link #setResponseDispatchThreads(int)} is greater than 0.
+         * <p>
+         * Default: 10000
+         *
+         * @param responseQueueCapacity to set.
+         * @return this.
+         */
+        public TransportOptions.Builder setResponseQueueCapacity(final int responseQueueCapacity) {
+            this.responseQueueCapacity = responseQueueCapacity;
+            return this;
+        }
+
+        /**
+         * @return the currently set responseOverflowPolicy.
+         * @see TransportOptions.Builder#setResponseOverflowPolicy(ResponseOverflowPolicy)
+         */
+        public ResponseOverflowPolicy getResponseOverflowPolicy() {
+            return responseOverflowPolicy;
+        }
+
+        /**
+         * This sets what happens to responses that do not fit into the response queue.
+         * <p>
+         * Only applies if {@link #setResponseDispatchThreads(int)} is greater than 0.
+         * <p>
+         * Default: {@link ResponseOverflowPolicy#DROP_NEWEST}
+         *
+         * @param responseOverflowPolicy to set.
+         * @return this.
+         */
+        public TransportOptions.Builder setResponseOverflowPolicy(final ResponseOverflowPolicy responseOverflowPolicy) {
+            this.responseOverflowPolicy = responseOverflowPolicy;
+            return this;
+        }
+
 
         /**
          * @return the currently set maxConnections.
@@ -639,6 +1355,286 @@ public class TransportOptions {
             return this;
         }
 
+        /**
+         * @return the currently set batchEncoding.
+         * @see TransportOptions.Builder#setBatchEncoding(BatchEncoding)
+         */
+        public BatchEncoding getBatchEncoding() {
+            return batchEncoding;
+        }
+
+        /**
+         * This sets the format that batches of events are encoded in when sent to Honeycomb. MessagePack bodies are
+         * smaller than JSON, and quicker to write, in particular for events with many numeric fields.
+         * <p>
+         * Default: {@link BatchEncoding#JSON}
+         *
+         * @param batchEncoding to set.
+         * @return this.
+         */
+        public TransportOptions.Builder setBatchEncoding(final BatchEncoding batchEncoding) {
+            this.batchEncoding = batchEncoding;
+            return this;
+        }
+
+        /**
+         * @return the currently set requestCompression.
+         * @see TransportOptions.Builder#setRequestCompression(RequestCompression)
+         */
+        public RequestCompression getRequestCompression() {
+            return requestCompression;
+        }
+
+        /**
+         * This sets the compression applied to the bodies of batch requests sent to Honeycomb. Event data tends to
+         * compress well, so this trades some CPU time for considerably less network traffic.
+         * <p>
+         * Default: {@link RequestCompression#NONE}
+         *
+         * @param requestCompression to set.
+         * @return this.
+         * @see #setCompressionThreshold(int)
+         */
+        public TransportOptions.Builder setRequestCompression(final RequestCompression requestCompression) {
+            this.requestCompression = requestCompression;
+            return this;
+        }
+
+        /**
+         * @return the currently set compressionThreshold.
+         * @see TransportOptions.Builder#setCompressionThreshold(int)
+         */
+        public Integer getCompressionThreshold() {
+            return compressionThreshold;
+        }
+
+        /**
+         * This sets the size in bytes that a batch request body must reach before it is compressed. Smaller bodies are
+         * sent uncompressed, since the saving does not make up for the cost of compressing them.
+         * <p>
+         * Only applies if {@link #setRequestCompression(RequestCompression)} is not {@link RequestCompression#NONE}.
+         * <p>
+         * Default: 1024
+         *
+         * @param compressionThreshold to set.
+         * @return this.
+         */
+        public TransportOptions.Builder setCompressionThreshold(final int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+            return this;
+        }
+
+        /**
+         * @return the currently set maxRetries.
+         * @see TransportOptions.Builder#setMaxRetries(int)
+         */
+        public Integer getMaxRetries() {
+            return maxRetries;
+        }
+
+        /**
+         * This sets how many times an event is retried when its batch request fails in a way that is worth retrying:
+         * an I/O error, an HTTP 429 or 5xx status for the whole batch, or a 429 or 503 status for the event itself
+         * (in which case only the affected events of the batch are retried). Retries are delayed by an exponential
+         * backoff with jitter, see {@link #setRetryInitialBackoffMillis(long)}, and limited overall by
+         * {@link #setRetryBudgetRatio(double)}.
+         * <p>
+         * Only the final outcome of an event is published to the {@link io.honeycomb.libhoney.ResponseObserver}s,
+         * and its {@link io.honeycomb.libhoney.Metrics#getRetryCount()} tells how often it was retried. Set to 0 to
+         * disable retries, in which case failures are published straight away.
+         * <p>
+         * Default: 0
+         *
+         * @param maxRetries to set.
+         * @return this.
+         */
+        public TransportOptions.Builder setMaxRetries(final int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * @return the currently set retryInitialBackoffMillis.
+         * @see TransportOptions.Builder#setRetryInitialBackoffMillis(long)
+         */
+        public Long getRetryInitialBackoffMillis() {
+            return retryInitialBackoffMillis;
+        }
+
+        /**
+         * This sets the backoff before the first retry of an event, which doubles with every further retry up to
+         * {@link #setRetryMaxBackoffMillis(long)}. The actual delay is randomly chosen between half the backoff and
+         * the full backoff, so that clients that failed at the same time do not retry in lockstep.
+         * <p>
+         * Only applies if {@link #setMaxRetries(int)} is greater than 0.
+         * <p>
+         * Default: 100
+         *
+         * @param retryInitialBackoffMillis to set.
+         * @return this.
+         */
+        public TransportOptions.Builder setRetryInitialBackoffMillis(final long retryInitialBackoffMillis) {
+            this.retryInitialBackoffMillis = retryInitialBackoffMillis;
+            return this;
+        }
+
+        /**
+         * @return the currently set retryMaxBackoffMillis.
+         * @see TransportOptions.Builder#setRetryMaxBackoffMillis(long)
+         */
+        public Long getRetryMaxBackoffMillis() {
+            return retryMaxBackoffMillis;
+        }
+
+        /**
+         * This sets the upper limit of the exponential backoff between retries.
+         * <p>
+         * Only applies if {@link #setMaxRetries(int)} is greater than 0.
+         * <p>
+         * Default: 10000
+         *
+         * @param retryMaxBackoffMillis to set.
+         * @return this.
+         */
+        public TransportOptions.Builder setRetryMaxBackoffMillis(final long retryMaxBackoffMillis) {
+            this.retryMaxBackoffMillis = retryMaxBackoffMillis;
+            return this;
+        }
+
+        /**
+         * @return the currently set retryBudgetRatio.
+         * @see TransportOptions.Builder#setRetryBudgetRatio(double)
+         */
+        public Double getRetryBudgetRatio() {
+            return retryBudgetRatio;
+        }
+
+        /**
+         * This sets the budget for retries as a ratio of the events sent for the first time, e.g. 0.1 allows one
+         * retry for every ten events sent. This keeps retries from multiplying the load on a server that is already
+         * struggling. Events that fail while the budget is used up are not retried.
+         * <p>
+         * Only applies if {@link #setMaxRetries(int)} is greater than 0.
+         * <p>
+         * Default: 0.1
+         *
+         * @param retryBudgetRatio to set, between 0 and 1.
+         * @return this.
+         */
+        public TransportOptions.Builder setRetryBudgetRatio(final double retryBudgetRatio) {
+            this.retryBudgetRatio = retryBudgetRatio;
+            return this;
+        }
+
+        /**
+         * @return the currently set spoolDirectory.
+         * @see TransportOptions.Builder#setSpoolDirectory(File)
+         */
+        public File getSpoolDirectory() {
+            return spoolDirectory;
+        }
+
+        /**
+         * This enables a spool on disk, which keeps events that would otherwise be lost: events that overflow the
+         * queue (see {@link #setQueueCapacity(int)}) are spooled instead of being published as
+         * {@link io.honeycomb.libhoney.responses.ClientRejected}, and events whose batch request has not completed
+         * within {@link #setMaximumHttpRequestShutdownWait(long)} when the client is closed are spooled instead of
+         * failing. Spooled events are replayed in the background, once the queue has space for them again, or when
+         * the next client using the same directory starts.
+         * <p>
+         * The directory is created if needed, and can only be used by one client at a time. Note that the metadata of
+         * events is not spooled. Events are delivered at least once, so an event may be sent twice if the process
+         * crashes while it is being replayed.
+         * <p>
+         * Spooled events are persisted along with their write key and API host, in plain text. Where the file system
+         * supports POSIX permissions, the spool's files, and the directory if the spool creates it, are only
+         * accessible to the user running the client. An existing directory keeps its permissions, so it should not be
+         * readable by other users, e.g. it should not be a shared temporary directory.
+         * <p>
+         * Default: null (disabled)
+         *
+         * @param spoolDirectory to set.
+         * @return this.
+         */
+        public TransportOptions.Builder setSpoolDirectory(final File spoolDirectory) {
+            this.spoolDirectory = spoolDirectory;
+            return this;
+        }
+
+        /**
+         * @return the currently set spoolSegmentBytes.
+         * @see TransportOptions.Builder#setSpoolSegmentBytes(int)
+         */
+        public Integer getSpoolSegmentBytes() {
+            return spoolSegmentBytes;
+        }
+
+        /**
+         * This sets the size of the memory-mapped files that the spool consists of. Events are appended to one
+         * segment at a time, and segments are deleted once all of their events have been replayed. An event that
+         * does not fit into a segment is not spooled.
+         * <p>
+         * Only applies if {@link #setSpoolDirectory(File)} is set.
+         * <p>
+         * Default: 16777216 (16 MiB)
+         *
+         * @param spoolSegmentBytes to set, at least 4096.
+         * @return this.
+         */
+        public TransportOptions.Builder setSpoolSegmentBytes(final int spoolSegmentBytes) {
+            this.spoolSegmentBytes = spoolSegmentBytes;
+            return this;
+        }
+
+        /**
+         * @return the currently set spoolMaxBytes.
+         * @see TransportOptions.Builder#setSpoolMaxBytes(long)
+         */
+        public Long getSpoolMaxBytes() {
+            return spoolMaxBytes;
+        }
+
+        /**
+         * This caps the disk space taken up by the spool's segments. Once it is reached, events that overflow the
+         * queue are rejected as they would be without a spool, until segments have been replayed.
+         * <p>
+         * Only applies if {@link #setSpoolDirectory(File)} is set.
+         * <p>
+         * Default: 268435456 (256 MiB)
+         *
+         * @param spoolMaxBytes to set, at least {@link #setSpoolSegmentBytes(int)}.
+         * @return this.
+         */
+        public TransportOptions.Builder setSpoolMaxBytes(final long spoolMaxBytes) {
+            this.spoolMaxBytes = spoolMaxBytes;
+            return this;
+        }
+
+        /**
+         * @return the currently set jmxEnabled.
+         * @see TransportOptions.Builder#setJmxEnabled(boolean)
+         */
+        public Boolean getJmxEnabled() {
+            return jmxEnabled;
+        }
+
+        /**
+         * Registers the transport with the platform MBean server, under the name
+         * {@code io.honeycomb.libhoney:type=BatchingHttpTransport,name=transport-N}, with N counting the transports
+         * created in the JVM. This exposes the queue depth and capacity, the active batch keys, the requests in
+         * flight and the state of the HTTP connection pool, and allows the batch timeout and the maximum pending
+         * batch requests to be changed at runtime. The MBean is unregistered when the client is closed.
+         * <p>
+         * Default: false
+         *
+         * @param jmxEnabled to set.
+         * @return this.
+         */
+        public TransportOptions.Builder setJmxEnabled(final boolean jmxEnabled) {
+            this.jmxEnabled = jmxEnabled;
+            return this;
+        }
+
         public HttpHost getProxy() {
             return proxy;
         }
@@ -666,4 +1662,126 @@ public class TransportOptions {
             return this;
         }
     }
+
+    /**
+     * The implementations available for the queue that events are submitted to before they get processed for
+     * batching.
+     */
+    public enum QueueType {
+        /**
+         * A {@link java.util.concurrent.ArrayBlockingQueue}, which guards all access with a single lock.
+         */
+        ARRAY_BLOCKING_QUEUE,
+        /**
+         * A lock-free ring buffer, which avoids contention between the application threads sending events and is
+         * better suited to high event rates from many threads. It cannot be combined with
+         * {@link QueueOverflowPolicy#DROP_OLDEST}, as only the batcher's worker may take events off it.
+         *
+         * @see io.honeycomb.libhoney.transport.batch.impl.MpscRingBufferQueue
+         */
+        MPSC_RING_BUFFER
+    }
+
+    /**
+     * What happens to events that are sent while the batcher's queue is full. Whichever the policy, the events
+     * affected are counted, see {@link io.honeycomb.libhoney.transport.batch.OverflowHandler}.
+     */
+    public enum QueueOverflowPolicy {
+        /**
+         * The event is rejected straight away, and published as {@link io.honeycomb.libhoney.responses.ClientRejected}
+         * with reason {@link io.honeycomb.libhoney.responses.ClientRejected.RejectionReason#QUEUE_OVERFLOW}, unless
+         * there is a spool to keep it in (see {@link Builder#setSpoolDirectory(java.io.File)}).
+         */
+        REJECT,
+        /**
+         * The thread sending the event waits for space in the queue, up to
+         * {@link Builder#setQueueOfferTimeoutMillis(long)}, after which the event is rejected. This slows down the
+         * application rather than losing events during short bursts.
+         */
+        BLOCK,
+        /**
+         * The event that has waited longest in the queue is dropped to make room, and published as rejected. This
+         * favours recent events when the transport falls behind. It cannot be combined with
+         * {@link QueueType#MPSC_RING_BUFFER}.
+         */
+        DROP_OLDEST,
+        /**
+         * Once the queue is filled beyond {@link Builder#setQueueShedThreshold(double)}, events are sampled at a rate
+         * that rises as the queue fills up, and the sample rate of the events kept is raised accordingly, so that
+         * counts derived from them remain correct. Events that are shed are published as
+         * {@link io.honeycomb.libhoney.responses.ClientRejected} with reason
+         * {@link io.honeycomb.libhoney.responses.ClientRejected.RejectionReason#NOT_SAMPLED}.
+         */
+        SHED
+    }
+
+    /**
+     * The ways in which the number of pending batch requests can be limited.
+     */
+    public enum ConcurrencyLimiterType {
+        /**
+         * The limit is fixed at the maximum number of pending batch requests.
+         */
+        FIXED,
+        /**
+         * The limit is raised by one for each request that completes normally while the limit is being made use of,
+         * and lowered by a tenth for each request that fails with an I/O error or an HTTP 429 or 5xx status, or that
+         * takes more than twice as long as the fastest requests. This uses the link well while latency is stable,
+         * and backs off quickly when the server or network is degraded, rather than piling up requests against it.
+         * The limit starts out at a tenth of the maximum.
+         */
+        AIMD
+    }
+
+    /**
+     * The formats that batches of events can be encoded in.
+     */
+    public enum BatchEncoding {
+        /**
+         * JSON, sent with the {@code application/json} content type.
+         *
+         * @see io.honeycomb.libhoney.transport.json.StreamingBatchRequestSerializer
+         */
+        JSON,
+        /**
+         * MessagePack, sent with the {@code application/msgpack} content type.
+         *
+         * @see io.honeycomb.libhoney.transport.msgpack.MsgPackBatchRequestSerializer
+         */
+        MSGPACK
+    }
+
+    /**
+     * What happens to a response that is published while the response queue is full. Responses that are dropped are
+     * counted by {@link io.honeycomb.libhoney.responses.ResponseObservable#getDroppedResponseCount()}.
+     */
+    public enum ResponseOverflowPolicy {
+        /**
+         * The response being published is dropped.
+         */
+        DROP_NEWEST,
+        /**
+         * The response that has waited longest is dropped to make room for the one being published.
+         */
+        DROP_OLDEST,
+        /**
+         * The response is published on the publishing thread itself, which slows down the producer of responses
+         * rather than losing any.
+         */
+        CALLER_RUNS
+    }
+
+    /**
+     * The compression applied to the bodies of batch requests.
+     */
+    public enum RequestCompression {
+        /**
+         * Bodies are sent as is.
+         */
+        NONE,
+        /**
+         * Bodies are compressed with gzip and sent with a {@code Content-Encoding: gzip} header.
+         */
+        GZIP
+    }
 }
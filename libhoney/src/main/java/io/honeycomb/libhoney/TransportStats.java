@@ -0,0 +1,349 @@
+package io.honeycomb.libhoney;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A snapshot of the counters, gauges and histograms of a {@link HoneyClient} and its transport, as returned by
+ * {@link HoneyClient#getStats()}. Unlike the per-event {@link Metrics} handed to {@link ResponseObserver}s, these give
+ * an aggregate view of the client, e.g. to alarm on a queue that is filling up before events are rejected.
+ * <p>
+ * Counters only ever increase over the lifetime of the client, so rates are derived by comparing two snapshots.
+ * Gauges are the value at the time of the snapshot. The values are read one after the other rather than atomically,
+ * so they may be slightly inconsistent with each other while events are being sent.
+ * <p>
+ * The metrics are identified by the names given by the constants of this class. Which of them are present depends on
+ * the transport and its configuration, e.g. there are no spool metrics unless a spool directory is configured, and a
+ * custom {@link io.honeycomb.libhoney.transport.Transport} only provides those of the {@link HoneyClient} itself.
+ */
+public final class TransportStats {
+    /**
+     * Counter of events accepted by the transport.
+     */
+    public static final String EVENTS_SUBMITTED = "client.events.submitted";
+    /**
+     * Counter of events dropped by the {@link Sampler}.
+     */
+    public static final String EVENTS_NOT_SAMPLED = "client.events.notSampled";
+    /**
+     * Counter of events that the transport rejected, because its queue was full.
+     */
+    public static final String EVENTS_REJECTED = "client.events.rejected";
+    /**
+     * Counter of events that could not be submitted due to an error in the dynamic fields or the post-processor.
+     */
+    public static final String EVENTS_FAILED = "client.events.failed";
+
+    /**
+     * Gauge of events waiting in the queue to be batched, summed over all batcher shards.
+     */
+    public static final String QUEUE_DEPTH = "queue.depth";
+    /**
+     * Gauge of the capacity of the queue, summed over all batcher shards.
+     */
+    public static final String QUEUE_CAPACITY = "queue.capacity";
+    /**
+     * Counter of events the {@link TransportOptions.QueueOverflowPolicy} rejected.
+     */
+    public static final String QUEUE_OVERFLOW_REJECTED = "queue.overflow.rejected";
+    /**
+     * Counter of events the {@link TransportOptions.QueueOverflowPolicy} dropped, either the oldest ones or those
+     * that were shed.
+     */
+    public static final String QUEUE_OVERFLOW_DROPPED = "queue.overflow.dropped";
+
+    /**
+     * Counter of batches handed on to be sent.
+     */
+    public static final String BATCHES = "batcher.batches";
+    /**
+     * Histogram of how full batches were when they were handed on, in percent of the batch size or of the maximum
+     * batch bytes, whichever is higher. Low values mean that batches are mostly sent due to the batch timeout.
+     */
+    public static final String BATCH_FILL_PERCENT = "batcher.fillPercent";
+
+    /**
+     * Counter of batch requests sent, including retries.
+     */
+    public static final String REQUESTS_SENT = "requests.sent";
+    /**
+     * Counter of batch requests to which the server responded with a 2xx status.
+     */
+    public static final String REQUESTS_SUCCEEDED = "requests.succeeded";
+    /**
+     * Counter of batch requests that failed, either with a non-2xx status or without a response.
+     */
+    public static final String REQUESTS_FAILED = "requests.failed";
+    /**
+     * Gauge of batch requests that have been sent, but have not completed yet.
+     */
+    public static final String REQUESTS_IN_FLIGHT = "requests.inFlight";
+    /**
+     * Counter of events sent in batch requests, including retries.
+     */
+    public static final String EVENTS_SENT = "requests.events";
+    /**
+     * Counter of bytes sent in batch request bodies, after compression.
+     */
+    public static final String BYTES_SENT = "requests.bytes";
+    /**
+     * Histogram of the latency of completed batch requests, in milliseconds.
+     */
+    public static final String REQUEST_LATENCY_MILLIS = "requests.latencyMillis";
+    /**
+     * Gauge of the current limit on batch requests in flight. Only present if there is a limit.
+     */
+    public static final String CONCURRENCY_LIMIT = "concurrency.limit";
+
+    /**
+     * Counter of events that were scheduled to be retried. Only present if retries are enabled.
+     */
+    public static final String RETRIED_EVENTS = "retry.retried";
+    /**
+     * Counter of events that failed after exhausting their retries. Only present if retries are enabled.
+     */
+    public static final String RETRY_EXHAUSTED_EVENTS = "retry.exhausted";
+    /**
+     * Counter of events that were not retried as the retry budget was spent. Only present if retries are enabled.
+     */
+    public static final String RETRY_BUDGET_EXCEEDED_EVENTS = "retry.budgetExceeded";
+    /**
+     * Gauge of batches waiting for their retry. Only present if retries are enabled.
+     */
+    public static final String RETRIES_PENDING = "retry.pending";
+
+    /**
+     * Counter of responses dropped rather than published, as the response queue was full.
+     */
+    public static final String RESPONSES_DROPPED = "responses.dropped";
+    /**
+     * Gauge of responses waiting to be published.
+     */
+    public static final String RESPONSES_PENDING = "responses.pending";
+
+    /**
+     * Counter of events written to the spool. Only present with a spool.
+     */
+    public static final String SPOOL_SPOOLED_EVENTS = "spool.spooled";
+    /**
+     * Counter of events replayed from the spool. Only present with a spool.
+     */
+    public static final String SPOOL_REPLAYED_EVENTS = "spool.replayed";
+    /**
+     * Counter of events the spool had no space left for. Only present with a spool.
+     */
+    public static final String SPOOL_REJECTED_EVENTS = "spool.rejected";
+    /**
+     * Counter of corrupt records skipped while replaying. Only present with a spool.
+     */
+    public static final String SPOOL_CORRUPT_RECORDS = "spool.corrupt";
+    /**
+     * Gauge of the bytes taken up by spool segments on disk. Only present with a spool.
+     */
+    public static final String SPOOL_BYTES = "spool.bytes";
+
+    private final long timestamp;
+    private final Map<String, Long> counters;
+    private final Map<String, Long> gauges;
+    private final Map<String, HistogramStats> histograms;
+
+    /**
+     * @param timestamp  of the snapshot, in milliseconds since the epoch.
+     * @param counters   by name.
+     * @param gauges     by name.
+     * @param histograms by name.
+     */
+    public TransportStats(final long timestamp,
+                          final Map<String, Long> counters,
+                          final Map<String, Long> gauges,
+                          final Map<String, HistogramStats> histograms) {
+        this.timestamp = timestamp;
+        this.counters = Collections.unmodifiableMap(new TreeMap<>(counters));
+        this.gauges = Collections.unmodifiableMap(new TreeMap<>(gauges));
+        this.histograms = Collections.unmodifiableMap(new TreeMap<>(histograms));
+    }
+
+    /**
+     * @return the time of the snapshot, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @param name of the counter.
+     * @return the value of the counter, or 0 if it is not present.
+     */
+    public long getCounter(final String name) {
+        final Long value = counters.get(name);
+        return (value == null) ? 0L : value;
+    }
+
+    /**
+     * @param name of the gauge.
+     * @return the value of the gauge, or -1 if it is not present.
+     */
+    public long getGauge(final String name) {
+        final Long value = gauges.get(name);
+        return (value == null) ? -1L : value;
+    }
+
+    /**
+     * @param name of the histogram.
+     * @return the histogram, or null if it is not present.
+     */
+    public HistogramStats getHistogram(final String name) {
+        return histograms.get(name);
+    }
+
+    /**
+     * @return all counters, sorted by name.
+     */
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    /**
+     * @return all gauges, sorted by name.
+     */
+    public Map<String, Long> getGauges() {
+        return gauges;
+    }
+
+    /**
+     * @return all histograms, sorted by name.
+     */
+    public Map<String, HistogramStats> getHistograms() {
+        return histograms;
+    }
+
+    /**
+     * @return the share of the queue's capacity that is taken up, between 0 and 1, or -1 if the transport has no
+     * queue.
+     */
+    public double getQueueFillRatio() {
+        final long capacity = getGauge(QUEUE_CAPACITY);
+        if (capacity <= 0) {
+            return -1;
+        }
+        return (double) Math.max(0L, getGauge(QUEUE_DEPTH)) / capacity;
+    }
+
+    @Override
+    public String toString() {
+        return "TransportStats{" +
+            "timestamp=" + timestamp +
+            ", counters=" + counters +
+            ", gauges=" + gauges +
+            ", histograms=" + histograms +
+            '}';
+    }
+
+    /**
+     * A snapshot of a histogram with fixed buckets, each of which counts the values up to and including its upper
+     * bound that are above the bound of the previous bucket. A final bucket counts the values above the highest
+     * bound.
+     */
+    public static final class HistogramStats {
+        private final long[] bounds;
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        /**
+         * @param bounds the inclusive upper bounds of the buckets, in ascending order.
+         * @param counts of each bucket, with one element more than the bounds.
+         * @param sum    of all values.
+         * @param max    of all values, which is irrelevant if there are none.
+         */
+        public HistogramStats(final long[] bounds, final long[] counts, final long sum, final long max) {
+            this.bounds = bounds.clone();
+            this.counts = counts.clone();
+            long total = 0L;
+            for (final long bucketCount : counts) {
+                total += bucketCount;
+            }
+            this.count = total;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * @return a copy of the inclusive upper bounds of the buckets.
+         */
+        public long[] getBounds() {
+            return bounds.clone();
+        }
+
+        /**
+         * @return a copy of the count of each bucket, the last of which is the count of values above the highest
+         * bound.
+         */
+        public long[] getCounts() {
+            return counts.clone();
+        }
+
+        /**
+         * @return the number of values.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the sum of all values.
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * @return the mean of all values, or 0 if there are none.
+         */
+        public double getMean() {
+            return (count == 0) ? 0 : (double) sum / count;
+        }
+
+        /**
+         * @return the highest value, or 0 if there are none.
+         */
+        public long getMax() {
+            return (count == 0) ? 0L : max;
+        }
+
+        /**
+         * @param percentile between 0 and 100.
+         * @return the upper bound of the bucket that the given percentile of values falls into, which is an upper
+         * bound of the percentile, or the highest value if it falls beyond the highest bound. 0 if there are no
+         * values.
+         */
+        public long getPercentile(final double percentile) {
+            if (count == 0) {
+                return 0L;
+            }
+            final long rank = Math.max(1L, (long) Math.ceil(count * percentile / 100));
+            long seen = 0L;
+            for (int i = 0; i < bounds.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bounds[i], max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "HistogramStats{" +
+                "count=" + count +
+                ", mean=" + getMean() +
+                ", max=" + getMax() +
+                ", bounds=" + Arrays.toString(bounds) +
+                ", counts=" + Arrays.toString(counts) +
+                '}';
+        }
+    }
+}
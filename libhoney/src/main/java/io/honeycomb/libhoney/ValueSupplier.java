@@ -3,7 +3,9 @@ package io.honeycomb.libhoney;
 /**
  * Interface to supply field values dynamically.
  * <p>
- * Resolution of a supplier occurs on the thread that invokes any of the send*() methods.
+ * Resolution of a supplier occurs on the thread that invokes any of the send*() methods. Values that are expensive to
+ * create can be cached and refreshed in the background instead, by wrapping the supplier in a
+ * {@link CachingValueSupplier}.
  * <p>
  * Any exceptions occurring will stop the event from being sent and reported back as a
  * {@link io.honeycomb.libhoney.responses.ClientRejected} response.
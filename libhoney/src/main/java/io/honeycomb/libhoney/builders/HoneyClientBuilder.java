@@ -1,5 +1,7 @@
 package io.honeycomb.libhoney.builders;
 
+import io.honeycomb.libhoney.BatchResponseObserver;
+import io.honeycomb.libhoney.CachingValueSupplier;
 import io.honeycomb.libhoney.DefaultDebugResponseObserver;
 import io.honeycomb.libhoney.Event;
 import io.honeycomb.libhoney.EventFactory;
@@ -8,6 +10,7 @@ import io.honeycomb.libhoney.HoneyClient;
 import io.honeycomb.libhoney.LibHoney;
 import io.honeycomb.libhoney.Options;
 import io.honeycomb.libhoney.ResponseObserver;
+import io.honeycomb.libhoney.Sampler;
 import io.honeycomb.libhoney.TransportOptions;
 import io.honeycomb.libhoney.ValueSupplier;
 import io.honeycomb.libhoney.transport.Transport;
@@ -23,18 +26,25 @@ import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
 import org.apache.http.impl.nio.reactor.IOReactorConfig;
 
 import javax.net.ssl.SSLContext;
+import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+// ExcessivePublicCount: there is a method for every option of the client and its transport.
+// ExcessiveImports: the builder configures every pluggable part of the client.
+@SuppressWarnings({"PMD.ExcessivePublicCount", "PMD.ExcessiveImports"})
 public class HoneyClientBuilder {
     private final Map<String, Object> globalFields = new HashMap<>();
     private final Map<String, ValueSupplier<?>> globalDynamicFields = new HashMap<>();
+    private final List<CachingValueSupplier<?>> cachingValueSuppliers = new ArrayList<>();
     private final Map<String, Credentials> credentialMap = new HashMap<>();
     private final List<ResponseObserver> responseObservers = new ArrayList<>();
+    private final List<BatchResponseObserver> batchResponseObservers = new ArrayList<>();
     protected TransportOptions.Builder transportOptionsBuilder = new TransportOptions.Builder();
     protected Options.Builder optionsBuilder = new Options.Builder();
     private Transport transport = null;
@@ -74,6 +84,9 @@ public class HoneyClientBuilder {
                 client.addResponseObserver(responseObserver);
             }
         }
+        for (final BatchResponseObserver batchResponseObserver : batchResponseObservers) {
+            client.addBatchResponseObserver(batchResponseObserver);
+        }
         if (debugEnabled) {
             client.addResponseObserver(new DefaultDebugResponseObserver());
         }
@@ -104,6 +117,9 @@ public class HoneyClientBuilder {
         if (!globalDynamicFields.isEmpty()) {
             optionsBuilder.setGlobalDynamicFields(globalDynamicFields);
         }
+        if (!cachingValueSuppliers.isEmpty()) {
+            optionsBuilder.setOwnedValueSuppliers(cachingValueSuppliers);
+        }
     }
 
     /**
@@ -140,6 +156,31 @@ public class HoneyClientBuilder {
         return this;
     }
 
+    /**
+     * Use this method to supply fields to events, where keys are fixed but values are expensive to create, so they
+     * are cached for a time to live and refreshed in the background. See {@link CachingValueSupplier} for details.
+     * The caching supplier is created by this builder, so the client closes it when it is closed.
+     * <p>
+     * Default: None
+     *
+     * @param name          the "key"
+     * @param valueSupplier calculates value
+     * @param timeToLive    how long a value is used before it is refreshed. Must be greater than 0.
+     * @param unit          of the time to live
+     * @return HoneyClientBuilder instance
+     * @see Options.Builder#setGlobalDynamicFields(java.util.Map)
+     */
+    // CloseResource: the built client owns the caching supplier and closes it
+    @SuppressWarnings("PMD.CloseResource")
+    public HoneyClientBuilder addGlobalDynamicFields(final String name,
+                                                     final ValueSupplier<?> valueSupplier,
+                                                     final long timeToLive,
+                                                     final TimeUnit unit) {
+        final CachingValueSupplier<?> cachingValueSupplier = CachingValueSupplier.of(valueSupplier, timeToLive, unit);
+        cachingValueSuppliers.add(cachingValueSupplier);
+        return addGlobalDynamicFields(name, cachingValueSupplier);
+    }
+
     /**
      * Use this method to configure the HTTP client to use a proxy that needs authentication.
      * <p>
@@ -186,6 +227,20 @@ public class HoneyClientBuilder {
         return this;
     }
 
+    /**
+     * Set this to control which events get sent, based on their sample rate.
+     * See {@link Sampler} for details, and the {@link io.honeycomb.libhoney.sampling} package for implementations.
+     * <p>
+     * Default: {@link io.honeycomb.libhoney.sampling.ThreadLocalRandomSampler}
+     *
+     * @param sampler to set.
+     * @return this.
+     */
+    public HoneyClientBuilder sampler(final Sampler sampler) {
+        optionsBuilder.setSampler(sampler);
+        return this;
+    }
+
     /**
      * This determines that maximum number of events that get sent to the Honeycomb server (via a batch request).
      * In other words, this is a trigger that will cause a batch request to be created if a batch reaches this
@@ -224,6 +279,37 @@ public class HoneyClientBuilder {
         return this;
     }
 
+    /**
+     * This sets the maximum size in bytes of a batch, as estimated from its events' fields. A batch is sent as soon
+     * as it reaches either this size or the batch size, whichever comes first.
+     * <p>
+     * Default: 5000000
+     *
+     * @param maxBatchBytes maximum estimated size of a batch.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setMaxBatchBytes(int)
+     */
+    public HoneyClientBuilder maxBatchBytes(final int maxBatchBytes) {
+        transportOptionsBuilder.setMaxBatchBytes(maxBatchBytes);
+        return this;
+    }
+
+    /**
+     * This sets the maximum size in bytes of a single event, as estimated from its fields. Larger events are
+     * rejected before they are queued.
+     * <p>
+     * Default: 1000000
+     *
+     * @param maxEventBytes maximum estimated size of an event.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setMaxEventBytes(int)
+     * @see io.honeycomb.libhoney.responses.ClientRejected.RejectionReason#EVENT_TOO_LARGE
+     */
+    public HoneyClientBuilder maxEventBytes(final int maxEventBytes) {
+        transportOptionsBuilder.setMaxEventBytes(maxEventBytes);
+        return this;
+    }
+
     /**
      * This sets the capacity of the queue that events are submitted to before they get processed for batching
      * and eventually sent to the honeycomb HTTP endpoint.
@@ -243,6 +329,67 @@ public class HoneyClientBuilder {
         return this;
     }
 
+    /**
+     * This sets the implementation of the queue that events are submitted to before they get processed for
+     * batching. {@link TransportOptions.QueueType#MPSC_RING_BUFFER} avoids lock contention when many threads send
+     * events concurrently.
+     * <p>
+     * Default: {@link TransportOptions.QueueType#ARRAY_BLOCKING_QUEUE}
+     *
+     * @param queueType queue implementation.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setQueueType(TransportOptions.QueueType)
+     */
+    public HoneyClientBuilder queueType(final TransportOptions.QueueType queueType) {
+        transportOptionsBuilder.setQueueType(queueType);
+        return this;
+    }
+
+    /**
+     * This sets what happens to events that are sent while the queue is full: they can be rejected, wait for space,
+     * make room by dropping the oldest event, or be shed by sampling as the queue fills up.
+     * <p>
+     * Default: {@link TransportOptions.QueueOverflowPolicy#REJECT}
+     *
+     * @param queueOverflowPolicy overflow policy.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setQueueOverflowPolicy(TransportOptions.QueueOverflowPolicy)
+     */
+    public HoneyClientBuilder queueOverflowPolicy(final TransportOptions.QueueOverflowPolicy queueOverflowPolicy) {
+        transportOptionsBuilder.setQueueOverflowPolicy(queueOverflowPolicy);
+        return this;
+    }
+
+    /**
+     * This sets how long sending an event waits for space in a full queue, with
+     * {@link TransportOptions.QueueOverflowPolicy#BLOCK}.
+     * <p>
+     * Default: 100
+     *
+     * @param queueOfferTimeoutMillis in milliseconds.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setQueueOfferTimeoutMillis(long)
+     */
+    public HoneyClientBuilder queueOfferTimeoutMillis(final long queueOfferTimeoutMillis) {
+        transportOptionsBuilder.setQueueOfferTimeoutMillis(queueOfferTimeoutMillis);
+        return this;
+    }
+
+    /**
+     * This sets the fill level of the queue from which on events are shed, with
+     * {@link TransportOptions.QueueOverflowPolicy#SHED}.
+     * <p>
+     * Default: 0.5
+     *
+     * @param queueShedThreshold between 0 (inclusive) and 1 (exclusive).
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setQueueShedThreshold(double)
+     */
+    public HoneyClientBuilder queueShedThreshold(final double queueShedThreshold) {
+        transportOptionsBuilder.setQueueShedThreshold(queueShedThreshold);
+        return this;
+    }
+
 
     /**
      * This determines the maximum number of batch requests that can be still pending completion at any one time.
@@ -282,6 +429,117 @@ public class HoneyClientBuilder {
         return this;
     }
 
+    /**
+     * This sets how the number of batch requests pending completion is limited: either fixed at
+     * {@link #maxPendingBatchRequests(int)}, or adapting to the latency and failures of requests within the bounds
+     * of 1 and that maximum.
+     * <p>
+     * Default: {@link TransportOptions.ConcurrencyLimiterType#FIXED}
+     *
+     * @param concurrencyLimiter to use.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setConcurrencyLimiter(TransportOptions.ConcurrencyLimiterType)
+     */
+    public HoneyClientBuilder concurrencyLimiter(final TransportOptions.ConcurrencyLimiterType concurrencyLimiter) {
+        transportOptionsBuilder.setConcurrencyLimiter(concurrencyLimiter);
+        return this;
+    }
+
+    /**
+     * This sets the number of independent shards the batching work is split across. Each shard has its own queue,
+     * batches and worker thread, which does the batching and submits batch requests to the HTTP client.
+     * <p>
+     * Events are assigned to shards by the hash of their batch key, so this only increases throughput for
+     * applications that send events with several distinct combinations of write key, dataset name and API host.
+     * The queue capacity (see {@link #queueCapacity(int)}) is divided evenly between the shards' queues.
+     * <p>
+     * Default: 1
+     *
+     * @param batcherShards number of shards.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setBatcherShards(int)
+     */
+    public HoneyClientBuilder batcherShards(final int batcherShards) {
+        transportOptionsBuilder.setBatcherShards(batcherShards);
+        return this;
+    }
+
+    /**
+     * This sets the number of threads that serialize batches into HTTP requests and submit them to the HTTP
+     * client, decoupling that work from the batching thread. Set to 0 to do this on the batching thread itself.
+     * <p>
+     * Default: 0
+     *
+     * @param serializerThreads number of threads.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setSerializerThreads(int)
+     */
+    public HoneyClientBuilder serializerThreads(final int serializerThreads) {
+        transportOptionsBuilder.setSerializerThreads(serializerThreads);
+        return this;
+    }
+
+    /**
+     * This sets the maximum number of full batches that can wait for a serializer thread, before the batching
+     * thread blocks. Only applies if {@link #serializerThreads(int)} is greater than 0.
+     * <p>
+     * Default: 100
+     *
+     * @param serializerQueueCapacity number of batches.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setSerializerQueueCapacity(int)
+     */
+    public HoneyClientBuilder serializerQueueCapacity(final int serializerQueueCapacity) {
+        transportOptionsBuilder.setSerializerQueueCapacity(serializerQueueCapacity);
+        return this;
+    }
+
+    /**
+     * This sets the number of threads that publish responses to the {@link ResponseObserver}s, so that slow
+     * observers do not hold up the HTTP client's IO threads. Set to 0 to publish responses on those threads.
+     * <p>
+     * Default: 0
+     *
+     * @param responseDispatchThreads number of threads.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setResponseDispatchThreads(int)
+     */
+    public HoneyClientBuilder responseDispatchThreads(final int responseDispatchThreads) {
+        transportOptionsBuilder.setResponseDispatchThreads(responseDispatchThreads);
+        return this;
+    }
+
+    /**
+     * This sets the maximum number of responses that can wait for a response dispatch thread. Only applies if
+     * {@link #responseDispatchThreads(int)} is greater than 0.
+     * <p>
+     * Default: 10000
+     *
+     * @param responseQueueCapacity number of responses.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setResponseQueueCapacity(int)
+     */
+    public HoneyClientBuilder responseQueueCapacity(final int responseQueueCapacity) {
+        transportOptionsBuilder.setResponseQueueCapacity(responseQueueCapacity);
+        return this;
+    }
+
+    /**
+     * This sets what happens to responses that do not fit into the response queue. Only applies if
+     * {@link #responseDispatchThreads(int)} is greater than 0.
+     * <p>
+     * Default: {@link TransportOptions.ResponseOverflowPolicy#DROP_NEWEST}
+     *
+     * @param responseOverflowPolicy to apply.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setResponseOverflowPolicy(TransportOptions.ResponseOverflowPolicy)
+     */
+    public HoneyClientBuilder responseOverflowPolicy(
+        final TransportOptions.ResponseOverflowPolicy responseOverflowPolicy) {
+        transportOptionsBuilder.setResponseOverflowPolicy(responseOverflowPolicy);
+        return this;
+    }
+
     /**
      * Set this to define the maximum amount of connections the http client may hold in its connection pool.
      * In effect this is the maximum level of concurrent HTTP requests that may be in progress at any given time.
@@ -422,6 +680,166 @@ public class HoneyClientBuilder {
         return this;
     }
 
+    /**
+     * This sets the format that batches of events are encoded in when sent to Honeycomb.
+     * <p>
+     * Default: {@link TransportOptions.BatchEncoding#JSON}
+     *
+     * @param batchEncoding to use.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setBatchEncoding(TransportOptions.BatchEncoding)
+     */
+    public HoneyClientBuilder batchEncoding(final TransportOptions.BatchEncoding batchEncoding) {
+        transportOptionsBuilder.setBatchEncoding(batchEncoding);
+        return this;
+    }
+
+    /**
+     * This sets the compression applied to the bodies of batch requests sent to Honeycomb.
+     * <p>
+     * Default: {@link TransportOptions.RequestCompression#NONE}
+     *
+     * @param requestCompression to use.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setRequestCompression(TransportOptions.RequestCompression)
+     */
+    public HoneyClientBuilder requestCompression(final TransportOptions.RequestCompression requestCompression) {
+        transportOptionsBuilder.setRequestCompression(requestCompression);
+        return this;
+    }
+
+    /**
+     * This sets the size in bytes that a batch request body must reach before it is compressed. Only applies if
+     * {@link #requestCompression(TransportOptions.RequestCompression)} is set.
+     * <p>
+     * Default: 1024
+     *
+     * @param compressionThreshold in bytes.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setCompressionThreshold(int)
+     */
+    public HoneyClientBuilder compressionThreshold(final int compressionThreshold) {
+        transportOptionsBuilder.setCompressionThreshold(compressionThreshold);
+        return this;
+    }
+
+    /**
+     * This sets how many times an event is retried when its batch request fails in a retryable way (an I/O error,
+     * HTTP 429 or 5xx, or a 429 or 503 status for the event itself). Set to 0 to disable retries.
+     * <p>
+     * Default: 0
+     *
+     * @param maxRetries per event.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setMaxRetries(int)
+     */
+    public HoneyClientBuilder maxRetries(final int maxRetries) {
+        transportOptionsBuilder.setMaxRetries(maxRetries);
+        return this;
+    }
+
+    /**
+     * This sets the backoff before the first retry of an event, which doubles with every further retry.
+     * <p>
+     * Default: 100
+     *
+     * @param retryInitialBackoffMillis in milliseconds.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setRetryInitialBackoffMillis(long)
+     */
+    public HoneyClientBuilder retryInitialBackoffMillis(final long retryInitialBackoffMillis) {
+        transportOptionsBuilder.setRetryInitialBackoffMillis(retryInitialBackoffMillis);
+        return this;
+    }
+
+    /**
+     * This sets the upper limit of the backoff between retries.
+     * <p>
+     * Default: 10000
+     *
+     * @param retryMaxBackoffMillis in milliseconds.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setRetryMaxBackoffMillis(long)
+     */
+    public HoneyClientBuilder retryMaxBackoffMillis(final long retryMaxBackoffMillis) {
+        transportOptionsBuilder.setRetryMaxBackoffMillis(retryMaxBackoffMillis);
+        return this;
+    }
+
+    /**
+     * This sets the budget for retries as a ratio of the events sent for the first time.
+     * <p>
+     * Default: 0.1
+     *
+     * @param retryBudgetRatio between 0 and 1.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setRetryBudgetRatio(double)
+     */
+    public HoneyClientBuilder retryBudgetRatio(final double retryBudgetRatio) {
+        transportOptionsBuilder.setRetryBudgetRatio(retryBudgetRatio);
+        return this;
+    }
+
+    /**
+     * This enables a spool in the given directory, which keeps events that overflow the queue, or that are still in
+     * flight when the client is closed, on disk and sends them later, including after a restart. Spooled events
+     * include their write key, see {@link TransportOptions.Builder#setSpoolDirectory(File)} for how the directory is
+     * protected.
+     * <p>
+     * Default: null (disabled)
+     *
+     * @param spoolDirectory to keep spooled events in.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setSpoolDirectory(File)
+     */
+    public HoneyClientBuilder spoolDirectory(final File spoolDirectory) {
+        transportOptionsBuilder.setSpoolDirectory(spoolDirectory);
+        return this;
+    }
+
+    /**
+     * This sets the size of the files that the spool consists of.
+     * <p>
+     * Default: 16777216 (16 MiB)
+     *
+     * @param spoolSegmentBytes in bytes.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setSpoolSegmentBytes(int)
+     */
+    public HoneyClientBuilder spoolSegmentBytes(final int spoolSegmentBytes) {
+        transportOptionsBuilder.setSpoolSegmentBytes(spoolSegmentBytes);
+        return this;
+    }
+
+    /**
+     * This caps the disk space taken up by the spool.
+     * <p>
+     * Default: 268435456 (256 MiB)
+     *
+     * @param spoolMaxBytes in bytes.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setSpoolMaxBytes(long)
+     */
+    public HoneyClientBuilder spoolMaxBytes(final long spoolMaxBytes) {
+        transportOptionsBuilder.setSpoolMaxBytes(spoolMaxBytes);
+        return this;
+    }
+
+    /**
+     * This registers the transport as an MBean, to inspect it and to change the batch timeout and the maximum pending
+     * batch requests at runtime.
+     * <p>
+     * Default: false
+     *
+     * @param jmxEnabled true to register the MBean.
+     * @return HoneyClientBuilder instance
+     * @see TransportOptions.Builder#setJmxEnabled(boolean)
+     */
+    public HoneyClientBuilder jmxEnabled(final boolean jmxEnabled) {
+        transportOptionsBuilder.setJmxEnabled(jmxEnabled);
+        return this;
+    }
+
     /**
      * Use this method to configure the HTTP client to use a proxy without authentication.
      * <p>
@@ -521,6 +939,18 @@ public class HoneyClientBuilder {
         return this;
     }
 
+    /**
+     * Adds an observer that is notified once for every batch of events the server responded to.
+     *
+     * @param batchResponseObserver to add.
+     * @return HoneyClientBuilder instance
+     * @see HoneyClient#addBatchResponseObserver(BatchResponseObserver)
+     */
+    public HoneyClientBuilder addBatchResponseObserver(final BatchResponseObserver batchResponseObserver) {
+        batchResponseObservers.add(batchResponseObserver);
+        return this;
+    }
+
     /**
      * Transport for sending events to HoneyComb. Used by the {@link io.honeycomb.libhoney.HoneyClient} internals.
      * This can also be used to disable sending events to Honeycomb by passing in a mock Transport.
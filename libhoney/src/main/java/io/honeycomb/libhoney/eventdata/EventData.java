@@ -14,13 +14,31 @@ import java.util.Map;
  *            subclass type T.
  */
 public abstract class EventData<T extends EventData<T>> {
-    private final Map<String, Object> fields;
+    private final LayeredFieldMap fields;
     private URI apiHost;
     private String writeKey;
     private String dataset;
     private int sampleRate;
     private Long timestamp;
     private Map<String, Object> metadata;
+    //Nullable, created lazily whenever the route properties have changed
+    private EventRoute route;
+
+    /**
+     * @param route      of the event.
+     * @param sampleRate of the event.
+     * @param timestamp  of the event, or null.
+     * @param fields     of the event, which are used as they are rather than copied.
+     * @param metadata   of the event, or null.
+     */
+    protected EventData(final EventRoute route,
+                        final int sampleRate,
+                        final Long timestamp,
+                        final LayeredFieldMap fields,
+                        final Map<String, Object> metadata) {
+        this(route.getApiHost(), route.getWriteKey(), route.getDataset(), route, sampleRate, timestamp, fields,
+            metadata);
+    }
 
     protected EventData(final URI apiHost,
                         final String writeKey,
@@ -29,13 +47,25 @@ public abstract class EventData<T extends EventData<T>> {
                         final Long timestamp,
                         final Map<String, Object> fields,
                         final Map<String, Object> metadata) {
+        this(apiHost, writeKey, dataset, null, sampleRate, timestamp, LayeredFieldMap.copyOf(fields), metadata);
+    }
+
+    private EventData(final URI apiHost,
+                      final String writeKey,
+                      final String dataset,
+                      final EventRoute route,
+                      final int sampleRate,
+                      final Long timestamp,
+                      final LayeredFieldMap fields,
+                      final Map<String, Object> metadata) {
         this.apiHost = apiHost;
         this.writeKey = writeKey;
         this.dataset = dataset;
+        this.route = route;
         this.sampleRate = sampleRate;
         this.timestamp = timestamp;
         this.metadata = (metadata == null) ? new HashMap<String, Object>(): metadata;
-        this.fields = new HashMap<>(fields);
+        this.fields = fields;
     }
 
     protected abstract T getSelf();
@@ -45,6 +75,12 @@ public abstract class EventData<T extends EventData<T>> {
         return getSelf();
     }
 
+    // the route is created again the next time it is needed
+    @SuppressWarnings("PMD.NullAssignment")
+    private void invalidateRoute() {
+        this.route = null;
+    }
+
     /**
      * @param apiHost to set.
      * @return this.
@@ -52,6 +88,7 @@ public abstract class EventData<T extends EventData<T>> {
      */
     public T setApiHost(final URI apiHost) {
         this.apiHost = apiHost;
+        invalidateRoute();
         return getSelf();
     }
 
@@ -62,6 +99,7 @@ public abstract class EventData<T extends EventData<T>> {
      */
     public T setWriteKey(final String writeKey) {
         this.writeKey = writeKey;
+        invalidateRoute();
         return getSelf();
     }
 
@@ -72,6 +110,7 @@ public abstract class EventData<T extends EventData<T>> {
      */
     public T setDataset(final String dataset) {
         this.dataset = dataset;
+        invalidateRoute();
         return getSelf();
     }
 
@@ -130,6 +169,16 @@ public abstract class EventData<T extends EventData<T>> {
         return getSelf();
     }
 
+    /**
+     * @return the route made up of this event's API host, write key and dataset.
+     */
+    public EventRoute getRoute() {
+        if (route == null) {
+            route = new EventRoute(apiHost, writeKey, dataset);
+        }
+        return route;
+    }
+
     public URI getApiHost() {
         return apiHost;
     }
@@ -0,0 +1,110 @@
+package io.honeycomb.libhoney.eventdata;
+
+import org.apache.http.Header;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.message.BasicHeader;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Objects;
+
+/**
+ * The destination of an event: the combination of API host, write key and dataset, which together determine the
+ * batch an event is put in and the request that batch is sent with.
+ * <p>
+ * Routes are immutable and threadsafe, and are meant to be created once (e.g. by an
+ * {@link io.honeycomb.libhoney.EventFactory}) and shared by all events with that destination. Because of that, the
+ * hash code and write key header are computed up front and the batch endpoint is only built once per route, rather
+ * than once per event or batch. Any of the properties may be null, as events are validated only when they are sent.
+ */
+public final class EventRoute {
+    private static final String BATCH_ENDPOINT_PATH = "/1/batch/";
+    private static final String WRITE_KEY_HEADER = "X-Honeycomb-Team";
+
+    private final URI apiHost;
+    private final String writeKey;
+    private final String dataset;
+    private final int hash;
+    private final Header writeKeyHeader;
+    //Nullable
+    private volatile URI batchEndpoint;
+
+    public EventRoute(final URI apiHost, final String writeKey, final String dataset) {
+        this.apiHost = apiHost;
+        this.writeKey = writeKey;
+        this.dataset = dataset;
+        this.hash = Objects.hash(apiHost, writeKey, dataset);
+        this.writeKeyHeader = new BasicHeader(WRITE_KEY_HEADER, writeKey);
+    }
+
+    public URI getApiHost() {
+        return apiHost;
+    }
+
+    public String getWriteKey() {
+        return writeKey;
+    }
+
+    public String getDataset() {
+        return dataset;
+    }
+
+    /**
+     * @param apiHost  to compare with.
+     * @param writeKey to compare with.
+     * @param dataset  to compare with.
+     * @return true if this route has exactly these properties.
+     */
+    public boolean matches(final URI apiHost, final String writeKey, final String dataset) {
+        return Objects.equals(this.apiHost, apiHost)
+            && Objects.equals(this.writeKey, writeKey)
+            && Objects.equals(this.dataset, dataset);
+    }
+
+    /**
+     * @return the URI of the Honeycomb batch API for this route's API host and dataset.
+     * @throws URISyntaxException if no valid URI can be built from the API host and dataset.
+     */
+    public URI getBatchEndpoint() throws URISyntaxException {
+        URI endpoint = batchEndpoint;
+        if (endpoint == null) {
+            // racing threads build equal URIs, so it does not matter which one ends up being cached
+            endpoint = new URIBuilder(apiHost).setPath(BATCH_ENDPOINT_PATH + dataset).build();
+            batchEndpoint = endpoint;
+        }
+        return endpoint;
+    }
+
+    /**
+     * @return the header that authenticates requests to the Honeycomb API with this route's write key.
+     */
+    public Header getWriteKeyHeader() {
+        return writeKeyHeader;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof EventRoute)) {
+            return false;
+        }
+        final EventRoute route = (EventRoute) other;
+        return hash == route.hash && matches(route.apiHost, route.writeKey, route.dataset);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "EventRoute{" +
+            "apiHost=" + apiHost +
+            ", writeKey=**********" +
+            ", dataset='" + dataset + '\'' +
+            '}';
+    }
+}
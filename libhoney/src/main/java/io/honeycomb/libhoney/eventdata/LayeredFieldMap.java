@@ -0,0 +1,356 @@
+package io.honeycomb.libhoney.eventdata;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map of event fields made of two layers: an immutable base, which is shared between many events (e.g. the fields of
+ * an {@link io.honeycomb.libhoney.EventFactory}), and a small, lazily created overlay, which holds the changes made to
+ * this particular map. Entries in the overlay take precedence over those in the base.
+ * <p>
+ * This allows creating events from a factory, and snapshots of events, without copying the shared fields: only the
+ * overlay is ever copied. All operations of a mutable {@link Map} are supported; removing a base entry records a
+ * marker in the overlay rather than touching the base. The base must not be modified once it is passed in.
+ * <p>
+ * Not threadsafe.
+ */
+public final class LayeredFieldMap extends AbstractMap<String, Object> {
+    // marks entries that have been removed, never exposed
+    private static final Object REMOVED = new Object();
+
+    private Map<String, Object> base;
+    //Nullable
+    private Map<String, Object> overlay;
+    // number of overlay entries whose key is not in the base, not counting removal markers
+    private int added;
+    // number of overlay entries that mark a base entry as removed
+    private int removed;
+
+    /**
+     * @param base the shared, immutable fields to layer the map over.
+     */
+    public LayeredFieldMap(final Map<String, Object> base) {
+        this(base, null, 0, 0);
+    }
+
+    private LayeredFieldMap(final Map<String, Object> base,
+                            final Map<String, Object> overlay,
+                            final int added,
+                            final int removed) {
+        super();
+        this.base = base;
+        this.overlay = overlay;
+        this.added = added;
+        this.removed = removed;
+    }
+
+    /**
+     * Returns a copy of the given fields, which is independent of any later changes to them. If the fields are a
+     * {@link LayeredFieldMap}, only its overlay is copied and the base is shared.
+     *
+     * @param fields to copy.
+     * @return a new, mutable map.
+     */
+    public static LayeredFieldMap copyOf(final Map<String, ?> fields) {
+        if (fields instanceof LayeredFieldMap) {
+            return ((LayeredFieldMap) fields).copy();
+        }
+        final LayeredFieldMap copy = new LayeredFieldMap(Collections.<String, Object>emptyMap());
+        copy.putAll(fields);
+        return copy;
+    }
+
+    // the overlay is only created once the first entry is put into it
+    @SuppressWarnings("PMD.NullAssignment")
+    private LayeredFieldMap copy() {
+        return new LayeredFieldMap(base, (overlay == null) ? null : new HashMap<>(overlay), added, removed);
+    }
+
+    /**
+     * Puts the entry only if there is no entry for the key yet (not even one with a null value), i.e. adds it as a
+     * field of lower precedence.
+     *
+     * @param key   of the field.
+     * @param value of the field.
+     */
+    public void putIfNotContained(final String key, final Object value) {
+        if (!containsKey(key)) {
+            put(key, value);
+        }
+    }
+
+    /**
+     * @return the shared fields this map is layered over.
+     */
+    public Map<String, Object> getBase() {
+        return base;
+    }
+
+    /**
+     * Returns the entries that have been put into this map since it was created, i.e. all entries that are not
+     * (or no longer) the base's own. Iterating over them and then over the base entries that are not
+     * {@link #isOverlaid(Object) overlaid} visits every entry of this map exactly once.
+     *
+     * @return a view of the overlay's entries, in no particular order.
+     */
+    public Iterable<Entry<String, Object>> getOverlayEntries() {
+        return new Iterable<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new LayeredIterator(false);
+            }
+        };
+    }
+
+    /**
+     * @param key to check.
+     * @return true if the key has been put into or removed from this map, so any base entry for it is hidden.
+     */
+    public boolean isOverlaid(final Object key) {
+        return overlay != null && overlay.containsKey(key);
+    }
+
+    /**
+     * @return true if any entry of the base has been replaced or removed in this map.
+     */
+    public boolean isAnyBaseEntryOverlaid() {
+        if (overlay != null) {
+            for (final String key : overlay.keySet()) {
+                if (base.containsKey(key)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return base.size() + added - removed;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        if (overlay != null) {
+            final Object value = overlay.get(key);
+            if (value != null || overlay.containsKey(key)) {
+                return value != REMOVED;
+            }
+        }
+        return base.containsKey(key);
+    }
+
+    @Override
+    public Object get(final Object key) {
+        if (overlay != null) {
+            final Object value = overlay.get(key);
+            if (value != null || overlay.containsKey(key)) {
+                return (value == REMOVED) ? null : value;
+            }
+        }
+        return base.get(key);
+    }
+
+    @Override
+    public Object put(final String key, final Object value) {
+        final Object previous;
+        if (overlay == null) {
+            overlay = new HashMap<>();
+        }
+        if (overlay.containsKey(key)) {
+            previous = overlay.put(key, value);
+            if (previous == REMOVED) {
+                if (base.containsKey(key)) {
+                    removed--;
+                } else {
+                    added++;
+                }
+                return null;
+            }
+            return previous;
+        }
+        if (base.containsKey(key)) {
+            previous = base.get(key);
+        } else {
+            previous = null;
+            added++;
+        }
+        overlay.put(key, value);
+        return previous;
+    }
+
+    @Override
+    public Object remove(final Object key) {
+        final boolean inBase = base.containsKey(key);
+        if (overlay != null && overlay.containsKey(key)) {
+            final Object previous = overlay.get(key);
+            if (previous == REMOVED) {
+                return null;
+            }
+            if (inBase) {
+                overlay.put((String) key, REMOVED);
+                removed++;
+            } else {
+                overlay.remove(key);
+                added--;
+            }
+            return previous;
+        }
+        if (inBase) {
+            if (overlay == null) {
+                overlay = new HashMap<>();
+            }
+            overlay.put((String) key, REMOVED);
+            removed++;
+            return base.get(key);
+        }
+        return null;
+    }
+
+    // the overlay is only created once the first entry is put into it
+    @SuppressWarnings("PMD.NullAssignment")
+    @Override
+    public void clear() {
+        base = Collections.emptyMap();
+        overlay = null;
+        added = 0;
+        removed = 0;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new LayeredIterator(true);
+            }
+
+            @Override
+            public int size() {
+                return LayeredFieldMap.this.size();
+            }
+        };
+    }
+
+    /*
+     * Iterates over the overlay first, skipping removal markers, and then over the base, skipping entries that are
+     * overridden or removed by the overlay.
+     */
+    // the iterators and entries are set to null once they are used up
+    @SuppressWarnings("PMD.NullAssignment")
+    private final class LayeredIterator implements Iterator<Entry<String, Object>> {
+        //Nullable
+        private Iterator<Entry<String, Object>> overlayEntries;
+        private final Iterator<Entry<String, Object>> baseEntries;
+        //Nullable
+        private Entry<String, Object> nextEntry;
+        //Nullable
+        private Entry<String, Object> current;
+        private boolean currentInOverlay;
+        private boolean nextInOverlay;
+
+        private LayeredIterator(final boolean includeBase) {
+            this.overlayEntries = (overlay == null) ? null : overlay.entrySet().iterator();
+            this.baseEntries = includeBase
+                ? base.entrySet().iterator()
+                : Collections.<Entry<String, Object>>emptyIterator();
+            advance();
+        }
+
+        private void advance() {
+            nextEntry = null;
+            while (overlayEntries != null && overlayEntries.hasNext()) {
+                final Entry<String, Object> entry = overlayEntries.next();
+                if (entry.getValue() != REMOVED) {
+                    nextEntry = entry;
+                    nextInOverlay = true;
+                    return;
+                }
+            }
+            overlayEntries = null;
+            while (baseEntries.hasNext()) {
+                final Entry<String, Object> entry = baseEntries.next();
+                if (overlay == null || !overlay.containsKey(entry.getKey())) {
+                    nextEntry = new BaseEntry(entry);
+                    nextInOverlay = false;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextEntry != null;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (nextEntry == null) {
+                throw new NoSuchElementException();
+            }
+            current = nextEntry;
+            currentInOverlay = nextInOverlay;
+            advance();
+            return current;
+        }
+
+        /*
+         * The iteration has moved on already, so overlay entries are replaced by removal markers rather than removed,
+         * which is not a structural modification of the overlay.
+         */
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            final String key = current.getKey();
+            if (currentInOverlay) {
+                current.setValue(REMOVED);
+                if (base.containsKey(key)) {
+                    removed++;
+                } else {
+                    added--;
+                }
+            } else {
+                markRemoved(key);
+            }
+            current = null;
+        }
+    }
+
+    private void markRemoved(final String key) {
+        if (overlay == null) {
+            overlay = new HashMap<>();
+        }
+        overlay.put(key, REMOVED);
+        removed++;
+    }
+
+    /*
+     * An entry of the base, which writes changes to the overlay instead.
+     */
+    private final class BaseEntry extends SimpleEntry<String, Object> {
+        private static final long serialVersionUID = 1L;
+
+        private BaseEntry(final Entry<String, Object> entry) {
+            super(entry);
+        }
+
+        @Override
+        public Object setValue(final Object value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
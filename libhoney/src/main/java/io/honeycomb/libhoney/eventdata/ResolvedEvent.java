@@ -12,6 +12,7 @@ import java.util.Map;
  */
 public final class ResolvedEvent extends EventData<ResolvedEvent> {
     private final Metrics metrics;
+    private long estimatedSize = -1L;
 
     public ResolvedEvent(
         final URI apiHost,
@@ -26,6 +27,36 @@ public final class ResolvedEvent extends EventData<ResolvedEvent> {
         metrics = Metrics.create(clock);
     }
 
+    /**
+     * @param route          of the event.
+     * @param sampleRate     of the event.
+     * @param timestamp      of the event, or null.
+     * @param resolvedFields of the event, which are used as they are rather than copied.
+     * @param metadata       of the event, or null.
+     * @param clock          to record metrics with.
+     */
+    public ResolvedEvent(
+        final EventRoute route,
+        final int sampleRate,
+        final Long timestamp,
+        final LayeredFieldMap resolvedFields,
+        final Map<String, Object> metadata,
+        final ClockProvider clock) {
+        super(route, sampleRate, timestamp, resolvedFields, metadata);
+        metrics = Metrics.create(clock);
+    }
+
+    /**
+     * Changes the sample rate after the event has been resolved, e.g. when the transport sheds load by sampling.
+     *
+     * @param sampleRate to set.
+     * @return this.
+     */
+    @Override
+    public ResolvedEvent setSampleRate(final int sampleRate) {
+        return super.setSampleRate(sampleRate);
+    }
+
     @Override
     protected ResolvedEvent getSelf() {
         return this;
@@ -34,10 +65,22 @@ public final class ResolvedEvent extends EventData<ResolvedEvent> {
     public static ResolvedEvent of(final Map<String, Object> resolvedFields,
                                    final Event event,
                                    final ClockProvider clock) {
+        return of(LayeredFieldMap.copyOf(resolvedFields), event, clock);
+    }
+
+    /**
+     * Like {@link #of(Map, Event, ClockProvider)}, except that the fields are used as they are rather than copied.
+     *
+     * @param resolvedFields of the event.
+     * @param event          to take the other properties from.
+     * @param clock          to record metrics with.
+     * @return a new resolved event.
+     */
+    public static ResolvedEvent of(final LayeredFieldMap resolvedFields,
+                                   final Event event,
+                                   final ClockProvider clock) {
         return new ResolvedEvent(
-            event.getApiHost(),
-            event.getWriteKey(),
-            event.getDataset(),
+            event.getRoute(),
             event.getSampleRate(),
             event.getTimestamp(),
             resolvedFields,
@@ -58,10 +101,30 @@ public final class ResolvedEvent extends EventData<ResolvedEvent> {
         metrics.markEndOfHttpRequest();
     }
 
+    public void markRetry() {
+        metrics.markRetry();
+    }
+
+    public int getRetryCount() {
+        return metrics.getRetryCount();
+    }
+
     public Metrics getMetrics() {
         return metrics;
     }
 
+    /**
+     * @return the size estimated by an {@link io.honeycomb.libhoney.transport.batch.EventSizeEstimator}, or -1 if
+     * none has been estimated yet.
+     */
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    public void setEstimatedSize(final long estimatedSize) {
+        this.estimatedSize = estimatedSize;
+    }
+
     @Override
     public String toString() {
         return "ResolvedEvent{" +
@@ -0,0 +1,121 @@
+package io.honeycomb.libhoney.eventdata;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable map of fields that is shared between many events, typically as the base of their
+ * {@link LayeredFieldMap}s, e.g. the fields of an {@link io.honeycomb.libhoney.EventFactory}.
+ * <p>
+ * Since the fields never change, their encoded form can be computed once and reused for every event: serializers may
+ * ask for an {@link Encoding} of the fields with {@link #getEncoded(Encoding)}, which is cached for the lifetime of
+ * the map. As the map cannot stop field values from being changed after they are passed in, the encoding is only
+ * cached if all values are immutable scalars (strings, booleans, characters, enums, and the boxed and big number
+ * types). Otherwise, e.g. with a {@code List} or an {@code AtomicLong} among them, the fields are encoded anew for
+ * every event, so that each event carries their state at the time it is sent, see {@link #isEncodingCached()}.
+ * <p>
+ * Threadsafe.
+ */
+public final class SharedFieldMap extends AbstractMap<String, Object> {
+    private static final Set<Class<?>> IMMUTABLE_SCALAR_TYPES = new HashSet<>(Arrays.<Class<?>>asList(
+        String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+        Float.class, Double.class, BigInteger.class, BigDecimal.class));
+
+    private final Map<String, Object> fields;
+    private final boolean encodingCached;
+    private final ConcurrentMap<Encoding<?>, Object> encodings = new ConcurrentHashMap<>(4);
+
+    /**
+     * @param fields to copy into this map.
+     */
+    public SharedFieldMap(final Map<String, ?> fields) {
+        super();
+        this.fields = Collections.unmodifiableMap(new HashMap<String, Object>(fields));
+        this.encodingCached = allImmutableScalars(this.fields);
+    }
+
+    private static boolean allImmutableScalars(final Map<String, Object> fields) {
+        for (final Object value : fields.values()) {
+            if (value != null && !(value instanceof Enum) && !IMMUTABLE_SCALAR_TYPES.contains(value.getClass())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the fields' encodings are cached, because all values are immutable scalars, or false if they
+     * are encoded on every call to {@link #getEncoded(Encoding)}. In the latter case, serializers are better off
+     * writing the fields as they would those of any other map.
+     */
+    public boolean isEncodingCached() {
+        return encodingCached;
+    }
+
+    /**
+     * Returns the fields encoded with the given encoding, which is only computed on first use if
+     * {@link #isEncodingCached()}, and on every call otherwise.
+     *
+     * @param encoding to apply, which is also the key the result is cached under.
+     * @param <T>      type of the encoded form.
+     * @return the encoded fields.
+     * @throws IOException if encoding fails.
+     */
+    @SuppressWarnings("unchecked") // the cache holds the result of each encoding under the encoding itself
+    public <T> T getEncoded(final Encoding<T> encoding) throws IOException {
+        if (!encodingCached) {
+            return encoding.encode(fields);
+        }
+        final Object encoded = encodings.get(encoding);
+        if (encoded != null) {
+            return (T) encoded;
+        }
+        final T newlyEncoded = encoding.encode(fields);
+        final Object existing = encodings.putIfAbsent(encoding, newlyEncoded);
+        return (existing == null) ? newlyEncoded : (T) existing;
+    }
+
+    @Override
+    public int size() {
+        return fields.size();
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return fields.containsKey(key);
+    }
+
+    @Override
+    public Object get(final Object key) {
+        return fields.get(key);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return fields.entrySet();
+    }
+
+    /**
+     * Encodes fields into a particular format. Implementations are used as cache keys, so should be singletons.
+     *
+     * @param <T> type of the encoded form.
+     */
+    public interface Encoding<T> {
+        /**
+         * @param fields to encode.
+         * @return the encoded form, must not be null.
+         * @throws IOException if encoding fails.
+         */
+        T encode(Map<String, Object> fields) throws IOException;
+    }
+}
@@ -0,0 +1,65 @@
+package io.honeycomb.libhoney.responses;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The server's response to a batch of events, as published to a {@link io.honeycomb.libhoney.BatchResponseObserver}.
+ * <p>
+ * The outcome of each event is addressed by its position in the batch, which is also its position in
+ * {@link #getEventMetadata()}. As almost all batches are accepted in full, check {@link #isAllAccepted()} before
+ * looking at individual events.
+ *
+ * See https://honeycomb.io/docs/reference/api/ for a detailed view of the batching API responses.
+ */
+public interface BatchResponse {
+    /**
+     * @return the http status code of the batch response.
+     */
+    int getBatchStatusCode();
+
+    /**
+     * @return the number of events in the batch.
+     */
+    int getEventCount();
+
+    /**
+     * @return true if the batch and every single event in it were accepted by the server.
+     */
+    boolean isAllAccepted();
+
+    /**
+     * The event-specific status code contained in the batch response body, if it is available, otherwise -1.
+     * It is not available if the batch as a whole was rejected, or its response could not be parsed.
+     *
+     * @param position of the event in the batch.
+     * @return status code for the event, -1 if not available.
+     * @throws IndexOutOfBoundsException if there is no event at the position.
+     * @see ServerResponse#EVENT_STATUS_NOT_AVAILABLE
+     */
+    int getEventStatusCode(int position);
+
+    /**
+     * @param position of the event in the batch.
+     * @return the reason the event was not accepted, or null if it was accepted.
+     * @throws IndexOutOfBoundsException if there is no event at the position.
+     */
+    String getEventError(int position);
+
+    /**
+     * The event metadata that was originally passed in with each event, in the order of the batch.
+     *
+     * @return an unmodifiable list of metadata maps - each may be empty.
+     */
+    List<Map<String, Object>> getEventMetadata();
+
+    /**
+     * @return a byte array of the raw response body.
+     */
+    byte[] getRawHttpResponseBody();
+
+    /**
+     * @return the reason the batch as a whole was rejected, or its response could not be understood, else null.
+     */
+    String getBatchError();
+}
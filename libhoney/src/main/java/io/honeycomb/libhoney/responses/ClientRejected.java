@@ -20,7 +20,9 @@ public interface ClientRejected extends Response {
     enum RejectionReason {
         /**
          * Event was not sampled. This is not an error.
-         * See {@link io.honeycomb.libhoney.Options.Builder#setSampleRate(int)}.
+         * See {@link io.honeycomb.libhoney.Options.Builder#setSampleRate(int)}, and
+         * {@link io.honeycomb.libhoney.TransportOptions.QueueOverflowPolicy#SHED} for events sampled by the transport
+         * as its queue fills up.
          */
         NOT_SAMPLED,
         /**
@@ -44,6 +46,11 @@ public interface ClientRejected extends Response {
          * Inspect the exception for details.
          */
         REQUEST_BUILD_FAILURE,
+        /**
+         * The estimated size of the event exceeds the maximum, so it would be rejected by the server.
+         * See {@link io.honeycomb.libhoney.TransportOptions.Builder#setMaxEventBytes(int)}.
+         */
+        EVENT_TOO_LARGE,
         /**
          * Event is not sent to a server as no remote link was set up. This should not happen during normal operation.
          * This is for simple (e.g. {@link ConsoleTransport}) or mocked transports that
@@ -1,40 +1,180 @@
 package io.honeycomb.libhoney.responses;
 
+import io.honeycomb.libhoney.BatchResponseObserver;
 import io.honeycomb.libhoney.ResponseObserver;
+import io.honeycomb.libhoney.TransportOptions.ResponseOverflowPolicy;
+import io.honeycomb.libhoney.utils.Assert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Maintains a collection of registered {@link ResponseObserver}s and publishes responses to them.
+ * Maintains a collection of registered {@link ResponseObserver}s and {@link BatchResponseObserver}s and publishes
+ * responses to them.
+ * <p>
+ * By default, responses are published synchronously, i.e. observers are invoked on the thread that publishes the
+ * response. For server responses, that is an IO thread of the HTTP client, so a slow observer holds up all in-flight
+ * requests. Alternatively, responses can be dispatched asynchronously: they are then put on a bounded queue, from
+ * which dedicated dispatcher threads hand them to the observers. What happens when that queue is full is determined
+ * by the {@link ResponseOverflowPolicy}; responses that are dropped as a result are counted, see
+ * {@link #getDroppedResponseCount()}. With more than one dispatcher thread, observers may see responses out of order
+ * and must be threadsafe.
+ * <p>
+ * With asynchronous dispatch, this maintains threads, so for cleanup you must call {@link #close()}.
  */
+// AccessorMethodGeneration: refactor to deal with this rule makes for a less clean design
+// GodClass: the queue and its overflow policy are managed together with the dispatcher threads that drain it
+@SuppressWarnings({"PMD.AccessorMethodGeneration", "PMD.GodClass"})
 public class ResponseObservable implements AutoCloseable {
     private static final Logger LOG = LoggerFactory.getLogger(ResponseObservable.class);
+    private static final long SHUTDOWN_TIMEOUT = 5_000L;
+
+    // identity marker to tell a dispatcher thread to stop, never published
+    private static final PendingResponse END_OF_QUEUE = new PendingResponse(null, null);
 
     private final CopyOnWriteArrayList<ResponseObserver> observers = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<BatchResponseObserver> batchObservers = new CopyOnWriteArrayList<>();
+    //Nullable
+    private final BlockingQueue<PendingResponse> queue;
+    //Nullable
+    private final ExecutorService executor;
+    private final int dispatchThreads;
+    private final ResponseOverflowPolicy overflowPolicy;
+    private final AtomicLong droppedResponses = new AtomicLong();
 
-    public void publish(final ServerAccepted toPublish) {
-        for (final ResponseObserver observer : observers) {
-            observer.onServerAccepted(toPublish);
+    /**
+     * Creates an observable that publishes responses synchronously.
+     */
+    public ResponseObservable() {
+        this(0, 1, ResponseOverflowPolicy.DROP_NEWEST);
+    }
+
+    /**
+     * @param dispatchThreads number of threads that publish responses, or 0 to publish them synchronously.
+     * @param queueCapacity   maximum number of responses waiting for a dispatcher thread.
+     * @param overflowPolicy  what to do with responses that do not fit into the queue.
+     */
+    @SuppressWarnings("PMD.NullAssignment") // the dispatcher threads and their queue are optional via "null"
+    public ResponseObservable(final int dispatchThreads,
+                              final int queueCapacity,
+                              final ResponseOverflowPolicy overflowPolicy) {
+        Assert.isTrue(dispatchThreads >= 0, "dispatchThreads must be 0 or greater");
+        Assert.isTrue(queueCapacity > 0, "queueCapacity must be > 0");
+        Assert.notNull(overflowPolicy, "overflowPolicy must not be null");
+        this.dispatchThreads = dispatchThreads;
+        this.overflowPolicy = overflowPolicy;
+        if (dispatchThreads == 0) {
+            this.queue = null;
+            this.executor = null;
+        } else {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.executor = Executors.newFixedThreadPool(dispatchThreads, new DispatcherThreadFactory());
+            for (int i = 0; i < dispatchThreads; i++) {
+                executor.execute(new Dispatcher());
+            }
         }
     }
 
+    public void publish(final ServerAccepted toPublish) {
+        publish(ResponseType.SERVER_ACCEPTED, toPublish);
+    }
+
     public void publish(final ServerRejected toPublish) {
-        for (final ResponseObserver observer : observers) {
-            observer.onServerRejected(toPublish);
-        }
+        publish(ResponseType.SERVER_REJECTED, toPublish);
     }
 
     public void publish(final ClientRejected toPublish) {
-        for (final ResponseObserver observer : observers) {
-            observer.onClientRejected(toPublish);
-        }
+        publish(ResponseType.CLIENT_REJECTED, toPublish);
     }
 
     public void publish(final Unknown toPublish) {
-        for (final ResponseObserver listener : observers) {
-            listener.onUnknown(toPublish);
+        publish(ResponseType.UNKNOWN, toPublish);
+    }
+
+    public void publish(final BatchResponse toPublish) {
+        publish(ResponseType.BATCH, toPublish);
+    }
+
+    private void publish(final ResponseType type, final Object response) {
+        if (queue == null) {
+            type.publishTo(this, response);
+        } else {
+            enqueue(type, response);
+        }
+    }
+
+    private void enqueue(final ResponseType type, final Object response) {
+        if ((type == ResponseType.BATCH) ? batchObservers.isEmpty() : observers.isEmpty()) {
+            return;
+        }
+        final PendingResponse pending = new PendingResponse(type, response);
+        if (queue.offer(pending)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case CALLER_RUNS:
+                pending.publishTo(this);
+                break;
+            case DROP_OLDEST:
+                dropOldest(pending);
+                break;
+            default:
+                dropped();
+                break;
+        }
+    }
+
+    private void dropOldest(final PendingResponse pending) {
+        final PendingResponse oldest = queue.poll();
+        if (oldest == END_OF_QUEUE) {
+            // close() is stopping the dispatchers, which must not miss the marker, so it goes back rather than this
+            dropped();
+            requeueEndOfQueue();
+            return;
+        }
+        if (oldest != null) {
+            dropped();
+        }
+        if (!queue.offer(pending)) {
+            dropped();
+        }
+    }
+
+    /*
+     * Puts back a marker that was taken off the queue, dropping the oldest responses until there is space for it. Other
+     * markers taken off the queue in the process are put back as well, so that every dispatcher thread gets one.
+     */
+    private void requeueEndOfQueue() {
+        int markers = 1;
+        while (markers > 0) {
+            if (queue.offer(END_OF_QUEUE)) {
+                markers--;
+            } else {
+                final PendingResponse oldest = queue.poll();
+                if (oldest == END_OF_QUEUE) {
+                    markers++;
+                } else if (oldest != null) {
+                    dropped();
+                }
+            }
+        }
+    }
+
+    private void dropped() {
+        if (droppedResponses.getAndIncrement() == 0) {
+            LOG.warn("The response queue is full, so responses are being dropped rather than published to the " +
+                "ResponseObservers. Further drops are not logged, but are counted by " +
+                "ResponseObservable.getDroppedResponseCount(). Consider faster observers, more dispatch threads or " +
+                "a larger response queue.");
         }
     }
 
@@ -55,8 +195,159 @@ public class ResponseObservable implements AutoCloseable {
         return !observers.isEmpty();
     }
 
+    public void add(final BatchResponseObserver observer) {
+        batchObservers.add(observer);
+        LOG.info("Added batch observer: {}", observer);
+    }
+
+    public void remove(final BatchResponseObserver observer) {
+        if (batchObservers.remove(observer)) {
+            LOG.info("Removed batch observer: {}", observer);
+        } else {
+            LOG.info("Batch observer not present in observer list: {}", observer);
+        }
+    }
+
+    public boolean hasBatchObservers() {
+        return !batchObservers.isEmpty();
+    }
+
+    /**
+     * @return the number of responses that were dropped, rather than published, because the queue was full.
+     */
+    public long getDroppedResponseCount() {
+        return droppedResponses.get();
+    }
+
+    /**
+     * @return the number of responses waiting to be published, which is always 0 with synchronous publishing.
+     */
+    public int getPendingResponseCount() {
+        return (queue == null) ? 0 : queue.size();
+    }
+
+    /**
+     * Clears all observers. With asynchronous dispatch, responses that are already queued are published first, as
+     * long as that completes in time, after which the dispatcher threads are stopped.
+     */
     @Override
     public void close() {
+        if (executor != null) {
+            stopDispatchers();
+        }
         observers.clear();
+        batchObservers.clear();
+    }
+
+    private void stopDispatchers() {
+        LOG.debug("Shutting down response dispatcher threads");
+        try {
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT);
+            boolean stopped = true;
+            for (int i = 0; i < dispatchThreads && stopped; i++) {
+                stopped = queue.offer(END_OF_QUEUE, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+            executor.shutdown();
+            if (!stopped
+                || !executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                LOG.warn("Response dispatcher threads did not terminate in time, interrupting them");
+                executor.shutdownNow();
+            }
+        } catch (final InterruptedException ex) {
+            LOG.error("Interrupted during wait for response dispatcher threads to terminate", ex);
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class Dispatcher implements Runnable {
+        // catch-all, so that a failing observer does not stop the dispatcher
+        @SuppressWarnings("PMD.AvoidCatchingGenericException")
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    final PendingResponse pending = queue.take();
+                    if (pending == END_OF_QUEUE) {
+                        return;
+                    }
+                    pending.publishTo(ResponseObservable.this);
+                } catch (final InterruptedException ignored) {
+                    Thread.currentThread().interrupt(); // preserve interrupted state to break the loop condition
+                } catch (final RuntimeException ex) {
+                    LOG.error("ResponseObserver threw an exception. Continuing with next response.", ex);
+                }
+            }
+        }
+    }
+
+    private static final class PendingResponse {
+        private final ResponseType type;
+        private final Object response;
+
+        private PendingResponse(final ResponseType type, final Object response) {
+            this.type = type;
+            this.response = response;
+        }
+
+        private void publishTo(final ResponseObservable observable) {
+            type.publishTo(observable, response);
+        }
+    }
+
+    private enum ResponseType {
+        SERVER_ACCEPTED {
+            @Override
+            void publishTo(final ResponseObservable observable, final Object response) {
+                for (final ResponseObserver observer : observable.observers) {
+                    observer.onServerAccepted((ServerAccepted) response);
+                }
+            }
+        },
+        SERVER_REJECTED {
+            @Override
+            void publishTo(final ResponseObservable observable, final Object response) {
+                for (final ResponseObserver observer : observable.observers) {
+                    observer.onServerRejected((ServerRejected) response);
+                }
+            }
+        },
+        CLIENT_REJECTED {
+            @Override
+            void publishTo(final ResponseObservable observable, final Object response) {
+                for (final ResponseObserver observer : observable.observers) {
+                    observer.onClientRejected((ClientRejected) response);
+                }
+            }
+        },
+        UNKNOWN {
+            @Override
+            void publishTo(final ResponseObservable observable, final Object response) {
+                for (final ResponseObserver observer : observable.observers) {
+                    observer.onUnknown((Unknown) response);
+                }
+            }
+        },
+        BATCH {
+            @Override
+            void publishTo(final ResponseObservable observable, final Object response) {
+                for (final BatchResponseObserver observer : observable.batchObservers) {
+                    observer.onBatchResponse((BatchResponse) response);
+                }
+            }
+        };
+
+        abstract void publishTo(ResponseObservable observable, Object response);
+    }
+
+    private static final class DispatcherThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "libhoney-response-dispatcher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
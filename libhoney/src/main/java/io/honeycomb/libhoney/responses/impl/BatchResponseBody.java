@@ -7,7 +7,8 @@ import io.honeycomb.libhoney.utils.JsonUtils;
 import org.apache.http.HttpStatus;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
 import java.util.List;
 
 /**
@@ -35,27 +36,49 @@ public class BatchResponseBody {
      */
     public static final int BATCH_ELEMENT_SUCCESS_CODE = HttpStatus.SC_ACCEPTED;
 
-    private static final ObjectReader BATCH_RESPONSE_ELEMENTS_READER = JsonUtils.OBJECT_MAPPER.readerFor(
-        // using array (rather than type descriptor or typefactory) as it appears to be slightly more performant
-        BatchResponseElement[].class);
     private static final ObjectReader BATCH_ERROR_RESPONSE_READER = JsonUtils.OBJECT_MAPPER.readerFor(
         BatchErrorResponse.class);
+    // shared by all accepted elements without an error
+    private static final BatchResponseElement ACCEPTED_ELEMENT =
+        new BatchResponseElement(BATCH_ELEMENT_SUCCESS_CODE, null);
+    private static final byte[] STATUS_KEY = "\"status\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ACCEPTED_STATUS =
+        String.valueOf(BATCH_ELEMENT_SUCCESS_CODE).getBytes(StandardCharsets.US_ASCII);
 
-    private final List<BatchResponseElement> batchResponseElements;
+    private final BatchResponseElements batchResponseElements;
     private final BatchErrorResponse batchErrorResponse;
     private final ServerApiError serverApiError;
     private final ServerResponseCategory category;
 
+    BatchResponseBody(final byte[] rawHttpResponseBody, final int httpCode) {
+        this(rawHttpResponseBody, 0, rawHttpResponseBody.length, httpCode);
+    }
+
+    /**
+     * Decodes a body that only takes up part of a buffer, which is not kept, so that the buffer may be reused.
+     *
+     * @param buffer   holding the body.
+     * @param offset   of the body in the buffer.
+     * @param length   of the body.
+     * @param httpCode the server responded with.
+     */
     // null assignments done for clarity
     @SuppressWarnings("PMD.NullAssignment")
-    BatchResponseBody(final byte[] rawHttpResponseBody, final int httpCode) {
+    BatchResponseBody(final byte[] buffer, final int offset, final int length, final int httpCode) {
         BatchErrorResponse tempError;
-        List<BatchResponseElement> tempElements;
+        BatchResponseElements tempElements;
         ServerApiError tempServerApiError;
         ServerResponseCategory tempCategory;
-        if (httpCode == BATCH_ACCEPTED_STATUS_CODE) {
+        final int acceptedCount =
+            (httpCode == BATCH_ACCEPTED_STATUS_CODE) ? countAllAccepted(buffer, offset, offset + length) : -1;
+        if (acceptedCount >= 0) {
+            tempElements = BatchResponseElements.allAccepted(acceptedCount);
+            tempError = null;
+            tempServerApiError = null;
+            tempCategory = ServerResponseCategory.BATCH_ACCEPTED;
+        } else if (httpCode == BATCH_ACCEPTED_STATUS_CODE) {
             try {
-                tempElements = Arrays.asList(BATCH_RESPONSE_ELEMENTS_READER.<BatchResponseElement[]>readValue(rawHttpResponseBody));
+                tempElements = BatchResponseElements.decode(buffer, offset, length);
                 tempError = null;
                 tempServerApiError = null;
                 tempCategory = ServerResponseCategory.BATCH_ACCEPTED;
@@ -69,13 +92,13 @@ public class BatchResponseBody {
         } else {
             try {
                 tempElements = null;
-                tempError = BATCH_ERROR_RESPONSE_READER.readValue(rawHttpResponseBody);
+                tempError = BATCH_ERROR_RESPONSE_READER.readValue(buffer, offset, length);
                 tempServerApiError = null;
                 tempCategory = ServerResponseCategory.BATCH_REJECTED;
             } catch (final IOException e) {
                 tempElements = null;
                 tempError = null;
-                String body = new String(rawHttpResponseBody);
+                final String body = new String(buffer, offset, length);
                 tempServerApiError = new ServerApiError(
                     "Failed to parse batch error response from response. Raw response: ```" + body + "```", e);
                 tempCategory = ServerResponseCategory.CANNOT_INFER_STATE;
@@ -87,10 +110,108 @@ public class BatchResponseBody {
         this.category = tempCategory;
     }
 
+    /**
+     * Checks whether the body is an array of elements that all have the accepted status and nothing else, which is
+     * by far the most common response, without even parsing it. Insignificant whitespace is allowed.
+     *
+     * @param body to check.
+     * @return the number of elements if all are accepted, else -1.
+     */
+    // visible for testing
+    static int countAllAccepted(final byte[] body) {
+        return countAllAccepted(body, 0, body.length);
+    }
+
+    /*
+     * As countAllAccepted(byte[]), for a body that ends before the end of the buffer.
+     */
+    private static int countAllAccepted(final byte[] body, final int start, final int end) {
+        int position = skipWhitespace(body, start, end);
+        if (!isAt(body, position, end, '[')) {
+            return -1;
+        }
+        position = skipWhitespace(body, position + 1, end);
+        if (isAt(body, position, end, ']')) {
+            return (skipWhitespace(body, position + 1, end) == end) ? 0 : -1;
+        }
+        int count = 0;
+        while (true) {
+            position = skipAcceptedElement(body, position, end);
+            if (position < 0) {
+                return -1;
+            }
+            count++;
+            position = skipWhitespace(body, position, end);
+            if (isAt(body, position, end, ']')) {
+                return (skipWhitespace(body, position + 1, end) == end) ? count : -1;
+            }
+            if (!isAt(body, position, end, ',')) {
+                return -1;
+            }
+            position = skipWhitespace(body, position + 1, end);
+        }
+    }
+
+    /*
+     * Returns the position after an element of the form {"status":202}, or -1 if there is none at the given position.
+     */
+    private static int skipAcceptedElement(final byte[] body, final int start, final int end) {
+        if (!isAt(body, start, end, '{')) {
+            return -1;
+        }
+        int position = skipLiteral(body, skipWhitespace(body, start + 1, end), end, STATUS_KEY);
+        if (position < 0) {
+            return -1;
+        }
+        position = skipWhitespace(body, position, end);
+        if (!isAt(body, position, end, ':')) {
+            return -1;
+        }
+        position = skipLiteral(body, skipWhitespace(body, position + 1, end), end, ACCEPTED_STATUS);
+        if (position < 0) {
+            return -1;
+        }
+        position = skipWhitespace(body, position, end);
+        return isAt(body, position, end, '}') ? position + 1 : -1;
+    }
+
+    private static boolean isAt(final byte[] body, final int position, final int end, final char expected) {
+        return position < end && body[position] == expected;
+    }
+
+    private static int skipLiteral(final byte[] body, final int start, final int end, final byte[] literal) {
+        if (start + literal.length > end) {
+            return -1;
+        }
+        for (int i = 0; i < literal.length; i++) {
+            if (body[start + i] != literal[i]) {
+                return -1;
+            }
+        }
+        return start + literal.length;
+    }
+
+    private static int skipWhitespace(final byte[] body, final int start, final int end) {
+        int position = start;
+        while (position < end
+            && (body[position] == ' ' || body[position] == '\n' || body[position] == '\r' || body[position] == '\t')) {
+            position++;
+        }
+        return position;
+    }
+
     ServerResponseCategory getCategory() {
         return category;
     }
 
+    /**
+     * @return true if {@link #getCategory()} returned {@link ServerResponseCategory#BATCH_ACCEPTED} and every
+     * element has the accepted status.
+     */
+    boolean isAllAccepted() {
+        return batchResponseElements != null && batchResponseElements.isAllAccepted();
+    }
+
     /**
      * @return batch error if {@link #getCategory()} returned {@link ServerResponseCategory#BATCH_REJECTED},
      * else null.
@@ -100,11 +221,39 @@ public class BatchResponseBody {
     }
 
     /**
+     * @return the elements if {@link #getCategory()} returned {@link ServerResponseCategory#BATCH_ACCEPTED},
+     * else null.
+     */
+    BatchResponseElements getElements() {
+        return batchResponseElements;
+    }
+
+    /**
+     * Prefer {@link #getElements()}, as this creates an object per element with an error on access.
+     *
      * @return list of elements if {@link #getCategory()} returned {@link ServerResponseCategory#BATCH_ACCEPTED},
      * else null.
      */
+    @SuppressWarnings("PMD.ReturnEmptyCollectionRatherThanNull") // null, as documented, if the batch was not accepted
     List<BatchResponseElement> getBatchResponseElements() {
-        return batchResponseElements;
+        if (batchResponseElements == null) {
+            return null;
+        }
+        return new AbstractList<BatchResponseElement>() {
+            @Override
+            public BatchResponseElement get(final int index) {
+                final int status = batchResponseElements.getStatus(index);
+                final String error = batchResponseElements.getError(index);
+                return (status == BATCH_ELEMENT_SUCCESS_CODE && error == null)
+                    ? ACCEPTED_ELEMENT
+                    : new BatchResponseElement(status, error);
+            }
+
+            @Override
+            public int size() {
+                return batchResponseElements.getCount();
+            }
+        };
     }
 
     /**
@@ -0,0 +1,178 @@
+package io.honeycomb.libhoney.responses.impl;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.honeycomb.libhoney.utils.JsonUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static io.honeycomb.libhoney.responses.impl.BatchResponseBody.BATCH_ELEMENT_SUCCESS_CODE;
+
+/**
+ * The elements of an accepted batch's response body, i.e. the status of each event and the error message of those that
+ * have one, in a compact form: statuses are held in a primitive array, and errors, which are rare, in a sparse table
+ * of positions and messages.
+ * <p>
+ * Bodies are decoded with a streaming {@link JsonParser}, so that no object is created per element other than the
+ * error messages. Unknown fields are skipped, and a missing status is taken to be 0, as with the data binding this
+ * replaces.
+ */
+final class BatchResponseElements {
+    // the shortest element that has a status is {"status":202}, plus a separating comma
+    private static final int MIN_ELEMENT_LENGTH = 15;
+    private static final int[] NO_POSITIONS = new int[0];
+    private static final String[] NO_ERRORS = new String[0];
+
+    private final int count;
+    //Nullable, if all elements are accepted
+    private final int[] statuses;
+    private final int[] errorPositions;
+    private final String[] errors;
+    private final int errorCount;
+
+    private BatchResponseElements(final int count,
+                                  final int[] statuses,
+                                  final int[] errorPositions,
+                                  final String[] errors,
+                                  final int errorCount) {
+        this.count = count;
+        this.statuses = statuses;
+        this.errorPositions = errorPositions;
+        this.errors = errors;
+        this.errorCount = errorCount;
+    }
+
+    /**
+     * @param count of elements.
+     * @return elements that are all accepted and have no error.
+     */
+    static BatchResponseElements allAccepted(final int count) {
+        return new BatchResponseElements(count, null, NO_POSITIONS, NO_ERRORS, 0);
+    }
+
+    /**
+     * @param body to decode, which must be a JSON array of response elements.
+     * @return the decoded elements.
+     * @throws IOException if the body is not valid JSON, or not an array of elements.
+     */
+    static BatchResponseElements decode(final byte[] body) throws IOException {
+        return decode(body, 0, body.length);
+    }
+
+    /**
+     * Decodes a body that only takes up part of a buffer, which is not kept, so that the buffer may be reused.
+     *
+     * @param buffer holding the body, which must be a JSON array of response elements.
+     * @param offset of the body in the buffer.
+     * @param length of the body.
+     * @return the decoded elements.
+     * @throws IOException if the body is not valid JSON, or not an array of elements.
+     */
+    // a single pass over the tokens, which collects the statuses into a primitive array without an object per element
+    @SuppressWarnings("PMD.CognitiveComplexity")
+    static BatchResponseElements decode(final byte[] buffer, final int offset, final int length) throws IOException {
+        try (JsonParser parser = JsonUtils.OBJECT_MAPPER.getFactory().createParser(buffer, offset, length)) {
+            expect(parser, parser.nextToken() == JsonToken.START_ARRAY, "Expected an array of response elements");
+            int[] statuses = new int[length / MIN_ELEMENT_LENGTH + 1];
+            int[] errorPositions = NO_POSITIONS;
+            String[] errors = NO_ERRORS;
+            int count = 0;
+            int errorCount = 0;
+            boolean allAccepted = true;
+            JsonToken token = parser.nextToken();
+            while (token != JsonToken.END_ARRAY) {
+                expect(parser, token == JsonToken.START_OBJECT, "Expected a response element");
+                int status = 0;
+                String error = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String name = parser.getCurrentName();
+                    final JsonToken value = parser.nextToken();
+                    if ("status".equals(name)) {
+                        status = readStatus(parser, value);
+                    } else if ("error".equals(name)) {
+                        error = readError(parser, value);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (count == statuses.length) {
+                    statuses = Arrays.copyOf(statuses, count << 1);
+                }
+                statuses[count] = status;
+                allAccepted &= status == BATCH_ELEMENT_SUCCESS_CODE && error == null;
+                if (error != null) {
+                    if (errorCount == errors.length) {
+                        errorPositions = Arrays.copyOf(errorPositions, Math.max(4, errorCount << 1));
+                        errors = Arrays.copyOf(errors, errorPositions.length);
+                    }
+                    errorPositions[errorCount] = count;
+                    errors[errorCount] = error;
+                    errorCount++;
+                }
+                count++;
+                token = parser.nextToken();
+            }
+            return allAccepted
+                ? allAccepted(count)
+                : new BatchResponseElements(count, statuses, errorPositions, errors, errorCount);
+        }
+    }
+
+    private static int readStatus(final JsonParser parser, final JsonToken value) throws IOException {
+        expect(parser, value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NULL,
+            "Expected an integer status");
+        return (value == JsonToken.VALUE_NULL) ? 0 : parser.getIntValue();
+    }
+
+    //Nullable
+    private static String readError(final JsonParser parser, final JsonToken value) throws IOException {
+        expect(parser, value == JsonToken.VALUE_STRING || value == JsonToken.VALUE_NULL, "Expected a string error");
+        return (value == JsonToken.VALUE_NULL) ? null : parser.getText();
+    }
+
+    private static void expect(final JsonParser parser, final boolean condition, final String message)
+        throws JsonParseException {
+        if (!condition) {
+            throw new JsonParseException(parser, message);
+        }
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * @return true if all elements have the accepted status and no error.
+     */
+    boolean isAllAccepted() {
+        return statuses == null;
+    }
+
+    /**
+     * @param position of the element.
+     * @return its status.
+     */
+    int getStatus(final int position) {
+        checkPosition(position);
+        return (statuses == null) ? BATCH_ELEMENT_SUCCESS_CODE : statuses[position];
+    }
+
+    /**
+     * @param position of the element.
+     * @return its error message, or null if it has none.
+     */
+    String getError(final int position) {
+        checkPosition(position);
+        // errors are recorded in order of position
+        final int index = Arrays.binarySearch(errorPositions, 0, errorCount, position);
+        return (index < 0) ? null : errors[index];
+    }
+
+    private void checkPosition(final int position) {
+        if (position < 0 || position >= count) {
+            throw new IndexOutOfBoundsException("Position " + position + " is out of the response's bounds");
+        }
+    }
+}
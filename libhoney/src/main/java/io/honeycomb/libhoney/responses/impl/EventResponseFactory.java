@@ -27,6 +27,26 @@ public final class EventResponseFactory {
             .build();
     }
 
+    public static ClientRejected shed(final ResolvedEvent event, final int shedRate) {
+        return new ClientRejectedBuilder(
+            ClientRejected.RejectionReason.NOT_SAMPLED,
+            "Event shed at a rate of " + shedRate + " as the queue filled up")
+            .setEventMetadata(event.getMetadata())
+            .setMetrics(event.getMetrics())
+            .build();
+    }
+
+    public static ClientRejected eventTooLarge(final ResolvedEvent event,
+                                               final long estimatedSize,
+                                               final long maxEventBytes) {
+        return new ClientRejectedBuilder(
+            ClientRejected.RejectionReason.EVENT_TOO_LARGE,
+            "Estimated event size of " + estimatedSize + " bytes exceeds the maximum of " + maxEventBytes + " bytes")
+            .setEventMetadata(event.getMetadata())
+            .setMetrics(event.getMetrics())
+            .build();
+    }
+
     public static ClientRejected notSampled(final Event event) {
         return new ClientRejectedBuilder(
             ClientRejected.RejectionReason.NOT_SAMPLED, "Event sample rate was: " + event.getSampleRate())
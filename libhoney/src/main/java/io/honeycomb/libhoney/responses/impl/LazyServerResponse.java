@@ -12,6 +12,7 @@ import io.honeycomb.libhoney.utils.Lazy;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -51,17 +52,18 @@ public class LazyServerResponse {
         switch (batchResponseBody.getCategory()) {
             case BATCH_ACCEPTED:
                 // batch size guard
-                final BatchResponseBody.BatchResponseElement element = assertBatchElements(batchResponseBody);
-                if (element.isAccepted()) {
+                final BatchResponseElements elements = assertBatchElements(batchResponseBody);
+                final int position = batchData.getPositionInBatch();
+                final int status = elements.getStatus(position);
+                if (status == BatchResponseBody.BATCH_ELEMENT_SUCCESS_CODE) {
                     final ServerAccepted accepted = new SimpleServerAccepted(
-                        rawHttpResponseBody, eventMetadata, metrics, batchData, element.getStatus(),
-                        EVENT_ACCEPTED_MESSAGE
+                        rawHttpResponseBody, eventMetadata, metrics, batchData, status, EVENT_ACCEPTED_MESSAGE
                     );
                     observable.publish(accepted);
                 } else {
-                    final String elementMessage = element.getError();
+                    final String elementMessage = elements.getError(position);
                     final ServerRejected rejected = new SimpleServerRejected(
-                        rawHttpResponseBody, eventMetadata, metrics, batchData, element.getStatus(), elementMessage
+                        rawHttpResponseBody, eventMetadata, metrics, batchData, status, elementMessage
                     );
                     observable.publish(rejected);
                 }
@@ -89,15 +91,14 @@ public class LazyServerResponse {
         }
     }
 
-    private BatchResponseBody.BatchResponseElement assertBatchElements(final BatchResponseBody batchResponseBody) {
-        final List<BatchResponseBody.BatchResponseElement> batchResponseElements =
-            batchResponseBody.getBatchResponseElements();
+    private BatchResponseElements assertBatchElements(final BatchResponseBody batchResponseBody) {
+        final BatchResponseElements batchResponseElements = batchResponseBody.getElements();
         Assert.state(batchResponseElements != null,
             "Event data requested, but elements array is null");
-        Assert.state(batchData.getPositionInBatch() < batchResponseElements.size(),
+        Assert.state(batchData.getPositionInBatch() < batchResponseElements.getCount(),
             "This event's index in the batch exceeds the batch response's size");
 
-        return batchResponseElements.get(batchData.getPositionInBatch());
+        return batchResponseElements;
     }
 
     public static List<LazyServerResponse> createEventsWithServerResponse(
@@ -116,6 +117,112 @@ public class LazyServerResponse {
         return lazyResponses;
     }
 
+    /**
+     * Publishes the server's response to a batch: once to the {@link io.honeycomb.libhoney.BatchResponseObserver}s,
+     * and for each event to the {@link io.honeycomb.libhoney.ResponseObserver}s. The response body is parsed at most
+     * once, and not at all if there are no observers.
+     *
+     * @param events              of the batch, in the order they were sent.
+     * @param rawHttpResponseBody the server responded with.
+     * @param httpCode            the server responded with.
+     * @param observable          to publish to.
+     */
+    public static void publishBatchResponse(
+        final List<ResolvedEvent> events,
+        final byte[] rawHttpResponseBody,
+        final int httpCode,
+        final ResponseObservable observable
+    ) {
+        publishBatchResponse(events, rawHttpResponseBody, httpCode, null, observable);
+    }
+
+    /**
+     * As {@link #publishBatchResponse(List, byte[], int, ResponseObservable)}, but leaves out the events at the given
+     * positions, e.g. because they are being retried. The other events keep their position in the batch, so that
+     * they are matched with the right element of the response.
+     *
+     * @param events              of the batch, in the order they were sent.
+     * @param rawHttpResponseBody the server responded with.
+     * @param httpCode            the server responded with.
+     * @param excluded            positions of the events to leave out, or null to publish all events.
+     * @param observable          to publish to.
+     */
+    public static void publishBatchResponse(
+        final List<ResolvedEvent> events,
+        final byte[] rawHttpResponseBody,
+        final int httpCode,
+        final BitSet excluded,
+        final ResponseObservable observable
+    ) {
+        if (!observable.hasBatchObservers() && !observable.hasObservers()) {
+            return;
+        }
+        final LazyResponseBody lazyResponseBody = new LazyResponseBody(rawHttpResponseBody, httpCode);
+        if (observable.hasBatchObservers()) {
+            observable.publish(
+                new SimpleBatchResponse(httpCode, rawHttpResponseBody, events, excluded, lazyResponseBody.get()));
+        }
+        if (observable.hasObservers()) {
+            for (int i = 0; i < events.size(); i++) {
+                if (excluded == null || !excluded.get(i)) {
+                    final ResolvedEvent event = events.get(i);
+                    new LazyServerResponse(
+                        httpCode, rawHttpResponseBody, event.getMetadata(), lazyResponseBody, i, event.getMetrics()
+                    ).publishTo(observable);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the events of an accepted batch that the server responded to with one of the given statuses. The response
+     * body is only decoded in full if some element is not accepted.
+     *
+     * @param rawHttpResponseBody the server responded with.
+     * @param httpCode            the server responded with.
+     * @param statuses            to look for.
+     * @return the positions of the events with any of those statuses, which is empty unless the batch was accepted.
+     */
+    public static BitSet findEventsWithStatus(final byte[] rawHttpResponseBody,
+                                              final int httpCode,
+                                              final int... statuses) {
+        return findEventsWithStatus(rawHttpResponseBody, 0, rawHttpResponseBody.length, httpCode, statuses);
+    }
+
+    /**
+     * As {@link #findEventsWithStatus(byte[], int, int...)}, for a response body that only takes up part of a buffer,
+     * such as a pooled one. The buffer is not kept, so it may be reused once this returns.
+     *
+     * @param buffer   holding the response body.
+     * @param offset   of the response body in the buffer.
+     * @param length   of the response body.
+     * @param httpCode the server responded with.
+     * @param statuses to look for.
+     * @return the positions of the events with any of those statuses, which is empty unless the batch was accepted.
+     */
+    // varargs would make calls to the overload for a whole body ambiguous
+    @SuppressWarnings("PMD.UseVarargs")
+    public static BitSet findEventsWithStatus(final byte[] buffer,
+                                              final int offset,
+                                              final int length,
+                                              final int httpCode,
+                                              final int[] statuses) {
+        final BitSet positions = new BitSet();
+        final BatchResponseBody body = new BatchResponseBody(buffer, offset, length, httpCode);
+        if (body.getCategory() == BatchResponseBody.ServerResponseCategory.BATCH_ACCEPTED && !body.isAllAccepted()) {
+            final BatchResponseElements elements = body.getElements();
+            for (int i = 0; i < elements.getCount(); i++) {
+                final int status = elements.getStatus(i);
+                for (final int wanted : statuses) {
+                    if (status == wanted) {
+                        positions.set(i);
+                    }
+                }
+            }
+        }
+        return positions;
+    }
+
     static class LazyResponseBody extends Lazy<BatchResponseBody> {
         private final byte[] rawHttpResponseBody;
         private final int httpCode;
@@ -0,0 +1,200 @@
+package io.honeycomb.libhoney.responses.impl;
+
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.BatchResponse;
+import io.honeycomb.libhoney.utils.ObjectUtils;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import static io.honeycomb.libhoney.responses.ServerResponse.EVENT_STATUS_NOT_AVAILABLE;
+
+/**
+ * Holds the outcome of each event in arrays, which are not even created if all events share the same outcome, as is
+ * the case for all-accepted and rejected batches.
+ * <p>
+ * Events of the batch can be left out (e.g. those that are being retried), in which case the remaining events are
+ * mapped to their original position in the batch, and so to the right element of the response.
+ */
+class SimpleBatchResponse implements BatchResponse {
+    private final int batchStatusCode;
+    private final byte[] rawHttpResponseBody;
+    private final List<ResolvedEvent> events;
+    //Nullable, if no event is left out
+    private final int[] positions;
+    private final boolean allAccepted;
+    // status of all events, unless there are individual statuses
+    private final int uniformStatus;
+    //Nullable
+    private final int[] statuses;
+    //Nullable
+    private final String[] errors;
+    //Nullable
+    private final String batchError;
+
+    // null assignments done for clarity
+    @SuppressWarnings({"PMD.NullAssignment", "PMD.ArrayIsStoredDirectly"})
+    SimpleBatchResponse(final int batchStatusCode,
+                        final byte[] rawHttpResponseBody,
+                        final List<ResolvedEvent> batch,
+                        final BitSet excluded,
+                        final BatchResponseBody body) {
+        this.batchStatusCode = batchStatusCode;
+        this.rawHttpResponseBody = rawHttpResponseBody;
+        this.positions = remainingPositions(batch.size(), excluded);
+        this.events = (positions == null) ? batch : select(batch, positions);
+        switch (body.getCategory()) {
+            case BATCH_ACCEPTED:
+                final BatchResponseElements elements = body.getElements();
+                if (elements.isAllAccepted() && elements.getCount() >= batch.size()) {
+                    this.allAccepted = true;
+                    this.uniformStatus = BatchResponseBody.BATCH_ELEMENT_SUCCESS_CODE;
+                    this.statuses = null;
+                    this.errors = null;
+                } else {
+                    this.allAccepted = false;
+                    this.uniformStatus = EVENT_STATUS_NOT_AVAILABLE;
+                    this.statuses = new int[events.size()];
+                    this.errors = new String[events.size()];
+                    fillFromElements(elements);
+                }
+                this.batchError = null;
+                break;
+            case BATCH_REJECTED:
+                this.allAccepted = false;
+                this.uniformStatus = EVENT_STATUS_NOT_AVAILABLE;
+                this.statuses = null;
+                this.errors = null;
+                this.batchError = body.getBatchError().getError();
+                break;
+            case CANNOT_INFER_STATE:
+                this.allAccepted = false;
+                this.uniformStatus = EVENT_STATUS_NOT_AVAILABLE;
+                this.statuses = null;
+                this.errors = null;
+                this.batchError = body.getServerApiError().getMessage();
+                break;
+            default:
+                throw new IllegalStateException("Switch not exhaustive");
+        }
+    }
+
+    // null rather than all positions, which is the common case and needs no mapping
+    @SuppressWarnings("PMD.ReturnEmptyCollectionRatherThanNull")
+    private static int[] remainingPositions(final int batchSize, final BitSet excluded) {
+        if (excluded == null || excluded.isEmpty()) {
+            return null;
+        }
+        final int[] remaining = new int[batchSize - excluded.cardinality()];
+        int count = 0;
+        for (int i = excluded.nextClearBit(0); i < batchSize; i = excluded.nextClearBit(i + 1)) {
+            remaining[count++] = i;
+        }
+        return remaining;
+    }
+
+    @SuppressWarnings("PMD.UseVarargs") // the positions are those computed by remainingPositions, not arguments
+    private static List<ResolvedEvent> select(final List<ResolvedEvent> batch, final int[] positions) {
+        final List<ResolvedEvent> selected = new ArrayList<>(positions.length);
+        for (final int position : positions) {
+            selected.add(batch.get(position));
+        }
+        return selected;
+    }
+
+    /*
+     * Events that the response has no element for, which the server should never do, are given no status.
+     */
+    @SuppressWarnings("PMD.NullAssignment") // accepted events have no error
+    private void fillFromElements(final BatchResponseElements elements) {
+        for (int i = 0; i < statuses.length; i++) {
+            final int position = (positions == null) ? i : positions[i];
+            if (position < elements.getCount()) {
+                statuses[i] = elements.getStatus(position);
+                errors[i] = (statuses[i] == BatchResponseBody.BATCH_ELEMENT_SUCCESS_CODE)
+                    ? null
+                    : elements.getError(position);
+            } else {
+                statuses[i] = EVENT_STATUS_NOT_AVAILABLE;
+                errors[i] = "The batch response holds no element for this event";
+            }
+        }
+    }
+
+    @Override
+    public int getBatchStatusCode() {
+        return batchStatusCode;
+    }
+
+    @Override
+    public int getEventCount() {
+        return events.size();
+    }
+
+    @Override
+    public boolean isAllAccepted() {
+        return allAccepted;
+    }
+
+    @Override
+    public int getEventStatusCode(final int position) {
+        checkPosition(position);
+        return (statuses == null) ? uniformStatus : statuses[position];
+    }
+
+    @Override
+    public String getEventError(final int position) {
+        checkPosition(position);
+        return (errors == null) ? batchError : errors[position];
+    }
+
+    private void checkPosition(final int position) {
+        if (position < 0 || position >= events.size()) {
+            throw new IndexOutOfBoundsException("Position " + position + " is out of the batch's bounds");
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> getEventMetadata() {
+        return new EventMetadataList();
+    }
+
+    @Override
+    public byte[] getRawHttpResponseBody() {
+        return rawHttpResponseBody;
+    }
+
+    @Override
+    public String getBatchError() {
+        return batchError;
+    }
+
+    @Override
+    public String toString() {
+        return "SimpleBatchResponse{" +
+            "batchStatusCode=" + batchStatusCode +
+            ", eventCount=" + events.size() +
+            ", allAccepted=" + allAccepted +
+            ", batchError='" + batchError + '\'' +
+            '}';
+    }
+
+    /*
+     * A view of the events' metadata, so that no list needs to be copied.
+     */
+    private final class EventMetadataList extends AbstractList<Map<String, Object>> implements RandomAccess {
+        @Override
+        public Map<String, Object> get(final int index) {
+            return ObjectUtils.nullsafe(events.get(index).getMetadata());
+        }
+
+        @Override
+        public int size() {
+            return events.size();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.honeycomb.libhoney.sampling;
+
+import io.honeycomb.libhoney.Event;
+import io.honeycomb.libhoney.Sampler;
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Samples events deterministically based on the value of one of their fields, so that all events with the same value
+ * get the same sampling decision. Sampling on the trace ID field ({@link #TRACE_ID_FIELD}) keeps traces whole.
+ * <p>
+ * The decision is made the same way as by the Honeycomb Beelines: the first 4 bytes of the SHA-1 hash of the value
+ * are read as an unsigned big-endian integer, and the event is sampled if that is at most
+ * {@code 0xffffffff / sampleRate}. Events produced by this library and by Beelines with the same sample rate
+ * are therefore sampled consistently.
+ * <p>
+ * Events that do not have the field (or have it set to null) are sampled by the fallback sampler, which by default
+ * is the {@link ThreadLocalRandomSampler}.
+ */
+public final class DeterministicSampler implements Sampler {
+    /**
+     * The field name the Beelines use for the trace ID.
+     */
+    public static final String TRACE_ID_FIELD = "trace.trace_id";
+
+    private static final long MAX_UINT32 = 0xffffffffL;
+    // a rate of 1 in 1, at or below which every value is sampled
+    private static final int SAMPLE_ALL_RATE = 1;
+
+    private static final ThreadLocal<MessageDigest> SHA1 = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-1");
+            } catch (final NoSuchAlgorithmException e) {
+                // every Java platform is required to support SHA-1
+                throw new IllegalStateException("SHA-1 is not supported", e);
+            }
+        }
+    };
+
+    private final String fieldName;
+    private final Sampler fallback;
+
+    /**
+     * @param fieldName whose value the sampling decision is based on.
+     */
+    public DeterministicSampler(final String fieldName) {
+        this(fieldName, ThreadLocalRandomSampler.getInstance());
+    }
+
+    /**
+     * @param fieldName whose value the sampling decision is based on.
+     * @param fallback  to sample events with that lack the field.
+     */
+    public DeterministicSampler(final String fieldName, final Sampler fallback) {
+        Assert.notEmpty(fieldName, "fieldName must not be null or empty");
+        Assert.notNull(fallback, "fallback must not be null");
+        this.fieldName = fieldName;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public boolean sample(final Event event) {
+        final Object value = event.getFields().get(fieldName);
+        if (value == null) {
+            return fallback.sample(event);
+        }
+        return sample(String.valueOf(value), event.getSampleRate());
+    }
+
+    /**
+     * @param value      to base the decision on.
+     * @param sampleRate to sample at.
+     * @return true if the value is sampled at the given rate.
+     */
+    public static boolean sample(final String value, final int sampleRate) {
+        if (sampleRate <= SAMPLE_ALL_RATE) {
+            return true;
+        }
+        final byte[] digest = SHA1.get().digest(value.getBytes(StandardCharsets.UTF_8));
+        final long hash = ((digest[0] & 0xffL) << 24)
+            | ((digest[1] & 0xffL) << 16)
+            | ((digest[2] & 0xffL) << 8)
+            | (digest[3] & 0xffL);
+        return hash <= MAX_UINT32 / sampleRate;
+    }
+
+    @Override
+    public String toString() {
+        return "DeterministicSampler{" +
+            "fieldName='" + fieldName + '\'' +
+            ", fallback=" + fallback +
+            '}';
+    }
+}
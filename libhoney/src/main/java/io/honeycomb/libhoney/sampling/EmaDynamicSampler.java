@@ -0,0 +1,448 @@
+package io.honeycomb.libhoney.sampling;
+
+import io.honeycomb.libhoney.Event;
+import io.honeycomb.libhoney.Sampler;
+import io.honeycomb.libhoney.utils.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A dynamic sampler that adjusts the sample rate of each key, so that the overall volume of events stays close to a
+ * goal, while rare keys are kept at a higher rate than frequent ones. This follows the "EMA sample rate" approach of
+ * Honeycomb's dynsampler-go.
+ * <p>
+ * An event's key is made from the values of the configured key fields. Events are counted per key, and on every
+ * adjustment interval a background thread folds the counts into an exponential moving average per key. The goal
+ * number of events for the interval is then spread across the keys in proportion to the logarithm of their averages,
+ * and each key gets the sample rate that brings it down to its share. The goal is either an average sample rate, or
+ * a throughput in events per second if one is set. The rate for the event's key is written to the event (so that
+ * Honeycomb weights it accordingly), and the event is then sampled at that rate. Keys without a rate yet (i.e. seen
+ * for the first time since the last adjustment) are sampled at a rate of 1.
+ * <p>
+ * When the number of events within an interval exceeds a multiple of the average total (a burst), the rates are
+ * adjusted right away rather than at the end of the interval.
+ * <p>
+ * Sampling only increments an atomic counter and reads an immutable snapshot of the rates, so it adds no locking to
+ * the sending threads. The number of tracked keys is bounded; events with keys beyond that bound are sampled at the
+ * goal sample rate. Keys whose average drops below the age out value are no longer tracked.
+ * <p>
+ * Internally, this maintains a background thread, so for cleanup you must call {@link #close()}, after closing the
+ * {@link io.honeycomb.libhoney.HoneyClient}s that use it. The clients do not close it, as it may be shared by several.
+ */
+// AccessorMethodGeneration: refactor to deal with this rule makes for a less clean design
+// TooManyFields: the settings, plus the state shared between the sending threads and the adjustment thread
+@SuppressWarnings({"PMD.AccessorMethodGeneration", "PMD.TooManyFields"})
+public final class EmaDynamicSampler implements Sampler, AutoCloseable {
+    public static final int DEFAULT_GOAL_SAMPLE_RATE = 10;
+    public static final int DEFAULT_GOAL_THROUGHPUT_PER_SECOND = 0;
+    public static final long DEFAULT_ADJUSTMENT_INTERVAL_MILLIS = 15_000L;
+    public static final double DEFAULT_WEIGHT = 0.5;
+    public static final double DEFAULT_AGE_OUT_VALUE = 0.5;
+    public static final double DEFAULT_BURST_MULTIPLE = 2.0;
+    public static final int DEFAULT_MAX_KEYS = 500;
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmaDynamicSampler.class);
+    private static final String KEY_SEPARATOR = ",";
+
+    private final List<String> keyFields;
+    private final int goalSampleRate;
+    private final int goalThroughputPerSecond;
+    private final long adjustmentIntervalMillis;
+    private final double weight;
+    private final double ageOutValue;
+    private final double burstMultiple;
+    private final int maxKeys;
+
+    // written by the sending threads
+    private final ConcurrentMap<String, AtomicLong> counts = new ConcurrentHashMap<>();
+    private final AtomicInteger keyCount = new AtomicInteger();
+    private final AtomicLong intervalCount = new AtomicLong();
+    private final AtomicBoolean burstAdjustmentPending = new AtomicBoolean();
+
+    // only accessed by the adjustment thread
+    private final Map<String, Double> averages = new HashMap<>();
+
+    // replaced by the adjustment thread, read by the sending threads
+    private volatile Map<String, Integer> sampleRates = Collections.emptyMap();
+    private volatile long burstThreshold = Long.MAX_VALUE;
+
+    private final ScheduledExecutorService executor;
+
+    private EmaDynamicSampler(final Builder builder) {
+        Assert.isTrue(!builder.keyFields.isEmpty(), "keyFields must not be empty");
+        Assert.isTrue(builder.goalSampleRate >= 1, "goalSampleRate must be 1 or greater");
+        Assert.isTrue(builder.goalThroughputPerSecond >= 0, "goalThroughputPerSecond must be >= 0");
+        Assert.isTrue(builder.adjustmentIntervalMillis > 0, "adjustmentIntervalMillis must be > 0");
+        Assert.isTrue(builder.weight > 0 && builder.weight <= 1, "weight must be > 0 and <= 1");
+        Assert.isTrue(builder.ageOutValue >= 0, "ageOutValue must be >= 0");
+        Assert.isTrue(builder.burstMultiple >= 1, "burstMultiple must be >= 1");
+        Assert.isTrue(builder.maxKeys > 0, "maxKeys must be > 0");
+
+        this.keyFields = new ArrayList<>(builder.keyFields);
+        this.goalSampleRate = builder.goalSampleRate;
+        this.goalThroughputPerSecond = builder.goalThroughputPerSecond;
+        this.adjustmentIntervalMillis = builder.adjustmentIntervalMillis;
+        this.weight = builder.weight;
+        this.ageOutValue = builder.ageOutValue;
+        this.burstMultiple = builder.burstMultiple;
+        this.maxKeys = builder.maxKeys;
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "libhoney-dynamic-sampler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.executor.scheduleAtFixedRate(
+            new Adjustment(), adjustmentIntervalMillis, adjustmentIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public boolean sample(final Event event) {
+        final String key = keyOf(event.getFields());
+        count(key);
+
+        Integer sampleRate = sampleRates.get(key);
+        if (sampleRate == null) {
+            sampleRate = isTracked(key) ? 1 : goalSampleRate;
+        }
+        event.setSampleRate(sampleRate);
+        return ThreadLocalRandomSampler.getInstance().sample(event);
+    }
+
+    private String keyOf(final Map<String, Object> fields) {
+        if (keyFields.size() == 1) { // NOPMD a single field's value is the key as is
+            return String.valueOf(fields.get(keyFields.get(0)));
+        }
+        final StringBuilder key = new StringBuilder();
+        for (int i = 0; i < keyFields.size(); i++) {
+            if (i > 0) {
+                key.append(KEY_SEPARATOR);
+            }
+            key.append(fields.get(keyFields.get(i)));
+        }
+        return key.toString();
+    }
+
+    private void count(final String key) {
+        AtomicLong counter = counts.get(key);
+        if (counter == null && keyCount.get() < maxKeys) {
+            final AtomicLong newCounter = new AtomicLong();
+            counter = counts.putIfAbsent(key, newCounter);
+            if (counter == null) {
+                keyCount.incrementAndGet();
+                counter = newCounter;
+            }
+        }
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+        if (intervalCount.incrementAndGet() > burstThreshold && burstAdjustmentPending.compareAndSet(false, true)) {
+            try {
+                executor.execute(new Adjustment());
+            } catch (final RejectedExecutionException ignored) {
+                // closed, so rates are no longer adjusted
+            }
+        }
+    }
+
+    private boolean isTracked(final String key) {
+        return counts.containsKey(key);
+    }
+
+    /**
+     * Folds the counts since the last adjustment into the moving averages and recomputes the sample rates.
+     * Must only be called from the adjustment thread - or from tests, while no adjustment is scheduled to happen.
+     */
+    // visible for testing
+    void adjustSampleRates() {
+        double sumOfAverages = 0;
+        for (final Map.Entry<String, AtomicLong> entry : counts.entrySet()) {
+            final String key = entry.getKey();
+            final long count = entry.getValue().getAndSet(0);
+            final Double previous = averages.get(key);
+            final double average = (previous == null)
+                ? count
+                : (weight * count) + ((1 - weight) * previous);
+            if (count == 0 && average < ageOutValue) {
+                averages.remove(key);
+                if (counts.remove(key, entry.getValue())) {
+                    keyCount.decrementAndGet();
+                }
+            } else {
+                averages.put(key, average);
+                sumOfAverages += average;
+            }
+        }
+        intervalCount.set(0);
+
+        final double goalCount = (goalThroughputPerSecond > 0)
+            ? goalThroughputPerSecond * (adjustmentIntervalMillis / 1000d)
+            : sumOfAverages / goalSampleRate;
+        sampleRates = Collections.unmodifiableMap(calculateSampleRates(averages, goalCount));
+        burstThreshold = (sumOfAverages > 0) ? (long) Math.ceil(sumOfAverages * burstMultiple) : Long.MAX_VALUE;
+        LOG.debug("Adjusted dynamic sample rates for {} keys: {}", averages.size(), sampleRates);
+    }
+
+    /*
+     * Spreads the goal count across the keys in proportion to the log of their counts, so that rare keys get a
+     * relatively bigger share. Keys are visited from the lowest count up, and the share a key cannot use (because it
+     * has fewer events than that) is passed on to the keys after it.
+     */
+    // visible for testing
+    static Map<String, Integer> calculateSampleRates(final Map<String, Double> counts, final double goalCount) {
+        final Map<String, Integer> rates = new HashMap<>(counts.size() * 2);
+        double logSum = 0;
+        for (final Double count : counts.values()) {
+            logSum += Math.log10(Math.max(1, count));
+        }
+        if (logSum == 0 || goalCount <= 0) {
+            for (final String key : counts.keySet()) {
+                rates.put(key, 1);
+            }
+            return rates;
+        }
+
+        final double goalRatio = goalCount / logSum;
+        final String[] keys = counts.keySet().toArray(new String[0]);
+        Arrays.sort(keys, new Comparator<String>() {
+            @Override
+            public int compare(final String key, final String otherKey) {
+                final int byCount = Double.compare(counts.get(key), counts.get(otherKey));
+                return (byCount == 0) ? key.compareTo(otherKey) : byCount;
+            }
+        });
+        int keysRemaining = keys.length;
+        double extra = 0;
+        for (final String key : keys) {
+            final double count = Math.max(1, counts.get(key));
+            final double extraForKey = extra / keysRemaining;
+            final double goalForKey = Math.max(1, Math.log10(count) * goalRatio) + extraForKey;
+            extra -= extraForKey;
+            keysRemaining--;
+            if (count <= goalForKey) {
+                rates.put(key, 1);
+                extra += goalForKey - count;
+            } else {
+                final int rate = (int) Math.min(Integer.MAX_VALUE, Math.ceil(count / goalForKey));
+                rates.put(key, rate);
+                extra += goalForKey - (count / rate);
+            }
+        }
+        return rates;
+    }
+
+    // visible for testing
+    Map<String, Integer> getSampleRates() {
+        return sampleRates;
+    }
+
+    /**
+     * Stops the background thread that adjusts the sample rates. Rates are no longer adjusted after this.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "EmaDynamicSampler{" +
+            "keyFields=" + keyFields +
+            ", goalSampleRate=" + goalSampleRate +
+            ", goalThroughputPerSecond=" + goalThroughputPerSecond +
+            ", adjustmentIntervalMillis=" + adjustmentIntervalMillis +
+            ", weight=" + weight +
+            ", ageOutValue=" + ageOutValue +
+            ", burstMultiple=" + burstMultiple +
+            ", maxKeys=" + maxKeys +
+            '}';
+    }
+
+    private class Adjustment implements Runnable {
+        // Catch-all, so that a failure does not cancel future adjustments.
+        @SuppressWarnings("PMD.AvoidCatchingGenericException")
+        @Override
+        public void run() {
+            try {
+                adjustSampleRates();
+            } catch (final RuntimeException ex) {
+                LOG.error("Failed to adjust dynamic sample rates", ex);
+            } finally {
+                burstAdjustmentPending.set(false);
+            }
+        }
+    }
+
+    /**
+     * Helper class to construct an {@link EmaDynamicSampler}.
+     */
+    // the setters return the builder so that calls can be chained
+    @SuppressWarnings("PMD.LinguisticNaming")
+    public static class Builder {
+        private final List<String> keyFields = new ArrayList<>();
+        private int goalSampleRate = DEFAULT_GOAL_SAMPLE_RATE;
+        private int goalThroughputPerSecond = DEFAULT_GOAL_THROUGHPUT_PER_SECOND;
+        private long adjustmentIntervalMillis = DEFAULT_ADJUSTMENT_INTERVAL_MILLIS;
+        private double weight = DEFAULT_WEIGHT;
+        private double ageOutValue = DEFAULT_AGE_OUT_VALUE;
+        private double burstMultiple = DEFAULT_BURST_MULTIPLE;
+        private int maxKeys = DEFAULT_MAX_KEYS;
+
+        private Builder() {
+        }
+
+        /**
+         * This creates an {@link EmaDynamicSampler}, which immediately starts its background thread.
+         *
+         * @return A new sampler.
+         * @throws IllegalArgumentException if the configuration fails validation.
+         */
+        public EmaDynamicSampler build() {
+            return new EmaDynamicSampler(this);
+        }
+
+        /**
+         * The fields whose values make up the key that events are sampled by, e.g. the HTTP route and status code.
+         * Events missing a field have "null" in its place. Keep the number of distinct keys low, see
+         * {@link #setMaxKeys(int)}.
+         * <p>
+         * Must not be empty.
+         *
+         * @param keyFields to set.
+         * @return this.
+         */
+        public Builder setKeyFields(final String... keyFields) {
+            this.keyFields.clear();
+            this.keyFields.addAll(Arrays.asList(keyFields));
+            return this;
+        }
+
+        /**
+         * The average sample rate to aim for across all keys. Also the rate applied to keys that are not tracked
+         * because there are too many of them. Ignored as a goal if a goal throughput is set.
+         * <p>
+         * Must be 1 or greater<br>
+         * Default: {@value #DEFAULT_GOAL_SAMPLE_RATE}
+         *
+         * @param goalSampleRate to set.
+         * @return this.
+         */
+        public Builder setGoalSampleRate(final int goalSampleRate) {
+            this.goalSampleRate = goalSampleRate;
+            return this;
+        }
+
+        /**
+         * The number of events per second to aim for across all keys, e.g. to stay within an event quota. While
+         * there are fewer events than that, all of them are sent. Set to 0 to aim for the goal sample rate instead.
+         * <p>
+         * Must be 0 or greater<br>
+         * Default: {@value #DEFAULT_GOAL_THROUGHPUT_PER_SECOND}
+         *
+         * @param goalThroughputPerSecond to set.
+         * @return this.
+         */
+        public Builder setGoalThroughputPerSecond(final int goalThroughputPerSecond) {
+            this.goalThroughputPerSecond = goalThroughputPerSecond;
+            return this;
+        }
+
+        /**
+         * How often the sample rates are adjusted, i.e. the interval over which events are counted.
+         * <p>
+         * Must be greater than 0<br>
+         * Default: {@value #DEFAULT_ADJUSTMENT_INTERVAL_MILLIS}
+         *
+         * @param adjustmentIntervalMillis to set.
+         * @return this.
+         */
+        public Builder setAdjustmentIntervalMillis(final long adjustmentIntervalMillis) {
+            this.adjustmentIntervalMillis = adjustmentIntervalMillis;
+            return this;
+        }
+
+        /**
+         * The weight of the latest interval's count in the moving average. Higher values make the rates react faster
+         * to changes in traffic, lower values make them more stable.
+         * <p>
+         * Must be greater than 0 and at most 1<br>
+         * Default: {@value #DEFAULT_WEIGHT}
+         *
+         * @param weight to set.
+         * @return this.
+         */
+        public Builder setWeight(final double weight) {
+            this.weight = weight;
+            return this;
+        }
+
+        /**
+         * Keys that had no events in an interval and whose moving average dropped below this value are no longer
+         * tracked, which makes room for new keys.
+         * <p>
+         * Must be 0 or greater<br>
+         * Default: {@value #DEFAULT_AGE_OUT_VALUE}
+         *
+         * @param ageOutValue to set.
+         * @return this.
+         */
+        public Builder setAgeOutValue(final double ageOutValue) {
+            this.ageOutValue = ageOutValue;
+            return this;
+        }
+
+        /**
+         * If the number of events within an interval exceeds this multiple of the moving average total, the rates
+         * are adjusted immediately.
+         * <p>
+         * Must be 1 or greater<br>
+         * Default: {@value #DEFAULT_BURST_MULTIPLE}
+         *
+         * @param burstMultiple to set.
+         * @return this.
+         */
+        public Builder setBurstMultiple(final double burstMultiple) {
+            this.burstMultiple = burstMultiple;
+            return this;
+        }
+
+        /**
+         * The maximum number of keys to track. Events with further keys are sampled at the goal sample rate.
+         * <p>
+         * Must be greater than 0<br>
+         * Default: {@value #DEFAULT_MAX_KEYS}
+         *
+         * @param maxKeys to set.
+         * @return this.
+         */
+        public Builder setMaxKeys(final int maxKeys) {
+            this.maxKeys = maxKeys;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.honeycomb.libhoney.sampling;
+
+import io.honeycomb.libhoney.Event;
+import io.honeycomb.libhoney.Sampler;
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Applies a sample rate based on the value of one of the event's fields (the key), e.g. to keep all errors while
+ * sampling successful requests heavily. The rate for the key is set on the event, so that Honeycomb can weight the
+ * event accordingly, and the sampling decision is then left to a delegate sampler.
+ * <p>
+ * Events whose key has no configured rate (including events without the field) keep their own sample rate.
+ * The rates are looked up in an immutable copy of the map that is passed in, so this sampler is threadsafe as long as
+ * its delegate is.
+ */
+public final class PerKeyRateSampler implements Sampler {
+    private final String fieldName;
+    private final Map<String, Integer> sampleRates;
+    private final Sampler delegate;
+
+    /**
+     * @param fieldName   whose value is the key to look up the sample rate with.
+     * @param sampleRates by key, each 1 or greater.
+     */
+    public PerKeyRateSampler(final String fieldName, final Map<String, Integer> sampleRates) {
+        this(fieldName, sampleRates, ThreadLocalRandomSampler.getInstance());
+    }
+
+    /**
+     * @param fieldName   whose value is the key to look up the sample rate with.
+     * @param sampleRates by key, each 1 or greater.
+     * @param delegate    that makes the sampling decision once the rate is applied.
+     */
+    public PerKeyRateSampler(final String fieldName,
+                             final Map<String, Integer> sampleRates,
+                             final Sampler delegate) {
+        Assert.notEmpty(fieldName, "fieldName must not be null or empty");
+        Assert.notNull(sampleRates, "sampleRates must not be null");
+        Assert.notNull(delegate, "delegate must not be null");
+        for (final Integer sampleRate : sampleRates.values()) {
+            Assert.isTrue(sampleRate != null && sampleRate >= 1, "sampleRates must be 1 or greater");
+        }
+        this.fieldName = fieldName;
+        this.sampleRates = new HashMap<>(sampleRates);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean sample(final Event event) {
+        final Object key = event.getFields().get(fieldName);
+        if (key != null) {
+            final Integer sampleRate = sampleRates.get(String.valueOf(key));
+            if (sampleRate != null) {
+                event.setSampleRate(sampleRate);
+            }
+        }
+        return delegate.sample(event);
+    }
+
+    @Override
+    public String toString() {
+        return "PerKeyRateSampler{" +
+            "fieldName='" + fieldName + '\'' +
+            ", sampleRates=" + sampleRates +
+            ", delegate=" + delegate +
+            '}';
+    }
+}
@@ -0,0 +1,33 @@
+package io.honeycomb.libhoney.sampling;
+
+import io.honeycomb.libhoney.Event;
+import io.honeycomb.libhoney.Sampler;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples events uniformly at random, with a probability of {@code 1/sampleRate} according to each event's sample
+ * rate. Each thread uses its own random number generator, so that concurrent senders do not contend on a shared seed.
+ */
+public final class ThreadLocalRandomSampler implements Sampler {
+    private static final ThreadLocalRandomSampler INSTANCE = new ThreadLocalRandomSampler();
+
+    private ThreadLocalRandomSampler() {
+        // stateless, use getInstance
+    }
+
+    public static ThreadLocalRandomSampler getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public boolean sample(final Event event) {
+        final int sampleRate = event.getSampleRate();
+        return sampleRate <= 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ThreadLocalRandomSampler";
+    }
+}
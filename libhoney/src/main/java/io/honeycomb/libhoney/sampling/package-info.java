@@ -0,0 +1,5 @@
+/**
+ * Implementations of {@link io.honeycomb.libhoney.Sampler} that can be set with
+ * {@link io.honeycomb.libhoney.Options.Builder#setSampler}.
+ */
+package io.honeycomb.libhoney.sampling;
@@ -0,0 +1,17 @@
+package io.honeycomb.libhoney.transport.batch;
+
+/**
+ * A strategy interface to estimate the number of bytes an event adds to the body of a batch request, so that batches
+ * can be limited in size as well as in number of events.
+ *
+ * @param <T> the type of event to estimate.
+ */
+public interface EventSizeEstimator<T> {
+    /**
+     * Implementations should be cheap compared to serializing the event, and err on the side of overestimating.
+     *
+     * @param event to estimate the encoded size of.
+     * @return the estimated size in bytes.
+     */
+    long estimateSize(T event);
+}
@@ -0,0 +1,34 @@
+package io.honeycomb.libhoney.transport.batch;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A strategy interface for offering events to a batcher's queue, which determines what happens to events that
+ * arrive while the queue is full.
+ *
+ * @param <T> the type of the events.
+ * @see io.honeycomb.libhoney.TransportOptions.QueueOverflowPolicy
+ */
+public interface OverflowHandler<T> {
+    /**
+     * Implementations must be threadsafe, as events are offered by any thread sending them.
+     *
+     * @param queue to offer the event to.
+     * @param event to offer.
+     * @return true if the event was taken care of, either by adding it to the queue or in some other way, e.g. by
+     * shedding it, or false if it was rejected, in which case the caller reports the overflow.
+     * @throws InterruptedException if interrupted while waiting for space in the queue.
+     */
+    boolean offer(BlockingQueue<T> queue, T event) throws InterruptedException;
+
+    /**
+     * @return the number of events that were rejected, i.e. for which {@link #offer} returned false.
+     */
+    long getRejectedEventCount();
+
+    /**
+     * @return the number of events that were taken care of without being sent, e.g. by being shed or by being
+     * dropped from the queue to make room for newer ones.
+     */
+    long getDroppedEventCount();
+}
@@ -0,0 +1,186 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A limiter that adapts its limit to the observed outcome of requests, by additive increase and multiplicative
+ * decrease (AIMD), as TCP does with its congestion window:
+ * <ul>
+ * <li>Each request that completes without signs of congestion while the limit is being made use of (i.e. at least
+ * half of it is pending) raises the limit by one.</li>
+ * <li>A request that signals congestion lowers the limit by a tenth. Apart from failures, this is the case for
+ * requests whose latency exceeds twice the baseline latency, which tracks the lowest latency observed, so that latency
+ * spikes are taken as a sign of an overloaded server or network before it starts failing. The requests that were
+ * already pending at that point were sent under the old limit, so their congestion does not lower the limit again,
+ * i.e. it drops at most once per round of pending requests.</li>
+ * </ul>
+ * The limit stays between 1 and the maximum, and starts out at a tenth of the maximum. Only the latency of requests
+ * that did not fail is taken into account for the baseline, as errors such as 503s may be returned much faster than
+ * regular responses. The baseline drifts slowly towards higher latencies, so that it follows lasting changes, e.g.
+ * after a move to a more distant endpoint.
+ * <p>
+ * Threadsafe.
+ */
+final class AimdConcurrencyLimiter implements ConcurrencyLimiter {
+    private static final int MIN_LIMIT = 1;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final int LATENCY_TOLERANCE = 2;
+    // the baseline moves 1/1024th of the way towards each latency above it
+    private static final int BASELINE_DRIFT_SHIFT = 10;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    // written under lock
+    private volatile int maxLimit;
+    // guarded by lock
+    private int pending;
+    // guarded by lock
+    private long baselineLatencyNanos = -1;
+    // guarded by lock, the number of requests pending at the last decrease that have not been released yet
+    private int releasesBeforeNextDecrease;
+    // written under lock
+    private volatile int limit;
+
+    AimdConcurrencyLimiter(final int maxLimit) {
+        this(Math.max(MIN_LIMIT, maxLimit / 10), maxLimit);
+    }
+
+    // visible for testing
+    AimdConcurrencyLimiter(final int initialLimit, final int maxLimit) {
+        Assert.isTrue(maxLimit >= MIN_LIMIT, "maxLimit must be 1 or greater");
+        Assert.isTrue(initialLimit >= MIN_LIMIT && initialLimit <= maxLimit,
+            "initialLimit must be between 1 and maxLimit");
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (pending >= limit) {
+                released.await();
+            }
+            pending++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void release(final long latencyNanos, final boolean congested) {
+        lock.lock();
+        try {
+            final boolean utilized = pending * 2 >= limit;
+            final boolean pendingAtLastDecrease = releasesBeforeNextDecrease > 0;
+            pending--;
+            if (pendingAtLastDecrease) {
+                releasesBeforeNextDecrease--;
+            }
+            if (congested || isLatencyCongested(latencyNanos)) {
+                if (!pendingAtLastDecrease) {
+                    limit = Math.max(MIN_LIMIT, (int) (limit * BACKOFF_RATIO));
+                    releasesBeforeNextDecrease = pending;
+                }
+            } else if (latencyNanos >= 0 && utilized && limit < maxLimit) {
+                limit++;
+            }
+            if (!congested) {
+                updateBaseline(latencyNanos);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isLatencyCongested(final long latencyNanos) {
+        return latencyNanos >= 0
+            && baselineLatencyNanos >= 0
+            && latencyNanos > baselineLatencyNanos * LATENCY_TOLERANCE;
+    }
+
+    private void updateBaseline(final long latencyNanos) {
+        if (latencyNanos < 0) {
+            return;
+        }
+        if (baselineLatencyNanos < 0 || latencyNanos < baselineLatencyNanos) {
+            baselineLatencyNanos = latencyNanos;
+        } else {
+            baselineLatencyNanos += (latencyNanos - baselineLatencyNanos) >> BASELINE_DRIFT_SHIFT;
+        }
+    }
+
+    @Override
+    public boolean awaitNoPending(final long timeout, final TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (pending > 0) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * Changes the maximum at runtime. If the limit is above the new maximum, it is lowered to it right away,
+     * otherwise the limit increases up to the new maximum as usual.
+     *
+     * @param maxLimit 1 or greater.
+     */
+    @Override
+    public void setMaxLimit(final int maxLimit) {
+        Assert.isTrue(maxLimit >= MIN_LIMIT, "maxLimit must be 1 or greater");
+        lock.lock();
+        try {
+            this.maxLimit = maxLimit;
+            if (limit > maxLimit) {
+                limit = maxLimit;
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getPending() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // visible for testing
+    long getBaselineLatencyNanos() {
+        lock.lock();
+        try {
+            return baselineLatencyNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.LibHoney;
+import io.honeycomb.libhoney.TransportOptions;
+import io.honeycomb.libhoney.eventdata.EventRoute;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.json.StreamingJsonSerializer;
+import io.honeycomb.libhoney.utils.ByteBufferPool;
+import io.honeycomb.libhoney.utils.GzipCompressor;
+import io.honeycomb.libhoney.utils.ObjectUtils;
+import io.honeycomb.libhoney.utils.PooledByteArrayOutputStream;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHeader;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Turns the batches of a {@link HoneycombBatchConsumer} into requests to the Honeycomb Batch API, according to the
+ * batch encoding and request compression of the {@link TransportOptions}.
+ * <p>
+ * Request bodies are encoded into pooled buffers, which are handed to the HTTP client without copying and returned
+ * to the pool once the request has completed. Buffers start out big enough for a typical batch, and those that had
+ * to grow beyond 1 MiB are not retained. The consumer reads response bodies into the same pool.
+ * <p>
+ * Threadsafe.
+ */
+final class BatchRequestEncoder implements AutoCloseable {
+    /** The following variable defaults to "libhoneycomb-java/1.0.0 as the implementation version is injected by
+     * the Maven build process and will not be available when running from IDE. This ensure unit tests run even without
+     * creating an actual artifact.
+     */
+    private static final String USER_AGENT = "libhoney-java/" +
+        (LibHoney.class.getPackage().getImplementationVersion()==null ? "0.0.0" : LibHoney.class.getPackage().getImplementationVersion());
+
+    private static final int INITIAL_BODY_BUFFER_CAPACITY = 16 * 1024;
+    private static final int MAX_RETAINED_BODY_BUFFER_CAPACITY = 1024 * 1024;
+    private static final int MAX_RETAINED_BODY_BUFFERS = 64;
+    private static final int MAX_RETAINED_DEFLATERS = 16;
+    private static final Header GZIP_CONTENT_ENCODING = new BasicHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    private static final ContentType APPLICATION_MSGPACK = ContentType.create("application/msgpack");
+
+    private final StreamingJsonSerializer<List<ResolvedEvent>> batchSerializer;
+    private final ByteBufferPool bodyBufferPool;
+    //Nullable
+    private final GzipCompressor gzipCompressor;
+    private final int compressionThreshold;
+    private final ContentType contentType;
+    private final Header userAgentHeader;
+
+    /**
+     * @param batchSerializer      to write request bodies with, which must match the batch encoding.
+     * @param batchEncoding        which determines the content type.
+     * @param requestCompression   to compress request bodies with.
+     * @param compressionThreshold minimum size of a body to be compressed, in bytes.
+     * @param additionalUserAgent  to append to the user agent, or null.
+     */
+    // compression is optional via "null"
+    @SuppressWarnings("PMD.NullAssignment")
+    BatchRequestEncoder(final StreamingJsonSerializer<List<ResolvedEvent>> batchSerializer,
+                        final TransportOptions.BatchEncoding batchEncoding,
+                        final TransportOptions.RequestCompression requestCompression,
+                        final int compressionThreshold,
+                        final String additionalUserAgent) {
+        this.batchSerializer = batchSerializer;
+        this.bodyBufferPool = new ByteBufferPool(
+            INITIAL_BODY_BUFFER_CAPACITY, MAX_RETAINED_BODY_BUFFER_CAPACITY, MAX_RETAINED_BODY_BUFFERS);
+        if (requestCompression == TransportOptions.RequestCompression.GZIP) {
+            this.gzipCompressor = new GzipCompressor(Deflater.DEFAULT_COMPRESSION, MAX_RETAINED_DEFLATERS);
+        } else {
+            this.gzipCompressor = null;
+        }
+        this.compressionThreshold = compressionThreshold;
+        this.contentType = (batchEncoding == TransportOptions.BatchEncoding.MSGPACK)
+            ? APPLICATION_MSGPACK
+            : ContentType.APPLICATION_JSON;
+        if (ObjectUtils.isNullOrEmpty(additionalUserAgent)) {
+            this.userAgentHeader = new BasicHeader(HttpHeaders.USER_AGENT, USER_AGENT);
+        } else {
+            this.userAgentHeader = new BasicHeader(HttpHeaders.USER_AGENT, USER_AGENT + " " + additionalUserAgent);
+        }
+    }
+
+    /**
+     * @return the pool that request bodies are acquired from, and that response bodies can be read into.
+     */
+    ByteBufferPool getBodyBufferPool() {
+        return bodyBufferPool;
+    }
+
+    void serialize(final List<ResolvedEvent> batch, final PooledByteArrayOutputStream body) throws IOException {
+        batchSerializer.serialize(batch, body);
+    }
+
+    String describeBody(final PooledByteArrayOutputStream body) {
+        if (contentType == APPLICATION_MSGPACK) {
+            return body.size() + " bytes of " + contentType.getMimeType();
+        }
+        return body.toUtf8String();
+    }
+
+    boolean shouldCompress(final PooledByteArrayOutputStream body) {
+        return (gzipCompressor != null) && (body.size() >= compressionThreshold);
+    }
+
+    /*
+     * Compresses into a second pooled buffer, releasing the uncompressed one. If compression fails, the uncompressed
+     * buffer is left for the caller to release.
+     */
+    PooledByteArrayOutputStream compress(final PooledByteArrayOutputStream body) {
+        final PooledByteArrayOutputStream compressed = bodyBufferPool.acquire();
+        boolean done = false;
+        try {
+            gzipCompressor.compress(body.getBuffer(), 0, body.size(), compressed);
+            done = true;
+        } finally {
+            if (!done) {
+                compressed.release();
+            }
+        }
+        body.release();
+        return compressed;
+    }
+
+    HttpUriRequest toPostRequest(final PooledByteArrayOutputStream body,
+                                 final boolean compressed,
+                                 final ResolvedEvent event) throws URISyntaxException {
+        final EventRoute route = event.getRoute();
+        final HttpPost httpPost = new HttpPost(route.getBatchEndpoint());
+        httpPost.addHeader(route.getWriteKeyHeader());
+        httpPost.addHeader(userAgentHeader);
+        if (compressed) {
+            httpPost.addHeader(GZIP_CONTENT_ENCODING);
+        }
+        httpPost.setEntity(new ByteArrayEntity(body.getBuffer(), 0, body.size(), contentType));
+        return httpPost;
+    }
+
+    @Override
+    public void close() {
+        if (gzipCompressor != null) {
+            gzipCompressor.close();
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.TransportOptions;
+import io.honeycomb.libhoney.TransportStats;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.ResponseObservable;
+import io.honeycomb.libhoney.responses.impl.EventResponseFactory;
+import io.honeycomb.libhoney.transport.batch.BatchConsumer;
+import io.honeycomb.libhoney.transport.batch.Batcher;
+import io.honeycomb.libhoney.utils.Assert;
+import org.apache.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends events again whose batch request failed in a way that is likely to be temporary, see
+ * {@link TransportOptions#getMaxRetries()}, once an exponential backoff with jitter has passed, unless they have used
+ * up their retries or the {@link RetryBudget} is exhausted. Events that are not retried are returned to the caller,
+ * which publishes their failure as usual.
+ * <p>
+ * Once {@link #retryThrough(Batcher)} has been called, due events are offered to that batcher, which does not block,
+ * so that one retry waiting for the concurrency limit does not hold up the others on the single scheduler thread.
+ * Events that it has no space for are spooled if there is an {@link EventSpool}, or otherwise failed. Before that,
+ * they are handed back to a {@link BatchConsumer} as a new batch, on the scheduler thread.
+ * <p>
+ * Threadsafe. This maintains a scheduler thread, so for cleanup you must call {@link #close()}. Retries that are still
+ * waiting at that point are spooled if there is an {@link EventSpool}, or otherwise abandoned, and published as
+ * {@link io.honeycomb.libhoney.responses.Unknown}.
+ */
+// AccessorMethodGeneration: refactor to deal with this rule makes for a less clean design.
+@SuppressWarnings("PMD.AccessorMethodGeneration")
+final class BatchRetrier implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(BatchRetrier.class);
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * The statuses of batch response elements for which the event is retried. Other statuses are not going to
+     * change by sending the event again.
+     */
+    static final int[] RETRYABLE_EVENT_STATUSES = {HTTP_TOO_MANY_REQUESTS, HttpStatus.SC_SERVICE_UNAVAILABLE};
+
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final RetryBudget budget;
+    private final ResponseObservable observable;
+    //Nullable
+    private final EventSpool spool;
+    private final ScheduledThreadPoolExecutor executor;
+    //Nullable, until retryThrough is called
+    private volatile Batcher<ResolvedEvent> batcher;
+    private final Set<RetryTask> pendingRetries =
+        Collections.newSetFromMap(new ConcurrentHashMap<RetryTask, Boolean>());
+    private final AtomicLong retriedEvents = new AtomicLong();
+    private final AtomicLong exhaustedEvents = new AtomicLong();
+    private final AtomicLong budgetExceededEvents = new AtomicLong();
+
+    // guarded by this
+    private boolean closed;
+
+    BatchRetrier(final TransportOptions options, final ResponseObservable observable, final EventSpool spool) {
+        this(options.getMaxRetries(),
+            options.getRetryInitialBackoffMillis(),
+            options.getRetryMaxBackoffMillis(),
+            options.getRetryBudgetRatio(),
+            observable,
+            spool);
+    }
+
+    // visible for testing
+    BatchRetrier(final int maxRetries,
+                 final long initialBackoffMillis,
+                 final long maxBackoffMillis,
+                 final double budgetRatio,
+                 final ResponseObservable observable,
+                 final EventSpool spool) {
+        Assert.isTrue(maxRetries > 0, "maxRetries must be greater than 0");
+        Assert.isTrue(initialBackoffMillis >= 1, "initialBackoffMillis must be 1 or greater");
+        Assert.isTrue(maxBackoffMillis >= initialBackoffMillis, "maxBackoffMillis must not be below the initial one");
+        this.maxRetries = maxRetries;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.budget = new RetryBudget(budgetRatio);
+        this.observable = observable;
+        this.spool = spool;
+        this.executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "libhoney-retry-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @param httpStatus of a batch response.
+     * @return true if the whole batch should be retried, i.e. if the server is overloaded or failed.
+     */
+    static boolean isRetryableStatus(final int httpStatus) {
+        return httpStatus == HTTP_TOO_MANY_REQUESTS || httpStatus >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+    }
+
+    /**
+     * Offers the events that are due to be retried to the batcher from now on, rather than handing them to the
+     * consumer passed to {@link #retry(List, BatchConsumer)}.
+     *
+     * @param batcher to offer events to, which should not apply the overflow policy, see
+     *                {@link DefaultBatcher#withoutOverflowHandling()}.
+     */
+    void retryThrough(final Batcher<ResolvedEvent> batcher) {
+        this.batcher = batcher;
+    }
+
+    /**
+     * Adds the events of a batch that are sent for the first time to the retry budget.
+     *
+     * @param batch about to be sent.
+     */
+    void recordSent(final List<ResolvedEvent> batch) {
+        int firstAttempts = 0;
+        for (final ResolvedEvent event : batch) {
+            if (event.getRetryCount() == 0) {
+                firstAttempts++;
+            }
+        }
+        budget.deposit(firstAttempts);
+    }
+
+    /**
+     * Schedules the events to be sent again, apart from those that have used up their retries or that there is no
+     * budget left for.
+     *
+     * @param events   to retry.
+     * @param consumer to send them to as a single batch, unless {@link #retryThrough(Batcher)} has been called.
+     * @return the events that are not retried, so their failure must be published.
+     */
+    List<ResolvedEvent> retry(final List<ResolvedEvent> events, final BatchConsumer<ResolvedEvent> consumer) {
+        final List<ResolvedEvent> retried = new ArrayList<>(events.size());
+        final List<ResolvedEvent> notRetried = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                return events;
+            }
+            for (final ResolvedEvent event : events) {
+                if (event.getRetryCount() >= maxRetries) {
+                    exhaustedEvents.incrementAndGet();
+                    notRetried.add(event);
+                } else if (budget.tryWithdraw()) {
+                    retried.add(event);
+                } else {
+                    budgetExceeded();
+                    notRetried.add(event);
+                }
+            }
+            if (!retried.isEmpty()) {
+                schedule(retried, consumer);
+            }
+        }
+        return notRetried;
+    }
+
+    private void schedule(final List<ResolvedEvent> retried, final BatchConsumer<ResolvedEvent> consumer) {
+        int attempt = 0;
+        for (final ResolvedEvent event : retried) {
+            event.markRetry();
+            attempt = Math.max(attempt, event.getRetryCount());
+        }
+        final long delay = backoffMillis(attempt);
+        final RetryTask task = new RetryTask(retried, consumer);
+        pendingRetries.add(task);
+        executor.schedule(task, delay, TimeUnit.MILLISECONDS);
+        retriedEvents.addAndGet(retried.size());
+        LOG.debug("Retrying {} events in {} ms (attempt {})", retried.size(), delay, attempt);
+    }
+
+    private void budgetExceeded() {
+        if (budgetExceededEvents.getAndIncrement() == 0) {
+            LOG.warn("The retry budget is exhausted, so failed events are not being retried. Further occurrences " +
+                "are not logged, but are counted. Consider a larger retry budget ratio.");
+        }
+    }
+
+    /**
+     * The backoff doubles with each attempt, up to the maximum, and the actual delay is chosen at random between half
+     * the backoff and the full backoff, so that clients that failed at the same time do not retry at the same time.
+     *
+     * @param attempt number of the retry, starting at 1.
+     * @return the delay before the retry, in milliseconds.
+     */
+    // visible for testing
+    long backoffMillis(final int attempt) {
+        long backoff = initialBackoffMillis;
+        for (int i = 1; i < attempt && backoff < maxBackoffMillis; i++) {
+            backoff = (backoff > maxBackoffMillis / 2) ? maxBackoffMillis : backoff << 1;
+        }
+        final long half = backoff / 2;
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    /**
+     * Registers the counters of retried events, and the number of events waiting to be retried, with the given
+     * metrics.
+     *
+     * @param metrics to register with.
+     */
+    void registerMetrics(final TransportMetrics metrics) {
+        metrics.registerCounter(TransportStats.RETRIED_EVENTS, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return getRetriedEventCount();
+            }
+        });
+        metrics.registerCounter(TransportStats.RETRY_EXHAUSTED_EVENTS, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return getExhaustedEventCount();
+            }
+        });
+        metrics.registerCounter(TransportStats.RETRY_BUDGET_EXCEEDED_EVENTS, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return getBudgetExceededEventCount();
+            }
+        });
+        metrics.registerGauge(TransportStats.RETRIES_PENDING, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return getPendingRetryCount();
+            }
+        });
+    }
+
+    /**
+     * @return the number of times an event has been scheduled to be sent again.
+     */
+    long getRetriedEventCount() {
+        return retriedEvents.get();
+    }
+
+    /**
+     * @return the number of failed events that were not retried, because they had used up their retries.
+     */
+    long getExhaustedEventCount() {
+        return exhaustedEvents.get();
+    }
+
+    /**
+     * @return the number of failed events that were not retried, because the retry budget was exhausted.
+     */
+    long getBudgetExceededEventCount() {
+        return budgetExceededEvents.get();
+    }
+
+    /**
+     * @return the number of events waiting to be sent again.
+     */
+    int getPendingRetryCount() {
+        int count = 0;
+        for (final RetryTask task : pendingRetries) {
+            count += task.events.size();
+        }
+        return count;
+    }
+
+    /**
+     * Stops retrying. Retries that are still waiting are spooled, or abandoned, in which case an error is published
+     * for their events.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        executor.shutdownNow();
+        for (final RetryTask task : pendingRetries) {
+            if (pendingRetries.remove(task)) {
+                final List<ResolvedEvent> notSpooled = (spool == null) ? task.events : spool.appendAll(task.events);
+                abandon(notSpooled, "Client was closed before the events could be retried", null);
+            }
+        }
+    }
+
+    private void abandon(final List<ResolvedEvent> events, final String message, final Exception exception) {
+        for (final ResolvedEvent event : events) {
+            observable.publish(EventResponseFactory.httpClientError(event, message, exception));
+        }
+    }
+
+    private final class RetryTask implements Runnable {
+        private final List<ResolvedEvent> events;
+        private final BatchConsumer<ResolvedEvent> consumer;
+
+        private RetryTask(final List<ResolvedEvent> events, final BatchConsumer<ResolvedEvent> consumer) {
+            this.events = events;
+            this.consumer = consumer;
+        }
+
+        // the batcher is only offered events here, it is closed by the transport that owns it
+        @SuppressWarnings("PMD.CloseResource")
+        @Override
+        public void run() {
+            // if the task is gone, close has already abandoned it
+            if (!pendingRetries.remove(this)) {
+                return;
+            }
+            final Batcher<ResolvedEvent> target = batcher;
+            if (target != null) {
+                offer(target);
+                return;
+            }
+            try {
+                consumer.consume(events);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                abandon(events, "Interrupted while retrying the events", ex);
+            }
+        }
+
+        private void offer(final Batcher<ResolvedEvent> target) {
+            final List<ResolvedEvent> rejected = new ArrayList<>(0);
+            for (final ResolvedEvent event : events) {
+                if (!target.offerEvent(event)) {
+                    rejected.add(event);
+                }
+            }
+            if (!rejected.isEmpty()) {
+                final List<ResolvedEvent> notSpooled = (spool == null) ? rejected : spool.appendAll(rejected);
+                abandon(notSpooled, "The queue was full or closed when the events were due to be retried", null);
+            }
+        }
+    }
+}
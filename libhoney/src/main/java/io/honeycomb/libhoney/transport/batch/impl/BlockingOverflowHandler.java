@@ -0,0 +1,58 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.transport.batch.OverflowHandler;
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Waits for space in the queue, up to a timeout, which slows down the threads sending events rather than losing any,
+ * as long as the batcher catches up within the timeout. Events are rejected once it has passed.
+ *
+ * @param <T> the type of the events.
+ */
+public final class BlockingOverflowHandler<T> implements OverflowHandler<T> {
+    private final long timeoutMillis;
+    private final AtomicLong blockedEvents = new AtomicLong();
+    private final AtomicLong rejectedEvents = new AtomicLong();
+
+    /**
+     * @param timeoutMillis to wait for space in the queue, at least 1.
+     */
+    public BlockingOverflowHandler(final long timeoutMillis) {
+        Assert.isTrue(timeoutMillis >= 1, "timeoutMillis must be 1 or greater");
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public boolean offer(final BlockingQueue<T> queue, final T event) throws InterruptedException {
+        if (queue.offer(event)) {
+            return true;
+        }
+        blockedEvents.incrementAndGet();
+        if (queue.offer(event, timeoutMillis, TimeUnit.MILLISECONDS)) {
+            return true;
+        }
+        rejectedEvents.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return the number of events that had to wait for space in the queue, whether or not they were accepted.
+     */
+    public long getBlockedEventCount() {
+        return blockedEvents.get();
+    }
+
+    @Override
+    public long getRejectedEventCount() {
+        return rejectedEvents.get();
+    }
+
+    @Override
+    public long getDroppedEventCount() {
+        return 0;
+    }
+}
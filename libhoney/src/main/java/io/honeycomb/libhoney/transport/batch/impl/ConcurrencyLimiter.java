@@ -0,0 +1,61 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the number of batch requests that are pending completion in the {@link HoneycombBatchConsumer}, see
+ * {@link io.honeycomb.libhoney.TransportOptions.Builder#setConcurrencyLimiter(
+ * io.honeycomb.libhoney.TransportOptions.ConcurrencyLimiterType)}.
+ * <p>
+ * Implementations must be threadsafe.
+ */
+interface ConcurrencyLimiter {
+    /**
+     * Blocks until another request may be sent, and counts it as pending.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    void acquire() throws InterruptedException;
+
+    /**
+     * Counts a request as no longer pending, and feeds its outcome into the limit.
+     *
+     * @param latencyNanos how long the server took to respond, or -1 if the request did not get a response.
+     * @param congested    true if the request failed in a way that indicates that the server or the network is
+     *                     overloaded, e.g. an I/O error or an HTTP 429 or 5xx response.
+     */
+    void release(long latencyNanos, boolean congested);
+
+    /**
+     * Waits until no request is pending anymore.
+     *
+     * @param timeout to wait at most.
+     * @param unit    of the timeout.
+     * @return true if no request is pending, false if the timeout elapsed first.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    boolean awaitNoPending(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * @return the current maximum number of pending requests.
+     */
+    int getLimit();
+
+    /**
+     * @return the number of requests that are currently pending.
+     */
+    int getPending();
+
+    /**
+     * @return the maximum the limit may reach, which is the limit itself unless the limit adapts.
+     */
+    int getMaxLimit();
+
+    /**
+     * Changes the maximum the limit may reach at runtime. Lowering it below the number of pending requests does not
+     * affect them, but no further request is let through until enough of them have completed.
+     *
+     * @param maxLimit 1 or greater.
+     */
+    void setMaxLimit(int maxLimit);
+}
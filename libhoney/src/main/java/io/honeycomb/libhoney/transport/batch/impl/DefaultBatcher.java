@@ -1,17 +1,21 @@
 package io.honeycomb.libhoney.transport.batch.impl;
 
+import io.honeycomb.libhoney.TransportStats;
 import io.honeycomb.libhoney.transport.batch.BatchConsumer;
 import io.honeycomb.libhoney.transport.batch.BatchKeyStrategy;
 import io.honeycomb.libhoney.transport.batch.Batcher;
 import io.honeycomb.libhoney.transport.batch.ClockProvider;
+import io.honeycomb.libhoney.transport.batch.EventSizeEstimator;
+import io.honeycomb.libhoney.transport.batch.OverflowHandler;
 import io.honeycomb.libhoney.utils.Assert;
+import io.honeycomb.libhoney.utils.Histogram;
+import io.honeycomb.libhoney.utils.StripedCounter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
@@ -23,8 +27,9 @@ import java.util.concurrent.TimeUnit;
 /**
  * A batcher that accepts events (asynchronously) and separates them into batches distinguished by the event's key -
  * as determined by the provided {@link BatchKeyStrategy}. Batches are ready to be sent on to the {@link BatchConsumer},
- * either when they are full (when they reach {@link #batchSize}) or when they have been around for enough time (when
- * {@link #batchTimeoutNanos} triggers).
+ * either when they are full (when they reach {@link #batchSize}, or {@link #maxBatchBytes} as estimated by the
+ * {@link EventSizeEstimator}) or when they have been around for enough time (when {@link #batchTimeoutNanos}
+ * triggers).
  * <p>
  * Internally, this maintains a worker thread, so for cleanup you must call {@link #close()}.
  *
@@ -40,21 +45,37 @@ public class DefaultBatcher<T, K> implements Batcher<T> {
      * - We preserve interrupted states in this class because:
      * "Only code that implements a thread's interruption policy may swallow an interruption request.
      * General-purpose task and library code should never swallow interruption requests." - Java Concurrency in Practice
-     * - The two nested classes are non-static, so they can access the configuration of the enclosing class. They are
-     * safe since we never leak them to outside of DefaultBatcher.
+     * - The nested classes are non-static, so they can access the configuration of the enclosing class. They are
+     * safe since we never leak them to outside of DefaultBatcher, apart from the view returned by
+     * withoutOverflowHandling, which holds no state of its own.
+     * - Besides the map, batches are kept in a linked list ordered by their trigger instant, from the oldest to the
+     * newest (see BatchTable). As all batches share the same timeout, a batch whose trigger instant is (re)set always
+     * moves to the back of that list. Finding the lowest timeout and the batches that have reached theirs therefore
+     * only looks at the front of the list, rather than at every batch key. Lowering the timeout at runtime breaks that
+     * order until the batches set under the previous timeout have been triggered, which only delays them by that
+     * timeout.
      */
     private static final long CLEANUP_THRESHOLD = 20L;
     private static final long SHUTDOWN_TIMEOUT = 5_000L;
+    private static final long[] FILL_PERCENT_BUCKETS = {10, 20, 30, 40, 50, 60, 70, 80, 90, 100};
+    private static final long FULL_PERCENT = 100L;
 
     private final int batchSize;
-    private final long batchTimeoutNanos;
+    // written by setBatchTimeoutMillis, read by the worker thread
+    private volatile long batchTimeoutNanos;
+    private final long maxBatchBytes;
 
     private final BlockingQueue<T> pendingQueue;
-    private final Map<K, Batch> batches;
+    private final BatchTable batches;
     private final ExecutorService executor;
     private final BatchConsumer<T> batchConsumer;
     private final BatchKeyStrategy<T, K> batchKeyStrategy;
     private final ClockProvider clockProvider;
+    //Nullable
+    private final EventSizeEstimator<T> sizeEstimator;
+    private final OverflowHandler<T> overflowHandler;
+    private final StripedCounter batchCounter;
+    private final Histogram batchFillHistogram;
 
     private final CountDownLatch closingLatch;
     private volatile boolean running = true;
@@ -65,26 +86,72 @@ public class DefaultBatcher<T, K> implements Batcher<T> {
                           final BlockingQueue<T> pendingQueue,
                           final int batchSize,
                           final long batchTimeoutMillis) {
-        Assert.isTrue(batchSize > 0, "batchSize must be > 0");
-        Assert.isTrue(batchTimeoutMillis > 0L, "batchTimeoutMillis must be > 0");
-        Assert.notNull(batchKeyStrategy, "batchKeyStrategy must not be null");
-        Assert.notNull(batchConsumer, "batchConsumer must not be null");
-        Assert.notNull(clockProvider, "clockProvider must not be null");
-        Assert.notNull(pendingQueue, "pendingQueue must not be null");
-
-        this.batchTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(batchTimeoutMillis);
-        this.pendingQueue = pendingQueue;
-        this.batchConsumer = batchConsumer;
-        this.batchSize = batchSize;
-        this.batchKeyStrategy = batchKeyStrategy;
-        this.clockProvider = clockProvider;
+        this(DefaultBatcher.<T, K>builder()
+            .setBatchKeyStrategy(batchKeyStrategy)
+            .setBatchConsumer(batchConsumer)
+            .setClockProvider(clockProvider)
+            .setPendingQueue(pendingQueue)
+            .setBatchSize(batchSize)
+            .setBatchTimeoutMillis(batchTimeoutMillis));
+    }
 
-        this.batches = new HashMap<>();
+    private DefaultBatcher(final Builder<T, K> builder) {
+        Assert.isTrue(builder.batchSize > 0, "batchSize must be > 0");
+        Assert.isTrue(builder.batchTimeoutMillis > 0L, "batchTimeoutMillis must be > 0");
+        Assert.isTrue(builder.maxBatchBytes > 0L, "maxBatchBytes must be > 0");
+        Assert.notNull(builder.batchKeyStrategy, "batchKeyStrategy must not be null");
+        Assert.notNull(builder.batchConsumer, "batchConsumer must not be null");
+        Assert.notNull(builder.clockProvider, "clockProvider must not be null");
+        Assert.notNull(builder.pendingQueue, "pendingQueue must not be null");
+        Assert.notNull(builder.overflowHandler, "overflowHandler must not be null");
+        Assert.isFalse(builder.pendingQueue instanceof MpscRingBufferQueue
+                && builder.overflowHandler instanceof DropOldestOverflowHandler,
+            "a DropOldestOverflowHandler cannot take events off an MpscRingBufferQueue");
+        Assert.notNull(builder.metrics, "metrics must not be null");
+
+        this.batchTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(builder.batchTimeoutMillis);
+        this.pendingQueue = builder.pendingQueue;
+        this.batchConsumer = builder.batchConsumer;
+        this.batchSize = builder.batchSize;
+        this.batchKeyStrategy = builder.batchKeyStrategy;
+        this.clockProvider = builder.clockProvider;
+        this.sizeEstimator = builder.sizeEstimator;
+        this.maxBatchBytes = builder.maxBatchBytes;
+        this.overflowHandler = builder.overflowHandler;
+        this.batchCounter = builder.metrics.counter(TransportStats.BATCHES);
+        this.batchFillHistogram = builder.metrics.histogram(TransportStats.BATCH_FILL_PERCENT, FILL_PERCENT_BUCKETS);
+        registerQueueGauges(builder.metrics);
+
+        this.batches = new BatchTable();
         this.closingLatch = new CountDownLatch(1);
         this.executor = Executors.newSingleThreadExecutor();
         this.executor.submit(new BatchingWorker());
     }
 
+    /**
+     * @param <T> The type of the events.
+     * @param <K> The type of the batch keys.
+     * @return a new builder for a batcher.
+     */
+    public static <T, K> Builder<T, K> builder() {
+        return new Builder<>();
+    }
+
+    private void registerQueueGauges(final TransportMetrics metrics) {
+        metrics.registerGauge(TransportStats.QUEUE_DEPTH, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return getQueueDepth();
+            }
+        });
+        metrics.registerGauge(TransportStats.QUEUE_CAPACITY, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return getQueueCapacity();
+            }
+        });
+    }
+
     /**
      * Worker doing the batching work and to be passed to the {@link DefaultBatcher}'s executor.
      *
@@ -93,6 +160,11 @@ public class DefaultBatcher<T, K> implements Batcher<T> {
      * -- It times out. In which case no element is returned and we have to deal with the batch timeout triggers.
      * -- The queue returns an element and so we have to add it to a batch, and if full, send it off.
      * -- The thread is interrupted because the Executor is being shut down, so we have to flush and cleanup.
+     * - Once woken up by an event, any further events already in the queue (up to a batch's worth) are taken without
+     * blocking, so under load the worker does not have to compute the lowest timeout, wait on the queue and check the
+     * timeout triggers per event. Events are taken one at a time rather than drained in bulk, so that the queue
+     * capacity remains the bound on events that have been accepted but not yet batched, which is what creates
+     * backpressure while the consumer blocks.
      */
     private class BatchingWorker implements Runnable {
         @Override
@@ -101,7 +173,7 @@ public class DefaultBatcher<T, K> implements Batcher<T> {
                 try {
                     final T event = pendingQueue.poll(getLowestTimeout(), TimeUnit.NANOSECONDS);
                     if (event != null) {
-                        handleNewEvent(event);
+                        handleNewEvents(event);
                     }
                     handleTimeoutTriggers();
                 } catch (final InterruptedException ignored) {
@@ -117,27 +189,100 @@ public class DefaultBatcher<T, K> implements Batcher<T> {
         final K key = batchKeyStrategy.getKey(event);
         Batch batch = batches.get(key);
         if (batch == null) { // no batch for the corresponding key yet, so create a new one
-            batch = new Batch();
-            batches.put(key, batch);
+            batch = new Batch(key);
+            batches.add(batch);
         }
-        batch.add(event);
+        final long size = (sizeEstimator == null) ? 0L : sizeEstimator.estimateSize(event);
+        if (!batch.isEmpty() && batch.wouldExceedMaxBytes(size)) { // the event doesn't fit, so submit what's there
+            submitBatch(batch);
+        }
+        batch.add(event, size);
         if (batch.isFull()) { // reached the size limit, so submit to consumer
             submitBatch(batch);
         }
     }
 
-    // visible for testing - so we can check that unused batch entries eventually get cleaned up
-    int getCurrentlyActiveBatches() {
+    private void handleNewEvents(final T firstEvent) throws InterruptedException {
+        handleNewEvent(firstEvent);
+        for (int handled = 1; handled < batchSize; handled++) {
+            final T event = pendingQueue.poll();
+            if (event == null) {
+                return;
+            }
+            handleNewEvent(event);
+        }
+    }
+
+    /**
+     * @return the number of batch keys the worker currently keeps a batch for, including empty batches that have not
+     * been cleaned up yet.
+     */
+    public int getCurrentlyActiveBatches() {
         return batches.size();
     }
 
+    /**
+     * @return the number of events waiting in the queue to be batched.
+     */
+    public int getQueueDepth() {
+        return pendingQueue.size();
+    }
+
+    /**
+     * @return the capacity of the queue.
+     */
+    public int getQueueCapacity() {
+        return pendingQueue.size() + pendingQueue.remainingCapacity();
+    }
+
+    /**
+     * @return the maximum time an event waits in a batch.
+     */
+    public long getBatchTimeoutMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(batchTimeoutNanos);
+    }
+
+    /**
+     * Changes the batch timeout at runtime. Batches that are already waiting keep the trigger instant they were given
+     * under the previous timeout, so after lowering the timeout a batch may be sent up to the previous timeout late
+     * once, while the batches are still ordered by their old trigger instants.
+     *
+     * @param batchTimeoutMillis maximum time an event waits in a batch.
+     */
+    public void setBatchTimeoutMillis(final long batchTimeoutMillis) {
+        Assert.isTrue(batchTimeoutMillis > 0L, "batchTimeoutMillis must be > 0");
+        this.batchTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(batchTimeoutMillis);
+    }
+
     @Override
     public boolean offerEvent(final T event) {
+        return offer(event, true);
+    }
+
+    /**
+     * Returns a view of this batcher whose {@link Batcher#offerEvent(Object)} bypasses the {@link OverflowHandler}:
+     * an event is rejected right away if the queue is full, without being counted or affecting the events already
+     * queued. This suits a source that retries events it has kept safe anyway, such as the replay of an
+     * {@link EventSpool}. Closing the view has no effect.
+     *
+     * @return the view.
+     */
+    public Batcher<T> withoutOverflowHandling() {
+        return new DirectOffer();
+    }
+
+    private boolean offer(final T event, final boolean handleOverflow) {
         if (!running) { // doors are shut, reject event
             return false;
         }
 
-        final boolean offer = pendingQueue.offer(event); // NOPMD false positive for PrematureDeclaration
+        final boolean offer; // NOPMD false positive for PrematureDeclaration
+        try {
+            offer = handleOverflow ? overflowHandler.offer(pendingQueue, event) : pendingQueue.offer(event);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt(); // preserve interrupted state
+            return false;
+        }
 
         // slight chance that close and flush happened concurrently, after the initial check and before offer returned
         if (!running) { // doors have shut after the initial check
@@ -202,40 +347,144 @@ public class DefaultBatcher<T, K> implements Batcher<T> {
 
     private long getLowestTimeout() {
         // This return MAX_VALUE when no batches exist. Thus, the thread blocks until an event is in the queue.
-        long min = Long.MAX_VALUE;
-        for (final Batch batch : batches.values()) {
-            if (batch.getTriggerInstant() < min) {
-                min = batch.getTriggerInstant();
-            }
-        }
+        final Batch oldest = batches.getOldestTrigger();
+        final long min = (oldest == null) ? Long.MAX_VALUE : oldest.getTriggerInstant();
         return min - clockProvider.getMonotonicTime();
     }
 
     private void submitBatch(final Batch batch) throws InterruptedException {
+        final long batchBytes = batch.getBytes();
         final List<T> batchContents = batch.drainBatch();
         try {
             batchConsumer.consume(batchContents);
         } catch (final InterruptedException ex) {
-            batch.add(batchContents);
+            batch.add(batchContents, batchBytes);
             throw ex;
         }
+        batchCounter.increment();
+        batchFillHistogram.record(fillPercent(batchContents.size(), batchBytes));
+    }
+
+    // the fill of a batch is relative to whichever of its limits it is closest to
+    private long fillPercent(final int events, final long bytes) {
+        final long byCount = events * FULL_PERCENT / batchSize;
+        final long byBytes = (sizeEstimator == null) ? 0L : (long) (bytes * (double) FULL_PERCENT / maxBatchBytes);
+        return Math.min(FULL_PERCENT, Math.max(byCount, byBytes));
     }
 
     private void handleTimeoutTriggers() throws InterruptedException {
-        final Iterator<Map.Entry<K, Batch>> iterator = batches.entrySet().iterator();
-
-        while (iterator.hasNext()) {
-            final Batch batch = iterator.next().getValue();
-            if (batch.hasReachedTriggerInstant()) {
-                if (batch.isEmpty()) { // empty implies it's not used, so check whether we want to clean it up
-                    batch.markNotUsed();
-                    if (batch.hasReachedCleanupThreshold()) {
-                        iterator.remove();
-                    }
-                } else {
-                    submitBatch(batch);
+        // every batch handled here gets a new trigger instant (moving it to the back of the list) or is removed
+        Batch batch = batches.getOldestTrigger();
+        while (batch != null && batch.hasReachedTriggerInstant()) {
+            if (batch.isEmpty()) { // empty implies it's not used, so check whether we want to clean it up
+                batch.markNotUsed();
+                if (batch.hasReachedCleanupThreshold()) {
+                    batches.remove(batch);
                 }
+            } else {
+                submitBatch(batch);
             }
+            batch = batches.getOldestTrigger();
+        }
+    }
+
+    /**
+     * The batches by key, which are also kept in a list ordered by their trigger instant. Only accessed by the worker
+     * thread, apart from the number of batches.
+     */
+    private class BatchTable {
+        private final Map<K, Batch> byKey = new HashMap<>();
+        // the size of the map for other threads to read
+        private volatile int batchCount;
+        // the ends of the list ordered by trigger instant
+        private Batch oldestTrigger;
+        private Batch newestTrigger;
+
+        Batch get(final K key) {
+            return byKey.get(key);
+        }
+
+        void add(final Batch batch) {
+            byKey.put(batch.getKey(), batch);
+            batchCount = byKey.size();
+        }
+
+        void remove(final Batch batch) {
+            unlink(batch);
+            byKey.remove(batch.getKey());
+            batchCount = byKey.size();
+        }
+
+        Collection<Batch> values() {
+            return byKey.values();
+        }
+
+        int size() {
+            return batchCount;
+        }
+
+        // the list is emptied by nulling its ends
+        @SuppressWarnings("PMD.NullAssignment")
+        void clear() {
+            byKey.clear();
+            batchCount = 0;
+            oldestTrigger = null;
+            newestTrigger = null;
+        }
+
+        //Nullable
+        Batch getOldestTrigger() {
+            return oldestTrigger;
+        }
+
+        void moveToBack(final Batch batch) {
+            if (batch.older != null || batch.newer != null || oldestTrigger == batch) { // NOPMD identity is intended
+                unlink(batch);
+            }
+            append(batch);
+        }
+
+        // the ends of the list, and the links of batches to their neighbours, are null if there are none
+        @SuppressWarnings("PMD.NullAssignment")
+        private void append(final Batch batch) {
+            batch.newer = null;
+            batch.older = newestTrigger;
+            if (newestTrigger == null) {
+                oldestTrigger = batch;
+            } else {
+                newestTrigger.newer = batch;
+            }
+            newestTrigger = batch;
+        }
+
+        // the ends of the list, and the links of batches to their neighbours, are null if there are none
+        @SuppressWarnings("PMD.NullAssignment")
+        private void unlink(final Batch batch) {
+            if (batch.older == null) {
+                oldestTrigger = batch.newer;
+            } else {
+                batch.older.newer = batch.newer;
+            }
+            if (batch.newer == null) {
+                newestTrigger = batch.older;
+            } else {
+                batch.newer.older = batch.older;
+            }
+            batch.older = null;
+            batch.newer = null;
+        }
+    }
+
+    // the view returned by withoutOverflowHandling
+    private class DirectOffer implements Batcher<T> {
+        @Override
+        public boolean offerEvent(final T event) {
+            return offer(event, false);
+        }
+
+        @Override
+        public void close() {
+            // the batcher itself is closed by its owner
         }
     }
 
@@ -246,9 +495,28 @@ public class DefaultBatcher<T, K> implements Batcher<T> {
      * {@link #triggerInstant} is reached, but the batch is empty at that time.
      */
     private class Batch {
+        private final K key;
         private final List<T> elements = new ArrayList<>(batchSize);
-        private long triggerInstant = calculateNextTriggerInstant();
+        private long bytes;
+        private long triggerInstant;
         private long notUsedCounter;
+        // neighbours in the list of batches ordered by trigger instant
+        private Batch older;
+        private Batch newer;
+
+        Batch(final K key) {
+            this.key = key;
+            resetTriggerInstant();
+        }
+
+        K getKey() {
+            return key;
+        }
+
+        private void resetTriggerInstant() {
+            triggerInstant = calculateNextTriggerInstant();
+            batches.moveToBack(this);
+        }
 
         private long calculateNextTriggerInstant() {
             return clockProvider.getMonotonicTime() + batchTimeoutNanos;
@@ -256,20 +524,31 @@ public class DefaultBatcher<T, K> implements Batcher<T> {
 
         /**
          * @param event to add as an element to this batch.
+         * @param size  estimated for the event.
          */
-        void add(final T event) {
+        void add(final T event, final long size) {
             elements.add(event);
+            bytes += size;
         }
 
-        void add(final List<T> events) {
+        void add(final List<T> events, final long size) {
             elements.addAll(events);
+            bytes += size;
         }
 
         /**
-         * @return true if the batch has reached the batch limit, i.e. the configured "batchSize".
+         * @return true if the batch has reached the batch limit, i.e. the configured "batchSize" or "maxBatchBytes".
          */
         boolean isFull() {
-            return elements.size() >= batchSize;
+            return elements.size() >= batchSize || bytes >= maxBatchBytes;
+        }
+
+        boolean wouldExceedMaxBytes(final long size) {
+            return bytes + size > maxBatchBytes;
+        }
+
+        long getBytes() {
+            return bytes;
         }
 
         /**
@@ -283,7 +562,8 @@ public class DefaultBatcher<T, K> implements Batcher<T> {
         List<T> drainBatch() {
             final List<T> newList = new ArrayList<>(elements);
             elements.clear();
-            triggerInstant = calculateNextTriggerInstant();
+            bytes = 0L;
+            resetTriggerInstant();
             return newList;
         }
 
@@ -298,7 +578,7 @@ public class DefaultBatcher<T, K> implements Batcher<T> {
 
         void markNotUsed() {
             notUsedCounter++;
-            triggerInstant = calculateNextTriggerInstant();
+            resetTriggerInstant();
         }
 
         /**
@@ -313,4 +593,142 @@ public class DefaultBatcher<T, K> implements Batcher<T> {
         }
     }
 
+    /**
+     * Builds a {@link DefaultBatcher}. The key strategy, consumer, clock provider, queue, batch size and batch timeout
+     * must be set; the other settings are optional.
+     *
+     * @param <T> The type of the events.
+     * @param <K> The type of the batch keys.
+     */
+    // the setters return the builder so that calls can be chained
+    @SuppressWarnings("PMD.LinguisticNaming")
+    public static class Builder<T, K> {
+        private BatchKeyStrategy<T, K> batchKeyStrategy;
+        private BatchConsumer<T> batchConsumer;
+        private ClockProvider clockProvider;
+        private BlockingQueue<T> pendingQueue;
+        private int batchSize;
+        private long batchTimeoutMillis;
+        private EventSizeEstimator<T> sizeEstimator;
+        private long maxBatchBytes = Long.MAX_VALUE;
+        private OverflowHandler<T> overflowHandler = new RejectingOverflowHandler<>();
+        private TransportMetrics metrics = new TransportMetrics();
+
+        /**
+         * @param batchKeyStrategy to group events into batches by.
+         * @return this.
+         */
+        public Builder<T, K> setBatchKeyStrategy(final BatchKeyStrategy<T, K> batchKeyStrategy) {
+            this.batchKeyStrategy = batchKeyStrategy;
+            return this;
+        }
+
+        /**
+         * @param batchConsumer to hand full batches to.
+         * @return this.
+         */
+        public Builder<T, K> setBatchConsumer(final BatchConsumer<T> batchConsumer) {
+            this.batchConsumer = batchConsumer;
+            return this;
+        }
+
+        /**
+         * @param clockProvider for the batch timeout.
+         * @return this.
+         */
+        public Builder<T, K> setClockProvider(final ClockProvider clockProvider) {
+            this.clockProvider = clockProvider;
+            return this;
+        }
+
+        /**
+         * @param pendingQueue to accept events into.
+         * @return this.
+         */
+        public Builder<T, K> setPendingQueue(final BlockingQueue<T> pendingQueue) {
+            this.pendingQueue = pendingQueue;
+            return this;
+        }
+
+        /**
+         * @param batchSize maximum number of events in a batch.
+         * @return this.
+         */
+        public Builder<T, K> setBatchSize(final int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * @param batchTimeoutMillis maximum time an event waits in a batch.
+         * @return this.
+         */
+        public Builder<T, K> setBatchTimeoutMillis(final long batchTimeoutMillis) {
+            this.batchTimeoutMillis = batchTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * Set this, together with {@link #setMaxBatchBytes(long)}, for batches to also be full once the estimated size
+         * of their events reaches the maximum. A batch holds at least one event, however large it is estimated to be.
+         * <p>
+         * Default: None, i.e. the size of batches is not limited.
+         *
+         * @param sizeEstimator to estimate the size of an event with.
+         * @return this.
+         */
+        public Builder<T, K> setSizeEstimator(final EventSizeEstimator<T> sizeEstimator) {
+            this.sizeEstimator = sizeEstimator;
+            return this;
+        }
+
+        /**
+         * Default: {@link Long#MAX_VALUE}
+         *
+         * @param maxBatchBytes maximum estimated size of a batch.
+         * @return this.
+         * @see #setSizeEstimator(EventSizeEstimator)
+         */
+        public Builder<T, K> setMaxBatchBytes(final long maxBatchBytes) {
+            this.maxBatchBytes = maxBatchBytes;
+            return this;
+        }
+
+        /**
+         * Set this to decide what happens to events that arrive while the queue is full.
+         * <p>
+         * Default: {@link RejectingOverflowHandler}
+         *
+         * @param overflowHandler to offer events to the queue with.
+         * @return this.
+         */
+        public Builder<T, K> setOverflowHandler(final OverflowHandler<T> overflowHandler) {
+            this.overflowHandler = overflowHandler;
+            return this;
+        }
+
+        /**
+         * Set this to register the queue's gauges with, and to record the number of batches and how full they are when
+         * they are handed to the consumer.
+         * <p>
+         * Default: metrics of the batcher's own.
+         *
+         * @param metrics to record to.
+         * @return this.
+         */
+        public Builder<T, K> setMetrics(final TransportMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Creates the batcher, which starts its worker thread straight away.
+         *
+         * @return a new batcher.
+         * @throws IllegalArgumentException if the configuration fails validation.
+         */
+        public DefaultBatcher<T, K> build() {
+            return new DefaultBatcher<>(this);
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.ResponseObservable;
+import io.honeycomb.libhoney.responses.impl.EventResponseFactory;
+import io.honeycomb.libhoney.transport.batch.OverflowHandler;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Makes room for new events by dropping the event that has waited longest in the queue, which favours recent data
+ * when the batcher falls behind. A {@link io.honeycomb.libhoney.responses.ClientRejected} response with reason
+ * {@link io.honeycomb.libhoney.responses.ClientRejected.RejectionReason#QUEUE_OVERFLOW} is published for each dropped
+ * event.
+ * <p>
+ * The oldest event is taken off the queue on the thread offering the new one, so the queue must allow any thread to
+ * take events, which rules out an {@link MpscRingBufferQueue}.
+ */
+public final class DropOldestOverflowHandler implements OverflowHandler<ResolvedEvent> {
+    private final ResponseObservable observable;
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong rejectedEvents = new AtomicLong();
+
+    /**
+     * @param observable to publish the responses of dropped events to.
+     */
+    public DropOldestOverflowHandler(final ResponseObservable observable) {
+        this.observable = observable;
+    }
+
+    @Override
+    public boolean offer(final BlockingQueue<ResolvedEvent> queue, final ResolvedEvent event) {
+        if (queue.offer(event)) {
+            return true;
+        }
+        final ResolvedEvent oldest = queue.poll();
+        if (oldest != null) {
+            droppedEvents.incrementAndGet();
+            observable.publish(EventResponseFactory.queueOverflow(oldest));
+        }
+        // other threads may have taken the space in the meantime, in which case this event is the one rejected
+        if (queue.offer(event)) {
+            return true;
+        }
+        rejectedEvents.incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public long getRejectedEventCount() {
+        return rejectedEvents.get();
+    }
+
+    @Override
+    public long getDroppedEventCount() {
+        return droppedEvents.get();
+    }
+}
@@ -0,0 +1,24 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.eventdata.EventRoute;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.batch.BatchKeyStrategy;
+
+/**
+ * Key strategy operating on {@link ResolvedEvent}, returning a key that allows batching as described in the
+ * <a href="https://honeycomb.io/docs/reference/sdk-spec/#transmission-1">SDK Spec#transmission</a>:
+ * "the library must separate events into batches that all have API Host, writekey, and dataset in common".
+ * <p>
+ * Unlike {@link HoneycombBatchKeyStrategy}, the key is the event's {@link EventRoute}, which events created by the
+ * same {@link io.honeycomb.libhoney.EventFactory} share, so that deducing the key does not allocate.
+ */
+public class EventRouteBatchKeyStrategy implements BatchKeyStrategy<ResolvedEvent, EventRoute> {
+    /**
+     * @param event to use for deducing the key.
+     * @return The route that determines what batch this event goes into.
+     */
+    @Override
+    public EventRoute getKey(final ResolvedEvent event) {
+        return event.getRoute();
+    }
+}
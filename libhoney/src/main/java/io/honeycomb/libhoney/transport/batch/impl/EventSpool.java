@@ -0,0 +1,437 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.TransportOptions;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.batch.Batcher;
+import io.honeycomb.libhoney.transport.batch.ClockProvider;
+import io.honeycomb.libhoney.utils.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A write-ahead spool of events on disk, for events that would otherwise be lost: those that overflow the batcher's
+ * queue, and those still in flight when the client is closed, see {@link TransportOptions#getSpoolDirectory()}.
+ * <p>
+ * Events are appended as JSON records (see {@link SpoolRecordCodec}) to memory-mapped {@link SpoolSegment} files
+ * of a fixed size. When a segment is full, the next one is started, unless that would take the spool beyond its
+ * maximum size, in which case events are refused until segments have been replayed. A background thread replays
+ * segments in order, offering their events to the batcher again, and deletes each segment once all of its events
+ * have been accepted. This picks up the segments left behind by a previous client on start, as well as events
+ * spooled while the client is running. Once the replayer has caught up, it replays the segment that is being
+ * appended to in place, so that a trickle of events does not cause a new segment file to be created for every few
+ * events.
+ * <p>
+ * Records include the API host and write key of their event, so where the file system supports POSIX permissions,
+ * the directory (if created by the spool) and its files are only accessible to the owner, see {@link SpoolDirectory}.
+ * <p>
+ * Delivery is at least once: a crash between the batcher accepting an event and it being marked as replayed sends
+ * the event again after the restart. The metadata of events is not spooled, since it is only meaningful to the process
+ * that created the event, so responses to replayed events carry none.
+ * <p>
+ * Threadsafe. Only one spool can use a directory at a time, and for cleanup you must call {@link #close()}.
+ */
+// AccessorMethodGeneration: refactor to deal with this rule makes for a less clean design.
+// AvoidCatchingGenericException: a record that cannot be decoded must not stop the replay of the rest.
+@SuppressWarnings({"PMD.AccessorMethodGeneration", "PMD.AvoidCatchingGenericException"})
+public final class EventSpool implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(EventSpool.class);
+    private static final long REPLAY_IDLE_MILLIS = 1_000L;
+    private static final long REPLAY_BACKOFF_MILLIS = 50L;
+    private static final long SHUTDOWN_TIMEOUT = 5_000L;
+
+    private final SpoolDirectory directory;
+    private final int segmentBytes;
+    private final long maxBytes;
+    private final long replayIdleMillis;
+    private final ClockProvider clock;
+
+    // guarded by this
+    private final Deque<SpoolSegment> sealedSegments = new ArrayDeque<>();
+    //Nullable, guarded by this
+    private SpoolSegment activeSegment;
+    // guarded by this
+    private long spoolBytes;
+    // guarded by this
+    private boolean closed;
+    //Nullable, guarded by this
+    private Thread replayer;
+
+    private final AtomicLong spooledEvents = new AtomicLong();
+    private final AtomicLong replayedEvents = new AtomicLong();
+    private final AtomicLong rejectedEvents = new AtomicLong();
+    private final AtomicLong corruptRecords = new AtomicLong();
+
+    /**
+     * Opens the spool in the directory set by {@link TransportOptions#getSpoolDirectory()}, creating it if needed.
+     *
+     * @param options to configure this spool.
+     * @throws IOException if the directory cannot be used, e.g. because another client is using it.
+     */
+    public EventSpool(final TransportOptions options) throws IOException {
+        this(options.getSpoolDirectory().toPath(),
+            options.getSpoolSegmentBytes(),
+            options.getSpoolMaxBytes(),
+            REPLAY_IDLE_MILLIS,
+            SystemClockProvider.getInstance());
+    }
+
+    // visible for testing
+    EventSpool(final Path directory,
+               final int segmentBytes,
+               final long maxBytes,
+               final long replayIdleMillis,
+               final ClockProvider clock) throws IOException {
+        Assert.notNull(directory, "directory must not be null");
+        Assert.isTrue(segmentBytes > SpoolSegment.HEADER_BYTES + SpoolSegment.RECORD_OVERHEAD_BYTES,
+            "segmentBytes must leave space for records");
+        Assert.isTrue(maxBytes >= segmentBytes, "maxBytes must not be less than segmentBytes");
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        this.replayIdleMillis = replayIdleMillis;
+        this.clock = clock;
+        this.directory = new SpoolDirectory(directory);
+        loadSegments();
+    }
+
+    /*
+     * Picks up the segments left behind by a previous client, in the order they were written.
+     */
+    private void loadSegments() throws IOException {
+        final List<SpoolSegment> segments = directory.loadSegments();
+        for (final SpoolSegment segment : segments) {
+            sealedSegments.add(segment);
+            spoolBytes += segment.getSize();
+        }
+        if (!segments.isEmpty()) {
+            LOG.info("Found {} spool segments to replay in {}", segments.size(), directory.getPath());
+        }
+    }
+
+    /**
+     * @param event to append.
+     * @return true if the event was spooled, or false if the spool is full or closed, or the event cannot be encoded.
+     */
+    public boolean append(final ResolvedEvent event) {
+        final byte[] payload;
+        try {
+            payload = SpoolRecordCodec.encode(event);
+        } catch (final IOException ex) {
+            LOG.debug("Event cannot be encoded for the spool: {}", event, ex);
+            rejected();
+            return false;
+        }
+        if (payload.length > segmentBytes - SpoolSegment.HEADER_BYTES - SpoolSegment.RECORD_OVERHEAD_BYTES) {
+            rejected();
+            return false;
+        }
+        synchronized (this) {
+            if (closed || !appendToSegment(payload)) {
+                rejected();
+                return false;
+            }
+        }
+        spooledEvents.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @param events to append.
+     * @return the events that were not spooled.
+     */
+    public List<ResolvedEvent> appendAll(final List<ResolvedEvent> events) {
+        final List<ResolvedEvent> notSpooled = new ArrayList<>();
+        for (final ResolvedEvent event : events) {
+            if (!append(event)) {
+                notSpooled.add(event);
+            }
+        }
+        return notSpooled;
+    }
+
+    // guarded by this
+    private boolean appendToSegment(final byte[] payload) {
+        if (activeSegment != null && activeSegment.append(payload)) {
+            return true;
+        }
+        sealActiveSegment();
+        if (spoolBytes + segmentBytes > maxBytes) {
+            return false;
+        }
+        try {
+            activeSegment = directory.createSegment(segmentBytes);
+        } catch (final IOException ex) {
+            LOG.error("Failed to create spool segment in {}", directory.getPath(), ex);
+            return false;
+        }
+        spoolBytes += segmentBytes;
+        return activeSegment.append(payload);
+    }
+
+    // guarded by this
+    private void sealActiveSegment() {
+        if (activeSegment != null) {
+            activeSegment.force();
+            sealedSegments.add(activeSegment);
+            activeSegment = null; // NOPMD there is no active segment until the next append
+        }
+    }
+
+    private void rejected() {
+        if (rejectedEvents.getAndIncrement() == 0) {
+            LOG.warn("An event could not be spooled, because the spool is full or the event cannot be encoded. " +
+                "Further occurrences are not logged, but are counted. Consider a larger spoolMaxBytes.");
+        }
+    }
+
+    /**
+     * Starts the background thread that replays spooled events by offering them to the batcher. Events that the
+     * batcher does not accept are offered again after a short pause, so that replaying does not compete with new
+     * events for space in a full queue. Calls after the first have no effect.
+     * <p>
+     * The batcher should not apply an overflow policy to replayed events, which are kept safe on disk until they are
+     * accepted: shedding or dropping them would lose them, and every retry would count as a rejection. See
+     * {@link DefaultBatcher#withoutOverflowHandling()}.
+     *
+     * @param batcher to offer replayed events to.
+     */
+    public void startReplay(final Batcher<ResolvedEvent> batcher) {
+        synchronized (this) {
+            if (closed || replayer != null) {
+                return;
+            }
+            replayer = new Thread(new Replayer(batcher), "libhoney-spool-replayer");
+            replayer.setDaemon(true);
+            replayer.start();
+        }
+    }
+
+    /**
+     * Stops the replayer, so that no further events are offered to the batcher, e.g. before it is closed. Any
+     * segment that is being replayed is resumed from the first event not replayed yet by the next client.
+     */
+    public void stopReplay() {
+        final Thread thread;
+        synchronized (this) {
+            thread = replayer;
+        }
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        try {
+            thread.join(SHUTDOWN_TIMEOUT);
+        } catch (final InterruptedException ex) {
+            LOG.error("Interrupted during wait for spool replayer to terminate", ex);
+            Thread.currentThread().interrupt();
+            //Preserve interrupt state
+        }
+    }
+
+    //Nullable, if there is nothing to replay
+    private SpoolSegment takeSegment() {
+        synchronized (this) {
+            if (closed) {
+                return null;
+            }
+            final SpoolSegment segment = sealedSegments.pollFirst();
+            if (segment != null) {
+                segment.rewind();
+            }
+            return segment;
+        }
+    }
+
+    //Nullable, if the spool is closed or there is no segment being appended to
+    private SpoolSegment getActiveSegment() {
+        synchronized (this) {
+            return closed ? null : activeSegment;
+        }
+    }
+
+    private void returnSegment(final SpoolSegment segment) {
+        synchronized (this) {
+            segment.force();
+            sealedSegments.addFirst(segment);
+        }
+    }
+
+    private void finishSegment(final SpoolSegment segment) {
+        corruptRecords.addAndGet(segment.getCorruptRecordCount());
+        synchronized (this) {
+            spoolBytes -= segment.getSize();
+        }
+        try {
+            segment.delete();
+        } catch (final IOException ex) {
+            LOG.warn("Failed to delete replayed spool segment {}", segment.getPath(), ex);
+        }
+    }
+
+    /**
+     * Stops the replayer and writes all segments to disk, for the next client to replay.
+     */
+    @Override
+    public void close() {
+        stopReplay();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            sealActiveSegment();
+            for (final SpoolSegment segment : sealedSegments) {
+                segment.force();
+            }
+        }
+        try {
+            directory.close();
+        } catch (final IOException ex) {
+            LOG.warn("Failed to release the lock on spool directory {}", directory.getPath(), ex);
+        }
+    }
+
+    /**
+     * @return the number of events appended to the spool.
+     */
+    public long getSpooledEventCount() {
+        return spooledEvents.get();
+    }
+
+    /**
+     * @return the number of spooled events that were accepted by the batcher again.
+     */
+    public long getReplayedEventCount() {
+        return replayedEvents.get();
+    }
+
+    /**
+     * @return the number of events that could not be spooled.
+     */
+    public long getRejectedEventCount() {
+        return rejectedEvents.get();
+    }
+
+    /**
+     * @return the number of records that were skipped while replaying, because they were corrupt.
+     */
+    public long getCorruptRecordCount() {
+        return corruptRecords.get();
+    }
+
+    /**
+     * @return the space taken up by segments on disk, in bytes.
+     */
+    public long getSpoolBytes() {
+        synchronized (this) {
+            return spoolBytes;
+        }
+    }
+
+    private final class Replayer implements Runnable {
+        private final Batcher<ResolvedEvent> batcher;
+
+        private Replayer(final Batcher<ResolvedEvent> batcher) {
+            this.batcher = batcher;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    final SpoolSegment segment = takeSegment();
+                    if (segment != null) {
+                        replay(segment);
+                    } else if (!replayActiveSegment()) {
+                        Thread.sleep(replayIdleMillis);
+                    }
+                }
+            } catch (final InterruptedException ignored) {
+                LOG.debug("Spool replayer interrupted. Stopping replay.");
+            }
+        }
+
+        private void replay(final SpoolSegment segment) throws InterruptedException {
+            try {
+                byte[] payload = segment.next();
+                while (payload != null) {
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    offer(payload);
+                    segment.markReplayed();
+                    payload = segment.next();
+                }
+            } catch (final InterruptedException ex) {
+                returnSegment(segment);
+                throw ex;
+            }
+            finishSegment(segment);
+        }
+
+        /*
+         * Replays the records appended to the active segment since it was last read, without sealing it. Its records
+         * are marked as replayed, so they are skipped once the segment has been sealed and is replayed in full, after
+         * which it is deleted. If the replay is interrupted, the record being offered has not been marked yet, so it
+         * is replayed again by the next client.
+         */
+        private boolean replayActiveSegment() throws InterruptedException {
+            final SpoolSegment segment = getActiveSegment();
+            if (segment == null) {
+                return false;
+            }
+            boolean replayed = false;
+            byte[] payload = nextRecord(segment);
+            while (payload != null) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                offer(payload);
+                markReplayed(segment);
+                replayed = true;
+                payload = nextRecord(segment);
+            }
+            return replayed;
+        }
+
+        /*
+         * The active segment may be appended to concurrently, so it is only read under the lock of the spool. Once it
+         * has been sealed it is no longer appended to, which makes reading under the lock unnecessary, but harmless.
+         */
+        //Nullable, if there are no more records to replay
+        private byte[] nextRecord(final SpoolSegment segment) {
+            synchronized (EventSpool.this) {
+                return segment.next();
+            }
+        }
+
+        private void markReplayed(final SpoolSegment segment) {
+            synchronized (EventSpool.this) {
+                segment.markReplayed();
+            }
+        }
+
+        private void offer(final byte[] payload) throws InterruptedException {
+            final ResolvedEvent event;
+            try {
+                event = SpoolRecordCodec.decode(payload, clock);
+            } catch (final IOException | RuntimeException ex) {
+                LOG.debug("Skipping spooled event that cannot be decoded", ex);
+                corruptRecords.incrementAndGet();
+                return;
+            }
+            event.markEnqueueTime();
+            while (!batcher.offerEvent(event)) {
+                Thread.sleep(REPLAY_BACKOFF_MILLIS);
+            }
+            replayedEvents.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A limiter with a fixed limit, which ignores the outcome of requests. The limit only changes when it is set
+ * explicitly.
+ */
+final class FixedConcurrencyLimiter implements ConcurrencyLimiter {
+    private final ResizableSemaphore semaphore;
+    // written under the lock of this
+    private volatile int limit;
+
+    FixedConcurrencyLimiter(final int limit) {
+        Assert.isTrue(limit >= 1, "limit must be 1 or greater");
+        this.limit = limit;
+        this.semaphore = new ResizableSemaphore(limit);
+    }
+
+    @Override
+    public void acquire() throws InterruptedException {
+        semaphore.acquire();
+    }
+
+    @Override
+    public void release(final long latencyNanos, final boolean congested) {
+        semaphore.release();
+    }
+
+    @Override
+    public boolean awaitNoPending(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final int permits = limit;
+        if (semaphore.tryAcquire(permits, timeout, unit)) {
+            semaphore.release(permits);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public int getPending() {
+        return limit - semaphore.availablePermits();
+    }
+
+    @Override
+    public int getMaxLimit() {
+        return limit;
+    }
+
+    @Override
+    public void setMaxLimit(final int maxLimit) {
+        Assert.isTrue(maxLimit >= 1, "maxLimit must be 1 or greater");
+        synchronized (this) {
+            final int delta = maxLimit - limit;
+            if (delta > 0) {
+                semaphore.release(delta);
+            } else if (delta < 0) {
+                // may take the available permits below 0, until enough pending requests have released theirs
+                semaphore.reducePermits(-delta);
+            }
+            limit = maxLimit;
+        }
+    }
+
+    // exposes reducePermits, which shrinks the semaphore without blocking
+    private static final class ResizableSemaphore extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        ResizableSemaphore(final int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(final int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -1,39 +1,38 @@
 package io.honeycomb.libhoney.transport.batch.impl;
 
-import io.honeycomb.libhoney.LibHoney;
+import io.honeycomb.libhoney.TransportOptions;
+import io.honeycomb.libhoney.TransportStats;
 import io.honeycomb.libhoney.eventdata.ResolvedEvent;
 import io.honeycomb.libhoney.responses.ResponseObservable;
 import io.honeycomb.libhoney.responses.impl.EventResponseFactory;
 import io.honeycomb.libhoney.responses.impl.LazyServerResponse;
 import io.honeycomb.libhoney.transport.batch.BatchConsumer;
+import io.honeycomb.libhoney.transport.batch.Batcher;
 import io.honeycomb.libhoney.transport.json.BatchRequestSerializer;
 import io.honeycomb.libhoney.transport.json.JsonSerializer;
-import io.honeycomb.libhoney.utils.ObjectUtils;
-import org.apache.http.HttpHeaders;
+import io.honeycomb.libhoney.transport.json.StreamingJsonSerializer;
+import io.honeycomb.libhoney.utils.Assert;
+import io.honeycomb.libhoney.utils.ByteBufferPool;
+import io.honeycomb.libhoney.utils.PooledByteArrayOutputStream;
+import io.honeycomb.libhoney.utils.RFC3339TimestampFormatter;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.client.methods.RequestBuilder;
-import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.concurrent.FutureCallback;
-import org.apache.http.entity.ByteArrayEntity;
-import org.apache.http.entity.ContentType;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -47,24 +46,21 @@ import java.util.concurrent.TimeUnit;
 public class HoneycombBatchConsumer implements BatchConsumer<ResolvedEvent> {
     private static final Logger LOG = LoggerFactory.getLogger(HoneycombBatchConsumer.class);
 
-    private static final String BATCH_ENDPOINT_FORMAT = "/1/batch/%s";
-    private static final String WRITE_KEY_HEADER = "X-Honeycomb-Team";
-    /** The following variable defaults to "libhoneycomb-java/1.0.0 as the implementation version is injected by
-     * the Maven build process and will not be available when running from IDE. This ensure unit tests run even without
-     * creating an actual artifact.
-     */
-    private static final String USER_AGENT = "libhoney-java/" +
-        (LibHoney.class.getPackage().getImplementationVersion()==null ? "0.0.0" : LibHoney.class.getPackage().getImplementationVersion());
+    private static final long ABSENT_LATENCY = -1L;
 
     private final CloseableHttpAsyncClient internalClient;
     private final ResponseObservable observable;
-    private final JsonSerializer<List<BatchRequestElement>> batchSerializer;
+    private final BatchRequestEncoder encoder;
+    private final ByteBufferPool bodyBufferPool;
+    //Nullable
+    private final BatchRetrier retrier;
     //Nullable
-    private final Semaphore maximumPendingRequestSemaphore;
-    private final int maximumPendingRequests;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    //Nullable
+    private final EventSpool spool;
     private final long maximumHttpRequestShutdownWait;
-
-    private final String userAgentString;
+    private volatile boolean closing;
+    private final RequestMetrics requestMetrics;
 
     public HoneycombBatchConsumer(final CloseableHttpAsyncClient internalClient,
                                   final ResponseObservable observable,
@@ -79,45 +75,158 @@ public class HoneycombBatchConsumer implements BatchConsumer<ResolvedEvent> {
             null);
     }
 
-    @SuppressWarnings("PMD.NullAssignment") // the semaphore mechanism is optional via "null"
     public HoneycombBatchConsumer(final CloseableHttpAsyncClient internalClient,
                                   final ResponseObservable observable,
                                   final JsonSerializer<List<BatchRequestElement>> batchRequestSerializer,
                                   final int maximumPendingRequests,
                                   final long maximumHTTPRequestShutdownWait,
                                   final String additionalUserAgent) {
+        this(internalClient,
+            observable,
+            new BatchRequestEncoder(
+                toStreamingSerializer(batchRequestSerializer),
+                TransportOptions.BatchEncoding.JSON,
+                TransportOptions.RequestCompression.NONE,
+                TransportOptions.DEFAULT_COMPRESSION_THRESHOLD,
+                additionalUserAgent),
+            createConcurrencyLimiter(maximumPendingRequests, TransportOptions.ConcurrencyLimiterType.FIXED),
+            maximumHTTPRequestShutdownWait,
+            null,
+            null,
+            new TransportMetrics());
+    }
+
+    /**
+     * Creates a consumer configured by the relevant {@link TransportOptions}: the maximum pending batch requests and
+     * how they are limited, the maximum HTTP request shutdown wait, the additional user agent, the batch encoding
+     * (which determines the content type, so it must match the serializer), the request compression, and the retries.
+     * <p>
+     * Events whose requests are still in flight, or whose retries are still waiting, when this consumer is closed are
+     * spooled rather than failed if a spool is given. The requests sent, their outcome and latency, and the state of
+     * the concurrency limit and retries are recorded to the given {@link TransportMetrics}.
+     *
+     * @param internalClient  to send requests with.
+     * @param observable      to report responses to.
+     * @param batchSerializer to write request bodies with.
+     * @param options         to configure this consumer.
+     * @param spool           to spool events with on close, or null.
+     * @param metrics         to record to.
+     */
+    public HoneycombBatchConsumer(final CloseableHttpAsyncClient internalClient,
+                                  final ResponseObservable observable,
+                                  final StreamingJsonSerializer<List<ResolvedEvent>> batchSerializer,
+                                  final TransportOptions options,
+                                  final EventSpool spool,
+                                  final TransportMetrics metrics) {
+        this(internalClient,
+            observable,
+            new BatchRequestEncoder(
+                batchSerializer,
+                options.getBatchEncoding(),
+                options.getRequestCompression(),
+                options.getCompressionThreshold(),
+                options.getAdditionalUserAgent()),
+            createConcurrencyLimiter(options.getMaxPendingBatchRequests(), options.getConcurrencyLimiter()),
+            options.getMaximumHttpRequestShutdownWait(),
+            createRetrier(options, observable, spool),
+            spool,
+            metrics);
+    }
+
+    //Nullable, if there is no maximum
+    private static ConcurrencyLimiter createConcurrencyLimiter(final int maximumPendingRequests,
+                                                               final TransportOptions.ConcurrencyLimiterType type) {
+        if (maximumPendingRequests == -1) {
+            return null;
+        }
+        if (type == TransportOptions.ConcurrencyLimiterType.AIMD) {
+            return new AimdConcurrencyLimiter(maximumPendingRequests);
+        }
+        return new FixedConcurrencyLimiter(maximumPendingRequests);
+    }
+
+    //Nullable, if retries are disabled
+    private static BatchRetrier createRetrier(final TransportOptions options,
+                                              final ResponseObservable observable,
+                                              final EventSpool spool) {
+        if (options.getMaxRetries() == 0) {
+            return null;
+        }
+        return new BatchRetrier(options, observable, spool);
+    }
+
+    // the concurrency limit, retry and spool mechanisms are optional via "null"
+    private HoneycombBatchConsumer(final CloseableHttpAsyncClient internalClient,
+                                   final ResponseObservable observable,
+                                   final BatchRequestEncoder encoder,
+                                   final ConcurrencyLimiter concurrencyLimiter,
+                                   final long maximumHTTPRequestShutdownWait,
+                                   final BatchRetrier retrier,
+                                   final EventSpool spool,
+                                   final TransportMetrics metrics) {
         this.internalClient = internalClient;
         this.observable = observable;
-        this.batchSerializer = batchRequestSerializer;
-        this.maximumPendingRequests = maximumPendingRequests;
-        if (this.maximumPendingRequests == -1) {
-            this.maximumPendingRequestSemaphore = null;
-        } else {
-            this.maximumPendingRequestSemaphore = new Semaphore(maximumPendingRequests);
-        }
+        this.encoder = encoder;
+        this.bodyBufferPool = encoder.getBodyBufferPool();
+        this.retrier = retrier;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.spool = spool;
         this.maximumHttpRequestShutdownWait = maximumHTTPRequestShutdownWait;
-        if (ObjectUtils.isNullOrEmpty(additionalUserAgent)) {
-            this.userAgentString = USER_AGENT;
-        } else {
-            this.userAgentString = USER_AGENT + " " + additionalUserAgent;
+        this.requestMetrics = new RequestMetrics(metrics);
+        registerGauges(metrics);
+    }
+
+    private void registerGauges(final TransportMetrics metrics) {
+        if (concurrencyLimiter != null) {
+            metrics.registerGauge(TransportStats.CONCURRENCY_LIMIT, new TransportMetrics.Reading() {
+                @Override
+                public long read() {
+                    return concurrencyLimiter.getLimit();
+                }
+            });
+        }
+        if (retrier != null) {
+            retrier.registerMetrics(metrics);
+        }
+    }
+
+    /**
+     * Offers events that are due to be retried to the given batcher, instead of consuming them on the thread that
+     * schedules the retries, where waiting for the concurrency limit would hold up all other retries. Has no effect if
+     * retries are disabled.
+     *
+     * @param batcher to offer retried events to, which should not apply the overflow policy, see
+     *                {@link DefaultBatcher#withoutOverflowHandling()}.
+     */
+    public void retryThrough(final Batcher<ResolvedEvent> batcher) {
+        if (retrier != null) {
+            retrier.retryThrough(batcher);
         }
     }
 
+    // the body is not closed but released to its pool, by the request's callback once the request has completed
+    @SuppressWarnings("PMD.CloseResource")
     @Override
     public void consume(final List<ResolvedEvent> batch) throws InterruptedException {
         final HttpUriRequest httpPost; // NOPMD false positive
+        PooledByteArrayOutputStream body = bodyBufferPool.acquire();
         try {
-            final List<BatchRequestElement> toSerialize = transformToBatchRequestFormat(batch);
-            final byte[] toSend = batchSerializer.serialize(toSerialize);
-            httpPost = toPostRequest(toSend, batch.get(0));
+            encoder.serialize(batch, body);
+            final String uncompressedBody = LOG.isDebugEnabled() ? encoder.describeBody(body) : null;
+            final boolean compress = encoder.shouldCompress(body);
+            if (compress) {
+                body = encoder.compress(body);
+            }
+            httpPost = encoder.toPostRequest(body, compress, batch.get(0));
             if (LOG.isDebugEnabled()) {
                 // Avoids unnecessary conversions in non-DEBUG case
                 LOG.debug("Sending HTTP request to HoneyComb. URI: {}. Body: {}. Headers: {}.",
                     httpPost.getURI(),
-                    new String(toSend, StandardCharsets.UTF_8),
+                    uncompressedBody,
                     Arrays.asList(httpPost.getAllHeaders()));
             }
         } catch (final Exception ex) {
+            body.release();
             requestBuildFailure(batch, ex);
             LOG.error(
                 "Failed to construct HTTP request for submission to HTTP client. " +
@@ -125,29 +234,45 @@ public class HoneycombBatchConsumer implements BatchConsumer<ResolvedEvent> {
             return;
         }
 
-        if (maximumPendingRequestSemaphore != null) {
-            maximumPendingRequestSemaphore.acquire();
+        if (concurrencyLimiter != null) {
+            try {
+                concurrencyLimiter.acquire();
+            } catch (final InterruptedException ex) {
+                body.release();
+                throw ex;
+            }
         }
 
+        // read before the request is executed, as the body may be released as soon as it completes
+        final int bodySize = body.size();
+        requestMetrics.requestStarted();
         try {
-            internalClient.execute(httpPost, new ResponseHandlingFutureCallback(batch));
+            internalClient.execute(httpPost, new ResponseHandlingFutureCallback(batch, body));
+            requestMetrics.requestSent(batch.size(), bodySize);
         } catch (final Exception ex) {
-            releaseSemaphore();
+            requestMetrics.requestFailed();
+            releaseConcurrencyLimit(ABSENT_LATENCY, false);
+            body.release();
             consumeFailed(batch, "Unexpected failure while submitting request to HTTP client", ex);
             LOG.error("HTTP client rejected batch request. Error has been reported to ResponseObservers.", ex);
         }
     }
 
-    private HttpUriRequest toPostRequest(final byte[] toSend, final ResolvedEvent event) throws URISyntaxException {
-        final String path = String.format(BATCH_ENDPOINT_FORMAT, event.getDataset());
-        final URI finalUri = new URIBuilder(event.getApiHost()).setPath(path).build();
-
-        return RequestBuilder
-            .post(finalUri)
-            .addHeader(WRITE_KEY_HEADER, event.getWriteKey())
-            .addHeader(HttpHeaders.USER_AGENT, userAgentString)
-            .setEntity(new ByteArrayEntity(toSend, ContentType.APPLICATION_JSON))
-            .build();
+    /**
+     * Adapts a {@link JsonSerializer} of {@link BatchRequestElement}s to the streaming contract used by this consumer,
+     * by first transforming the batch into its request format.
+     *
+     * @param batchRequestSerializer to adapt.
+     * @return a streaming serializer that delegates to the provided one.
+     */
+    public static StreamingJsonSerializer<List<ResolvedEvent>> toStreamingSerializer(
+        final JsonSerializer<List<BatchRequestElement>> batchRequestSerializer) {
+        return new StreamingJsonSerializer<List<ResolvedEvent>>() {
+            @Override
+            public void serialize(final List<ResolvedEvent> data, final OutputStream outputStream) throws IOException {
+                outputStream.write(batchRequestSerializer.serialize(transformToBatchRequestFormat(data)));
+            }
+        };
     }
 
     /**
@@ -158,11 +283,11 @@ public class HoneycombBatchConsumer implements BatchConsumer<ResolvedEvent> {
      * @param batch to transform.
      * @return A list of batch elements.
      */
-    private List<BatchRequestElement> transformToBatchRequestFormat(final List<ResolvedEvent> batch) {
+    // visible for benchmarking
+    static List<BatchRequestElement> transformToBatchRequestFormat(final List<ResolvedEvent> batch) {
         final List<BatchRequestElement> elements = new ArrayList<>(batch.size());
-        final SimpleDateFormat localDateFormat = ObjectUtils.getRFC3339DateTimeFormatter();
         for (final ResolvedEvent event : batch) {
-            final String dateTimeString = localDateFormat.format(new Date(event.getTimestamp()));
+            final String dateTimeString = RFC3339TimestampFormatter.format(event.getTimestamp());
             elements.add(new BatchRequestElement(dateTimeString, event.getSampleRate(), event.getFields()));
         }
         return elements;
@@ -180,24 +305,83 @@ public class HoneycombBatchConsumer implements BatchConsumer<ResolvedEvent> {
         }
     }
 
-    private void releaseSemaphore() {
-        if (maximumPendingRequestSemaphore != null) {
-            maximumPendingRequestSemaphore.release();
+    private void releaseConcurrencyLimit(final long latencyNanos, final boolean congested) {
+        if (concurrencyLimiter != null) {
+            concurrencyLimiter.release(latencyNanos, congested);
+        }
+    }
+
+    /**
+     * @return the current limit on batch requests pending completion, which only changes with an adaptive
+     * {@link TransportOptions.ConcurrencyLimiterType}, or -1 if there is no limit.
+     */
+    public int getConcurrencyLimit() {
+        return (concurrencyLimiter == null) ? -1 : concurrencyLimiter.getLimit();
+    }
+
+    /**
+     * @return the number of batch requests pending completion, or -1 if they are not tracked because there is no
+     * limit.
+     */
+    public int getPendingRequestCount() {
+        return (concurrencyLimiter == null) ? -1 : concurrencyLimiter.getPending();
+    }
+
+    /**
+     * @return the number of batch requests that have been handed to the HTTP client and have not completed yet,
+     * which is tracked whether or not there is a limit.
+     */
+    public long getInFlightRequestCount() {
+        return requestMetrics.getInFlightCount();
+    }
+
+    /**
+     * @return the number of further batch requests that may be sent before the limit is reached, or -1 if there is
+     * no limit.
+     */
+    public int getAvailablePermits() {
+        if (concurrencyLimiter == null) {
+            return -1;
         }
+        return Math.max(0, concurrencyLimiter.getLimit() - concurrencyLimiter.getPending());
+    }
+
+    /**
+     * @return the configured maximum of batch requests pending completion, or -1 if there is no limit.
+     * @see TransportOptions#getMaxPendingBatchRequests()
+     */
+    public int getMaxPendingRequests() {
+        return (concurrencyLimiter == null) ? -1 : concurrencyLimiter.getMaxLimit();
+    }
+
+    /**
+     * Changes the maximum of batch requests pending completion at runtime. Requests that are already pending are
+     * not affected by a lower maximum. This is only possible if a maximum was configured, as otherwise requests are
+     * not tracked.
+     *
+     * @param maxPendingRequests 1 or greater.
+     * @throws IllegalStateException if no maximum was configured.
+     */
+    public void setMaxPendingRequests(final int maxPendingRequests) {
+        Assert.state(concurrencyLimiter != null,
+            "maxPendingBatchRequests cannot be changed, as it was configured as unlimited");
+        concurrencyLimiter.setMaxLimit(maxPendingRequests);
     }
 
     /**
-     * Closes the internal client.
+     * Closes the internal client, after waiting for pending requests to complete. Retries that are still waiting,
+     * and requests that have not completed by then, are spooled if there is an {@link EventSpool}, or abandoned
+     * otherwise.
      *
      * @throws IOException in case there is a failure on closing the client.
      */
     @Override
     public void close() throws IOException {
+        closing = true;
         try {
-            if (maximumPendingRequestSemaphore != null) { // NOPMD != null is fine!
+            if (concurrencyLimiter != null) { // NOPMD != null is fine!
                 LOG.debug("Waiting for pending HTTP requests to complete.");
-                maximumPendingRequestSemaphore.tryAcquire(maximumPendingRequests, maximumHttpRequestShutdownWait,
-                    TimeUnit.MILLISECONDS);
+                concurrencyLimiter.awaitNoPending(maximumHttpRequestShutdownWait, TimeUnit.MILLISECONDS);
             } else {
                 LOG.debug("Waiting for pending HTTP requests to complete.");
                 Thread.sleep(maximumHttpRequestShutdownWait);
@@ -207,9 +391,14 @@ public class HoneycombBatchConsumer implements BatchConsumer<ResolvedEvent> {
             Thread.currentThread().interrupt();
             //Preserve interrupt state
         }
+        if (retrier != null) {
+            // failures of the requests that are still pending are then published rather than retried
+            retrier.close();
+        }
         LOG.debug("Closing HTTP client");
         internalClient.close();
         LOG.debug("Closed HTTP client");
+        encoder.close();
     }
 
     /**
@@ -242,10 +431,15 @@ public class HoneycombBatchConsumer implements BatchConsumer<ResolvedEvent> {
 
     private class ResponseHandlingFutureCallback implements FutureCallback<HttpResponse> {
         private final List<ResolvedEvent> batch;
+        private final PooledByteArrayOutputStream body;
 
-        ResponseHandlingFutureCallback(final List<ResolvedEvent> batch) {
+        ResponseHandlingFutureCallback(final List<ResolvedEvent> batch, final PooledByteArrayOutputStream body) {
             this.batch = batch;
+            this.body = body;
             markStartOfHttpRequest(batch);
+            if (retrier != null) {
+                retrier.recordSent(batch);
+            }
         }
 
         private void markStartOfHttpRequest(final List<ResolvedEvent> batch) {
@@ -262,29 +456,77 @@ public class HoneycombBatchConsumer implements BatchConsumer<ResolvedEvent> {
 
         @Override
         public void completed(final HttpResponse httpResponse) {
-            releaseSemaphore();
+            markEndOfHttpRequest();
+            final long latencyNanos = batch.get(0).getMetrics().getHttpRequestDuration();
+            final int statusCode = httpResponse.getStatusLine().getStatusCode();
+            releaseConcurrencyLimit(latencyNanos, BatchRetrier.isRetryableStatus(statusCode));
+            body.release();
+            requestMetrics.requestCompleted(statusCode, latencyNanos);
             consumeSuccessful(httpResponse);
         }
 
         @Override
         public void failed(final Exception exception) {
-            releaseSemaphore();
-            consumeFailed(batch, "HTTP client completed request with an exception", exception);
+            releaseConcurrencyLimit(ABSENT_LATENCY, exception instanceof IOException);
+            body.release();
+            requestMetrics.requestFailed();
+            final List<ResolvedEvent> notRetried = (retrier != null && exception instanceof IOException)
+                ? retrier.retry(batch, HoneycombBatchConsumer.this)
+                : batch;
+            if (notRetried.isEmpty()) {
+                LOG.debug("Batch request failed, retrying its events.", exception);
+                return;
+            }
+            final List<ResolvedEvent> notSpooled = spoolIfClosing(notRetried);
+            if (notSpooled.isEmpty()) {
+                LOG.debug("Batch request failed during shutdown, spooled its events.", exception);
+                return;
+            }
+            consumeFailed(notSpooled, "HTTP client completed request with an exception", exception);
             LOG.error("Unexpected error. Batch request failed. An error has been published to the " +
-                "ResponseObservers for each event in the errored batch.");
+                "ResponseObservers for each event in the errored batch that is not retried.");
         }
 
         @Override
         public void cancelled() {
-            releaseSemaphore();
-            consumeFailed(batch, "HTTP client request was unexpectedly cancelled", null);
+            releaseConcurrencyLimit(ABSENT_LATENCY, false);
+            body.release();
+            requestMetrics.requestFailed();
+            final List<ResolvedEvent> notSpooled = spoolIfClosing(batch);
+            if (notSpooled.isEmpty()) {
+                LOG.debug("Batch request cancelled during shutdown, spooled its events.");
+                return;
+            }
+            consumeFailed(notSpooled, "HTTP client request was unexpectedly cancelled", null);
             LOG.error("Unexpected error. Batch request cancelled. An error has been published to the " +
                 "ResponseObservers for each event in the errored batch.");
         }
 
+        /*
+         * Requests that fail while this consumer is closing did not complete within the shutdown wait, so their events are
+         * spooled if possible, to be sent by the next client.
+         */
+        private List<ResolvedEvent> spoolIfClosing(final List<ResolvedEvent> events) {
+            if (!closing || spool == null) {
+                return events;
+            }
+            return spool.appendAll(events);
+        }
+
         private void consumeSuccessful(final HttpResponse httpResponse) {
-            markEndOfHttpRequest();
-            if (httpResponse.getStatusLine().getStatusCode() == HttpStatus.SC_UNAUTHORIZED && !observable.hasObservers()) {
+            final int statusCode = httpResponse.getStatusLine().getStatusCode();
+            if (retrier != null) {
+                if (BatchRetrier.isRetryableStatus(statusCode)) {
+                    retryBatch(httpResponse, statusCode);
+                    return;
+                }
+                if (statusCode == HttpStatus.SC_OK) {
+                    retryFailedEvents(httpResponse);
+                    return;
+                }
+            }
+            final boolean hasObservers = observable.hasObservers() || observable.hasBatchObservers();
+            if (statusCode == HttpStatus.SC_UNAUTHORIZED && !hasObservers) {
                 // We log an error on any 401 because this is likely a critical configuration error and so should
                 // not require ResponseObserver, but should be clear from the logs.
                 // The alternative is to eagerly check the validity of the global write key on start-up (as in the
@@ -295,29 +537,144 @@ public class HoneycombBatchConsumer implements BatchConsumer<ResolvedEvent> {
                     "team write key. An error has been published to the ResponseObservers for each event " +
                     "in the errored batch.");
             }
-            if (observable.hasObservers()) {
+            if (hasObservers) {
                 try {
-                    final List<LazyServerResponse> toPublish = LazyServerResponse.createEventsWithServerResponse(
+                    LazyServerResponse.publishBatchResponse(
                         batch,
-                        EntityUtils.toByteArray(httpResponse.getEntity()),
-                        httpResponse.getStatusLine().getStatusCode()
+                        readResponseBody(httpResponse.getEntity()),
+                        statusCode,
+                        observable
                     );
-                    for (final LazyServerResponse response : toPublish) {
-                        response.publishTo(observable);
-                    }
                 } catch (final IOException e) {
-                    for (final ResolvedEvent resolvedEvent : batch) {
-                        observable.publish(EventResponseFactory.httpClientError(
-                            resolvedEvent, "Reading from HTTP response threw an exception", e)
-                        );
-                    }
-                    LOG.error("Unable to read server HTTP response. " +
-                        "An error has been published to the ResponseObservers.", e);
+                    responseReadFailure(batch, e);
                 }
             } else {
                 EntityUtils.consumeQuietly(httpResponse.getEntity());
                 LOG.trace("No observers registered so not publishing to responses");
             }
         }
+
+        /*
+         * The server is overloaded or failed, so the whole batch is retried, and only the failure of the events that
+         * are not is published.
+         */
+        private void retryBatch(final HttpResponse httpResponse, final int statusCode) {
+            final List<ResolvedEvent> notRetried = retrier.retry(batch, HoneycombBatchConsumer.this);
+            if (notRetried.isEmpty() || !observable.hasObservers() && !observable.hasBatchObservers()) {
+                EntityUtils.consumeQuietly(httpResponse.getEntity());
+                return;
+            }
+            try {
+                LazyServerResponse.publishBatchResponse(
+                    notRetried, readResponseBody(httpResponse.getEntity()), statusCode, observable);
+            } catch (final IOException e) {
+                responseReadFailure(notRetried, e);
+            }
+        }
+
+        /*
+         * The batch was accepted, but some of its events may have been rejected for reasons worth retrying. The body
+         * is read even without observers to find those events, which are left out of the published response.
+         */
+        // CloseResource: the pooled buffer is released rather than closed
+        // NullAssignment: without observers the body is not copied at all
+        @SuppressWarnings({"PMD.CloseResource", "PMD.NullAssignment"})
+        private void retryFailedEvents(final HttpResponse httpResponse) {
+            final PooledByteArrayOutputStream buffer;
+            try {
+                buffer = bufferResponseBody(httpResponse.getEntity());
+            } catch (final IOException e) {
+                responseReadFailure(batch, e);
+                return;
+            }
+            final BitSet retryable;
+            //Nullable, if there is no observer to keep the body for
+            final byte[] responseBody;
+            try {
+                retryable = LazyServerResponse.findEventsWithStatus(buffer.getBuffer(), 0, buffer.size(),
+                    HttpStatus.SC_OK, BatchRetrier.RETRYABLE_EVENT_STATUSES);
+                // the published responses hand the body out to the observers, so only they need a copy of it
+                responseBody = (observable.hasObservers() || observable.hasBatchObservers())
+                    ? buffer.toByteArray()
+                    : null;
+            } finally {
+                buffer.release();
+            }
+            // the server should never respond with more elements than there are events, but just in case
+            retryable.clear(batch.size(), Math.max(batch.size(), retryable.length()));
+            final BitSet retried = retryable.isEmpty() ? null : retry(retryable);
+            if (responseBody != null) {
+                LazyServerResponse.publishBatchResponse(batch, responseBody, HttpStatus.SC_OK, retried, observable);
+            }
+        }
+
+        /*
+         * Hands the events at the retryable indices of the batch to the retrier, and clears the indices of those it
+         * did not take on, e.g. because their attempts or the retry budget are used up, leaving those retried.
+         */
+        private BitSet retry(final BitSet retryable) {
+            final List<ResolvedEvent> candidates = new ArrayList<>(retryable.cardinality());
+            for (int i = retryable.nextSetBit(0); i >= 0; i = retryable.nextSetBit(i + 1)) {
+                candidates.add(batch.get(i));
+            }
+            final List<ResolvedEvent> notRetried = retrier.retry(candidates, HoneycombBatchConsumer.this);
+            // events are only ever not retried in the order they were offered
+            int next = 0;
+            for (int i = retryable.nextSetBit(0); i >= 0 && next < notRetried.size(); i = retryable.nextSetBit(i + 1)) {
+                if (batch.get(i) == notRetried.get(next)) { // NOPMD the very same event is meant
+                    retryable.clear(i);
+                    next++;
+                }
+            }
+            return retryable;
+        }
+
+        private void responseReadFailure(final List<ResolvedEvent> events, final IOException cause) {
+            for (final ResolvedEvent resolvedEvent : events) {
+                observable.publish(EventResponseFactory.httpClientError(
+                    resolvedEvent, "Reading from HTTP response threw an exception", cause)
+                );
+            }
+            LOG.error("Unable to read server HTTP response. " +
+                "An error has been published to the ResponseObservers.", cause);
+        }
+
+        /*
+         * Reads the body into a pooled buffer, so that only a single array of the exact size needs to be allocated for
+         * it, rather than the growing buffer and final copy of EntityUtils.toByteArray.
+         */
+        // the pooled buffer is released rather than closed
+        @SuppressWarnings("PMD.CloseResource")
+        private byte[] readResponseBody(final HttpEntity entity) throws IOException {
+            final PooledByteArrayOutputStream buffer = bufferResponseBody(entity);
+            try {
+                return buffer.toByteArray();
+            } finally {
+                buffer.release();
+            }
+        }
+
+        /*
+         * Reads the body into a pooled buffer, which the caller must release, so that a body that is not kept can be
+         * parsed without allocating an array for it at all.
+         */
+        private PooledByteArrayOutputStream bufferResponseBody(final HttpEntity entity) throws IOException {
+            final PooledByteArrayOutputStream buffer = bodyBufferPool.acquire();
+            if (entity == null) {
+                return buffer;
+            }
+            boolean read = false;
+            try (InputStream content = entity.getContent()) {
+                if (content != null) {
+                    buffer.readFrom(content);
+                }
+                read = true;
+                return buffer;
+            } finally {
+                if (!read) {
+                    buffer.release();
+                }
+            }
+        }
     }
 }
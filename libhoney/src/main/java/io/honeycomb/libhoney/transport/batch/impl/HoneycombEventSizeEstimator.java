@@ -0,0 +1,130 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.batch.EventSizeEstimator;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Estimates the size of a {@link ResolvedEvent} as an element of a JSON batch request body, which is an upper bound
+ * for its MessagePack encoding too.
+ * <p>
+ * Strings, numbers, booleans, maps, collections and arrays are sized by the characters they encode to; any other
+ * type of field value is assumed to take up {@link #UNKNOWN_VALUE_SIZE} bytes.
+ * The estimate is cached on the event, since events are no longer modified once they have been submitted to the
+ * transport.
+ */
+public class HoneycombEventSizeEstimator implements EventSizeEstimator<ResolvedEvent> {
+    // {"time":"2018-03-26T12:28:16.123Z","samplerate":,"data":{}}, plus the separating comma
+    private static final int EVENT_OVERHEAD = 60;
+    private static final int NULL_SIZE = 4;
+    private static final int BOOLEAN_SIZE = 5;
+    // the longest textual representation of a double, e.g. -2.2250738585072014E-308
+    private static final int FLOATING_POINT_SIZE = 24;
+    private static final int UNKNOWN_VALUE_SIZE = 32;
+    // the escape sequence for a control character, e.g. \u0001
+    private static final int ESCAPED_CONTROL_CHARACTER_SIZE = 6;
+    // the first character that is not escaped, and the first characters that take two and three bytes in UTF-8
+    private static final int FIRST_UNESCAPED_CHARACTER = 0x20;
+    private static final int UTF8_TWO_BYTES = 0x80;
+    private static final int UTF8_THREE_BYTES = 0x800;
+
+    @Override
+    public long estimateSize(final ResolvedEvent event) {
+        long size = event.getEstimatedSize();
+        if (size < 0) {
+            size = EVENT_OVERHEAD + numberSize(event.getSampleRate()) + fieldsSize(event.getFields());
+            event.setEstimatedSize(size);
+        }
+        return size;
+    }
+
+    private static long fieldsSize(final Map<String, Object> fields) {
+        long size = 0;
+        for (final Map.Entry<String, Object> field : fields.entrySet()) {
+            final Object value = field.getValue();
+            if (value != null) { // null fields are omitted
+                size += stringSize(field.getKey()) + valueSize(value) + 2; // colon and comma
+            }
+        }
+        return size;
+    }
+
+    @SuppressWarnings("PMD.CyclomaticComplexity") // a flat dispatch on the value's type
+    private static long valueSize(final Object value) {
+        if (value == null) {
+            return NULL_SIZE;
+        } else if (value instanceof String) {
+            return stringSize((String) value);
+        } else if (value instanceof Integer || value instanceof Long
+            || value instanceof Short || value instanceof Byte) {
+            return numberSize(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            return FLOATING_POINT_SIZE;
+        } else if (value instanceof Boolean) {
+            return BOOLEAN_SIZE;
+        } else if (value instanceof Map) {
+            return mapSize((Map<?, ?>) value);
+        } else if (value instanceof Collection) {
+            return arraySize((Collection<?>) value);
+        } else if (value instanceof Object[]) {
+            return arraySize(Arrays.asList((Object[]) value));
+        }
+        return UNKNOWN_VALUE_SIZE;
+    }
+
+    private static long mapSize(final Map<?, ?> map) {
+        long size = 2; // braces
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            size += stringSize(String.valueOf(entry.getKey())) + valueSize(entry.getValue()) + 2;
+        }
+        return size;
+    }
+
+    private static long arraySize(final Collection<?> elements) {
+        long size = 2; // brackets
+        for (final Object element : elements) {
+            size += valueSize(element) + 1;
+        }
+        return size;
+    }
+
+    /**
+     * @return the UTF-8 encoded size of the string including quotes, counting escaped characters by the size of their
+     * escape sequence.
+     */
+    private static long stringSize(final String value) {
+        final int length = value.length();
+        long size = 2; // quotes
+        for (int i = 0; i < length; i++) {
+            final char character = value.charAt(i);
+            if (character < FIRST_UNESCAPED_CHARACTER) {
+                size += ESCAPED_CONTROL_CHARACTER_SIZE;
+            } else if (character == '"' || character == '\\') {
+                size += 2;
+            } else if (character < UTF8_TWO_BYTES) {
+                size += 1;
+            } else if (character < UTF8_THREE_BYTES) {
+                size += 2;
+            } else {
+                size += 3; // a surrogate pair counts 6 bytes for its 4 encoded ones
+            }
+        }
+        return size;
+    }
+
+    private static int numberSize(final long value) {
+        if (value == Long.MIN_VALUE) {
+            return 20;
+        }
+        int size = (value < 0) ? 2 : 1;
+        long remaining = Math.abs(value);
+        while (remaining >= 10) {
+            remaining /= 10;
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,272 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, lock-free, multi-producer/single-consumer queue backed by a ring buffer, intended as the pending queue of
+ * a {@link DefaultBatcher}, where many application threads offer events and a single worker thread takes them.
+ * <p>
+ * Producers claim a slot with a single CAS on the producer index, and each slot carries a sequence number that tells
+ * the consumer when the element in it has been published, and producers when it has been consumed (see Dmitry
+ * Vyukov's bounded MPMC queue, of which this is the single consumer variant). Unlike an
+ * {@link java.util.concurrent.ArrayBlockingQueue} there is no lock that every producer contends on, and the consumer
+ * can take many events in one go via {@link #drainTo(Collection, int)}. A consumer waiting for elements is parked,
+ * and unparked by the next producer.
+ * <p>
+ * Implementation Notes:
+ * - The consuming methods ({@link #poll()}, {@link #poll(long, TimeUnit)}, {@link #take()}, {@link #peek()},
+ * {@link #drainTo(Collection)}) must only ever be called from one thread at a time. Producing methods, as well as
+ * {@link #size()} and {@link #contains(Object)}, may be called from any thread.
+ * - Blocking producers ({@link #put(Object)} and {@link #offer(Object, long, TimeUnit)}) are not signalled, but back
+ * off and retry. The batcher only uses the non-blocking {@link #offer(Object)}.
+ * - Iteration and {@link #contains(Object)} are weakly consistent, and removal of arbitrary elements is not supported.
+ *
+ * @param <E> the type of elements held in this queue.
+ */
+// GodClass: the whole BlockingQueue interface is implemented directly on the atomic arrays of the ring buffer
+@SuppressWarnings("PMD.GodClass")
+public class MpscRingBufferQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    private static final int SPINS_BEFORE_PARKING = 100;
+    private static final long PRODUCER_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50L);
+
+    private final int capacity;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private volatile long consumerIndex;
+    private volatile Thread waitingConsumer;
+
+    public MpscRingBufferQueue(final int capacity) {
+        super();
+        Assert.isTrue(capacity > 0, "capacity must be > 0");
+        this.capacity = capacity;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public boolean offer(final E element) {
+        Assert.notNull(element, "element must not be null");
+        while (true) {
+            final long index = producerIndex.get();
+            final int slot = slot(index);
+            final long difference = sequences.get(slot) - index;
+            if (difference == 0) {
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    elements.lazySet(slot, element);
+                    sequences.set(slot, index + 1); // publishes the element to the consumer
+                    signalConsumer();
+                    return true;
+                }
+            } else if (difference < 0) {
+                // the slot still holds the element of the previous lap, so the queue is full
+                return false;
+            }
+            // otherwise another producer claimed the slot concurrently, so retry with the updated index
+        }
+    }
+
+    @Override
+    public E poll() {
+        final long index = consumerIndex;
+        final int slot = slot(index);
+        if (sequences.get(slot) != index + 1) {
+            return null; // empty, or a producer has claimed the slot but not yet published the element
+        }
+        final E element = elements.get(slot);
+        elements.lazySet(slot, null);
+        sequences.set(slot, index + capacity); // hands the slot back to producers for the next lap
+        consumerIndex = index + 1;
+        return element;
+    }
+
+    @Override
+    public E peek() {
+        final long index = consumerIndex;
+        final int slot = slot(index);
+        return (sequences.get(slot) == index + 1) ? elements.get(slot) : null;
+    }
+
+    @Override
+    public E poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+        E element = poll();
+        if (element != null) {
+            return element;
+        }
+        final long timeoutNanos = unit.toNanos(timeout);
+        final long deadline = System.nanoTime() + timeoutNanos;
+        int spins = 0;
+        while (true) {
+            element = poll();
+            if (element != null) {
+                return element;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            final long remaining = (timeoutNanos == Long.MAX_VALUE) ? Long.MAX_VALUE : deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            if (spins < SPINS_BEFORE_PARKING) {
+                spins++;
+            } else {
+                awaitElement(remaining);
+            }
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Parks the consumer until a producer signals it, the time runs out or the thread is interrupted. The consumer
+     * registers itself before checking for an element one last time, while producers publish an element before
+     * checking for a registered consumer - so either the consumer sees the element or the producer sees the consumer.
+     */
+    // the registration is cleared by setting the waiting consumer back to null
+    @SuppressWarnings("PMD.NullAssignment")
+    private void awaitElement(final long nanos) {
+        waitingConsumer = Thread.currentThread();
+        try {
+            if (peek() == null) {
+                if (nanos == Long.MAX_VALUE) {
+                    LockSupport.park(this);
+                } else {
+                    LockSupport.parkNanos(this, nanos);
+                }
+            }
+        } finally {
+            waitingConsumer = null;
+        }
+    }
+
+    private void signalConsumer() {
+        final Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    @Override
+    public void put(final E element) throws InterruptedException {
+        while (!offer(element)) {
+            backOff();
+        }
+    }
+
+    @Override
+    public boolean offer(final E element, final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(element)) {
+            if (deadline - System.nanoTime() <= 0) {
+                return false;
+            }
+            backOff();
+        }
+        return true;
+    }
+
+    private static void backOff() throws InterruptedException {
+        LockSupport.parkNanos(PRODUCER_BACKOFF_NANOS);
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    @Override
+    public int drainTo(final Collection<? super E> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(final Collection<? super E> collection, final int maxElements) {
+        Assert.notNull(collection, "collection must not be null");
+        Assert.isFalse(collection == this, "cannot drain a queue into itself"); // NOPMD identity is intended
+        int drained = 0;
+        while (drained < maxElements) {
+            final E element = poll();
+            if (element == null) {
+                break;
+            }
+            collection.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public int size() {
+        // read the consumer index first, so the difference can't be negative due to a concurrent poll
+        final long consumed = consumerIndex;
+        final long produced = producerIndex.get();
+        return (int) Math.min(Math.max(produced - consumed, 0L), capacity);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    @Override
+    public boolean contains(final Object object) {
+        if (object == null) {
+            return false;
+        }
+        for (final E element : snapshot()) {
+            if (object.equals(element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return a weakly consistent iterator over the elements currently published to the queue, which does not
+     * support removal.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return Collections.unmodifiableList(snapshot()).iterator();
+    }
+
+    private List<E> snapshot() {
+        final long start = consumerIndex;
+        final long end = Math.min(producerIndex.get(), start + capacity);
+        final List<E> snapshot = new ArrayList<>((int) Math.max(end - start, 0L));
+        for (long index = start; index < end; index++) {
+            final E element = elements.get(slot(index));
+            if (element != null) {
+                snapshot.add(element);
+            }
+        }
+        return snapshot;
+    }
+
+    private int slot(final long index) {
+        return (int) (index % capacity);
+    }
+}
@@ -0,0 +1,171 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.transport.batch.BatchConsumer;
+import io.honeycomb.libhoney.utils.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link BatchConsumer} that decouples the batching thread from the work done by another, downstream, consumer.
+ * <p>
+ * Batches passed to {@link #consume(List)} are put on a bounded stage queue, from which a pool of worker threads hands
+ * them to the delegate. With the {@link HoneycombBatchConsumer} as the delegate, this means serialization and waiting
+ * for the maximum pending requests happen on the worker threads, while the batcher keeps draining its queue.
+ * Backpressure is preserved: once the stage queue is full, {@link #consume(List)} blocks until a worker has taken a
+ * batch off it.
+ * <p>
+ * Internally, this maintains worker threads, so for cleanup you must call {@link #close()}.
+ *
+ * @param <T> The element type of the batches.
+ */
+// refactor to deal with this rule makes for a less clean design
+@SuppressWarnings("PMD.AccessorMethodGeneration")
+public class PipelinedBatchConsumer<T> implements BatchConsumer<T> {
+    private static final Logger LOG = LoggerFactory.getLogger(PipelinedBatchConsumer.class);
+    private static final long SHUTDOWN_TIMEOUT = 5_000L;
+    private static final long INTERRUPT_TIMEOUT = 1_000L;
+
+    // identity marker to tell a worker to stop, never handed to the delegate
+    private final List<T> endOfStage = new ArrayList<>(0);
+
+    private final BatchConsumer<T> delegate;
+    private final BlockingQueue<List<T>> stage;
+    // batches whose consumption was interrupted, handed to the delegate again on close
+    private final Queue<List<T>> interrupted = new ConcurrentLinkedQueue<>();
+    private final ExecutorService executor;
+    private final int workerCount;
+
+    public PipelinedBatchConsumer(final BatchConsumer<T> delegate,
+                                  final int workerCount,
+                                  final int stageCapacity) {
+        Assert.notNull(delegate, "delegate must not be null");
+        Assert.isTrue(workerCount > 0, "workerCount must be > 0");
+        Assert.isTrue(stageCapacity > 0, "stageCapacity must be > 0");
+
+        this.delegate = delegate;
+        this.workerCount = workerCount;
+        this.stage = new ArrayBlockingQueue<>(stageCapacity);
+        this.executor = Executors.newFixedThreadPool(workerCount, new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread =
+                    new Thread(runnable, "libhoney-pipeline-worker-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (int i = 0; i < workerCount; i++) {
+            executor.submit(new StageWorker());
+        }
+    }
+
+    /**
+     * Hands the batch on to the worker threads, blocking while the stage is at capacity.
+     *
+     * @param batch to consume.
+     * @throws InterruptedException if interrupted while waiting for space on the stage.
+     */
+    @Override
+    public void consume(final List<T> batch) throws InterruptedException {
+        stage.put(batch);
+    }
+
+    // visible for testing
+    int getStageSize() {
+        return stage.size();
+    }
+
+    private class StageWorker implements Runnable {
+        // catch-all, so that a failing batch does not stop the worker
+        @SuppressWarnings("PMD.AvoidCatchingGenericException")
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<T> batch = null;
+                try {
+                    batch = stage.take();
+                    if (batch == endOfStage) { // NOPMD identity marker
+                        return;
+                    }
+                    delegate.consume(batch);
+                } catch (final InterruptedException ignored) {
+                    if (batch != null) {
+                        interrupted.add(batch);
+                    }
+                    Thread.currentThread().interrupt(); // preserve interrupted state to break the loop condition
+                } catch (final RuntimeException ex) {
+                    LOG.error("Unexpected failure while consuming batch. Continuing with next batch.", ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Close down this consumer. Batches that are already on the stage are handed to the delegate first, after which
+     * the worker threads are stopped and the delegate is closed.
+     * If the batcher feeding this consumer needs to be closed, then do so before this consumer is closed, so that the
+     * flushed batches are still consumed.
+     */
+    // the delegate is a field, which is closed once the workers are done with it
+    @SuppressWarnings("PMD.UseTryWithResources")
+    @Override
+    public void close() throws Exception {
+        LOG.debug("Shutting down pipeline worker threads");
+        try {
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT);
+            boolean stopped = true;
+            for (int i = 0; i < workerCount && stopped; i++) {
+                stopped = stage.offer(endOfStage, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+            executor.shutdown();
+            if (!stopped
+                || !executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                LOG.warn("Pipeline worker threads did not terminate in time, interrupting them");
+                executor.shutdownNow();
+                // give the workers a chance to put back the batches they were interrupted on
+                if (!executor.awaitTermination(INTERRUPT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    LOG.warn("Pipeline worker threads did not terminate after being interrupted");
+                }
+            }
+            consumeRemaining();
+        } catch (final InterruptedException ex) {
+            LOG.error("Interrupted during wait for pipeline worker threads to terminate", ex);
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            LOG.debug("Closing pipeline delegate");
+            delegate.close();
+        }
+    }
+
+    /*
+     * In case workers had to be interrupted, the batches they were interrupted on and anything still on the stage are
+     * consumed on the closing thread.
+     */
+    private void consumeRemaining() throws InterruptedException {
+        final List<List<T>> remaining = new ArrayList<>();
+        for (List<T> batch = interrupted.poll(); batch != null; batch = interrupted.poll()) {
+            remaining.add(batch);
+        }
+        stage.drainTo(remaining);
+        for (final List<T> batch : remaining) {
+            if (batch != endOfStage) { // NOPMD identity marker
+                delegate.consume(batch);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.transport.batch.OverflowHandler;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rejects events straight away while the queue is full, so sending never blocks.
+ *
+ * @param <T> the type of the events.
+ */
+public final class RejectingOverflowHandler<T> implements OverflowHandler<T> {
+    private final AtomicLong rejectedEvents = new AtomicLong();
+
+    @Override
+    public boolean offer(final BlockingQueue<T> queue, final T event) {
+        if (queue.offer(event)) {
+            return true;
+        }
+        rejectedEvents.incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public long getRejectedEventCount() {
+        return rejectedEvents.get();
+    }
+
+    @Override
+    public long getDroppedEventCount() {
+        return 0;
+    }
+}
@@ -0,0 +1,87 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.TransportStats;
+import io.honeycomb.libhoney.utils.Histogram;
+import io.honeycomb.libhoney.utils.StripedCounter;
+import org.apache.http.HttpStatus;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the batch requests of a {@link HoneycombBatchConsumer} to its {@link TransportMetrics}: the requests sent,
+ * in flight, succeeded and failed, their latency, and the events and bytes they carried.
+ * <p>
+ * Threadsafe.
+ */
+final class RequestMetrics {
+    private static final long[] LATENCY_MILLIS_BUCKETS =
+        {1, 2, 5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000};
+
+    private final StripedCounter requestsSent;
+    private final StripedCounter requestsSucceeded;
+    private final StripedCounter requestsFailed;
+    private final StripedCounter requestsInFlight = new StripedCounter();
+    private final StripedCounter eventsSent;
+    private final StripedCounter bytesSent;
+    private final Histogram requestLatency;
+
+    RequestMetrics(final TransportMetrics metrics) {
+        this.requestsSent = metrics.counter(TransportStats.REQUESTS_SENT);
+        this.requestsSucceeded = metrics.counter(TransportStats.REQUESTS_SUCCEEDED);
+        this.requestsFailed = metrics.counter(TransportStats.REQUESTS_FAILED);
+        this.eventsSent = metrics.counter(TransportStats.EVENTS_SENT);
+        this.bytesSent = metrics.counter(TransportStats.BYTES_SENT);
+        this.requestLatency = metrics.histogram(TransportStats.REQUEST_LATENCY_MILLIS, LATENCY_MILLIS_BUCKETS);
+        metrics.registerGauge(TransportStats.REQUESTS_IN_FLIGHT, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return requestsInFlight.sum();
+            }
+        });
+    }
+
+    /**
+     * Called before a request is handed to the HTTP client, as it may complete before the client returns.
+     */
+    void requestStarted() {
+        requestsInFlight.increment();
+    }
+
+    /**
+     * @param eventCount in the request.
+     * @param bodySize   of the request, in bytes.
+     */
+    void requestSent(final int eventCount, final int bodySize) {
+        requestsSent.increment();
+        eventsSent.add(eventCount);
+        bytesSent.add(bodySize);
+    }
+
+    /**
+     * @param statusCode   of the response.
+     * @param latencyNanos of the request, or a negative value if it is unknown.
+     */
+    void requestCompleted(final int statusCode, final long latencyNanos) {
+        requestsInFlight.decrement();
+        if (statusCode >= HttpStatus.SC_OK && statusCode < HttpStatus.SC_MULTIPLE_CHOICES) {
+            requestsSucceeded.increment();
+        } else {
+            requestsFailed.increment();
+        }
+        if (latencyNanos >= 0) {
+            requestLatency.record(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+        }
+    }
+
+    /**
+     * Called when a started request was rejected by the HTTP client, failed without a response, or was cancelled.
+     */
+    void requestFailed() {
+        requestsInFlight.decrement();
+        requestsFailed.increment();
+    }
+
+    long getInFlightCount() {
+        return requestsInFlight.sum();
+    }
+}
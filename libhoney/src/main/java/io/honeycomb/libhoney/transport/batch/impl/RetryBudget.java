@@ -0,0 +1,72 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits retries to a ratio of the events that are sent for the first time, so that a failing server is not flooded
+ * with retries on top of the regular traffic.
+ * <p>
+ * This is a token bucket: each event sent for the first time deposits a fraction of a token (the ratio), and each
+ * retried event withdraws a whole one. To bound the burst of retries after a long period without failures, the
+ * balance is capped. Tokens are counted in thousandths, so that deposits need no floating point arithmetic.
+ * <p>
+ * Threadsafe.
+ */
+final class RetryBudget {
+    private static final long TOKEN = 1000L;
+    // maximum number of retries that can be saved up
+    private static final long MAX_RETRIES = 1000L;
+
+    private final long depositPerEvent;
+    private final long maxBalance;
+    private final AtomicLong balance = new AtomicLong();
+
+    /**
+     * @param ratio of retried events to events sent for the first time, between 0 and 1.
+     */
+    RetryBudget(final double ratio) {
+        Assert.isTrue(ratio >= 0 && ratio <= 1, "ratio must be between 0 and 1");
+        this.depositPerEvent = Math.round(ratio * TOKEN);
+        this.maxBalance = MAX_RETRIES * TOKEN;
+    }
+
+    /**
+     * @param eventCount number of events sent for the first time.
+     */
+    void deposit(final int eventCount) {
+        final long amount = depositPerEvent * eventCount;
+        if (amount == 0) {
+            return;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(maxBalance, current + amount)));
+    }
+
+    /**
+     * @return true if there was budget left to retry an event, which has now been used up.
+     */
+    boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    /**
+     * @return the number of events that can currently be retried.
+     */
+    long getAvailableRetries() {
+        return balance.get() / TOKEN;
+    }
+}
@@ -0,0 +1,82 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.transport.batch.BatchKeyStrategy;
+import io.honeycomb.libhoney.transport.batch.Batcher;
+import io.honeycomb.libhoney.utils.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A batcher that spreads events over a number of independent shards, each of which is a {@link Batcher} in its own
+ * right - typically a {@link DefaultBatcher} with its own queue, batches and worker thread.
+ * <p>
+ * Events are routed by the hash of their batch key, as determined by the provided {@link BatchKeyStrategy}, so all
+ * events of a given batch end up on the same shard and batches are as full as they would be with a single batcher.
+ * This means that the work of batching and submitting to the consumer is parallelised across distinct keys
+ * (i.e. combinations of API host, write key and dataset), while the events of a single key are still handled by one
+ * thread.
+ *
+ * @param <T> The type of the events.
+ * @param <K> The type of the key events of 'T' return.
+ */
+public class ShardedBatcher<T, K> implements Batcher<T> {
+    private static final Logger LOG = LoggerFactory.getLogger(ShardedBatcher.class);
+
+    private final BatchKeyStrategy<T, K> batchKeyStrategy;
+    private final List<Batcher<T>> shards;
+
+    public ShardedBatcher(final BatchKeyStrategy<T, K> batchKeyStrategy,
+                          final List<? extends Batcher<T>> shards) {
+        Assert.notNull(batchKeyStrategy, "batchKeyStrategy must not be null");
+        Assert.notNull(shards, "shards must not be null");
+        Assert.isFalse(shards.isEmpty(), "shards must not be empty");
+
+        this.batchKeyStrategy = batchKeyStrategy;
+        this.shards = new ArrayList<>(shards);
+    }
+
+    @Override
+    public boolean offerEvent(final T event) {
+        return shards.get(shardIndex(batchKeyStrategy.getKey(event), shards.size())).offerEvent(event);
+    }
+
+    /**
+     * Closes all shards, each of which flushes its outstanding batches. Shards are closed in turn, and a failure to
+     * close one shard does not prevent the others from being closed.
+     */
+    // CloseResource: false positive, every shard is closed in the loop.
+    // AvoidCatchingGenericException: catch-all, so that a shard failing to close does not stop the others closing.
+    @SuppressWarnings({"PMD.CloseResource", "PMD.AvoidCatchingGenericException"})
+    @Override
+    public void close() throws Exception {
+        Exception firstFailure = null;
+        for (final Batcher<T> shard : shards) {
+            try {
+                shard.close();
+            } catch (final Exception ex) {
+                LOG.error("Failed to close batcher shard", ex);
+                if (firstFailure == null) {
+                    firstFailure = ex;
+                }
+            }
+        }
+        if (firstFailure != null) {
+            throw firstFailure;
+        }
+    }
+
+    // visible for testing
+    int getShardCount() {
+        return shards.size();
+    }
+
+    // visible for testing
+    static int shardIndex(final Object key, final int shardCount) {
+        final int hash = key.hashCode();
+        // mix in the higher bits, as HashMap does, so they also affect the choice of shard
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % shardCount;
+    }
+}
@@ -0,0 +1,103 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.ResponseObservable;
+import io.honeycomb.libhoney.responses.impl.EventResponseFactory;
+import io.honeycomb.libhoney.transport.batch.OverflowHandler;
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sheds load before the queue overflows, by sampling events once the queue is filled beyond a threshold. The sample
+ * rate rises with the fill level, from 1 at the threshold towards {@link #MAX_SHED_RATE} as the queue approaches its
+ * capacity, and the sample rate of events that are kept is multiplied accordingly, so that the counts derived from
+ * them on the server remain correct. Events that are shed are published as
+ * {@link io.honeycomb.libhoney.responses.ClientRejected} with reason
+ * {@link io.honeycomb.libhoney.responses.ClientRejected.RejectionReason#NOT_SAMPLED}. Events that still find the queue
+ * full are rejected.
+ */
+public final class SheddingOverflowHandler implements OverflowHandler<ResolvedEvent> {
+    /**
+     * The highest rate at which events are shed, i.e. at least 1 in this many events is kept until the queue is full.
+     */
+    static final int MAX_SHED_RATE = 1_000;
+    private static final int NO_SHEDDING = 1;
+    private static final double MIN_KEEP_RATIO = 1.0 / MAX_SHED_RATE;
+
+    private final double threshold;
+    private final ResponseObservable observable;
+    private final AtomicLong shedEvents = new AtomicLong();
+    private final AtomicLong rejectedEvents = new AtomicLong();
+
+    /**
+     * @param threshold  fill level of the queue, between 0 (inclusive) and 1 (exclusive), from which on events are
+     *                   shed.
+     * @param observable to publish the responses of shed events to.
+     */
+    public SheddingOverflowHandler(final double threshold, final ResponseObservable observable) {
+        Assert.isTrue(threshold >= 0 && threshold < 1, "threshold must be at least 0 and less than 1");
+        this.threshold = threshold;
+        this.observable = observable;
+    }
+
+    @Override
+    public boolean offer(final BlockingQueue<ResolvedEvent> queue, final ResolvedEvent event) {
+        final int size = queue.size();
+        final int shedRate = shedRate(size, size + queue.remainingCapacity());
+        if (shedRate > NO_SHEDDING) {
+            if (ThreadLocalRandom.current().nextInt(shedRate) != 0) {
+                shedEvents.incrementAndGet();
+                observable.publish(EventResponseFactory.shed(event, shedRate));
+                return true;
+            }
+            event.setSampleRate(multiplySaturated(event.getSampleRate(), shedRate));
+        }
+        if (queue.offer(event)) {
+            return true;
+        }
+        rejectedEvents.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Beyond the threshold, the share of events kept falls linearly with the remaining capacity, so the rate is its
+     * inverse.
+     *
+     * @param size     of the queue.
+     * @param capacity of the queue.
+     * @return 1 in how many events to keep.
+     */
+    // visible for testing
+    int shedRate(final int size, final int capacity) {
+        final double fill = (capacity == 0) ? 1 : (double) size / capacity;
+        if (fill < threshold) {
+            return NO_SHEDDING;
+        }
+        final double keep = (1 - fill) / (1 - threshold);
+        if (keep <= MIN_KEEP_RATIO) {
+            return MAX_SHED_RATE;
+        }
+        return (int) Math.round(1 / keep);
+    }
+
+    private static int multiplySaturated(final int sampleRate, final int factor) {
+        final long product = (long) sampleRate * factor;
+        return (product > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) product;
+    }
+
+    /**
+     * @return the number of events that were shed.
+     */
+    @Override
+    public long getDroppedEventCount() {
+        return shedEvents.get();
+    }
+
+    @Override
+    public long getRejectedEventCount() {
+        return rejectedEvents.get();
+    }
+}
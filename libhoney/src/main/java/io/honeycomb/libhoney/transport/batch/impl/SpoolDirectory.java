@@ -0,0 +1,157 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * The directory of an {@link EventSpool}, which holds its {@link SpoolSegment} files, named by their sequence number,
+ * and a lock file, which is locked for as long as the spool is open so that only one spool uses the directory.
+ * <p>
+ * Where the file system supports POSIX permissions, the directory (if created here) and its files are only accessible
+ * to the owner.
+ * <p>
+ * Not threadsafe. The spool creates segments under its lock.
+ */
+final class SpoolDirectory implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(SpoolDirectory.class);
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String LOCK_FILE = "spool.lock";
+
+    private final Path path;
+    // applied to the files created in the directory
+    private final FileAttribute<?>[] fileAttributes;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private long nextSequence;
+
+    /**
+     * Opens the directory, creating it if needed, and locks it.
+     *
+     * @param path of the directory.
+     * @throws IOException if the directory cannot be used, e.g. because another spool is using it.
+     */
+    SpoolDirectory(final Path path) throws IOException {
+        this.path = path;
+        Files.createDirectories(path, ownerOnly(path, "rwx------"));
+        this.fileAttributes = ownerOnly(path, "rw-------");
+        this.lockChannel = FileChannel.open(path.resolve(LOCK_FILE),
+            EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE), fileAttributes);
+        this.lock = tryLock(lockChannel, path);
+    }
+
+    /*
+     * The attributes to create a file or directory with that is only accessible to its owner, or none if the file
+     * system does not support POSIX permissions.
+     */
+    private static FileAttribute<?>[] ownerOnly(final Path directory, final String permissions) {
+        if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return new FileAttribute<?>[] {
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(permissions))};
+        }
+        return new FileAttribute<?>[0];
+    }
+
+    private static FileLock tryLock(final FileChannel channel, final Path directory) throws IOException {
+        final FileLock fileLock;
+        try {
+            fileLock = channel.tryLock();
+        } catch (final OverlappingFileLockException ex) {
+            channel.close();
+            throw new IOException("Spool directory is in use by another client in this process: " + directory, ex);
+        }
+        if (fileLock == null) {
+            channel.close();
+            throw new IOException("Spool directory is in use by another process: " + directory);
+        }
+        return fileLock;
+    }
+
+    /**
+     * Picks up the segments left behind by a previous spool, in the order they were written. Segments that cannot be
+     * read are deleted, as they would otherwise take up space for good. Segments created afterwards follow on from
+     * the last one.
+     *
+     * @return the segments, in order.
+     * @throws IOException if the directory cannot be listed.
+     */
+    List<SpoolSegment> loadSegments() throws IOException {
+        final List<SpoolSegment> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path, "*" + SEGMENT_SUFFIX)) {
+            for (final Path file : files) {
+                final long sequence = parseSequence(file);
+                if (sequence < 0) {
+                    continue;
+                }
+                try {
+                    segments.add(SpoolSegment.open(file, sequence));
+                } catch (final IOException ex) {
+                    LOG.warn("Deleting spool segment that cannot be read: {}", file, ex);
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        Collections.sort(segments, new Comparator<SpoolSegment>() {
+            @Override
+            public int compare(final SpoolSegment first, final SpoolSegment second) {
+                return Long.compare(first.getSequence(), second.getSequence());
+            }
+        });
+        if (!segments.isEmpty()) {
+            nextSequence = segments.get(segments.size() - 1).getSequence() + 1;
+        }
+        return segments;
+    }
+
+    private static long parseSequence(final Path file) {
+        final String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (final NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * @param segmentBytes size of the segment file.
+     * @return a new segment, which follows on from the previous one.
+     * @throws IOException if the segment file cannot be created.
+     */
+    SpoolSegment createSegment(final int segmentBytes) throws IOException {
+        final Path file = path.resolve(String.format("%019d%s", nextSequence, SEGMENT_SUFFIX));
+        final SpoolSegment segment = SpoolSegment.create(file, nextSequence, segmentBytes, fileAttributes);
+        nextSequence++;
+        return segment;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Releases the lock on the directory.
+     *
+     * @throws IOException if the lock cannot be released.
+     */
+    @Override
+    public void close() throws IOException {
+        try (FileChannel channel = lockChannel) {
+            lock.release();
+        }
+    }
+}
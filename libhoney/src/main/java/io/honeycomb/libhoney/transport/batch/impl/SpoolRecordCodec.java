@@ -0,0 +1,68 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.honeycomb.libhoney.eventdata.EventRoute;
+import io.honeycomb.libhoney.eventdata.LayeredFieldMap;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.batch.ClockProvider;
+import io.honeycomb.libhoney.utils.JsonUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The format of the records of an {@link EventSpool}: a JSON object with the API host, write key, dataset, sample
+ * rate, timestamp and fields of an event. The metadata of the event is not included.
+ * <p>
+ * Threadsafe.
+ */
+final class SpoolRecordCodec {
+    private static final ObjectWriter RECORD_WRITER = JsonUtils.OBJECT_MAPPER.writerFor(Map.class);
+    private static final ObjectReader RECORD_READER = JsonUtils.OBJECT_MAPPER.readerFor(Map.class);
+    private static final String API_HOST = "apiHost";
+    private static final String WRITE_KEY = "writeKey";
+    private static final String DATASET = "dataset";
+    private static final String SAMPLE_RATE = "sampleRate";
+    private static final String TIMESTAMP = "timestamp";
+    private static final String DATA = "data";
+
+    private SpoolRecordCodec() {
+        // utils class
+    }
+
+    static byte[] encode(final ResolvedEvent event) throws IOException {
+        final Map<String, Object> record = new LinkedHashMap<>();
+        record.put(API_HOST, event.getApiHost().toString());
+        record.put(WRITE_KEY, event.getWriteKey());
+        record.put(DATASET, event.getDataset());
+        record.put(SAMPLE_RATE, event.getSampleRate());
+        record.put(TIMESTAMP, event.getTimestamp());
+        record.put(DATA, event.getFields());
+        return RECORD_WRITER.writeValueAsBytes(record);
+    }
+
+    /**
+     * @param payload of a record.
+     * @param clock   for the decoded event.
+     * @return the event, without metadata.
+     * @throws IOException if the payload is not valid JSON.
+     */
+    @SuppressWarnings("unchecked")
+    static ResolvedEvent decode(final byte[] payload, final ClockProvider clock) throws IOException {
+        final Map<String, Object> record = RECORD_READER.readValue(payload);
+        final EventRoute route = new EventRoute(
+            URI.create((String) record.get(API_HOST)),
+            (String) record.get(WRITE_KEY),
+            (String) record.get(DATASET));
+        return new ResolvedEvent(
+            route,
+            ((Number) record.get(SAMPLE_RATE)).intValue(),
+            ((Number) record.get(TIMESTAMP)).longValue(),
+            new LayeredFieldMap((Map<String, Object>) record.get(DATA)),
+            null,
+            clock);
+    }
+}
@@ -0,0 +1,210 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.util.EnumSet;
+import java.util.zip.CRC32;
+
+/**
+ * A file of the {@link EventSpool}, which is memory-mapped in full and holds a header followed by records, each of
+ * which is laid out as:
+ * <pre>
+ * | length (int) | crc32 of payload (int) | payload (length bytes) |
+ * </pre>
+ * The checksum and payload of a record are written before its length, so a record whose write was torn by a crash
+ * reads as a length of 0, which marks the end of the segment just like the zeroed space after the last record. Once a
+ * record has been replayed, its length is negated, so that it is skipped if the segment is read again after a restart.
+ * <p>
+ * Appending and reading keep separate positions, so that a segment can be replayed while it is still being appended
+ * to. Records that have been marked as replayed are skipped when the segment is read again after a {@link #rewind()}.
+ * <p>
+ * Not threadsafe. The spool guards the segment that is being appended to with its lock, including reading it.
+ */
+final class SpoolSegment {
+    static final int HEADER_BYTES = 8;
+    static final int RECORD_OVERHEAD_BYTES = 8;
+
+    // "HNYS" followed by the format version
+    private static final int MAGIC = 0x484E5953;
+    private static final int VERSION = 1;
+
+    private final Path path;
+    private final long sequence;
+    private final MappedByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+    private int appendPosition = HEADER_BYTES;
+    private int readPosition = HEADER_BYTES;
+    private int corruptRecords;
+    // position of the record last returned by next, or -1
+    private int lastRecord = -1;
+
+    private SpoolSegment(final Path path, final long sequence, final MappedByteBuffer buffer) {
+        this.path = path;
+        this.sequence = sequence;
+        this.buffer = buffer;
+    }
+
+    /**
+     * @param path       of the new file.
+     * @param sequence   of the segment, which determines the order of replay.
+     * @param size       of the segment in bytes.
+     * @param attributes to create the file with.
+     * @return a new, empty segment to append to.
+     * @throws IOException if the file cannot be created or mapped.
+     */
+    static SpoolSegment create(final Path path,
+                               final long sequence,
+                               final int size,
+                               final FileAttribute<?>... attributes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+            EnumSet.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE),
+            attributes)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            return new SpoolSegment(path, sequence, buffer);
+        }
+    }
+
+    /**
+     * @param path     of an existing segment file.
+     * @param sequence of the segment.
+     * @return the segment, positioned at its first record.
+     * @throws IOException if the file cannot be mapped, or is not a spool segment.
+     */
+    static SpoolSegment open(final Path path, final long sequence) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected size of spool segment " + path + ": " + size);
+            }
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a spool segment of a supported version: " + path);
+            }
+            return new SpoolSegment(path, sequence, buffer);
+        }
+    }
+
+    /**
+     * @param payload to append as a record.
+     * @return false if there is not enough space left in this segment.
+     */
+    boolean append(final byte[] payload) {
+        final int end = appendPosition + RECORD_OVERHEAD_BYTES + payload.length;
+        if (end > buffer.capacity() || end < 0) {
+            return false;
+        }
+        crc.reset();
+        crc.update(payload, 0, payload.length);
+        final ByteBuffer target = buffer.duplicate();
+        // through Buffer, as ByteBuffer.position(int) only exists from Java 9 on
+        ((Buffer) target).position(appendPosition + RECORD_OVERHEAD_BYTES);
+        target.put(payload);
+        buffer.putInt(appendPosition + 4, (int) crc.getValue());
+        buffer.putInt(appendPosition, payload.length);
+        appendPosition = end;
+        return true;
+    }
+
+    /**
+     * Returns the next record that has not been replayed yet. Records whose checksum does not match are skipped, and
+     * a length that runs past the end of the segment ends it, as the rest of the segment cannot be trusted.
+     *
+     * @return the payload of the record, or null if there are no more records.
+     */
+    // the payload is a byte array rather than a collection, so there is no empty one to stand for "no more records"
+    @SuppressWarnings("PMD.ReturnEmptyCollectionRatherThanNull")
+    byte[] next() {
+        lastRecord = -1;
+        while (readPosition + RECORD_OVERHEAD_BYTES <= buffer.capacity()) {
+            final int length = buffer.getInt(readPosition);
+            if (length == 0) {
+                return null;
+            }
+            final int size = Math.abs(length);
+            final int end = readPosition + RECORD_OVERHEAD_BYTES + size;
+            if (length == Integer.MIN_VALUE || end > buffer.capacity() || end < 0) {
+                corruptRecords++;
+                return null;
+            }
+            final int record = readPosition;
+            readPosition = end;
+            if (length > 0) {
+                final byte[] payload = new byte[size];
+                final ByteBuffer source = buffer.duplicate();
+                ((Buffer) source).position(record + RECORD_OVERHEAD_BYTES);
+                source.get(payload);
+                crc.reset();
+                crc.update(payload, 0, size);
+                if ((int) crc.getValue() == buffer.getInt(record + 4)) {
+                    lastRecord = record;
+                    return payload;
+                }
+                corruptRecords++;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Marks the record last returned by {@link #next()} as replayed.
+     */
+    void markReplayed() {
+        if (lastRecord >= 0) {
+            buffer.putInt(lastRecord, -buffer.getInt(lastRecord));
+            lastRecord = -1;
+        }
+    }
+
+    /**
+     * Writes the segment's changes to disk.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Deletes the file. The mapping itself is released once the segment is garbage collected.
+     *
+     * @throws IOException if the file cannot be deleted.
+     */
+    void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    int getSize() {
+        return buffer.capacity();
+    }
+
+    /**
+     * @return the number of records that were found to be corrupt while replaying.
+     */
+    int getCorruptRecordCount() {
+        return corruptRecords;
+    }
+
+    /**
+     * Moves back to the first record, so that a segment is read from the start again, skipping the records that have
+     * been replayed already.
+     */
+    void rewind() {
+        readPosition = HEADER_BYTES;
+        lastRecord = -1;
+    }
+}
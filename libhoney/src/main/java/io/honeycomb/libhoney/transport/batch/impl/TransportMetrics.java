@@ -0,0 +1,147 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.TransportStats;
+import io.honeycomb.libhoney.transport.batch.ClockProvider;
+import io.honeycomb.libhoney.utils.Histogram;
+import io.honeycomb.libhoney.utils.StripedCounter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The registry of the metrics of a client and its transport, which the components record to, and which
+ * {@link io.honeycomb.libhoney.HoneyClient#getStats()} takes snapshots of. The names of the metrics are given by
+ * {@link TransportStats}.
+ * <p>
+ * Metrics are either recorded as they happen, to {@link StripedCounter}s and {@link Histogram}s, so that recording
+ * them on the hot path is cheap, or they are {@link Reading}s of state that components keep anyway (e.g. the size of
+ * a queue, or the counters of the spool), which are only read when a snapshot is taken. Readings registered under the
+ * same name are summed up, so that each batcher shard can register its queue as part of the same gauge.
+ * <p>
+ * Threadsafe.
+ */
+public final class TransportMetrics {
+    private final ClockProvider clock;
+    private final ConcurrentMap<String, StripedCounter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, List<Reading>> counterReadings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, List<Reading>> gaugeReadings = new ConcurrentHashMap<>();
+
+    public TransportMetrics() {
+        this(SystemClockProvider.getInstance());
+    }
+
+    public TransportMetrics(final ClockProvider clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * @param name of the counter.
+     * @return the counter of the given name, which is created if it does not exist yet.
+     */
+    public StripedCounter counter(final String name) {
+        final StripedCounter counter = counters.get(name);
+        if (counter != null) {
+            return counter;
+        }
+        final StripedCounter created = new StripedCounter();
+        final StripedCounter existing = counters.putIfAbsent(name, created);
+        return (existing == null) ? created : existing;
+    }
+
+    /**
+     * @param name   of the histogram.
+     * @param bounds of the histogram's buckets, which only apply if it does not exist yet.
+     * @return the histogram of the given name, which is created if it does not exist yet.
+     */
+    public Histogram histogram(final String name, final long... bounds) {
+        final Histogram histogram = histograms.get(name);
+        if (histogram != null) {
+            return histogram;
+        }
+        final Histogram created = new Histogram(bounds);
+        final Histogram existing = histograms.putIfAbsent(name, created);
+        return (existing == null) ? created : existing;
+    }
+
+    /**
+     * Registers a reading of a value that only ever increases, which is added to the counter of the given name.
+     *
+     * @param name    of the counter.
+     * @param reading to add.
+     */
+    public void registerCounter(final String name, final Reading reading) {
+        register(counterReadings, name, reading);
+    }
+
+    /**
+     * Registers a reading of a value at the time of a snapshot, which is added to the gauge of the given name.
+     *
+     * @param name    of the gauge.
+     * @param reading to add.
+     */
+    public void registerGauge(final String name, final Reading reading) {
+        register(gaugeReadings, name, reading);
+    }
+
+    private static void register(final ConcurrentMap<String, List<Reading>> readings,
+                                 final String name,
+                                 final Reading reading) {
+        List<Reading> list = readings.get(name);
+        if (list == null) {
+            final List<Reading> created = new CopyOnWriteArrayList<>();
+            list = readings.putIfAbsent(name, created);
+            if (list == null) {
+                list = created;
+            }
+        }
+        list.add(reading);
+    }
+
+    /**
+     * @return a snapshot of all metrics.
+     */
+    public TransportStats snapshot() {
+        final Map<String, Long> counterValues = new HashMap<>();
+        for (final Map.Entry<String, StripedCounter> entry : counters.entrySet()) {
+            counterValues.put(entry.getKey(), entry.getValue().sum());
+        }
+        for (final Map.Entry<String, List<Reading>> entry : counterReadings.entrySet()) {
+            final Long recorded = counterValues.get(entry.getKey());
+            counterValues.put(entry.getKey(), sum(entry.getValue()) + (recorded == null ? 0L : recorded));
+        }
+        final Map<String, Long> gaugeValues = new HashMap<>();
+        for (final Map.Entry<String, List<Reading>> entry : gaugeReadings.entrySet()) {
+            gaugeValues.put(entry.getKey(), sum(entry.getValue()));
+        }
+        final Map<String, TransportStats.HistogramStats> histogramValues = new HashMap<>();
+        for (final Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            final Histogram histogram = entry.getValue();
+            histogramValues.put(entry.getKey(), new TransportStats.HistogramStats(
+                histogram.getBounds(), histogram.getCounts(), histogram.getSum(), histogram.getMax()));
+        }
+        return new TransportStats(clock.getWallTime(), counterValues, gaugeValues, histogramValues);
+    }
+
+    private static long sum(final List<Reading> readings) {
+        long sum = 0L;
+        for (final Reading reading : readings) {
+            sum += reading.read();
+        }
+        return sum;
+    }
+
+    /**
+     * A value that a component keeps track of anyway, which is read when a snapshot is taken.
+     */
+    public interface Reading {
+        /**
+         * @return the current value. This is called from the thread taking the snapshot, so it must be threadsafe.
+         */
+        long read();
+    }
+}
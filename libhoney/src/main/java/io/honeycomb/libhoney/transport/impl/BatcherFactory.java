@@ -0,0 +1,97 @@
+package io.honeycomb.libhoney.transport.impl;
+
+import io.honeycomb.libhoney.TransportOptions;
+import io.honeycomb.libhoney.eventdata.EventRoute;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.ResponseObservable;
+import io.honeycomb.libhoney.transport.batch.BatchConsumer;
+import io.honeycomb.libhoney.transport.batch.ClockProvider;
+import io.honeycomb.libhoney.transport.batch.OverflowHandler;
+import io.honeycomb.libhoney.transport.batch.impl.BlockingOverflowHandler;
+import io.honeycomb.libhoney.transport.batch.impl.DefaultBatcher;
+import io.honeycomb.libhoney.transport.batch.impl.DropOldestOverflowHandler;
+import io.honeycomb.libhoney.transport.batch.impl.EventRouteBatchKeyStrategy;
+import io.honeycomb.libhoney.transport.batch.impl.HoneycombEventSizeEstimator;
+import io.honeycomb.libhoney.transport.batch.impl.MpscRingBufferQueue;
+import io.honeycomb.libhoney.transport.batch.impl.RejectingOverflowHandler;
+import io.honeycomb.libhoney.transport.batch.impl.SheddingOverflowHandler;
+import io.honeycomb.libhoney.transport.batch.impl.TransportMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Builds the batcher shards of a {@link BatchingHttpTransport} and the overflow handler they share, according to the
+ * queue settings of the {@link TransportOptions}.
+ */
+final class BatcherFactory {
+    private BatcherFactory() {
+        // utils class
+    }
+
+    /**
+     * One handler is shared by all shards, as it keeps no state apart from its counters.
+     *
+     * @param options            to take the queue overflow policy from.
+     * @param responseObservable to publish the responses to events that are dropped or shed.
+     * @return the handler.
+     */
+    static OverflowHandler<ResolvedEvent> createOverflowHandler(final TransportOptions options,
+                                                                final ResponseObservable responseObservable) {
+        switch (options.getQueueOverflowPolicy()) {
+            case BLOCK:
+                return new BlockingOverflowHandler<>(options.getQueueOfferTimeoutMillis());
+            case DROP_OLDEST:
+                return new DropOldestOverflowHandler(responseObservable);
+            case SHED:
+                return new SheddingOverflowHandler(options.getQueueShedThreshold(), responseObservable);
+            case REJECT:
+            default:
+                return new RejectingOverflowHandler<>();
+        }
+    }
+
+    static List<DefaultBatcher<ResolvedEvent, ?>> buildShards(
+        final TransportOptions options,
+        final EventRouteBatchKeyStrategy batchKeyStrategy,
+        final HoneycombEventSizeEstimator sizeEstimator,
+        final BatchConsumer<ResolvedEvent> consumer,
+        final ClockProvider clockProvider,
+        final OverflowHandler<ResolvedEvent> overflowHandler,
+        final TransportMetrics metrics) {
+        final int shardCount = options.getBatcherShards();
+        // divide the capacity so that the total number of queued events stays bounded by the configured capacity
+        final int shardQueueCapacity = (shardCount == 1)
+            ? options.getQueueCapacity()
+            : Math.max(1, options.getQueueCapacity() / shardCount);
+        final List<DefaultBatcher<ResolvedEvent, ?>> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(DefaultBatcher.<ResolvedEvent, EventRoute>builder()
+                .setBatchKeyStrategy(batchKeyStrategy)
+                .setBatchConsumer(consumer)
+                .setClockProvider(clockProvider)
+                .setPendingQueue(createPendingQueue(options.getQueueType(), shardQueueCapacity))
+                .setBatchSize(options.getBatchSize())
+                .setBatchTimeoutMillis(options.getBatchTimeoutMillis())
+                .setSizeEstimator(sizeEstimator)
+                .setMaxBatchBytes(options.getMaxBatchBytes())
+                .setOverflowHandler(overflowHandler)
+                .setMetrics(metrics)
+                .build());
+        }
+        return shards;
+    }
+
+    private static BlockingQueue<ResolvedEvent> createPendingQueue(final TransportOptions.QueueType queueType,
+                                                                   final int capacity) {
+        switch (queueType) {
+            case MPSC_RING_BUFFER:
+                return new MpscRingBufferQueue<>(capacity);
+            case ARRAY_BLOCKING_QUEUE:
+            default:
+                return new ArrayBlockingQueue<>(capacity);
+        }
+    }
+}
@@ -1,52 +1,223 @@
 package io.honeycomb.libhoney.transport.impl;
 
 import io.honeycomb.libhoney.TransportOptions;
+import io.honeycomb.libhoney.TransportStats;
 import io.honeycomb.libhoney.eventdata.ResolvedEvent;
 import io.honeycomb.libhoney.responses.ResponseObservable;
+import io.honeycomb.libhoney.responses.impl.EventResponseFactory;
 import io.honeycomb.libhoney.transport.Transport;
 import io.honeycomb.libhoney.transport.batch.BatchConsumer;
 import io.honeycomb.libhoney.transport.batch.Batcher;
 import io.honeycomb.libhoney.transport.batch.ClockProvider;
+import io.honeycomb.libhoney.transport.batch.EventSizeEstimator;
+import io.honeycomb.libhoney.transport.batch.OverflowHandler;
 import io.honeycomb.libhoney.transport.batch.impl.DefaultBatcher;
+import io.honeycomb.libhoney.transport.batch.impl.EventRouteBatchKeyStrategy;
+import io.honeycomb.libhoney.transport.batch.impl.EventSpool;
 import io.honeycomb.libhoney.transport.batch.impl.HoneycombBatchConsumer;
-import io.honeycomb.libhoney.transport.batch.impl.HoneycombBatchKeyStrategy;
+import io.honeycomb.libhoney.transport.batch.impl.HoneycombEventSizeEstimator;
+import io.honeycomb.libhoney.transport.batch.impl.PipelinedBatchConsumer;
+import io.honeycomb.libhoney.transport.batch.impl.ShardedBatcher;
 import io.honeycomb.libhoney.transport.batch.impl.SystemClockProvider;
-import io.honeycomb.libhoney.transport.json.BatchRequestSerializer;
+import io.honeycomb.libhoney.transport.batch.impl.TransportMetrics;
 import io.honeycomb.libhoney.transport.json.JsonSerializer;
+import io.honeycomb.libhoney.transport.json.StreamingBatchRequestSerializer;
+import io.honeycomb.libhoney.transport.json.StreamingJsonSerializer;
+import io.honeycomb.libhoney.transport.msgpack.MsgPackBatchRequestSerializer;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.RegistryBuilder;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
 import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.ssl.SSLContexts;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
+import javax.management.ObjectName;
 import javax.net.ssl.SSLContext;
 
 /**
  * The default {@link Transport} used by the SDK.
  * Batches incoming events
  */
+// init wires up the components of the transport, and so imports every one of them
+@SuppressWarnings("PMD.ExcessiveImports")
 public class BatchingHttpTransport implements Transport {
     private static final Logger LOG = LoggerFactory.getLogger(BatchingHttpTransport.class);
+    /**
+     * The domain and type of the names that transports are registered with the platform MBean server under, which
+     * are followed by a name that is unique within the JVM.
+     */
+    public static final String MBEAN_NAME_PREFIX = "io.honeycomb.libhoney:type=BatchingHttpTransport,name=transport-";
+    private static final AtomicInteger MBEAN_SEQUENCE = new AtomicInteger();
     private final Batcher<ResolvedEvent> batcher;
     private final BatchConsumer<ResolvedEvent> consumer;
     private final ResponseObservable responseObservable;
+    //Nullable
+    private final EventSizeEstimator<ResolvedEvent> sizeEstimator;
+    private final long maxEventBytes;
+    //Nullable
+    private final EventSpool spool;
+    //Nullable
+    private final OverflowHandler<ResolvedEvent> overflowHandler;
+    private final TransportMetrics metrics;
+    //Nullable, unless registered with the platform MBean server by init
+    private ObjectName mbeanName;
 
     public BatchingHttpTransport(final Batcher<ResolvedEvent> batcher,
                                  final BatchConsumer<ResolvedEvent> consumer,
                                  final ResponseObservable responseObservable) {
+        this(batcher, consumer, responseObservable, null, Long.MAX_VALUE, null, null, new TransportMetrics());
+    }
+
+    /*
+     * The components that init builds from the TransportOptions.
+     * The size estimator, spool and overflow handler are optional via "null".
+     */
+    // visible for testing
+    @SuppressWarnings("PMD.ExcessiveParameterList")
+    BatchingHttpTransport(final Batcher<ResolvedEvent> batcher,
+                          final BatchConsumer<ResolvedEvent> consumer,
+                          final ResponseObservable responseObservable,
+                          final EventSizeEstimator<ResolvedEvent> sizeEstimator,
+                          final long maxEventBytes,
+                          final EventSpool spool,
+                          final OverflowHandler<ResolvedEvent> overflowHandler,
+                          final TransportMetrics metrics) {
         this.batcher = batcher;
         this.consumer = consumer;
         this.responseObservable = responseObservable;
+        this.sizeEstimator = sizeEstimator;
+        this.maxEventBytes = maxEventBytes;
+        this.spool = spool;
+        this.overflowHandler = overflowHandler;
+        this.metrics = metrics;
+        registerResponseMetrics(metrics, responseObservable);
+        if (overflowHandler != null) {
+            registerOverflowMetrics(metrics, overflowHandler);
+        }
+        if (spool != null) {
+            registerSpoolMetrics(metrics, spool);
+        }
+    }
+
+    private static void registerResponseMetrics(final TransportMetrics metrics,
+                                                final ResponseObservable responseObservable) {
+        metrics.registerCounter(TransportStats.RESPONSES_DROPPED, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return responseObservable.getDroppedResponseCount();
+            }
+        });
+        metrics.registerGauge(TransportStats.RESPONSES_PENDING, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return responseObservable.getPendingResponseCount();
+            }
+        });
     }
 
+    private static void registerOverflowMetrics(final TransportMetrics metrics,
+                                                final OverflowHandler<ResolvedEvent> overflowHandler) {
+        metrics.registerCounter(TransportStats.QUEUE_OVERFLOW_REJECTED, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return overflowHandler.getRejectedEventCount();
+            }
+        });
+        metrics.registerCounter(TransportStats.QUEUE_OVERFLOW_DROPPED, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return overflowHandler.getDroppedEventCount();
+            }
+        });
+    }
+
+    private static void registerSpoolMetrics(final TransportMetrics metrics, final EventSpool spool) {
+        metrics.registerCounter(TransportStats.SPOOL_SPOOLED_EVENTS, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return spool.getSpooledEventCount();
+            }
+        });
+        metrics.registerCounter(TransportStats.SPOOL_REPLAYED_EVENTS, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return spool.getReplayedEventCount();
+            }
+        });
+        metrics.registerCounter(TransportStats.SPOOL_REJECTED_EVENTS, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return spool.getRejectedEventCount();
+            }
+        });
+        metrics.registerCounter(TransportStats.SPOOL_CORRUPT_RECORDS, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return spool.getCorruptRecordCount();
+            }
+        });
+        metrics.registerGauge(TransportStats.SPOOL_BYTES, new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return spool.getSpoolBytes();
+            }
+        });
+    }
+
+    /**
+     * Events that are estimated to be larger than the maximum event size are not offered to the batcher. Instead, a
+     * {@link io.honeycomb.libhoney.responses.ClientRejected} response is published for them, and they count as
+     * accepted by this transport.
+     * <p>
+     * Events that the batcher does not accept, because its queue is full, are appended to the spool if there is one,
+     * and count as accepted if that succeeds.
+     */
     @Override
     public boolean submit(final ResolvedEvent event) {
         event.markEnqueueTime();
-        return batcher.offerEvent(event);
+        if (sizeEstimator != null) {
+            final long estimatedSize = sizeEstimator.estimateSize(event);
+            if (estimatedSize > maxEventBytes) {
+                LOG.debug("Resolved event rejected due to its estimated size of {} bytes: {}", estimatedSize, event);
+                responseObservable.publish(EventResponseFactory.eventTooLarge(event, estimatedSize, maxEventBytes));
+                return true;
+            }
+        }
+        if (batcher.offerEvent(event)) {
+            return true;
+        }
+        return spool != null && spool.append(event);
+    }
+
+    /**
+     * @return the handler that the batcher offers events to its queue with, which counts the events affected by
+     * its {@link TransportOptions.QueueOverflowPolicy}, or null if unknown.
+     */
+    public OverflowHandler<ResolvedEvent> getOverflowHandler() {
+        return overflowHandler;
+    }
+
+    /**
+     * @return the registry of this transport's metrics, which {@link io.honeycomb.libhoney.HoneyClient} adds its own
+     * to.
+     */
+    public TransportMetrics getMetrics() {
+        return metrics;
     }
 
     @Override
@@ -54,19 +225,43 @@ public class BatchingHttpTransport implements Transport {
         return responseObservable;
     }
 
+    /**
+     * @return the name this transport is registered with the platform MBean server under, or null if it is not.
+     * @see TransportOptions#isJmxEnabled()
+     */
+    public ObjectName getMBeanName() {
+        return mbeanName;
+    }
+
     @Override
     public void close() throws Exception {
-        LOG.debug("Close called on BatchingHTTPTransport. Closing batcher.");
+        LOG.debug("Close called on BatchingHTTPTransport.");
+        if (mbeanName != null) {
+            LOG.debug("Unregistering MBean {}.", mbeanName);
+            unregisterMBean(mbeanName);
+        }
+        if (spool != null) {
+            LOG.debug("Stopping spool replay.");
+            spool.stopReplay();
+        }
+        LOG.debug("Closing batcher.");
         batcher.close();
         LOG.debug("Closing BatchConsumer.");
         consumer.close();
+        if (spool != null) {
+            LOG.debug("Closing spool.");
+            spool.close();
+        }
         LOG.debug("Closing ResponseObservers and ResponseObservable");
         responseObservable.close();
         LOG.debug("Finished close");
     }
 
     public static BatchingHttpTransport init(final TransportOptions options) {
-        return init(options, new BatchRequestSerializer());
+        if (options.getBatchEncoding() == TransportOptions.BatchEncoding.MSGPACK) {
+            return init(options, new MsgPackBatchRequestSerializer());
+        }
+        return init(options, new StreamingBatchRequestSerializer());
     }
 
     /**
@@ -80,38 +275,125 @@ public class BatchingHttpTransport implements Transport {
      * @return the transport
      */
     public static BatchingHttpTransport init(final TransportOptions options, final JsonSerializer<List<HoneycombBatchConsumer.BatchRequestElement>> batchRequestSerializer) {
+        return init(options, HoneycombBatchConsumer.toStreamingSerializer(batchRequestSerializer));
+    }
+
+    /**
+     * Construct a {@link BatchingHttpTransport} while overriding the {@link StreamingJsonSerializer} used by the
+     * transport to write batches of events into HTTP request bodies. The serializer must write the encoding set by
+     * {@link TransportOptions#getBatchEncoding()}, since that determines the content type of the requests.
+     *
+     * @param options the transport options
+     * @param batchSerializer for writing event batches
+     * @return the transport
+     * @see StreamingBatchRequestSerializer
+     */
+    // the components created here are closed along with the transport
+    @SuppressWarnings("PMD.CloseResource")
+    public static BatchingHttpTransport init(final TransportOptions options,
+                                             final StreamingJsonSerializer<List<ResolvedEvent>> batchSerializer) {
         // create various components that comprise consumer and batcher
-        final ResponseObservable responseObservable = new ResponseObservable();
-        final CloseableHttpAsyncClient httpAsyncClient = buildClient(options);
+        final ResponseObservable responseObservable = new ResponseObservable(
+            options.getResponseDispatchThreads(),
+            options.getResponseQueueCapacity(),
+            options.getResponseOverflowPolicy());
+        final PoolingNHttpClientConnectionManager connectionManager = buildConnectionManager(options);
+        final CloseableHttpAsyncClient httpAsyncClient = buildClient(options, connectionManager);
         httpAsyncClient.start();
-        final HoneycombBatchKeyStrategy batchKeyStrategy = new HoneycombBatchKeyStrategy();
+        final EventRouteBatchKeyStrategy batchKeyStrategy = new EventRouteBatchKeyStrategy();
+        final HoneycombEventSizeEstimator sizeEstimator = new HoneycombEventSizeEstimator();
         final ClockProvider systemClockProvider = SystemClockProvider.getInstance();
+        final EventSpool spool = openSpool(options);
+        final TransportMetrics metrics = new TransportMetrics(systemClockProvider);
 
         final HoneycombBatchConsumer honeycombBatchConsumer = new HoneycombBatchConsumer(
             httpAsyncClient,
             responseObservable,
-            batchRequestSerializer,
-            options.getMaxPendingBatchRequests(),
-            options.getMaximumHttpRequestShutdownWait(),
-            options.getAdditionalUserAgent());
+            batchSerializer,
+            options,
+            spool,
+            metrics);
+        final BatchConsumer<ResolvedEvent> consumer = (options.getSerializerThreads() > 0)
+            ? new PipelinedBatchConsumer<>(
+                honeycombBatchConsumer, options.getSerializerThreads(), options.getSerializerQueueCapacity())
+            : honeycombBatchConsumer;
+
+        final OverflowHandler<ResolvedEvent> overflowHandler =
+            BatcherFactory.createOverflowHandler(options, responseObservable);
+        final List<DefaultBatcher<ResolvedEvent, ?>> shards = BatcherFactory.buildShards(
+            options, batchKeyStrategy, sizeEstimator, consumer, systemClockProvider, overflowHandler, metrics);
+        final Batcher<ResolvedEvent> batcher = (shards.size() == 1)
+            ? shards.get(0)
+            : new ShardedBatcher<>(batchKeyStrategy, new ArrayList<Batcher<ResolvedEvent>>(shards));
+
+        // replayed events are kept on disk until accepted, and retried events were accepted once already, so neither
+        // must be subject to the overflow policy
+        final List<Batcher<ResolvedEvent>> directShards = new ArrayList<>(shards.size());
+        for (final DefaultBatcher<ResolvedEvent, ?> shard : shards) {
+            directShards.add(shard.withoutOverflowHandling());
+        }
+        final Batcher<ResolvedEvent> directBatcher = (directShards.size() == 1)
+            ? directShards.get(0)
+            : new ShardedBatcher<>(batchKeyStrategy, directShards);
+        honeycombBatchConsumer.retryThrough(directBatcher);
+        if (spool != null) {
+            spool.startReplay(directBatcher);
+        }
+
+        final BatchingHttpTransport transport = new BatchingHttpTransport(batcher, consumer, responseObservable,
+            sizeEstimator, options.getMaxEventBytes(), spool, overflowHandler, metrics);
+        if (options.isJmxEnabled()) {
+            transport.mbeanName = registerMBean(
+                new BatchingTransportManagement(honeycombBatchConsumer, shards, connectionManager));
+        }
+        return transport;
+    }
+
+    //Nullable, if the MBean cannot be registered
+    private static ObjectName registerMBean(final BatchingTransportMXBean mbean) {
+        try {
+            final ObjectName name = new ObjectName(MBEAN_NAME_PREFIX + MBEAN_SEQUENCE.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, name);
+            return name;
+        } catch (final JMException ex) {
+            // the transport works just the same without it, which is no reason to fail the application
+            LOG.warn("Failed to register the transport's MBean. It cannot be managed via JMX.", ex);
+            return null;
+        }
+    }
 
-        final Batcher<ResolvedEvent> batcher = new DefaultBatcher<>(
-            batchKeyStrategy,
-            honeycombBatchConsumer,
-            systemClockProvider,
-            new ArrayBlockingQueue<ResolvedEvent>(options.getQueueCapacity()),
-            options.getBatchSize(),
-            options.getBatchTimeoutMillis());
+    private static void unregisterMBean(final ObjectName name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (final JMException ex) {
+            LOG.warn("Failed to unregister the transport's MBean {}.", name, ex);
+        }
+    }
 
-        return new BatchingHttpTransport(batcher, honeycombBatchConsumer, responseObservable);
+    //Nullable, if spooling is disabled or the spool cannot be opened
+    private static EventSpool openSpool(final TransportOptions options) {
+        if (options.getSpoolDirectory() == null) {
+            return null;
+        }
+        try {
+            return new EventSpool(options);
+        } catch (final IOException ex) {
+            // events are still sent, they just cannot be kept on disk, which is no reason to fail the application
+            LOG.error("Failed to open the spool in {}. Events are sent without a spool.",
+                options.getSpoolDirectory(), ex);
+            return null;
+        }
     }
 
     public static CloseableHttpAsyncClient buildClient(final TransportOptions options) {
+        return buildClient(options, buildConnectionManager(options));
+    }
+
+    private static CloseableHttpAsyncClient buildClient(final TransportOptions options,
+                                                        final PoolingNHttpClientConnectionManager connectionManager) {
         return HttpAsyncClients.custom()
-            .setMaxConnTotal(options.getMaxConnections())
-            .setMaxConnPerRoute(options.getMaxHttpConnectionsPerApiHost())
+            .setConnectionManager(connectionManager)
             .setConnectionManagerShared(false)
-            .setSSLContext(options.getSSLContext())
             .setDefaultRequestConfig(
                 RequestConfig.custom()
                     .setProxy(options.getProxy())
@@ -120,16 +402,40 @@ public class BatchingHttpTransport implements Transport {
                     .setSocketTimeout(options.getSocketTimeout())
                     .build()
             )
-            .setDefaultIOReactorConfig(IOReactorConfig.custom()
-                .setIoThreadCount(options.getIoThreadCount())
-                .build())
-            .setDefaultConnectionConfig(
-                ConnectionConfig.custom()
-                    .setBufferSize(options.getBufferSize())
-                    .build()
-            )
             .setDefaultCredentialsProvider(options.getCredentialsProvider())
             .build();
     }
 
+    /**
+     * The connection manager is built here rather than by the client builder, so that the transport can expose the
+     * statistics of its pool. It is configured the same way the client builder would configure it.
+     */
+    private static PoolingNHttpClientConnectionManager buildConnectionManager(final TransportOptions options) {
+        final DefaultConnectingIOReactor ioReactor;
+        try {
+            ioReactor = new DefaultConnectingIOReactor(IOReactorConfig.custom()
+                .setIoThreadCount(options.getIoThreadCount())
+                .build());
+        } catch (final IOReactorException ex) {
+            throw new IllegalStateException("Failed to create the I/O reactor of the HTTP client", ex);
+        }
+        final SSLContext sslContext = (options.getSSLContext() == null)
+            ? SSLContexts.createDefault()
+            : options.getSSLContext();
+        final PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+            ioReactor,
+            RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", new SSLIOSessionStrategy(
+                    sslContext, SSLIOSessionStrategy.getDefaultHostnameVerifier()))
+                .build());
+        connectionManager.setMaxTotal(options.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(options.getMaxHttpConnectionsPerApiHost());
+        connectionManager.setDefaultConnectionConfig(
+            ConnectionConfig.custom()
+                .setBufferSize(options.getBufferSize())
+                .build());
+        return connectionManager;
+    }
+
 }
@@ -0,0 +1,90 @@
+package io.honeycomb.libhoney.transport.impl;
+
+/**
+ * The management interface of a {@link BatchingHttpTransport}, which is registered with the platform MBean server if
+ * {@link io.honeycomb.libhoney.TransportOptions#isJmxEnabled()} is set. It exposes the live state of the transport's
+ * queues, batches, requests and connections, and allows the batch timeout and the maximum of pending batch requests
+ * to be tuned without restarting the application.
+ * <p>
+ * Values that are summed over the batcher shards are read one shard after the other, so they may be slightly
+ * inconsistent while events are being sent.
+ */
+public interface BatchingTransportMXBean {
+    /**
+     * @return the number of events waiting in the queue to be batched, summed over all batcher shards.
+     */
+    int getQueueDepth();
+
+    /**
+     * @return the capacity of the queue, summed over all batcher shards.
+     */
+    int getQueueCapacity();
+
+    /**
+     * @return the number of batch keys that batches are currently kept for, summed over all batcher shards.
+     */
+    int getActiveBatches();
+
+    /**
+     * @return the number of batcher shards.
+     */
+    int getBatcherShards();
+
+    /**
+     * @return the maximum time an event waits in a batch.
+     */
+    long getBatchTimeoutMillis();
+
+    /**
+     * Changes the batch timeout of all batcher shards. Batches that are already waiting keep the time they were
+     * scheduled to be sent at under the previous timeout.
+     *
+     * @param batchTimeoutMillis 1 or greater.
+     */
+    void setBatchTimeoutMillis(long batchTimeoutMillis);
+
+    /**
+     * @return the number of batch requests that have been sent, but have not completed yet.
+     */
+    long getInFlightRequests();
+
+    /**
+     * @return the number of further batch requests that may be sent before the concurrency limit is reached, or -1
+     * if there is no limit.
+     */
+    int getAvailablePermits();
+
+    /**
+     * @return the maximum of batch requests pending completion, or -1 if there is no limit.
+     */
+    int getMaxPendingRequests();
+
+    /**
+     * Changes the maximum of batch requests pending completion. Requests that are already pending are not affected
+     * by a lower maximum.
+     *
+     * @param maxPendingRequests 1 or greater.
+     * @throws IllegalStateException if the maximum was configured as unlimited.
+     */
+    void setMaxPendingRequests(int maxPendingRequests);
+
+    /**
+     * @return the number of connections currently leased for requests.
+     */
+    int getLeasedConnections();
+
+    /**
+     * @return the number of requests waiting for a connection.
+     */
+    int getPendingConnections();
+
+    /**
+     * @return the number of idle connections kept alive in the pool.
+     */
+    int getAvailableConnections();
+
+    /**
+     * @return the maximum number of connections of the pool.
+     */
+    int getMaxConnections();
+}
@@ -0,0 +1,121 @@
+package io.honeycomb.libhoney.transport.impl;
+
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.batch.impl.DefaultBatcher;
+import io.honeycomb.libhoney.transport.batch.impl.HoneycombBatchConsumer;
+import org.apache.http.pool.ConnPoolControl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implements the {@link BatchingTransportMXBean} by reading from and writing to the components of a
+ * {@link BatchingHttpTransport}, which keep the state it exposes anyway.
+ * <p>
+ * Threadsafe, as long as the components are.
+ */
+// the batchers are closed by the transport, not by its management interface
+@SuppressWarnings("PMD.CloseResource")
+final class BatchingTransportManagement implements BatchingTransportMXBean {
+    private final HoneycombBatchConsumer consumer;
+    private final List<DefaultBatcher<ResolvedEvent, ?>> batchers;
+    private final ConnPoolControl<?> connectionPool;
+
+    /**
+     * @param consumer       that sends the batch requests.
+     * @param batchers       the batcher shards, of which there must be at least one.
+     * @param connectionPool of the HTTP client.
+     */
+    BatchingTransportManagement(final HoneycombBatchConsumer consumer,
+                                final List<DefaultBatcher<ResolvedEvent, ?>> batchers,
+                                final ConnPoolControl<?> connectionPool) {
+        this.consumer = consumer;
+        this.batchers = new ArrayList<>(batchers);
+        this.connectionPool = connectionPool;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        int depth = 0;
+        for (final DefaultBatcher<ResolvedEvent, ?> batcher : batchers) {
+            depth += batcher.getQueueDepth();
+        }
+        return depth;
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        int capacity = 0;
+        for (final DefaultBatcher<ResolvedEvent, ?> batcher : batchers) {
+            capacity += batcher.getQueueCapacity();
+        }
+        return capacity;
+    }
+
+    @Override
+    public int getActiveBatches() {
+        int activeBatches = 0;
+        for (final DefaultBatcher<ResolvedEvent, ?> batcher : batchers) {
+            activeBatches += batcher.getCurrentlyActiveBatches();
+        }
+        return activeBatches;
+    }
+
+    @Override
+    public int getBatcherShards() {
+        return batchers.size();
+    }
+
+    @Override
+    public long getBatchTimeoutMillis() {
+        // all shards are given the same timeout
+        return batchers.get(0).getBatchTimeoutMillis();
+    }
+
+    @Override
+    public void setBatchTimeoutMillis(final long batchTimeoutMillis) {
+        for (final DefaultBatcher<ResolvedEvent, ?> batcher : batchers) {
+            batcher.setBatchTimeoutMillis(batchTimeoutMillis);
+        }
+    }
+
+    @Override
+    public long getInFlightRequests() {
+        return consumer.getInFlightRequestCount();
+    }
+
+    @Override
+    public int getAvailablePermits() {
+        return consumer.getAvailablePermits();
+    }
+
+    @Override
+    public int getMaxPendingRequests() {
+        return consumer.getMaxPendingRequests();
+    }
+
+    @Override
+    public void setMaxPendingRequests(final int maxPendingRequests) {
+        consumer.setMaxPendingRequests(maxPendingRequests);
+    }
+
+    @Override
+    public int getLeasedConnections() {
+        return connectionPool.getTotalStats().getLeased();
+    }
+
+    @Override
+    public int getPendingConnections() {
+        return connectionPool.getTotalStats().getPending();
+    }
+
+    @Override
+    public int getAvailableConnections() {
+        return connectionPool.getTotalStats().getAvailable();
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return connectionPool.getMaxTotal();
+    }
+}
@@ -0,0 +1,189 @@
+package io.honeycomb.libhoney.transport.json;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.honeycomb.libhoney.eventdata.LayeredFieldMap;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.eventdata.SharedFieldMap;
+import io.honeycomb.libhoney.utils.JsonUtils;
+import io.honeycomb.libhoney.utils.RFC3339TimestampFormatter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A serializer that writes a batch of {@link ResolvedEvent}s in the Honeycomb API's batch request format directly
+ * onto a stream, using Jackson's {@link JsonGenerator}.
+ * <p>
+ * The output is equivalent to transforming the batch into
+ * {@link io.honeycomb.libhoney.transport.batch.impl.HoneycombBatchConsumer.BatchRequestElement}s and passing them
+ * to {@link BatchRequestSerializer}, but skips the intermediate objects. Field values of the common scalar types
+ * are written by the generator itself, anything else is delegated to {@link JsonUtils#OBJECT_MAPPER}.
+ * As with {@link BatchRequestSerializer}, fields with null values are omitted.
+ * <p>
+ * Fields that events share through a {@link SharedFieldMap}, such as those of an
+ * {@link io.honeycomb.libhoney.EventFactory}, are encoded only once and then copied into every event as they are,
+ * provided that their values are immutable, see {@link SharedFieldMap#isEncodingCached()}.
+ * Only the fields that an event adds or replaces, e.g. its own fields, dynamic fields, or changes made by an
+ * {@link io.honeycomb.libhoney.EventPostProcessor}, are encoded per event.
+ */
+public class StreamingBatchRequestSerializer implements StreamingJsonSerializer<List<ResolvedEvent>> {
+    private static final String TIME_FIELD = "time";
+    private static final String SAMPLE_RATE_FIELD = "samplerate";
+    private static final String DATA_FIELD = "data";
+    private static final FragmentEncoding FRAGMENTS = new FragmentEncoding();
+
+    @Override
+    public void serialize(final List<ResolvedEvent> data, final OutputStream outputStream) throws IOException {
+        final char[] timestamp = new char[RFC3339TimestampFormatter.FORMATTED_LENGTH];
+        try (JsonGenerator generator = JsonUtils.OBJECT_MAPPER.getFactory()
+            .createGenerator(outputStream, JsonEncoding.UTF8)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.writeStartArray();
+            for (final ResolvedEvent event : data) {
+                generator.writeStartObject();
+                if (event.getTimestamp() != null) {
+                    final int length = RFC3339TimestampFormatter.format(event.getTimestamp(), timestamp, 0);
+                    generator.writeFieldName(TIME_FIELD);
+                    generator.writeString(timestamp, 0, length);
+                }
+                generator.writeNumberField(SAMPLE_RATE_FIELD, event.getSampleRate());
+                generator.writeFieldName(DATA_FIELD);
+                writeFields(generator, event.getFields());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private static void writeFields(final JsonGenerator generator, final Map<String, Object> fields)
+        throws IOException {
+        generator.writeStartObject();
+        if (hasCachedBase(fields)) {
+            final LayeredFieldMap layeredFields = (LayeredFieldMap) fields;
+            final boolean written = writeEntries(generator, layeredFields.getOverlayEntries());
+            final Fragments fragments = ((SharedFieldMap) layeredFields.getBase()).getEncoded(FRAGMENTS);
+            if (layeredFields.isAnyBaseEntryOverlaid()) {
+                writeFragments(generator, fragments, layeredFields, written);
+            } else if (!fragments.all.isEmpty()) {
+                if (written) {
+                    generator.writeRaw(',');
+                }
+                generator.writeRaw(fragments.all);
+            }
+        } else {
+            writeEntries(generator, fields.entrySet());
+        }
+        generator.writeEndObject();
+    }
+
+    private static boolean hasCachedBase(final Map<String, Object> fields) {
+        if (!(fields instanceof LayeredFieldMap)) {
+            return false;
+        }
+        final Map<String, Object> base = ((LayeredFieldMap) fields).getBase();
+        return base instanceof SharedFieldMap && ((SharedFieldMap) base).isEncodingCached();
+    }
+
+    private static boolean writeEntries(final JsonGenerator generator,
+                                        final Iterable<Map.Entry<String, Object>> entries) throws IOException {
+        boolean written = false;
+        for (final Map.Entry<String, Object> field : entries) {
+            final Object value = field.getValue();
+            if (value != null) {
+                generator.writeFieldName(field.getKey());
+                writeValue(generator, value);
+                written = true;
+            }
+        }
+        return written;
+    }
+
+    /*
+     * Raw output bypasses the generator's tracking of the object's entries, so the fragments are written last and
+     * separated by hand.
+     */
+    private static void writeFragments(final JsonGenerator generator,
+                                       final Fragments fragments,
+                                       final LayeredFieldMap fields,
+                                       final boolean written) throws IOException {
+        boolean separate = written;
+        for (final Map.Entry<String, String> fragment : fragments.byKey.entrySet()) {
+            if (!fields.isOverlaid(fragment.getKey())) {
+                if (separate) {
+                    generator.writeRaw(',');
+                }
+                generator.writeRaw(fragment.getValue());
+                separate = true;
+            }
+        }
+    }
+
+    /**
+     * Writes scalar values without going through the ObjectMapper, which would otherwise create a serializer
+     * provider per value.
+     */
+    static void writeValue(final JsonGenerator generator, final Object value) throws IOException {
+        if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Integer) {
+            generator.writeNumber((Integer) value);
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Double) {
+            generator.writeNumber((Double) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            generator.writeObject(value);
+        }
+    }
+
+    /*
+     * The encoded members of a shared field map, each as {@code "key":value}, so they can be spliced into the "data"
+     * object of every event layered over it.
+     */
+    private static final class Fragments {
+        private final Map<String, String> byKey;
+        private final String all;
+
+        private Fragments(final Map<String, String> byKey) {
+            this.byKey = byKey;
+            final StringBuilder builder = new StringBuilder();
+            for (final String fragment : byKey.values()) {
+                if (builder.length() > 0) {
+                    builder.append(',');
+                }
+                builder.append(fragment);
+            }
+            this.all = builder.toString();
+        }
+    }
+
+    private static final class FragmentEncoding implements SharedFieldMap.Encoding<Fragments> {
+        @Override
+        public Fragments encode(final Map<String, Object> fields) throws IOException {
+            final Map<String, String> byKey = new LinkedHashMap<>();
+            final JsonFactory factory = JsonUtils.OBJECT_MAPPER.getFactory();
+            for (final Map.Entry<String, Object> field : fields.entrySet()) {
+                if (field.getValue() != null) {
+                    final StringWriter writer = new StringWriter();
+                    try (JsonGenerator generator = factory.createGenerator(writer)) {
+                        generator.writeStartObject();
+                        generator.writeFieldName(field.getKey());
+                        writeValue(generator, field.getValue());
+                        generator.writeEndObject();
+                    }
+                    final StringBuffer object = writer.getBuffer();
+                    byKey.put(field.getKey(), object.substring(1, object.length() - 1));
+                }
+            }
+            return new Fragments(byKey);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package io.honeycomb.libhoney.transport.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Streaming counterpart to {@link JsonSerializer}, which writes the JSON straight onto a stream rather than
+ * materializing it as a {@code byte} array. This allows the caller to control the buffer the JSON ends up in.
+ *
+ * @param <T> the type to serialize.
+ */
+public interface StreamingJsonSerializer<T> {
+    /**
+     * Serialize a 'T' as JSON encoded in UTF-8 onto the provided stream.
+     * Implementations must not close the stream.
+     *
+     * @param data         to serialise to json - must not be null.
+     * @param outputStream to write the JSON to.
+     * @throws IOException if any error occurs during serialization
+     */
+    void serialize(T data, OutputStream outputStream) throws IOException;
+}
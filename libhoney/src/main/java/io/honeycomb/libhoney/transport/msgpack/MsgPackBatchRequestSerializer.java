@@ -0,0 +1,244 @@
+package io.honeycomb.libhoney.transport.msgpack;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.honeycomb.libhoney.eventdata.LayeredFieldMap;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.eventdata.SharedFieldMap;
+import io.honeycomb.libhoney.transport.json.StreamingJsonSerializer;
+import io.honeycomb.libhoney.utils.JsonUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A serializer that writes a batch of {@link ResolvedEvent}s in the Honeycomb API's batch request format, encoded as
+ * MessagePack rather than JSON. Bodies written by this serializer must be sent with the
+ * {@code application/msgpack} content type.
+ * <p>
+ * The structure is the same as that of {@link io.honeycomb.libhoney.transport.json.StreamingBatchRequestSerializer},
+ * except that the event time is written as a MessagePack timestamp. Strings, numbers, booleans, maps, collections
+ * and arrays are encoded directly; any other field value is first converted by {@link JsonUtils#OBJECT_MAPPER}, so
+ * that it has the same structure as in the JSON encoding. As with the JSON encoding, fields with null values are
+ * omitted. Fields that events share through a {@link SharedFieldMap} are encoded only once if their values are
+ * immutable, as with the JSON encoding.
+ */
+// GodClass: the encoding of every supported type of field value is kept together, just as in the JSON encoding
+@SuppressWarnings("PMD.GodClass")
+public class MsgPackBatchRequestSerializer implements StreamingJsonSerializer<List<ResolvedEvent>> {
+    private static final String TIME_FIELD = "time";
+    private static final String SAMPLE_RATE_FIELD = "samplerate";
+    private static final String DATA_FIELD = "data";
+    private static final FragmentEncoding FRAGMENTS = new FragmentEncoding();
+
+    @Override
+    public void serialize(final List<ResolvedEvent> data, final OutputStream outputStream) throws IOException {
+        final MsgPackWriter writer = new MsgPackWriter(outputStream);
+        writer.writeArrayHeader(data.size());
+        for (final ResolvedEvent event : data) {
+            final boolean hasTimestamp = event.getTimestamp() != null;
+            writer.writeMapHeader(hasTimestamp ? 3 : 2);
+            if (hasTimestamp) {
+                writer.writeString(TIME_FIELD);
+                writer.writeTimestamp(event.getTimestamp());
+            }
+            writer.writeString(SAMPLE_RATE_FIELD);
+            writer.writeLong(event.getSampleRate());
+            writer.writeString(DATA_FIELD);
+            writeFields(writer, event.getFields());
+        }
+        writer.flush();
+    }
+
+    private static void writeFields(final MsgPackWriter writer, final Map<String, Object> fields) throws IOException {
+        if (hasCachedBase(fields)) {
+            writeLayeredFields(writer, (LayeredFieldMap) fields);
+            return;
+        }
+        writer.writeMapHeader(countNonNull(fields.values()));
+        writeEntries(writer, fields.entrySet());
+    }
+
+    private static boolean hasCachedBase(final Map<String, Object> fields) {
+        if (!(fields instanceof LayeredFieldMap)) {
+            return false;
+        }
+        final Map<String, Object> base = ((LayeredFieldMap) fields).getBase();
+        return base instanceof SharedFieldMap && ((SharedFieldMap) base).isEncodingCached();
+    }
+
+    private static void writeLayeredFields(final MsgPackWriter writer, final LayeredFieldMap fields)
+        throws IOException {
+        final Fragments fragments = ((SharedFieldMap) fields.getBase()).getEncoded(FRAGMENTS);
+        final boolean anyBaseEntryOverlaid = fields.isAnyBaseEntryOverlaid();
+        writer.writeMapHeader(countNonNull(fields, fragments, anyBaseEntryOverlaid));
+        writeEntries(writer, fields.getOverlayEntries());
+        if (anyBaseEntryOverlaid) {
+            for (final Map.Entry<String, byte[]> fragment : fragments.byKey.entrySet()) {
+                if (!fields.isOverlaid(fragment.getKey())) {
+                    writer.writeRaw(fragment.getValue());
+                }
+            }
+        } else {
+            writer.writeRaw(fragments.all);
+        }
+    }
+
+    private static int countNonNull(final LayeredFieldMap fields,
+                                    final Fragments fragments,
+                                    final boolean anyBaseEntryOverlaid) {
+        int nonNullFields = 0;
+        for (final Map.Entry<String, Object> field : fields.getOverlayEntries()) {
+            if (field.getValue() != null) {
+                nonNullFields++;
+            }
+        }
+        if (!anyBaseEntryOverlaid) {
+            return nonNullFields + fragments.byKey.size();
+        }
+        for (final String key : fragments.byKey.keySet()) {
+            if (!fields.isOverlaid(key)) {
+                nonNullFields++;
+            }
+        }
+        return nonNullFields;
+    }
+
+    private static int countNonNull(final Collection<Object> values) {
+        int nonNull = 0;
+        for (final Object value : values) {
+            if (value != null) {
+                nonNull++;
+            }
+        }
+        return nonNull;
+    }
+
+    private static void writeEntries(final MsgPackWriter writer, final Iterable<Map.Entry<String, Object>> entries)
+        throws IOException {
+        for (final Map.Entry<String, Object> field : entries) {
+            final Object value = field.getValue();
+            if (value != null) {
+                writer.writeString(field.getKey());
+                writeValue(writer, value);
+            }
+        }
+    }
+
+    @SuppressWarnings("PMD.CyclomaticComplexity") // a flat dispatch on the value's type
+    private static void writeValue(final MsgPackWriter writer, final Object value) throws IOException {
+        if (value == null) {
+            writer.writeNil();
+        } else if (value instanceof String) {
+            writer.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Long
+            || value instanceof Short || value instanceof Byte) {
+            writer.writeLong(((Number) value).longValue());
+        } else if (value instanceof Double) {
+            writer.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            writer.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            writer.writeBoolean((Boolean) value);
+        } else if (value instanceof Map) {
+            writeMap(writer, (Map<?, ?>) value);
+        } else if (value instanceof Collection) {
+            writeArray(writer, (Collection<?>) value);
+        } else if (value instanceof Object[]) {
+            writeArray(writer, Arrays.asList((Object[]) value));
+        } else {
+            writeNode(writer, JsonUtils.OBJECT_MAPPER.<JsonNode>valueToTree(value));
+        }
+    }
+
+    private static void writeMap(final MsgPackWriter writer, final Map<?, ?> map) throws IOException {
+        writer.writeMapHeader(map.size());
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            writer.writeString(String.valueOf(entry.getKey()));
+            writeValue(writer, entry.getValue());
+        }
+    }
+
+    private static void writeArray(final MsgPackWriter writer, final Collection<?> elements) throws IOException {
+        writer.writeArrayHeader(elements.size());
+        for (final Object element : elements) {
+            writeValue(writer, element);
+        }
+    }
+
+    @SuppressWarnings("PMD.CyclomaticComplexity") // a flat dispatch on the node's type
+    private static void writeNode(final MsgPackWriter writer, final JsonNode node) throws IOException {
+        if (node.isNull() || node.isMissingNode()) {
+            writer.writeNil();
+        } else if (node.isBoolean()) {
+            writer.writeBoolean(node.booleanValue());
+        } else if (node.isIntegralNumber() && node.canConvertToLong()) {
+            writer.writeLong(node.longValue());
+        } else if (node.isNumber()) {
+            writer.writeDouble(node.doubleValue());
+        } else if (node.isArray()) {
+            writeArrayNode(writer, node);
+        } else if (node.isObject()) {
+            writeObjectNode(writer, node);
+        } else {
+            writer.writeString(node.asText());
+        }
+    }
+
+    private static void writeArrayNode(final MsgPackWriter writer, final JsonNode node) throws IOException {
+        writer.writeArrayHeader(node.size());
+        for (final JsonNode element : node) {
+            writeNode(writer, element);
+        }
+    }
+
+    private static void writeObjectNode(final MsgPackWriter writer, final JsonNode node) throws IOException {
+        writer.writeMapHeader(node.size());
+        final Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            final Map.Entry<String, JsonNode> field = fields.next();
+            writer.writeString(field.getKey());
+            writeNode(writer, field.getValue());
+        }
+    }
+
+    /*
+     * The encoded entries of a shared field map, each as a key string followed by its value, so they can be spliced
+     * into the "data" map of every event layered over it.
+     */
+    private static final class Fragments {
+        private final Map<String, byte[]> byKey;
+        private final byte[] all;
+
+        private Fragments(final Map<String, byte[]> byKey, final byte[] all) {
+            this.byKey = byKey;
+            this.all = all;
+        }
+    }
+
+    private static final class FragmentEncoding implements SharedFieldMap.Encoding<Fragments> {
+        @Override
+        public Fragments encode(final Map<String, Object> fields) throws IOException {
+            final Map<String, byte[]> byKey = new LinkedHashMap<>();
+            final ByteArrayOutputStream all = new ByteArrayOutputStream();
+            for (final Map.Entry<String, Object> field : fields.entrySet()) {
+                if (field.getValue() != null) {
+                    final ByteArrayOutputStream fragment = new ByteArrayOutputStream();
+                    final MsgPackWriter writer = new MsgPackWriter(fragment);
+                    writer.writeString(field.getKey());
+                    writeValue(writer, field.getValue());
+                    writer.flush();
+                    byKey.put(field.getKey(), fragment.toByteArray());
+                    fragment.writeTo(all);
+                }
+            }
+            return new Fragments(byKey, all.toByteArray());
+        }
+    }
+}
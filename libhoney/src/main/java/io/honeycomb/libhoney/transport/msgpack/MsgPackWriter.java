@@ -0,0 +1,316 @@
+package io.honeycomb.libhoney.transport.msgpack;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A minimal, buffering writer of the <a href="https://github.com/msgpack/msgpack/blob/master/spec.md">MessagePack</a>
+ * format, covering the types needed to encode event batches: nil, booleans, integers, floating point numbers, strings,
+ * arrays, maps, and the timestamp extension type.
+ * <p>
+ * Every value is written in its most compact representation. Output is buffered internally, so {@link #flush()} must
+ * be called once done; the underlying stream is never closed by this writer.
+ * <p>
+ * Not threadsafe.
+ */
+public class MsgPackWriter {
+    private static final int BUFFER_SIZE = 8 * 1024;
+    // the longest single encoding written without checking for space in between, i.e. a type byte plus 8 bytes
+    private static final int MAX_HEADER_LENGTH = 16;
+
+    private static final int NIL = 0xc0;
+    private static final int FALSE = 0xc2;
+    private static final int TRUE = 0xc3;
+    private static final int FLOAT32 = 0xca;
+    private static final int FLOAT64 = 0xcb;
+    private static final int UINT8 = 0xcc;
+    private static final int UINT16 = 0xcd;
+    private static final int UINT32 = 0xce;
+    private static final int UINT64 = 0xcf;
+    private static final int INT8 = 0xd0;
+    private static final int INT16 = 0xd1;
+    private static final int INT32 = 0xd2;
+    private static final int INT64 = 0xd3;
+    private static final int FIXEXT4 = 0xd6;
+    private static final int FIXEXT8 = 0xd7;
+    private static final int EXT8 = 0xc7;
+    private static final int STR8 = 0xd9;
+    private static final int STR16 = 0xda;
+    private static final int STR32 = 0xdb;
+    private static final int ARRAY16 = 0xdc;
+    private static final int ARRAY32 = 0xdd;
+    private static final int MAP16 = 0xde;
+    private static final int MAP32 = 0xdf;
+    private static final int FIXSTR_PREFIX = 0xa0;
+    private static final int FIXARRAY_PREFIX = 0x90;
+    private static final int FIXMAP_PREFIX = 0x80;
+    private static final int TIMESTAMP_TYPE = -1;
+    // the first characters that take two and three bytes to encode in UTF-8
+    private static final int UTF8_TWO_BYTES = 0x80;
+    private static final int UTF8_THREE_BYTES = 0x800;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long MAX_TIMESTAMP32_SECONDS = 0xffffffffL;
+    private static final long MAX_TIMESTAMP64_SECONDS = 0x3ffffffffL;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    public MsgPackWriter(final OutputStream out) {
+        this.out = out;
+    }
+
+    public void writeNil() throws IOException {
+        ensureSpace(1);
+        buffer[position++] = (byte) NIL;
+    }
+
+    public void writeBoolean(final boolean value) throws IOException {
+        ensureSpace(1);
+        buffer[position++] = (byte) (value ? TRUE : FALSE);
+    }
+
+    public void writeLong(final long value) throws IOException {
+        ensureSpace(MAX_HEADER_LENGTH);
+        if (value >= 0) {
+            putUnsigned(value);
+        } else {
+            putNegative(value);
+        }
+    }
+
+    private void putUnsigned(final long value) {
+        if (value < (1 << 7)) {
+            buffer[position++] = (byte) value; // positive fixint
+        } else if (value < (1 << 8)) {
+            putByte(UINT8, (int) value);
+        } else if (value < (1 << 16)) {
+            putShort(UINT16, (int) value);
+        } else if (value < (1L << 32)) {
+            putInt(UINT32, (int) value);
+        } else {
+            putLong(UINT64, value);
+        }
+    }
+
+    private void putNegative(final long value) {
+        if (value >= -(1 << 5)) {
+            buffer[position++] = (byte) value; // negative fixint
+        } else if (value >= Byte.MIN_VALUE) {
+            putByte(INT8, (int) value);
+        } else if (value >= Short.MIN_VALUE) {
+            putShort(INT16, (int) value);
+        } else if (value >= Integer.MIN_VALUE) {
+            putInt(INT32, (int) value);
+        } else {
+            putLong(INT64, value);
+        }
+    }
+
+    public void writeFloat(final float value) throws IOException {
+        ensureSpace(MAX_HEADER_LENGTH);
+        putInt(FLOAT32, Float.floatToIntBits(value));
+    }
+
+    public void writeDouble(final double value) throws IOException {
+        ensureSpace(MAX_HEADER_LENGTH);
+        putLong(FLOAT64, Double.doubleToLongBits(value));
+    }
+
+    public void writeArrayHeader(final int size) throws IOException {
+        ensureSpace(MAX_HEADER_LENGTH);
+        if (size < (1 << 4)) {
+            buffer[position++] = (byte) (FIXARRAY_PREFIX | size);
+        } else if (size < (1 << 16)) {
+            putShort(ARRAY16, size);
+        } else {
+            putInt(ARRAY32, size);
+        }
+    }
+
+    public void writeMapHeader(final int size) throws IOException {
+        ensureSpace(MAX_HEADER_LENGTH);
+        if (size < (1 << 4)) {
+            buffer[position++] = (byte) (FIXMAP_PREFIX | size);
+        } else if (size < (1 << 16)) {
+            putShort(MAP16, size);
+        } else {
+            putInt(MAP32, size);
+        }
+    }
+
+    /**
+     * Writes the string UTF-8 encoded, with unpaired surrogates replaced by '?' - as {@link String#getBytes} does.
+     *
+     * @param value to write.
+     * @throws IOException if writing to the underlying stream fails.
+     */
+    public void writeString(final String value) throws IOException {
+        final int length = value.length();
+        final int byteLength = utf8Length(value, length);
+        ensureSpace(MAX_HEADER_LENGTH);
+        if (byteLength < (1 << 5)) {
+            buffer[position++] = (byte) (FIXSTR_PREFIX | byteLength);
+        } else if (byteLength < (1 << 8)) {
+            putByte(STR8, byteLength);
+        } else if (byteLength < (1 << 16)) {
+            putShort(STR16, byteLength);
+        } else {
+            putInt(STR32, byteLength);
+        }
+        int index = 0;
+        while (index < length) {
+            ensureSpace(4);
+            final char character = value.charAt(index);
+            if (character < UTF8_TWO_BYTES) {
+                buffer[position++] = (byte) character;
+            } else if (character < UTF8_THREE_BYTES) {
+                buffer[position++] = (byte) (0xc0 | (character >> 6));
+                buffer[position++] = (byte) (0x80 | (character & 0x3f));
+            } else if (isSurrogatePair(value, index, length)) {
+                index++;
+                final int codePoint = Character.toCodePoint(character, value.charAt(index));
+                buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(character)) {
+                buffer[position++] = (byte) '?';
+            } else {
+                buffer[position++] = (byte) (0xe0 | (character >> 12));
+                buffer[position++] = (byte) (0x80 | ((character >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (character & 0x3f));
+            }
+            index++;
+        }
+    }
+
+    private static int utf8Length(final String value, final int length) {
+        int byteLength = 0;
+        int index = 0;
+        while (index < length) {
+            final char character = value.charAt(index);
+            if (character < UTF8_TWO_BYTES) {
+                byteLength += 1;
+            } else if (character < UTF8_THREE_BYTES) {
+                byteLength += 2;
+            } else if (isSurrogatePair(value, index, length)) {
+                byteLength += 4;
+                index++;
+            } else if (Character.isSurrogate(character)) {
+                byteLength += 1;
+            } else {
+                byteLength += 3;
+            }
+            index++;
+        }
+        return byteLength;
+    }
+
+    private static boolean isSurrogatePair(final String value, final int index, final int length) {
+        return Character.isHighSurrogate(value.charAt(index))
+            && (index + 1 < length)
+            && Character.isLowSurrogate(value.charAt(index + 1));
+    }
+
+    /**
+     * Writes the timestamp extension type, in the smallest of its 32, 64 and 96 bit formats that can hold the value.
+     *
+     * @param epochMillis milliseconds since the epoch.
+     * @throws IOException if writing to the underlying stream fails.
+     */
+    public void writeTimestamp(final long epochMillis) throws IOException {
+        final long seconds = floorDiv(epochMillis, 1000L);
+        final long nanos = (epochMillis - seconds * 1000L) * (NANOS_PER_SECOND / 1000L);
+        ensureSpace(MAX_HEADER_LENGTH);
+        if (seconds >= 0 && seconds <= MAX_TIMESTAMP64_SECONDS) {
+            if (nanos == 0 && seconds <= MAX_TIMESTAMP32_SECONDS) {
+                putByte(FIXEXT4, TIMESTAMP_TYPE);
+                putRawInt((int) seconds);
+            } else {
+                putByte(FIXEXT8, TIMESTAMP_TYPE);
+                putRawLong((nanos << 34) | seconds);
+            }
+        } else {
+            putByte(EXT8, 12);
+            buffer[position++] = (byte) TIMESTAMP_TYPE;
+            putRawInt((int) nanos);
+            putRawLong(seconds);
+        }
+    }
+
+    /**
+     * Writes bytes that are already MessagePack encoded, e.g. ones previously written by another writer.
+     *
+     * @param encoded to write as they are.
+     * @throws IOException if writing to the underlying stream fails.
+     */
+    public void writeRaw(final byte[] encoded) throws IOException {
+        if (encoded.length > buffer.length - position) {
+            flush();
+            if (encoded.length > buffer.length) {
+                out.write(encoded);
+                return;
+            }
+        }
+        System.arraycopy(encoded, 0, buffer, position, encoded.length);
+        position += encoded.length;
+    }
+
+    private static long floorDiv(final long dividend, final long divisor) {
+        final long quotient = dividend / divisor;
+        return ((dividend % divisor) < 0) ? quotient - 1 : quotient;
+    }
+
+    /**
+     * Writes out anything that is buffered to the underlying stream, without flushing or closing the stream itself.
+     *
+     * @throws IOException if writing to the underlying stream fails.
+     */
+    public void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void ensureSpace(final int length) throws IOException {
+        if (position + length > buffer.length) {
+            flush();
+        }
+    }
+
+    private void putByte(final int type, final int value) {
+        buffer[position++] = (byte) type;
+        buffer[position++] = (byte) value;
+    }
+
+    private void putShort(final int type, final int value) {
+        buffer[position++] = (byte) type;
+        buffer[position++] = (byte) (value >> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void putInt(final int type, final int value) {
+        buffer[position++] = (byte) type;
+        putRawInt(value);
+    }
+
+    private void putLong(final int type, final long value) {
+        buffer[position++] = (byte) type;
+        putRawLong(value);
+    }
+
+    private void putRawInt(final int value) {
+        buffer[position++] = (byte) (value >> 24);
+        buffer[position++] = (byte) (value >> 16);
+        buffer[position++] = (byte) (value >> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void putRawLong(final long value) {
+        putRawInt((int) (value >> 32));
+        putRawInt((int) value);
+    }
+}
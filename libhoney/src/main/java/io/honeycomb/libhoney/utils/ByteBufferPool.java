@@ -0,0 +1,62 @@
+package io.honeycomb.libhoney.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A threadsafe pool of {@link PooledByteArrayOutputStream}s, so that the buffers request bodies are encoded into can
+ * be reused across batches rather than being reallocated (and grown) for every request.
+ * <p>
+ * The pool never blocks: if no buffer is available a new one is created. Only a bounded number of buffers is retained,
+ * and buffers that have grown beyond a given capacity are dropped on release, so that a single unusually large
+ * batch does not pin its memory for the lifetime of the pool.
+ */
+public class ByteBufferPool {
+    private final Queue<PooledByteArrayOutputStream> available = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger availableCount = new AtomicInteger();
+    private final int initialBufferCapacity;
+    private final int maxRetainedBufferCapacity;
+    private final int maxRetainedBuffers;
+
+    public ByteBufferPool(final int initialBufferCapacity,
+                          final int maxRetainedBufferCapacity,
+                          final int maxRetainedBuffers) {
+        Assert.isTrue(initialBufferCapacity > 0, "initialBufferCapacity must be > 0");
+        Assert.isTrue(maxRetainedBufferCapacity >= initialBufferCapacity,
+            "maxRetainedBufferCapacity must be >= initialBufferCapacity");
+        Assert.isTrue(maxRetainedBuffers >= 0, "maxRetainedBuffers must be >= 0");
+        this.initialBufferCapacity = initialBufferCapacity;
+        this.maxRetainedBufferCapacity = maxRetainedBufferCapacity;
+        this.maxRetainedBuffers = maxRetainedBuffers;
+    }
+
+    /**
+     * @return an empty buffer, either taken from the pool or newly allocated.
+     */
+    public PooledByteArrayOutputStream acquire() {
+        final PooledByteArrayOutputStream buffer = available.poll();
+        if (buffer == null) {
+            return new PooledByteArrayOutputStream(this, initialBufferCapacity);
+        }
+        availableCount.decrementAndGet();
+        return buffer;
+    }
+
+    void release(final PooledByteArrayOutputStream buffer) {
+        if (buffer.capacity() > maxRetainedBufferCapacity) {
+            return;
+        }
+        if (availableCount.incrementAndGet() > maxRetainedBuffers) {
+            availableCount.decrementAndGet();
+            return;
+        }
+        buffer.reset();
+        available.offer(buffer);
+    }
+
+    // visible for testing
+    int getAvailableCount() {
+        return availableCount.get();
+    }
+}
@@ -0,0 +1,159 @@
+package io.honeycomb.libhoney.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A threadsafe gzip compressor for in-memory buffers, which writes the gzip format (RFC 1952) itself around a raw
+ * {@link Deflater}.
+ * <p>
+ * In contrast to a {@link java.util.zip.GZIPOutputStream} per request, the native deflater state is not reallocated
+ * for every body: deflaters are reset and kept in a pool, alongside their checksum and a scratch buffer.
+ * As with the {@link ByteBufferPool}, the pool never blocks and retains only a bounded number of instances.
+ * Call {@link #close()} to release the native resources of the pooled deflaters.
+ */
+public class GzipCompressor implements AutoCloseable {
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int SCRATCH_BUFFER_SIZE = 8 * 1024;
+
+    private final Queue<Compression> available = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger availableCount = new AtomicInteger();
+    private final int level;
+    private final int maxRetainedDeflaters;
+    private volatile boolean closed;
+
+    /**
+     * @param level                of compression, between 0 and 9 - or -1 ({@link Deflater#DEFAULT_COMPRESSION}).
+     * @param maxRetainedDeflaters number of deflaters kept for reuse.
+     */
+    public GzipCompressor(final int level, final int maxRetainedDeflaters) {
+        Assert.isTrue(level >= Deflater.DEFAULT_COMPRESSION && level <= Deflater.BEST_COMPRESSION,
+            "level must be between -1 and 9");
+        Assert.isTrue(maxRetainedDeflaters >= 0, "maxRetainedDeflaters must be >= 0");
+        this.level = level;
+        this.maxRetainedDeflaters = maxRetainedDeflaters;
+    }
+
+    /**
+     * Compresses the given bytes in gzip format, appending them to the output stream.
+     *
+     * @param input  to compress.
+     * @param offset of the first byte to compress.
+     * @param length of the bytes to compress.
+     * @param output to write the compressed bytes to.
+     */
+    public void compress(final byte[] input,
+                         final int offset,
+                         final int length,
+                         final PooledByteArrayOutputStream output) {
+        final Compression compression = acquire();
+        try {
+            writeHeader(output);
+            compression.deflate(input, offset, length, output);
+            writeTrailer(output, compression.crc.getValue(), length);
+        } finally {
+            release(compression);
+        }
+    }
+
+    private static void writeHeader(final PooledByteArrayOutputStream output) {
+        writeShortLittleEndian(output, GZIP_MAGIC);
+        output.write(Deflater.DEFLATED); // compression method
+        output.write(0); // flags
+        writeIntLittleEndian(output, 0); // modification time (none)
+        output.write(0); // extra flags
+        output.write(0xff); // operating system (unknown)
+    }
+
+    private static void writeTrailer(final PooledByteArrayOutputStream output, final long crc, final int size) {
+        writeIntLittleEndian(output, (int) crc);
+        writeIntLittleEndian(output, size);
+    }
+
+    private static void writeShortLittleEndian(final PooledByteArrayOutputStream output, final int value) {
+        output.write(value & 0xff);
+        output.write((value >> 8) & 0xff);
+    }
+
+    private static void writeIntLittleEndian(final PooledByteArrayOutputStream output, final int value) {
+        writeShortLittleEndian(output, value & 0xffff);
+        writeShortLittleEndian(output, (value >> 16) & 0xffff);
+    }
+
+    private Compression acquire() {
+        final Compression compression = available.poll();
+        if (compression == null) {
+            return new Compression(level);
+        }
+        availableCount.decrementAndGet();
+        return compression;
+    }
+
+    private void release(final Compression compression) {
+        if (closed) {
+            compression.deflater.end();
+            return;
+        }
+        if (availableCount.incrementAndGet() > maxRetainedDeflaters) {
+            availableCount.decrementAndGet();
+            compression.deflater.end();
+            return;
+        }
+        compression.reset();
+        available.offer(compression);
+    }
+
+    // visible for testing
+    int getAvailableCount() {
+        return availableCount.get();
+    }
+
+    /**
+     * Releases the native resources of pooled deflaters. Compressing after this call still works, but deflaters
+     * are no longer pooled.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Compression compression = available.poll();
+        while (compression != null) {
+            availableCount.decrementAndGet();
+            compression.deflater.end();
+            compression = available.poll();
+        }
+    }
+
+    /**
+     * The state needed for one compression - not threadsafe.
+     */
+    private static final class Compression {
+        private final Deflater deflater;
+        private final CRC32 crc = new CRC32();
+        private final byte[] scratch = new byte[SCRATCH_BUFFER_SIZE];
+
+        private Compression(final int level) {
+            this.deflater = new Deflater(level, true); // raw deflate, the gzip wrapping is written by us
+        }
+
+        private void deflate(final byte[] input,
+                             final int offset,
+                             final int length,
+                             final PooledByteArrayOutputStream output) {
+            crc.update(input, offset, length);
+            deflater.setInput(input, offset, length);
+            deflater.finish();
+            while (!deflater.finished()) {
+                final int written = deflater.deflate(scratch, 0, scratch.length);
+                output.write(scratch, 0, written);
+            }
+        }
+
+        private void reset() {
+            deflater.reset();
+            crc.reset();
+        }
+    }
+}
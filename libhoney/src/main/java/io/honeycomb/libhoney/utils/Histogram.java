@@ -0,0 +1,77 @@
+package io.honeycomb.libhoney.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram with fixed buckets, given by their inclusive upper bounds, plus a final bucket for values above the
+ * highest bound. Recording a value is a binary search over the bounds and a few atomic increments, and allocates
+ * nothing.
+ * <p>
+ * The bucket counts are not striped like those of {@link StripedCounter}, as the histograms of the transport record
+ * values per batch or request rather than per event, so they are updated far less often than contended counters.
+ * <p>
+ * Threadsafe. Reads are not an atomic snapshot while values are being recorded.
+ */
+public final class Histogram {
+    private final long[] bounds;
+    private final AtomicLongArray counts;
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @param bounds the inclusive upper bounds of the buckets, in ascending order.
+     */
+    public Histogram(final long... bounds) {
+        Assert.isTrue(bounds.length > 0, "bounds must not be empty");
+        for (int i = 1; i < bounds.length; i++) {
+            Assert.isTrue(bounds[i] > bounds[i - 1], "bounds must be in ascending order");
+        }
+        this.bounds = bounds.clone();
+        this.counts = new AtomicLongArray(bounds.length + 1);
+    }
+
+    /**
+     * @param value to record.
+     */
+    public void record(final long value) {
+        final int index = Arrays.binarySearch(bounds, value);
+        counts.incrementAndGet(index >= 0 ? index : -index - 1);
+        sum.addAndGet(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * @return a copy of the inclusive upper bounds of the buckets.
+     */
+    public long[] getBounds() {
+        return bounds.clone();
+    }
+
+    /**
+     * @return the count of each bucket, which has one element more than the bounds, for the values above the
+     * highest bound.
+     */
+    public long[] getCounts() {
+        final long[] snapshot = new long[counts.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    /**
+     * @return the highest value recorded, or {@link Long#MIN_VALUE} if none has been recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+}
@@ -0,0 +1,111 @@
+package io.honeycomb.libhoney.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable in-memory output stream, similar to {@link java.io.ByteArrayOutputStream}, but unsynchronized and with
+ * access to its backing array, so its contents can be handed on without copying. Instances are obtained from and
+ * returned to a {@link ByteBufferPool}.
+ * <p>
+ * This class is not threadsafe, and its contents must not be accessed after it has been released to its pool.
+ */
+public final class PooledByteArrayOutputStream extends OutputStream {
+    private final ByteBufferPool pool;
+    private byte[] buffer;
+    private int count;
+
+    PooledByteArrayOutputStream(final ByteBufferPool pool, final int initialCapacity) {
+        super();
+        this.pool = pool;
+        this.buffer = new byte[initialCapacity];
+    }
+
+    @Override
+    public void write(final int value) {
+        ensureCapacity(count + 1);
+        buffer[count] = (byte) value;
+        count++;
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) {
+        ensureCapacity(count + length);
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+    }
+
+    /**
+     * Appends everything that remains in the given stream, reading directly into the backing array.
+     *
+     * @param input to read from, which is not closed.
+     * @throws IOException if reading fails.
+     */
+    public void readFrom(final InputStream input) throws IOException {
+        while (true) {
+            if (count == buffer.length) {
+                ensureCapacity(count + 1);
+            }
+            final int read = input.read(buffer, count, buffer.length - count);
+            if (read < 0) {
+                return;
+            }
+            count += read;
+        }
+    }
+
+    /**
+     * @return a copy of the valid bytes, exactly as long as {@link #size()}.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    private void ensureCapacity(final int minCapacity) {
+        if (minCapacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(minCapacity, buffer.length << 1));
+        }
+    }
+
+    /**
+     * @return the backing array, of which only the first {@link #size()} bytes are valid.
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return the number of valid bytes in the buffer.
+     */
+    public int size() {
+        return count;
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Discards the contents, while retaining the capacity.
+     */
+    public void reset() {
+        count = 0;
+    }
+
+    /**
+     * @return the contents decoded as UTF-8 - intended for logging.
+     */
+    public String toUtf8String() {
+        return new String(buffer, 0, count, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hands this buffer back to its pool. It must not be used afterwards.
+     */
+    public void release() {
+        pool.release(this);
+    }
+}
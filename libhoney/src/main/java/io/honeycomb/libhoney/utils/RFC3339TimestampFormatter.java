@@ -0,0 +1,127 @@
+package io.honeycomb.libhoney.utils;
+
+/**
+ * Formats epoch millisecond timestamps as RFC3339 datetime strings in UTC (e.g. "2018-05-01T12:01:43.925Z"),
+ * compatible with the honeycomb API.
+ * <p>
+ * Unlike {@link ObjectUtils#getRFC3339DateTimeFormatter()}, this is threadsafe and does not allocate a
+ * {@link java.util.Date} per timestamp. Events of a batch are usually created within the same second, so the
+ * "yyyy-MM-dd'T'HH:mm:ss" part of the last formatted second is cached and only the milliseconds are computed for
+ * subsequent timestamps of that same second. Timestamps can be written into a caller-provided char array, which can
+ * then be passed on to a JSON generator without creating a String.
+ */
+public final class RFC3339TimestampFormatter {
+    /**
+     * The length of a formatted timestamp, for timestamps between the years 0 and 9999.
+     */
+    public static final int FORMATTED_LENGTH = 24;
+
+    private static final int SECOND_PREFIX_LENGTH = 19;
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long SECONDS_PER_DAY = 86_400L;
+
+    /*
+     * Holder objects are immutable and published via a volatile field, so concurrent formatting threads either see
+     * a complete cache entry or a stale one, which simply results in a cache miss.
+     */
+    private static volatile CachedSecond cachedSecond = new CachedSecond(0L, formatSecond(0L));
+
+    private RFC3339TimestampFormatter() {
+        // utils class
+    }
+
+    /**
+     * @param epochMillis timestamp to format.
+     * @return the timestamp as an RFC3339 string in UTC.
+     */
+    public static String format(final long epochMillis) {
+        final char[] chars = new char[FORMATTED_LENGTH];
+        return new String(chars, 0, format(epochMillis, chars, 0));
+    }
+
+    /**
+     * Writes the timestamp as an RFC3339 string in UTC into the provided array.
+     *
+     * @param epochMillis timestamp to format.
+     * @param destination to write into, must have at least {@link #FORMATTED_LENGTH} chars available from the offset.
+     * @param offset      at which to start writing.
+     * @return the number of chars written.
+     */
+    public static int format(final long epochMillis, final char[] destination, final int offset) {
+        final long epochSecond = floorDiv(epochMillis, MILLIS_PER_SECOND);
+        final int millis = (int) (epochMillis - epochSecond * MILLIS_PER_SECOND);
+
+        CachedSecond cached = cachedSecond;
+        if (cached.epochSecond != epochSecond) {
+            cached = new CachedSecond(epochSecond, formatSecond(epochSecond));
+            cachedSecond = cached;
+        }
+
+        System.arraycopy(cached.prefix, 0, destination, offset, SECOND_PREFIX_LENGTH);
+        int position = offset + SECOND_PREFIX_LENGTH;
+        destination[position++] = '.';
+        writeDigits(destination, position, millis, 3);
+        position += 3;
+        destination[position++] = 'Z';
+        return position - offset;
+    }
+
+    /**
+     * Converts the epoch second into "yyyy-MM-dd'T'HH:mm:ss", using the days-to-civil algorithm for the proleptic
+     * Gregorian calendar (see http://howardhinnant.github.io/date_algorithms.html#civil_from_days).
+     */
+    private static char[] formatSecond(final long epochSecond) {
+        final long epochDay = floorDiv(epochSecond, SECONDS_PER_DAY);
+        final int secondOfDay = (int) (epochSecond - epochDay * SECONDS_PER_DAY);
+
+        final long shiftedDay = epochDay + 719_468L;
+        final long era = floorDiv(shiftedDay, 146_097L);
+        final long dayOfEra = shiftedDay - era * 146_097L;
+        final long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        final int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        final int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        final int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        final char[] prefix = new char[SECOND_PREFIX_LENGTH];
+        writeDigits(prefix, 0, year, 4);
+        prefix[4] = '-';
+        writeDigits(prefix, 5, month, 2);
+        prefix[7] = '-';
+        writeDigits(prefix, 8, day, 2);
+        prefix[10] = 'T';
+        writeDigits(prefix, 11, secondOfDay / 3600, 2);
+        prefix[13] = ':';
+        writeDigits(prefix, 14, (secondOfDay / 60) % 60, 2);
+        prefix[16] = ':';
+        writeDigits(prefix, 17, secondOfDay % 60, 2);
+        return prefix;
+    }
+
+    private static void writeDigits(final char[] destination, final int offset, final int value, final int digits) {
+        int remaining = value;
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            destination[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+    }
+
+    // Math.floorDiv is Java 8+
+    private static long floorDiv(final long dividend, final long divisor) {
+        final long quotient = dividend / divisor;
+        return (dividend % divisor != 0 && (dividend ^ divisor) < 0) ? quotient - 1 : quotient;
+    }
+
+    private static final class CachedSecond {
+        private final long epochSecond;
+        private final char[] prefix;
+
+        // the prefix is the formatted second as a whole, not a list of arguments
+        @SuppressWarnings("PMD.UseVarargs")
+        private CachedSecond(final long epochSecond, final char[] prefix) {
+            this.epochSecond = epochSecond;
+            this.prefix = prefix;
+        }
+    }
+}
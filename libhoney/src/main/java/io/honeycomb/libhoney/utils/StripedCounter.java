@@ -0,0 +1,72 @@
+package io.honeycomb.libhoney.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that is cheap to update from many threads at once, as updates are spread over a number of cells that are
+ * only summed up when the counter is read. It serves the same purpose as Java 8's {@code LongAdder}, which is not
+ * available on Java 7.
+ * <p>
+ * A thread always updates the same cell, picked by its id, and cells are padded so that each occupies a cache line of
+ * its own. The sum is not an atomic snapshot while updates are in progress, but it never misses an update that
+ * completed before it was read.
+ * <p>
+ * Threadsafe.
+ */
+public final class StripedCounter {
+    // 8 longs make up 64 bytes, the size of a cache line on common hardware
+    private static final int CELL_STRIDE = 8;
+    private static final int MAX_CELLS = 64;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    public StripedCounter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stripes the number of cells to spread updates over, rounded up to a power of two.
+     */
+    public StripedCounter(final int stripes) {
+        Assert.isTrue(stripes > 0, "stripes must be > 0");
+        int cellCount = 1;
+        while (cellCount < stripes && cellCount < MAX_CELLS) {
+            cellCount <<= 1;
+        }
+        this.mask = cellCount - 1;
+        this.cells = new AtomicLongArray(cellCount * CELL_STRIDE);
+    }
+
+    public void increment() {
+        add(1L);
+    }
+
+    public void decrement() {
+        add(-1L);
+    }
+
+    public void add(final long delta) {
+        cells.addAndGet(cellIndex(), delta);
+    }
+
+    /**
+     * @return the sum of all updates.
+     */
+    public long sum() {
+        long sum = 0L;
+        for (int i = 0; i < cells.length(); i += CELL_STRIDE) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    private int cellIndex() {
+        return ((int) Thread.currentThread().getId() & mask) * CELL_STRIDE;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(sum());
+    }
+}
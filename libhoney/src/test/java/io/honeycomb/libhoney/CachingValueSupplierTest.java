@@ -0,0 +1,109 @@
+package io.honeycomb.libhoney;
+
+import io.honeycomb.libhoney.transport.batch.ClockProvider;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CachingValueSupplierTest {
+    private final AtomicInteger counter = new AtomicInteger();
+    private final ValueSupplier<Integer> countingSupplier = new ValueSupplier<Integer>() {
+        @Override
+        public Integer supply() {
+            return counter.incrementAndGet();
+        }
+    };
+    private CachingValueSupplier<Integer> supplier;
+
+    @After
+    public void tearDown() {
+        if (supplier != null) {
+            supplier.close();
+        }
+    }
+
+    @Test
+    public void GIVEN_aCachingSupplier_WHEN_supplyingRepeatedly_EXPECT_theCachedValueUntilRefreshed() {
+        supplier = new CachingValueSupplier<>(countingSupplier, 1, TimeUnit.HOURS, mock(ClockProvider.class));
+
+        assertThat(supplier.supply()).isEqualTo(1);
+        assertThat(supplier.supply()).isEqualTo(1);
+
+        supplier.refresh();
+
+        assertThat(supplier.supply()).isEqualTo(2);
+        assertThat(counter.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void GIVEN_refreshes_WHEN_readingMetrics_EXPECT_theirCostToBeRecorded() {
+        final ClockProvider clock = mock(ClockProvider.class);
+        when(clock.getMonotonicTime()).thenReturn(100L, 130L, 200L, 250L);
+        supplier = new CachingValueSupplier<>(countingSupplier, 1, TimeUnit.HOURS, clock);
+        assertThat(supplier.getRefreshCount()).isZero();
+
+        supplier.refresh();
+        supplier.refresh();
+
+        assertThat(supplier.getRefreshCount()).isEqualTo(2);
+        assertThat(supplier.getLastRefreshNanos()).isEqualTo(50);
+        assertThat(supplier.getTotalRefreshNanos()).isEqualTo(80);
+        assertThat(supplier.getRefreshFailureCount()).isZero();
+    }
+
+    @Test
+    public void GIVEN_aFailingDelegate_WHEN_refreshing_EXPECT_previousValueToBeKeptAndFailureCounted() {
+        final ValueSupplier<Integer> failingSupplier = new ValueSupplier<Integer>() {
+            @Override
+            public Integer supply() {
+                if (counter.incrementAndGet() > 1) {
+                    throw new IllegalStateException("boom");
+                }
+                return 42;
+            }
+        };
+        supplier = new CachingValueSupplier<>(failingSupplier, 1, TimeUnit.HOURS, mock(ClockProvider.class));
+
+        supplier.refresh();
+        supplier.refresh();
+
+        assertThat(supplier.supply()).isEqualTo(42);
+        assertThat(supplier.getRefreshCount()).isEqualTo(2);
+        assertThat(supplier.getRefreshFailureCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void GIVEN_aShortTimeToLive_WHEN_waiting_EXPECT_valueToBeRefreshedInTheBackground() throws Exception {
+        supplier = CachingValueSupplier.of(countingSupplier, 10, TimeUnit.MILLISECONDS);
+
+        final long deadline = System.currentTimeMillis() + 5_000L;
+        while (supplier.supply() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(supplier.supply()).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    public void GIVEN_aClosedSupplier_WHEN_waiting_EXPECT_noMoreRefreshesButLastValue() throws Exception {
+        supplier = CachingValueSupplier.of(countingSupplier, 10, TimeUnit.MILLISECONDS);
+
+        supplier.close();
+        final int value = supplier.supply();
+        Thread.sleep(100);
+
+        assertThat(supplier.supply()).isEqualTo(value);
+        assertThat(counter.get()).isEqualTo(value);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void GIVEN_aNonPositiveTimeToLive_WHEN_creating_EXPECT_IAE() {
+        CachingValueSupplier.of(countingSupplier, 0, TimeUnit.SECONDS);
+    }
+}
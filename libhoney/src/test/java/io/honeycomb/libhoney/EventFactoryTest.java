@@ -1,11 +1,13 @@
 package io.honeycomb.libhoney;
 
+import io.honeycomb.libhoney.eventdata.EventRoute;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -38,6 +40,38 @@ public class EventFactoryTest {
             "client", "apiHost", "writeKey", "dataset", "sampleRate", "fields", "dynamicFields");
     }
 
+    @Test
+    public void GIVEN_aNormalEventFactory_WHEN_creatingEvents_EXPECT_eventsToShareTheFactorysRoute() {
+        final EventFactory eventFactory = new EventFactory(mock, LibHoney.options().build());
+
+        final Event event = eventFactory.createEvent();
+        final Event otherEvent = eventFactory.createEvent();
+
+        assertThat(event.getRoute()).isSameAs(otherEvent.getRoute());
+        assertThat(event.getRoute()).isEqualTo(
+            new EventRoute(eventFactory.createEvent().getApiHost(), event.getWriteKey(), event.getDataset()));
+    }
+
+    @Test
+    public void GIVEN_aFactoryWithDynamicFields_WHEN_modifyingAnEventsDynamicFields_EXPECT_otherEventsToBeUnaffected() {
+        final ValueSupplier<String> supplier = new ValueSupplier<String>() {
+            @Override
+            public String supply() {
+                return "value";
+            }
+        };
+        final EventFactory eventFactory = EventFactory.Builder.newBuilder(mock)
+            .addDynamicField("key", supplier)
+            .build();
+        final Event event = eventFactory.createEvent();
+
+        event.getDynamicFields().put("other", supplier);
+        event.getDynamicFields().remove("key");
+
+        assertThat(event.getDynamicFields()).containsOnlyKeys("other");
+        assertThat(eventFactory.createEvent().getDynamicFields()).containsOnlyKeys("key");
+    }
+
     @Test
     public void GIVEN_aNormalEventFactory_WHEN_sendingAnEventDirectly_EXPECT_eventToInheritPropertiesAndMapValuesCorrectly() {
         final EventFactory eventFactory = new EventFactory(mock, LibHoney.options().build());
@@ -52,4 +86,25 @@ public class EventFactoryTest {
         verify(mock).sendEvent(captor.capture());
         assertThat(captor.getValue()).isEqualToComparingFieldByField(expectedEvent);
     }
+
+    @Test
+    public void GIVEN_aDynamicFieldWithTimeToLive_WHEN_creatingEvent_EXPECT_itsValueToBeCached() {
+        final int[] invocations = new int[1];
+        final EventFactory eventFactory = EventFactory.Builder.newBuilder(mock)
+            .addDynamicField("key", new ValueSupplier<Integer>() {
+                @Override
+                public Integer supply() {
+                    return ++invocations[0];
+                }
+            }, 1, TimeUnit.HOURS)
+            .build();
+
+        final ValueSupplier<?> supplier = eventFactory.createEvent().getDynamicFields().get("key");
+
+        assertThat(supplier).isInstanceOf(CachingValueSupplier.class);
+        assertThat(supplier.supply()).isEqualTo(1);
+        assertThat(supplier.supply()).isEqualTo(1);
+        assertThat(invocations[0]).isEqualTo(1);
+        ((CachingValueSupplier<?>) supplier).close();
+    }
 }
@@ -15,16 +15,21 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
 import java.net.URI;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static io.honeycomb.libhoney.LibHoneyTest.supplierOf;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -76,6 +81,62 @@ public class HoneyClientTest {
         verify(mockTransport).close();
     }
 
+    @Test
+    public void GIVEN_aCloseableSampler_WHEN_callingClose_EXPECT_samplerToNotBeClosed() throws Exception {
+        final CloseableSampler sampler = mock(CloseableSampler.class);
+        honeyClient = new HoneyClient(LibHoney.options().setSampler(sampler).build(), mockTransport);
+
+        honeyClient.close();
+
+        verify(sampler, never()).close();
+    }
+
+    private interface CloseableSampler extends Sampler, AutoCloseable {
+    }
+
+    @Test
+    public void GIVEN_aCloseableGlobalDynamicField_WHEN_callingClose_EXPECT_itsSupplierToNotBeClosed()
+        throws Exception {
+        final CloseableValueSupplier supplier = mock(CloseableValueSupplier.class);
+        honeyClient = new HoneyClient(LibHoney.options()
+            .setGlobalDynamicFields(Collections.<String, ValueSupplier<?>>singletonMap("key", supplier))
+            .build(), mockTransport);
+
+        honeyClient.close();
+
+        verify(supplier, never()).close();
+    }
+
+    private interface CloseableValueSupplier extends ValueSupplier<Object>, AutoCloseable {
+    }
+
+    @Test
+    public void GIVEN_anOwnedCachingSupplier_WHEN_callingClose_EXPECT_itToBeClosed() {
+        final CachingValueSupplier<Object> supplier = CachingValueSupplier.of(supplierOf("value"), 1, TimeUnit.HOURS);
+        honeyClient = new HoneyClient(LibHoney.options()
+            .setGlobalDynamicFields(Collections.<String, ValueSupplier<?>>singletonMap("key", supplier))
+            .setOwnedValueSuppliers(Collections.singletonList(supplier))
+            .build(), mockTransport);
+
+        honeyClient.close();
+
+        assertThat(supplier.isClosed()).isTrue();
+    }
+
+    @Test
+    public void GIVEN_aTransportFailingToClose_WHEN_callingClose_EXPECT_ownedSuppliersToStillBeClosed()
+        throws Exception {
+        final CachingValueSupplier<Object> supplier = CachingValueSupplier.of(supplierOf("value"), 1, TimeUnit.HOURS);
+        doThrow(new IllegalStateException("test")).when(mockTransport).close();
+        honeyClient = new HoneyClient(LibHoney.options()
+            .setOwnedValueSuppliers(Collections.singletonList(supplier))
+            .build(), mockTransport);
+
+        honeyClient.close();
+
+        assertThat(supplier.isClosed()).isTrue();
+    }
+
     @Test
     public void GIVEN_aNormalHoneyClient_WHEN_addingObserver_EXPECT_addToBeCalledOnTheObservableInstance() {
         createHoneyClient();
@@ -98,6 +159,18 @@ public class HoneyClientTest {
         verify(mockObservable).remove(observer);
     }
 
+    @Test
+    public void GIVEN_aNormalHoneyClient_WHEN_addingAndRemovingBatchObserver_EXPECT_callsOnTheObservableInstance() {
+        createHoneyClient();
+        final BatchResponseObserver observer = mock(BatchResponseObserver.class);
+
+        honeyClient.addBatchResponseObserver(observer);
+        honeyClient.removeBatchResponseObserver(observer);
+
+        verify(mockObservable).add(observer);
+        verify(mockObservable).remove(observer);
+    }
+
     @Test
     public void GIVEN_anEventThatIsNotSampled_WHEN_sendingEvent_EXPECT_NoSubmission_AND_ResponseToBePublished() {
         createHoneyClient();
@@ -136,6 +209,24 @@ public class HoneyClientTest {
         verify(mockObservable).publish(any(ClientRejected.class));
     }
 
+    @Test
+    public void GIVEN_acceptedAndRejectedEvents_WHEN_gettingStats_EXPECT_themToBeCounted() {
+        createHoneyClient();
+        allowSubmissionToTransport();
+        honeyClient.sendEventPresampled(honeyClient.createEvent().addField("test", 1));
+        honeyClient.sendEventPresampled(honeyClient.createEvent().addField("test", 2));
+        disallowSubmissionToTransport();
+        honeyClient.sendEventPresampled(honeyClient.createEvent().addField("test", 3));
+
+        final TransportStats stats = honeyClient.getStats();
+
+        assertThat(stats.getCounter(TransportStats.EVENTS_SUBMITTED)).isEqualTo(2);
+        assertThat(stats.getCounter(TransportStats.EVENTS_REJECTED)).isEqualTo(1);
+        assertThat(stats.getCounter(TransportStats.EVENTS_NOT_SAMPLED)).isEqualTo(0);
+        // a custom transport provides no metrics of its own
+        assertThat(stats.getGauge(TransportStats.QUEUE_DEPTH)).isEqualTo(-1);
+    }
+
     @Test
     public void GIVEN_variousConfiguredAndSuppliedFields_WHEN_usingShortcutSend_EXPECT_submittedEventToContainCorrectData() {
         final Map<String, Object> globalFields = new HashMap<>();
@@ -167,6 +258,30 @@ public class HoneyClientTest {
             .containsEntry("key4", "dynData2");
     }
 
+    @Test
+    public void GIVEN_aSentEvent_WHEN_changingAndSendingItAgain_EXPECT_firstSubmittedEventToBeUnaffected() {
+        honeyClient = new HoneyClient(LibHoney.options()
+            .setGlobalFields(Collections.<String, Object>singletonMap("key1", "data1"))
+            .setDataset("testDataset")
+            .setWriteKey("testWriteKey")
+            .build(),
+            mockTransport);
+        allowSubmissionToTransport();
+        final Event event = honeyClient.createEvent().addField("key2", "data2");
+
+        honeyClient.sendEventPresampled(event);
+        event.addField("key1", "changed").addField("key3", "data3");
+        event.getFields().remove("key2");
+        honeyClient.sendEventPresampled(event);
+
+        verify(mockTransport, times(2)).submit(eventCaptor.capture());
+        assertThat(eventCaptor.getAllValues().get(0).getFields())
+            .containsOnly(entry("key1", "data1"), entry("key2", "data2"));
+        assertThat(eventCaptor.getAllValues().get(1).getFields())
+            .containsOnly(entry("key1", "changed"), entry("key3", "data3"));
+        assertThat(honeyClient.createEvent().getFields()).containsOnly(entry("key1", "data1"));
+    }
+
     @Test
     public void GIVEN_aGlobalConfig_WHEN_sendingAnEvent_EXPECT_ConfigurationToBeSetOnSubmittedEvent() {
         honeyClient = new HoneyClient(LibHoney.options()
@@ -389,6 +504,30 @@ public class HoneyClientTest {
         assertThat(responseCaptor.getValue().getException()).isNull();
     }
 
+    @Test
+    public void GIVEN_aConfiguredSampler_WHEN_sendingEvents_EXPECT_samplerToDecideAndUnsampledEventsToBeRejectedDueToNOT_SAMPLED() {
+        honeyClient = new HoneyClient(LibHoney.options()
+            .setDataset("testDataset")
+            .setWriteKey("testWriteKey")
+            .setSampler(new Sampler() {
+                @Override
+                public boolean sample(final Event event) {
+                    return event.getFields().containsKey("keep");
+                }
+            })
+            .build(), mockTransport);
+        final ResponseObserver mockObserver = mock(ResponseObserver.class);
+        honeyClient.addResponseObserver(mockObserver);
+
+        honeyClient.sendEvent(honeyClient.createEvent().addField("keep", 1).setSampleRate(Integer.MAX_VALUE));
+        honeyClient.sendEvent(honeyClient.createEvent().addField("drop", 1));
+
+        verify(mockTransport).submit(eventCaptor.capture());
+        assertThat(eventCaptor.getValue().getFields()).containsKey("keep");
+        verify(mockObserver).onClientRejected(responseCaptor.capture());
+        assertThat(responseCaptor.getValue().getReason()).isEqualTo(ClientRejected.RejectionReason.NOT_SAMPLED);
+    }
+
     @Test
     public void GIVEN_transportDoesNotAcceptAnymoreEvents_WHEN_sendingEvent_EXPECT_eventToBeRejectedDueToQUEUE_OVERFLOW() {
         createHoneyClient();
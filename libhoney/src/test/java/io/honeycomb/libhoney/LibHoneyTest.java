@@ -114,6 +114,19 @@ public class LibHoneyTest {
         fail("Exception not thrown");
     }
 
+    @Test
+    public void GIVEN_dropOldestWithTheRingBufferQueue_EXPECT_IAEToBeThrown() {
+        final TransportOptions.Builder builder = LibHoney.transportOptions()
+            .setQueueType(TransportOptions.QueueType.MPSC_RING_BUFFER)
+            .setQueueOverflowPolicy(TransportOptions.QueueOverflowPolicy.DROP_OLDEST);
+        try {
+            builder.build();
+        } catch (final IllegalArgumentException e) {
+            return;
+        }
+        fail("Exception not thrown");
+    }
+
     @Test
     public void GIVEN_batchTimeoutSmallerThan1_EXPECT_IAEToBeThrown() {
         final TransportOptions.Builder builder = LibHoney.transportOptions().setBatchTimeoutMillis(0);
@@ -1,10 +1,13 @@
 package io.honeycomb.libhoney.builders;
 
+import io.honeycomb.libhoney.CachingValueSupplier;
 import io.honeycomb.libhoney.HoneyClient;
 import io.honeycomb.libhoney.Options;
+import io.honeycomb.libhoney.Sampler;
 import io.honeycomb.libhoney.TransportOptions;
 import io.honeycomb.libhoney.ValueSupplier;
 import io.honeycomb.libhoney.responses.ResponseObservable;
+import io.honeycomb.libhoney.sampling.DeterministicSampler;
 import io.honeycomb.libhoney.transport.Transport;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
@@ -12,17 +15,21 @@ import org.apache.http.auth.Credentials;
 import org.apache.http.client.CredentialsProvider;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import javax.net.ssl.SSLContext;
+import java.io.File;
 import java.lang.reflect.Field;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -35,6 +42,9 @@ import static org.mockito.Mockito.when;
 @RunWith(MockitoJUnitRunner.class)
 public class HoneyClientBuilderTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Mock
     ResponseObservable mockObservable;
     Options.Builder optionBuilder;
@@ -85,6 +95,29 @@ public class HoneyClientBuilderTest {
         completeNegativeVerification();
     }
 
+    @Test
+    public void testAddGlobalDynamicFieldWithTimeToLive() {
+        final ValueSupplier<Object> supplier1 = new ValueSupplier<Object>() {
+            @Override
+            public Object supply() {
+                return "value";
+            }
+        };
+        final HoneyClient client = builder.addGlobalDynamicFields("name", supplier1, 1, TimeUnit.MINUTES).build();
+        verify(optionBuilder, times(1)).setGlobalDynamicFields(any(Map.class));
+        final Map<String, ValueSupplier<?>> actualFields = optionBuilder.getGlobalDynamicFields();
+        //noinspection ResultOfMethodCallIgnored
+        verify(optionBuilder, times(1)).getGlobalDynamicFields();
+        Assert.assertEquals("Expected 1 global dynamic field", 1, actualFields.size());
+        Assert.assertTrue("Expected a caching value supplier",
+            actualFields.get("name") instanceof CachingValueSupplier);
+        Assert.assertEquals("Expected cached value to match", "value", actualFields.get("name").supply());
+        verify(optionBuilder, times(1)).setOwnedValueSuppliers(Collections.singletonList(
+            (CachingValueSupplier<?>) actualFields.get("name")));
+        completeNegativeVerification();
+        client.close();
+    }
+
     @Test
     public void testAddGlobalField() {
         final HoneyClient client = builder.addGlobalField("name", "value").build();
@@ -166,6 +199,128 @@ public class HoneyClientBuilderTest {
         completeNegativeVerification();
     }
 
+    @Test
+    public void testMaxBatchBytes() {
+        final HoneyClient client = builder.maxBatchBytes(123).build();
+        verify(transportBuilder, times(1)).setMaxBatchBytes(123);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testMaxEventBytes() {
+        final HoneyClient client = builder.maxEventBytes(123).build();
+        verify(transportBuilder, times(1)).setMaxEventBytes(123);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testBatchEncoding() {
+        final HoneyClient client = builder.batchEncoding(TransportOptions.BatchEncoding.MSGPACK).build();
+        verify(transportBuilder, times(1)).setBatchEncoding(TransportOptions.BatchEncoding.MSGPACK);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testRequestCompression() {
+        final HoneyClient client = builder.requestCompression(TransportOptions.RequestCompression.GZIP).build();
+        verify(transportBuilder, times(1)).setRequestCompression(TransportOptions.RequestCompression.GZIP);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testCompressionThreshold() {
+        final HoneyClient client = builder.compressionThreshold(2048).build();
+        verify(transportBuilder, times(1)).setCompressionThreshold(2048);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testConcurrencyLimiter() {
+        final HoneyClient client = builder.concurrencyLimiter(TransportOptions.ConcurrencyLimiterType.AIMD).build();
+        verify(transportBuilder, times(1)).setConcurrencyLimiter(TransportOptions.ConcurrencyLimiterType.AIMD);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testMaxRetries() {
+        final HoneyClient client = builder.maxRetries(3).build();
+        verify(transportBuilder, times(1)).setMaxRetries(3);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testRetryInitialBackoffMillis() {
+        final HoneyClient client = builder.retryInitialBackoffMillis(250L).build();
+        verify(transportBuilder, times(1)).setRetryInitialBackoffMillis(250L);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testRetryMaxBackoffMillis() {
+        final HoneyClient client = builder.retryMaxBackoffMillis(5_000L).build();
+        verify(transportBuilder, times(1)).setRetryMaxBackoffMillis(5_000L);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testRetryBudgetRatio() {
+        final HoneyClient client = builder.retryBudgetRatio(0.2).build();
+        verify(transportBuilder, times(1)).setRetryBudgetRatio(0.2);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testQueueOverflowPolicy() {
+        final HoneyClient client = builder.queueOverflowPolicy(TransportOptions.QueueOverflowPolicy.SHED).build();
+        verify(transportBuilder, times(1)).setQueueOverflowPolicy(TransportOptions.QueueOverflowPolicy.SHED);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testQueueOfferTimeoutMillis() {
+        final HoneyClient client = builder.queueOfferTimeoutMillis(250L).build();
+        verify(transportBuilder, times(1)).setQueueOfferTimeoutMillis(250L);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testQueueShedThreshold() {
+        final HoneyClient client = builder.queueShedThreshold(0.8).build();
+        verify(transportBuilder, times(1)).setQueueShedThreshold(0.8);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testSpoolDirectory() throws Exception {
+        final File directory = temporaryFolder.newFolder("spool");
+        final HoneyClient client = builder.spoolDirectory(directory).build();
+        verify(transportBuilder, times(1)).setSpoolDirectory(directory);
+        completeNegativeVerification();
+        client.close();
+    }
+
+    @Test
+    public void testSpoolSegmentBytes() {
+        final HoneyClient client = builder.spoolSegmentBytes(8192).build();
+        verify(transportBuilder, times(1)).setSpoolSegmentBytes(8192);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testSpoolMaxBytes() {
+        final HoneyClient client = builder.spoolMaxBytes(1_000_000_000L).build();
+        verify(transportBuilder, times(1)).setSpoolMaxBytes(1_000_000_000L);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testJmxEnabled() {
+        final HoneyClient client = builder.jmxEnabled(true).build();
+        verify(transportBuilder, times(1)).setJmxEnabled(true);
+        completeNegativeVerification();
+        client.close();
+    }
+
     @Test
     public void testMaximumHttpRequestShutdownWait() {
         final HoneyClient client = builder.maximumHttpRequestShutdownWait(345L).build();
@@ -208,6 +363,49 @@ public class HoneyClientBuilderTest {
         completeNegativeVerification();
     }
 
+    @Test
+    public void testBatcherShards() {
+        final HoneyClient client = builder.batcherShards(4).build();
+        verify(transportBuilder, times(1)).setBatcherShards(4);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testSerializerThreads() {
+        final HoneyClient client = builder.serializerThreads(2).build();
+        verify(transportBuilder, times(1)).setSerializerThreads(2);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testSerializerQueueCapacity() {
+        final HoneyClient client = builder.serializerQueueCapacity(123).build();
+        verify(transportBuilder, times(1)).setSerializerQueueCapacity(123);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testResponseDispatchThreads() {
+        final HoneyClient client = builder.responseDispatchThreads(2).build();
+        verify(transportBuilder, times(1)).setResponseDispatchThreads(2);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testResponseQueueCapacity() {
+        final HoneyClient client = builder.responseQueueCapacity(123).build();
+        verify(transportBuilder, times(1)).setResponseQueueCapacity(123);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testResponseOverflowPolicy() {
+        final HoneyClient client = builder.responseOverflowPolicy(TransportOptions.ResponseOverflowPolicy.CALLER_RUNS)
+            .build();
+        verify(transportBuilder, times(1)).setResponseOverflowPolicy(TransportOptions.ResponseOverflowPolicy.CALLER_RUNS);
+        completeNegativeVerification();
+    }
+
     @Test
     public void testMaxConnections() {
         final HoneyClient client = builder.maxConnections(123).build();
@@ -236,6 +434,21 @@ public class HoneyClientBuilderTest {
         completeNegativeVerification();
     }
 
+    @Test
+    public void testQueueType() {
+        final HoneyClient client = builder.queueType(TransportOptions.QueueType.MPSC_RING_BUFFER).build();
+        verify(transportBuilder, times(1)).setQueueType(TransportOptions.QueueType.MPSC_RING_BUFFER);
+        completeNegativeVerification();
+    }
+
+    @Test
+    public void testSampler() {
+        final Sampler sampler = new DeterministicSampler(DeterministicSampler.TRACE_ID_FIELD);
+        final HoneyClient client = builder.sampler(sampler).build();
+        verify(optionBuilder, times(1)).setSampler(sampler);
+        completeNegativeVerification();
+    }
+
     @Test
     public void testBatchTimeoutMillis() {
         final HoneyClient client = builder.batchTimeoutMillis(123).build();
@@ -0,0 +1,59 @@
+package io.honeycomb.libhoney.eventdata;
+
+import org.apache.http.Header;
+import org.junit.Test;
+
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventRouteTest {
+    private static final URI API_HOST = URI.create("http://example.com");
+
+    @Test
+    public void GIVEN_routesWithTheSameProperties_WHEN_comparing_EXPECT_equalRoutesWithEqualHashCodes() {
+        final EventRoute route = new EventRoute(API_HOST, "key", "dataset");
+        final EventRoute sameRoute = new EventRoute(URI.create("http://example.com"), "key", "dataset");
+
+        assertThat(route).isEqualTo(sameRoute);
+        assertThat(route.hashCode()).isEqualTo(sameRoute.hashCode());
+    }
+
+    @Test
+    public void GIVEN_routesWithDifferentProperties_WHEN_comparing_EXPECT_notEqual() {
+        final EventRoute route = new EventRoute(API_HOST, "key", "dataset");
+
+        assertThat(route).isNotEqualTo(new EventRoute(URI.create("http://example.org"), "key", "dataset"));
+        assertThat(route).isNotEqualTo(new EventRoute(API_HOST, "otherKey", "dataset"));
+        assertThat(route).isNotEqualTo(new EventRoute(API_HOST, "key", "otherDataset"));
+        assertThat(route).isNotEqualTo(new EventRoute(API_HOST, null, "dataset"));
+    }
+
+    @Test
+    public void GIVEN_aRoute_WHEN_gettingTheBatchEndpoint_EXPECT_pathWithDatasetToBeEncodedAndTheUriToBeCached() throws Exception {
+        final EventRoute route = new EventRoute(URI.create("http://example.com:8080"), "key", "my dataset");
+
+        final URI endpoint = route.getBatchEndpoint();
+
+        assertThat(endpoint).isEqualTo(URI.create("http://example.com:8080/1/batch/my%20dataset"));
+        assertThat(route.getBatchEndpoint()).isSameAs(endpoint);
+    }
+
+    @Test
+    public void GIVEN_aRoute_WHEN_gettingTheWriteKeyHeader_EXPECT_theSameTeamHeaderEveryTime() {
+        final EventRoute route = new EventRoute(API_HOST, "key", "dataset");
+
+        final Header header = route.getWriteKeyHeader();
+
+        assertThat(header.getName()).isEqualTo("X-Honeycomb-Team");
+        assertThat(header.getValue()).isEqualTo("key");
+        assertThat(route.getWriteKeyHeader()).isSameAs(header);
+    }
+
+    @Test
+    public void GIVEN_aRoute_WHEN_printing_EXPECT_writeKeyToBeMasked() {
+        final EventRoute route = new EventRoute(API_HOST, "secret", "dataset");
+
+        assertThat(route.toString()).doesNotContain("secret");
+    }
+}
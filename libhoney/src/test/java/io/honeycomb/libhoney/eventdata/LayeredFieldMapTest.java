@@ -0,0 +1,170 @@
+package io.honeycomb.libhoney.eventdata;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class LayeredFieldMapTest {
+    private Map<String, Object> base;
+    private LayeredFieldMap map;
+
+    @Before
+    public void setUp() {
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put("a", 1);
+        fields.put("b", 2);
+        base = Collections.unmodifiableMap(fields);
+        map = new LayeredFieldMap(base);
+    }
+
+    @Test
+    public void GIVEN_aNewLayeredMap_WHEN_reading_EXPECT_baseEntries() {
+        assertThat(map).hasSize(2).containsEntry("a", 1).containsEntry("b", 2);
+        assertThat(map).isEqualTo(base);
+    }
+
+    @Test
+    public void GIVEN_aLayeredMap_WHEN_puttingEntries_EXPECT_overlayToTakePrecedenceAndBaseToBeUnchanged() {
+        assertThat(map.put("a", 10)).isEqualTo(1);
+        assertThat(map.put("c", 3)).isNull();
+        assertThat(map.put("c", 30)).isEqualTo(3);
+
+        assertThat(map).hasSize(3).containsOnly(entry("a", 10), entry("b", 2), entry("c", 30));
+        assertThat(base).hasSize(2).containsEntry("a", 1);
+    }
+
+    @Test
+    public void GIVEN_aLayeredMap_WHEN_removingEntries_EXPECT_themToBeGoneWithoutChangingTheBase() {
+        map.put("c", 3);
+
+        assertThat(map.remove("a")).isEqualTo(1);
+        assertThat(map.remove("a")).isNull();
+        assertThat(map.remove("c")).isEqualTo(3);
+        assertThat(map.remove("unknown")).isNull();
+
+        assertThat(map).hasSize(1).containsOnly(entry("b", 2));
+        assertThat(map.containsKey("a")).isFalse();
+        assertThat(map.get("a")).isNull();
+        assertThat(base).hasSize(2);
+    }
+
+    @Test
+    public void GIVEN_aRemovedBaseEntry_WHEN_puttingItAgain_EXPECT_itToBeBack() {
+        map.remove("a");
+
+        assertThat(map.put("a", 100)).isNull();
+
+        assertThat(map).hasSize(2).containsOnly(entry("a", 100), entry("b", 2));
+    }
+
+    @Test
+    public void GIVEN_aNullValue_WHEN_puttingIt_EXPECT_itToOverrideTheBaseEntry() {
+        map.put("a", null);
+
+        assertThat(map).hasSize(2).containsEntry("a", null);
+        assertThat(map.containsKey("a")).isTrue();
+    }
+
+    @Test
+    public void GIVEN_existingEntries_WHEN_puttingIfNotContained_EXPECT_onlyMissingKeysToBeAdded() {
+        map.put("c", null);
+
+        map.putIfNotContained("a", 10);
+        map.putIfNotContained("c", 30);
+        map.putIfNotContained("d", 4);
+
+        assertThat(map).hasSize(4).containsOnly(entry("a", 1), entry("b", 2), entry("c", null), entry("d", 4));
+    }
+
+    @Test
+    public void GIVEN_aLayeredMap_WHEN_copying_EXPECT_copyToBeIndependent() {
+        map.put("c", 3);
+
+        final LayeredFieldMap copy = LayeredFieldMap.copyOf(map);
+        map.put("d", 4);
+        map.remove("a");
+        copy.put("e", 5);
+
+        assertThat(copy).containsOnly(entry("a", 1), entry("b", 2), entry("c", 3), entry("e", 5));
+        assertThat(map).containsOnly(entry("b", 2), entry("c", 3), entry("d", 4));
+    }
+
+    @Test
+    public void GIVEN_aPlainMap_WHEN_copying_EXPECT_equalMap() {
+        final LayeredFieldMap copy = LayeredFieldMap.copyOf(Collections.singletonMap("x", "y"));
+
+        assertThat(copy).isEqualTo(Collections.singletonMap("x", "y"));
+    }
+
+    @Test
+    public void GIVEN_entriesInBothLayers_WHEN_iterating_EXPECT_eachVisibleEntryOnce() {
+        map.put("a", 10);
+        map.put("c", 3);
+        map.remove("b");
+
+        final Map<String, Object> iterated = new HashMap<>();
+        for (final Map.Entry<String, Object> entry : map.entrySet()) {
+            assertThat(iterated.put(entry.getKey(), entry.getValue())).isNull();
+        }
+
+        assertThat(iterated).containsOnly(entry("a", 10), entry("c", 3));
+    }
+
+    @Test
+    public void GIVEN_anIterator_WHEN_removingAndSettingValues_EXPECT_changesToBeAppliedToTheMap() {
+        map.put("c", 3);
+        map.put("d", 4);
+
+        final Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, Object> entry = iterator.next();
+            if (entry.getKey().equals("a") || entry.getKey().equals("c")) {
+                iterator.remove();
+            } else {
+                entry.setValue(entry.getValue() + "!");
+            }
+        }
+
+        assertThat(map).hasSize(2).containsOnly(entry("b", "2!"), entry("d", "4!"));
+        assertThat(base).containsOnly(entry("a", 1), entry("b", 2));
+    }
+
+    @Test
+    public void GIVEN_changesToTheMap_WHEN_inspectingTheLayers_EXPECT_overlayToHoldTheChanges() {
+        assertThat(map.getBase()).isSameAs(base);
+        assertThat(map.isAnyBaseEntryOverlaid()).isFalse();
+
+        map.put("c", 3);
+        assertThat(map.isAnyBaseEntryOverlaid()).isFalse();
+        map.put("a", 10);
+        map.remove("b");
+
+        final Map<String, Object> overlayEntries = new HashMap<>();
+        for (final Map.Entry<String, Object> entry : map.getOverlayEntries()) {
+            overlayEntries.put(entry.getKey(), entry.getValue());
+        }
+        assertThat(overlayEntries).containsOnly(entry("a", 10), entry("c", 3));
+        assertThat(map.isAnyBaseEntryOverlaid()).isTrue();
+        assertThat(map.isOverlaid("a")).isTrue();
+        assertThat(map.isOverlaid("b")).isTrue();
+        assertThat(map.isOverlaid("unknown")).isFalse();
+    }
+
+    @Test
+    public void GIVEN_aLayeredMap_WHEN_clearing_EXPECT_emptyMapThatCanBeFilledAgain() {
+        map.put("c", 3);
+
+        map.clear();
+        map.put("d", 4);
+
+        assertThat(map).hasSize(1).containsOnly(entry("d", 4));
+        assertThat(base).hasSize(2);
+    }
+}
@@ -0,0 +1,99 @@
+package io.honeycomb.libhoney.eventdata;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class SharedFieldMapTest {
+    @Test
+    public void GIVEN_aMapOfFields_WHEN_creatingASharedMap_EXPECT_itToBeAnIndependentCopy() {
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put("a", 1);
+
+        final SharedFieldMap sharedFields = new SharedFieldMap(fields);
+        fields.put("b", 2);
+
+        assertThat(sharedFields).containsOnly(entry("a", 1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void GIVEN_aSharedMap_WHEN_changingIt_EXPECT_UOE() {
+        new SharedFieldMap(new HashMap<String, Object>()).put("a", 1);
+    }
+
+    @Test
+    public void GIVEN_anEncoding_WHEN_encodingRepeatedly_EXPECT_itToBeAppliedOnlyOnce() throws Exception {
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put("a", 1);
+        fields.put("b", 2);
+        final SharedFieldMap sharedFields = new SharedFieldMap(fields);
+        final CountingEncoding encoding = new CountingEncoding();
+
+        final String first = sharedFields.getEncoded(encoding);
+        final String second = sharedFields.getEncoded(encoding);
+
+        assertThat(first).isSameAs(second).isIn("a=1,b=2", "b=2,a=1");
+        assertThat(encoding.invocations).isEqualTo(1);
+        assertThat(new SharedFieldMap(fields).getEncoded(encoding)).isNotSameAs(first);
+        assertThat(encoding.invocations).isEqualTo(2);
+    }
+
+    @Test
+    public void GIVEN_onlyImmutableScalarValues_EXPECT_theEncodingToBeCached() {
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put("str", "a");
+        fields.put("long", 1L);
+        fields.put("bool", true);
+        fields.put("enum", TimeUnit.SECONDS);
+        fields.put("null", null);
+
+        assertThat(new SharedFieldMap(fields).isEncodingCached()).isTrue();
+    }
+
+    @Test
+    public void GIVEN_aMutableValue_WHEN_encodingRepeatedly_EXPECT_eachEncodingToReflectItsCurrentState()
+        throws Exception {
+        final List<String> list = new ArrayList<>();
+        final AtomicLong counter = new AtomicLong();
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put("list", list);
+        fields.put("counter", counter);
+        final SharedFieldMap sharedFields = new SharedFieldMap(fields);
+        final CountingEncoding encoding = new CountingEncoding();
+
+        final String first = sharedFields.getEncoded(encoding);
+        list.add("x");
+        counter.incrementAndGet();
+        final String second = sharedFields.getEncoded(encoding);
+
+        assertThat(sharedFields.isEncodingCached()).isFalse();
+        assertThat(first).contains("list=[]").contains("counter=0");
+        assertThat(second).contains("list=[x]").contains("counter=1");
+        assertThat(encoding.invocations).isEqualTo(2);
+    }
+
+    private static class CountingEncoding implements SharedFieldMap.Encoding<String> {
+        private int invocations;
+
+        @Override
+        public String encode(final Map<String, Object> fields) {
+            invocations++;
+            final StringBuilder builder = new StringBuilder();
+            for (final Map.Entry<String, Object> field : fields.entrySet()) {
+                if (builder.length() > 0) {
+                    builder.append(',');
+                }
+                builder.append(field.getKey()).append('=').append(field.getValue());
+            }
+            return builder.toString();
+        }
+    }
+}
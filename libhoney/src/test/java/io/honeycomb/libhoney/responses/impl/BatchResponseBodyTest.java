@@ -30,6 +30,64 @@ public class BatchResponseBodyTest {
         assertThat(batchResponseBody.getServerApiError()).isNotNull();
     }
 
+    @Test
+    public void GIVEN_OkStatusCode_AND_anAllAcceptedBatchResponse_EXPECT_sharedAcceptedElements() {
+        final String batchBody = "[" +
+            "  {" +
+            "    \"status\": 202" +
+            "  }," +
+            "  {\"status\":202}\n" +
+            "]";
+
+        final BatchResponseBody batchResponseBody = new BatchResponseBody(batchBody.getBytes(StandardCharsets.UTF_8), 200);
+
+        assertIsBatchAccepted(batchResponseBody);
+        assertThat(batchResponseBody.isAllAccepted()).isTrue();
+        assertThat(batchResponseBody.getBatchResponseElements()).hasSize(2);
+        assertThat(batchResponseBody.getBatchResponseElements().get(0))
+            .isSameAs(batchResponseBody.getBatchResponseElements().get(1));
+        assertThat(batchResponseBody.getBatchResponseElements().get(1).isAccepted()).isTrue();
+        assertThat(batchResponseBody.getBatchResponseElements().get(1).getError()).isNull();
+    }
+
+    @Test
+    public void GIVEN_bodiesWithinALargerBuffer_WHEN_decoding_EXPECT_onlyTheBodiesToBeRead() {
+        final byte[] accepted = "[{\"status\":202}]{\"status\":202}]".getBytes(StandardCharsets.UTF_8);
+        final byte[] rejected = "  {\"error\":\"unknown API key\"}}}".getBytes(StandardCharsets.UTF_8);
+
+        final BatchResponseBody acceptedBody = new BatchResponseBody(accepted, 0, 16, 200);
+        final BatchResponseBody rejectedBody = new BatchResponseBody(rejected, 2, 27, 401);
+
+        assertIsBatchAccepted(acceptedBody);
+        assertThat(acceptedBody.isAllAccepted()).isTrue();
+        assertThat(acceptedBody.getBatchResponseElements()).hasSize(1);
+        assertIsBatchRejected(rejectedBody);
+        assertThat(rejectedBody.getBatchError().getError()).isEqualTo("unknown API key");
+    }
+
+    @Test
+    public void GIVEN_variousBodies_WHEN_countingAllAccepted_EXPECT_countOnlyForArraysOfPlainAcceptedElements() {
+        assertThat(countAllAccepted("[]")).isEqualTo(0);
+        assertThat(countAllAccepted(" [ ] ")).isEqualTo(0);
+        assertThat(countAllAccepted("[{\"status\":202}]")).isEqualTo(1);
+        assertThat(countAllAccepted("\r\n[ { \"status\" :\t202 } ,{\"status\":202} ]\n")).isEqualTo(2);
+
+        assertThat(countAllAccepted("")).isEqualTo(-1);
+        assertThat(countAllAccepted("[")).isEqualTo(-1);
+        assertThat(countAllAccepted("[{\"status\":202}")).isEqualTo(-1);
+        assertThat(countAllAccepted("[{\"status\":202},]")).isEqualTo(-1);
+        assertThat(countAllAccepted("[{\"status\":202}] x")).isEqualTo(-1);
+        assertThat(countAllAccepted("[{\"status\":2020}]")).isEqualTo(-1);
+        assertThat(countAllAccepted("[{\"status\":400}]")).isEqualTo(-1);
+        assertThat(countAllAccepted("[{\"status\":202,\"error\":\"\"}]")).isEqualTo(-1);
+        assertThat(countAllAccepted("[{\"error\":\"Oops!\",\"status\":202}]")).isEqualTo(-1);
+        assertThat(countAllAccepted("{\"error\":\"unknown API key - check your credentials\"}")).isEqualTo(-1);
+    }
+
+    private static int countAllAccepted(final String body) {
+        return BatchResponseBody.countAllAccepted(body.getBytes(StandardCharsets.UTF_8));
+    }
+
     @Test
     public void GIVEN_OkStatusCode_AND_aValidBatchResponse_EXPECT_batchResponseElementsToBeInitialised() {
         final String batchBody = "[" +
@@ -0,0 +1,100 @@
+package io.honeycomb.libhoney.responses.impl;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class BatchResponseElementsTest {
+
+    private static BatchResponseElements decode(final String body) throws IOException {
+        return BatchResponseElements.decode(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void GIVEN_mixedElements_WHEN_decoding_EXPECT_statusesAndSparseErrors() throws IOException {
+        final BatchResponseElements elements = decode("[" +
+            "{\"status\": 202}," +
+            "{\"error\": \"Oops!\", \"status\": 400}," +
+            "{\"status\": 202, \"extra\": {\"nested\": [1, 2]}}," +
+            "{\"status\": 429, \"error\": \"Slow down\"}" +
+            "]");
+
+        assertThat(elements.getCount()).isEqualTo(4);
+        assertThat(elements.isAllAccepted()).isFalse();
+        assertThat(elements.getStatus(0)).isEqualTo(202);
+        assertThat(elements.getError(0)).isNull();
+        assertThat(elements.getStatus(1)).isEqualTo(400);
+        assertThat(elements.getError(1)).isEqualTo("Oops!");
+        assertThat(elements.getStatus(2)).isEqualTo(202);
+        assertThat(elements.getError(2)).isNull();
+        assertThat(elements.getStatus(3)).isEqualTo(429);
+        assertThat(elements.getError(3)).isEqualTo("Slow down");
+    }
+
+    @Test
+    public void GIVEN_acceptedElementsWithUnknownFields_WHEN_decoding_EXPECT_allAccepted() throws IOException {
+        final BatchResponseElements elements = decode("[{\"status\":202,\"error\":null},{\"id\":\"x\",\"status\":202}]");
+
+        assertThat(elements.getCount()).isEqualTo(2);
+        assertThat(elements.isAllAccepted()).isTrue();
+        assertThat(elements.getStatus(1)).isEqualTo(202);
+    }
+
+    @Test
+    public void GIVEN_moreElementsThanEstimated_WHEN_decoding_EXPECT_allToBeKept() throws IOException {
+        final StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 100; i++) {
+            body.append(i == 0 ? "" : ",").append("{}");
+        }
+        final BatchResponseElements elements = decode(body.append(']').toString());
+
+        assertThat(elements.getCount()).isEqualTo(100);
+        assertThat(elements.getStatus(99)).isZero();
+    }
+
+    @Test
+    public void GIVEN_anEmptyArray_WHEN_decoding_EXPECT_noElements() throws IOException {
+        assertThat(decode("[]").getCount()).isZero();
+    }
+
+    @Test
+    public void GIVEN_malformedBodies_WHEN_decoding_EXPECT_IOException() {
+        final String[] bodies = {
+            "", "{\"error\":\"nope\"}", "[1]", "[{\"status\":\"202\"}]", "[{\"status\":202}", "[{\"status\":202},"
+        };
+        for (final String body : bodies) {
+            try {
+                decode(body);
+                fail("Expected IOException for: " + body);
+            } catch (final IOException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void GIVEN_aBodyWithinALargerBuffer_WHEN_decoding_EXPECT_onlyTheBodyToBeRead() throws IOException {
+        final byte[] buffer = "garbage[{\"status\":400,\"error\":\"bad\"}]{\"status\":"
+            .getBytes(StandardCharsets.UTF_8);
+
+        final BatchResponseElements elements = BatchResponseElements.decode(buffer, 7, 30);
+
+        assertThat(elements.getCount()).isEqualTo(1);
+        assertThat(elements.getStatus(0)).isEqualTo(400);
+        assertThat(elements.getError(0)).isEqualTo("bad");
+    }
+
+    @Test
+    public void GIVEN_aPositionOutOfBounds_WHEN_gettingStatus_EXPECT_IndexOutOfBoundsException() {
+        try {
+            BatchResponseElements.allAccepted(2).getStatus(2);
+            fail("Expected IndexOutOfBoundsException to be thrown!");
+        } catch (final IndexOutOfBoundsException e) {
+            assertThat(e).hasMessageContaining("2");
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package io.honeycomb.libhoney.responses.impl;
 
+import io.honeycomb.libhoney.BatchResponseObserver;
 import io.honeycomb.libhoney.Event;
 import io.honeycomb.libhoney.HoneyClient;
 import io.honeycomb.libhoney.LibHoney;
 import io.honeycomb.libhoney.Metrics;
+import io.honeycomb.libhoney.ResponseObserver;
 import io.honeycomb.libhoney.TestUtils;
 import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.BatchResponse;
 import io.honeycomb.libhoney.responses.ServerAccepted;
 import io.honeycomb.libhoney.responses.ServerRejected;
 import io.honeycomb.libhoney.responses.ResponseObservable;
@@ -15,12 +18,16 @@ import org.mockito.ArgumentCaptor;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -283,4 +290,78 @@ public class LazyServerResponseTest {
         assertThat(value.getMetrics()).isSameAs(resolvedEvent.getMetrics());
         assertThat(value.getEventMetadata()).isEqualTo(Collections.singletonMap("metakey", "metavalue"));
     }
+
+    @Test
+    public void GIVEN_batchAndEventObservers_WHEN_publishingBatchResponse_EXPECT_oneBatchResponseAndOneResponsePerEvent() {
+        final String batchBody = "[{\"status\":202},{\"status\":202}]";
+        final ResponseObservable observable = spy(new ResponseObservable());
+        final BatchResponseObserver batchObserver = mock(BatchResponseObserver.class);
+        observable.add(batchObserver);
+        observable.add(mock(ResponseObserver.class));
+        final List<ResolvedEvent> events = new ArrayList<>();
+        events.add(TestUtils.createTestEvent());
+        events.add(TestUtils.createTestEvent());
+
+        LazyServerResponse.publishBatchResponse(events, batchBody.getBytes(StandardCharsets.UTF_8), 200, observable);
+
+        final ArgumentCaptor<BatchResponse> batchCaptor = ArgumentCaptor.forClass(BatchResponse.class);
+        verify(batchObserver).onBatchResponse(batchCaptor.capture());
+        assertThat(batchCaptor.getValue().isAllAccepted()).isTrue();
+        assertThat(batchCaptor.getValue().getEventCount()).isEqualTo(2);
+        verify(observable, times(2)).publish(acceptedCaptor.capture());
+        assertThat(acceptedCaptor.getAllValues().get(1).getBatchData().getPositionInBatch()).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_onlyBatchObservers_WHEN_publishingBatchResponse_EXPECT_noPerEventResponses() {
+        final ResponseObservable observable = spy(new ResponseObservable());
+        observable.add(mock(BatchResponseObserver.class));
+        final List<ResolvedEvent> events = Collections.singletonList(TestUtils.createTestEvent());
+
+        LazyServerResponse.publishBatchResponse(events, "[{\"status\":202}]".getBytes(StandardCharsets.UTF_8), 200, observable);
+
+        verify(observable).publish(any(BatchResponse.class));
+        verify(observable, never()).publish(any(ServerAccepted.class));
+    }
+
+    @Test
+    public void GIVEN_anExcludedEvent_WHEN_publishingBatchResponse_EXPECT_itToBeLeftOutAndOthersToKeepTheirPosition() {
+        final String batchBody = "[{\"status\":429,\"error\":\"slow down\"},{\"status\":400,\"error\":\"bad\"}]";
+        final ResponseObservable observable = spy(new ResponseObservable());
+        final BatchResponseObserver batchObserver = mock(BatchResponseObserver.class);
+        observable.add(batchObserver);
+        observable.add(mock(ResponseObserver.class));
+        final List<ResolvedEvent> events = new ArrayList<>();
+        events.add(TestUtils.createTestEvent());
+        events.add(TestUtils.createTestEvent());
+        final BitSet excluded = new BitSet();
+        excluded.set(0);
+
+        LazyServerResponse.publishBatchResponse(
+            events, batchBody.getBytes(StandardCharsets.UTF_8), 200, excluded, observable);
+
+        final ArgumentCaptor<BatchResponse> batchCaptor = ArgumentCaptor.forClass(BatchResponse.class);
+        verify(batchObserver).onBatchResponse(batchCaptor.capture());
+        assertThat(batchCaptor.getValue().getEventCount()).isEqualTo(1);
+        assertThat(batchCaptor.getValue().getEventStatusCode(0)).isEqualTo(400);
+        assertThat(batchCaptor.getValue().getEventError(0)).isEqualTo("bad");
+        final ArgumentCaptor<ServerRejected> rejectedCaptor = ArgumentCaptor.forClass(ServerRejected.class);
+        verify(observable, times(1)).publish(rejectedCaptor.capture());
+        assertThat(rejectedCaptor.getValue().getBatchData().getPositionInBatch()).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_aBatchResponse_WHEN_findingEventsWithStatus_EXPECT_onlyAcceptedBatchesToYieldPositions() {
+        final byte[] mixed = "[{\"status\":202},{\"status\":503},{\"status\":400},{\"status\":429}]"
+            .getBytes(StandardCharsets.UTF_8);
+        final byte[] allAccepted = "[{\"status\":202},{\"status\":202}]".getBytes(StandardCharsets.UTF_8);
+        final byte[] rejected = "{\"error\":\"unknown API key\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(LazyServerResponse.findEventsWithStatus(mixed, 200, 429, 503).toString()).isEqualTo("{1, 3}");
+        assertThat(LazyServerResponse.findEventsWithStatus(allAccepted, 200, 429, 503).isEmpty()).isTrue();
+        assertThat(LazyServerResponse.findEventsWithStatus(rejected, 401, 429, 503).isEmpty()).isTrue();
+        final byte[] buffer = "[[{\"status\":503}]]".getBytes(StandardCharsets.UTF_8);
+        assertThat(LazyServerResponse.findEventsWithStatus(buffer, 1, 16, 200, new int[]{503}).toString())
+            .isEqualTo("{0}");
+    }
 }
@@ -1,7 +1,11 @@
 package io.honeycomb.libhoney.responses.impl;
 
+import io.honeycomb.libhoney.BatchResponseObserver;
 import io.honeycomb.libhoney.ResponseObserver;
+import io.honeycomb.libhoney.TransportOptions.ResponseOverflowPolicy;
+import io.honeycomb.libhoney.responses.BatchResponse;
 import io.honeycomb.libhoney.responses.ClientRejected;
+import io.honeycomb.libhoney.responses.Response;
 import io.honeycomb.libhoney.responses.ResponseObservable;
 import io.honeycomb.libhoney.responses.ServerAccepted;
 import io.honeycomb.libhoney.responses.ServerRejected;
@@ -9,6 +13,13 @@ import io.honeycomb.libhoney.responses.Unknown;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -139,6 +150,248 @@ public class ResponseObservableTest {
         verifyNoMoreInteractions(mockObserver);
     }
 
+    @Test
+    public void WHEN_publishingBatchResponse_EXPECT_onlyBatchObserversToBeNotified() {
+        final BatchResponseObserver batchObserver = mock(BatchResponseObserver.class);
+        observable.add(mockObserver);
+        observable.add(batchObserver);
+
+        observable.publish(mock(BatchResponse.class));
+
+        assertThat(observable.hasBatchObservers()).isTrue();
+        verify(batchObserver).onBatchResponse(any(BatchResponse.class));
+        verifyNoMoreInteractions(mockObserver, batchObserver);
+    }
+
+    @Test
+    public void GIVEN_addedBatchObserver_WHEN_removingOrClosing_EXPECT_noBatchObservers() {
+        final BatchResponseObserver batchObserver = mock(BatchResponseObserver.class);
+        observable.add(batchObserver);
+        observable.remove(batchObserver);
+        assertThat(observable.hasBatchObservers()).isFalse();
+
+        observable.add(batchObserver);
+        observable.close();
+        observable.publish(mock(BatchResponse.class));
+
+        assertThat(observable.hasBatchObservers()).isFalse();
+        verifyNoMoreInteractions(batchObserver);
+    }
+
+    @Test
+    public void GIVEN_asyncDispatch_WHEN_publishingBatchResponse_EXPECT_batchObserverToBeNotifiedOnADispatcherThread()
+        throws Exception {
+        observable = new ResponseObservable(1, 10, ResponseOverflowPolicy.DROP_NEWEST);
+        final List<String> threadNames = Collections.synchronizedList(new ArrayList<String>());
+        observable.add(new BatchResponseObserver() {
+            @Override
+            public void onBatchResponse(final BatchResponse batchResponse) {
+                threadNames.add(Thread.currentThread().getName());
+            }
+        });
+
+        observable.publish(mock(BatchResponse.class));
+        observable.publish(mock(Unknown.class)); // no per-event observers, so not queued
+        observable.close();
+
+        assertThat(threadNames).hasSize(1);
+        assertThat(threadNames.get(0)).startsWith("libhoney-response-dispatcher-");
+    }
+
+    @Test
+    public void GIVEN_asyncDispatch_WHEN_publishingAnyResponses_EXPECT_observerToBeNotifiedOnADispatcherThread()
+        throws Exception {
+        observable = new ResponseObservable(2, 10, ResponseOverflowPolicy.DROP_NEWEST);
+        final RecordingObserver observer = new RecordingObserver(0);
+        observable.add(observer);
+
+        observable.publish(mock(ClientRejected.class));
+        observable.publish(mock(Unknown.class));
+        observable.publish(mock(ServerRejected.class));
+        observable.publish(mock(ServerAccepted.class));
+        observable.close();
+
+        assertThat(observer.responses).hasSize(4);
+        for (final String threadName : observer.threadNames) {
+            assertThat(threadName).startsWith("libhoney-response-dispatcher-");
+        }
+    }
+
+    @Test
+    public void GIVEN_asyncDispatchWithDropNewest_WHEN_queueIsFull_EXPECT_newResponsesToBeDroppedAndCounted()
+        throws Exception {
+        observable = new ResponseObservable(1, 1, ResponseOverflowPolicy.DROP_NEWEST);
+        final RecordingObserver observer = new RecordingObserver(1);
+        observable.add(observer);
+        final Unknown first = mock(Unknown.class);
+        final Unknown queued = mock(Unknown.class);
+
+        observable.publish(first);
+        observer.awaitBlocked();
+        observable.publish(queued);
+        observable.publish(mock(Unknown.class));
+        observable.publish(mock(Unknown.class));
+        observer.unblock();
+        observable.close();
+
+        assertThat(observer.responses).containsExactly(first, queued);
+        assertThat(observable.getDroppedResponseCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void GIVEN_asyncDispatchWithDropOldest_WHEN_queueIsFull_EXPECT_oldestResponsesToBeDroppedAndCounted()
+        throws Exception {
+        observable = new ResponseObservable(1, 1, ResponseOverflowPolicy.DROP_OLDEST);
+        final RecordingObserver observer = new RecordingObserver(1);
+        observable.add(observer);
+        final Unknown first = mock(Unknown.class);
+        final Unknown last = mock(Unknown.class);
+
+        observable.publish(first);
+        observer.awaitBlocked();
+        observable.publish(mock(Unknown.class));
+        observable.publish(mock(Unknown.class));
+        observable.publish(last);
+        observer.unblock();
+        observable.close();
+
+        assertThat(observer.responses).containsExactly(first, last);
+        assertThat(observable.getDroppedResponseCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void GIVEN_asyncDispatchWithDropOldest_WHEN_publishingWhileClosing_EXPECT_dispatcherToStillBeStopped()
+        throws Exception {
+        observable = new ResponseObservable(1, 1, ResponseOverflowPolicy.DROP_OLDEST);
+        final RecordingObserver observer = new RecordingObserver(1);
+        observable.add(observer);
+        final Unknown first = mock(Unknown.class);
+        final Thread closer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                observable.close();
+            }
+        });
+
+        observable.publish(first);
+        observer.awaitBlocked();
+        closer.start();
+        // the queue is full once the dispatcher's end-of-queue marker is on it
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (observable.getPendingResponseCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        observable.publish(mock(Unknown.class));
+        observer.unblock();
+        closer.join(2000);
+
+        assertThat(closer.isAlive()).isFalse();
+        assertThat(observer.responses).containsExactly(first);
+        assertThat(observable.getDroppedResponseCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_asyncDispatchWithCallerRuns_WHEN_queueIsFull_EXPECT_responseToBePublishedOnTheCallingThread()
+        throws Exception {
+        observable = new ResponseObservable(1, 1, ResponseOverflowPolicy.CALLER_RUNS);
+        final RecordingObserver observer = new RecordingObserver(1);
+        observable.add(observer);
+
+        observable.publish(mock(Unknown.class));
+        observer.awaitBlocked();
+        observable.publish(mock(Unknown.class));
+        observable.publish(mock(Unknown.class));
+        observer.unblock();
+        observable.close();
+
+        assertThat(observer.responses).hasSize(3);
+        assertThat(observer.threadNames).contains(Thread.currentThread().getName());
+        assertThat(observable.getDroppedResponseCount()).isZero();
+    }
+
+    @Test
+    public void GIVEN_asyncDispatch_WHEN_observerThrows_EXPECT_laterResponsesToStillBePublished() throws Exception {
+        observable = new ResponseObservable(1, 10, ResponseOverflowPolicy.DROP_NEWEST);
+        final RecordingObserver observer = new RecordingObserver(0) {
+            @Override
+            public void onClientRejected(final ClientRejected clientRejected) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        observable.add(observer);
+
+        observable.publish(mock(ClientRejected.class));
+        observable.publish(mock(Unknown.class));
+        observable.close();
+
+        assertThat(observer.responses).hasSize(1);
+    }
+
+    @Test
+    public void GIVEN_asyncDispatchWithoutObservers_WHEN_publishing_EXPECT_nothingToBeQueued() {
+        observable = new ResponseObservable(1, 10, ResponseOverflowPolicy.DROP_NEWEST);
+
+        observable.publish(mock(Unknown.class));
+
+        assertThat(observable.getPendingResponseCount()).isZero();
+        observable.close();
+    }
+
+    /*
+     * Records responses and the threads they were published on, optionally blocking on the first few of them.
+     */
+    private static class RecordingObserver extends TestObserver {
+        private final List<Response> responses = Collections.synchronizedList(new ArrayList<Response>());
+        private final List<String> threadNames = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch unblocked = new CountDownLatch(1);
+        private final AtomicInteger responsesToBlockOn;
+
+        RecordingObserver(final int responsesToBlockOn) {
+            this.responsesToBlockOn = new AtomicInteger(responsesToBlockOn);
+        }
+
+        void awaitBlocked() throws InterruptedException {
+            assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        void unblock() {
+            unblocked.countDown();
+        }
+
+        @Override
+        public void onUnknown(final Unknown unknown) {
+            responses.add(unknown);
+            threadNames.add(Thread.currentThread().getName());
+            if (responsesToBlockOn.getAndDecrement() > 0) {
+                blocked.countDown();
+                try {
+                    unblocked.await(5, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void onServerAccepted(final ServerAccepted serverAccepted) {
+            responses.add(serverAccepted);
+            threadNames.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public void onServerRejected(final ServerRejected serverRejected) {
+            responses.add(serverRejected);
+            threadNames.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public void onClientRejected(final ClientRejected clientRejected) {
+            responses.add(clientRejected);
+            threadNames.add(Thread.currentThread().getName());
+        }
+    }
+
     private static class TestObserver implements ResponseObserver {
         @Override
         public void onServerAccepted(final ServerAccepted serverAccepted) {
@@ -0,0 +1,99 @@
+package io.honeycomb.libhoney.responses.impl;
+
+import io.honeycomb.libhoney.TestUtils;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.BatchResponse;
+import io.honeycomb.libhoney.responses.ServerResponse;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class SimpleBatchResponseTest {
+    private List<ResolvedEvent> events;
+
+    @Before
+    public void setUp() {
+        events = new ArrayList<>();
+        events.add(TestUtils.createTestEvent());
+        events.add(TestUtils.createTestEvent());
+    }
+
+    private BatchResponse createResponse(final String body, final int httpCode) {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return new SimpleBatchResponse(httpCode, bytes, events, null, new BatchResponseBody(bytes, httpCode));
+    }
+
+    @Test
+    public void GIVEN_anAllAcceptedBody_EXPECT_allEventsToBeAccepted() {
+        final BatchResponse response = createResponse("[{\"status\":202},{\"status\":202}]", 200);
+
+        assertThat(response.isAllAccepted()).isTrue();
+        assertThat(response.getBatchStatusCode()).isEqualTo(200);
+        assertThat(response.getEventCount()).isEqualTo(2);
+        assertThat(response.getEventStatusCode(1)).isEqualTo(202);
+        assertThat(response.getEventError(1)).isNull();
+        assertThat(response.getBatchError()).isNull();
+        assertThat(response.getEventMetadata()).hasSize(2).containsOnly(Collections.<String, Object>emptyMap());
+    }
+
+    @Test
+    public void GIVEN_aPartiallyAcceptedBody_EXPECT_individualStatusesAndErrors() {
+        final BatchResponse response = createResponse("[{\"status\":202},{\"status\":400,\"error\":\"Oops!\"}]", 200);
+
+        assertThat(response.isAllAccepted()).isFalse();
+        assertThat(response.getEventStatusCode(0)).isEqualTo(202);
+        assertThat(response.getEventError(0)).isNull();
+        assertThat(response.getEventStatusCode(1)).isEqualTo(400);
+        assertThat(response.getEventError(1)).isEqualTo("Oops!");
+        assertThat(response.getBatchError()).isNull();
+    }
+
+    @Test
+    public void GIVEN_aBodyWithTooFewElements_EXPECT_missingEventsToHaveNoStatus() {
+        final BatchResponse response = createResponse("[{\"status\":202}]", 200);
+
+        assertThat(response.isAllAccepted()).isFalse();
+        assertThat(response.getEventStatusCode(0)).isEqualTo(202);
+        assertThat(response.getEventStatusCode(1)).isEqualTo(ServerResponse.EVENT_STATUS_NOT_AVAILABLE);
+        assertThat(response.getEventError(1)).isNotNull();
+    }
+
+    @Test
+    public void GIVEN_aRejectedBatch_EXPECT_batchErrorForAllEvents() {
+        final BatchResponse response = createResponse("{\"error\":\"unknown API key\"}", 401);
+
+        assertThat(response.isAllAccepted()).isFalse();
+        assertThat(response.getBatchStatusCode()).isEqualTo(401);
+        assertThat(response.getBatchError()).isEqualTo("unknown API key");
+        assertThat(response.getEventStatusCode(0)).isEqualTo(ServerResponse.EVENT_STATUS_NOT_AVAILABLE);
+        assertThat(response.getEventError(1)).isEqualTo("unknown API key");
+    }
+
+    @Test
+    public void GIVEN_anUnparseableBody_EXPECT_batchError() {
+        final BatchResponse response = createResponse("not json", 200);
+
+        assertThat(response.isAllAccepted()).isFalse();
+        assertThat(response.getBatchError()).isNotNull();
+        assertThat(response.getEventStatusCode(0)).isEqualTo(ServerResponse.EVENT_STATUS_NOT_AVAILABLE);
+    }
+
+    @Test
+    public void GIVEN_aPositionOutsideTheBatch_EXPECT_IndexOutOfBoundsException() {
+        final BatchResponse response = createResponse("[{\"status\":202},{\"status\":202}]", 200);
+
+        try {
+            response.getEventStatusCode(2);
+            fail("Expected IndexOutOfBoundsException to be thrown!");
+        } catch (final IndexOutOfBoundsException e) {
+            assertThat(e).hasMessageContaining("2");
+        }
+    }
+}
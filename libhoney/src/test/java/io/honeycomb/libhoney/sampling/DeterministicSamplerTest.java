@@ -0,0 +1,89 @@
+package io.honeycomb.libhoney.sampling;
+
+import io.honeycomb.libhoney.Event;
+import io.honeycomb.libhoney.HoneyClient;
+import io.honeycomb.libhoney.LibHoney;
+import io.honeycomb.libhoney.Sampler;
+import io.honeycomb.libhoney.transport.Transport;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DeterministicSamplerTest {
+    private HoneyClient client;
+
+    @Before
+    public void setUp() {
+        client = new HoneyClient(LibHoney.options().build(), mock(Transport.class));
+    }
+
+    @Test
+    public void GIVEN_knownTraceIds_WHEN_sampling_EXPECT_sameDecisionsAsTheBeelines() {
+        // expected decisions derived from the first 4 bytes of each value's SHA-1 hash
+        assertThat(DeterministicSampler.sample("4bf92f3577b34da6a3ce929d0e0e4736", 10)).isTrue();
+        assertThat(DeterministicSampler.sample("foo", 10)).isTrue();
+        assertThat(DeterministicSampler.sample("trace-1", 10)).isFalse();
+        assertThat(DeterministicSampler.sample("world", 2)).isTrue();
+        assertThat(DeterministicSampler.sample("hello", 2)).isFalse();
+        assertThat(DeterministicSampler.sample("baz", 2)).isFalse();
+    }
+
+    @Test
+    public void GIVEN_sampleRateOf1_WHEN_sampling_EXPECT_everythingToBeSampled() {
+        assertThat(DeterministicSampler.sample("hello", 1)).isTrue();
+        assertThat(DeterministicSampler.sample("baz", 1)).isTrue();
+    }
+
+    @Test
+    public void GIVEN_manyTraceIds_WHEN_sampling_EXPECT_sampledFractionToMatchTheSampleRate() {
+        final DeterministicSampler sampler = new DeterministicSampler(DeterministicSampler.TRACE_ID_FIELD);
+        int sampled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            final Event event = client.createEvent()
+                .setSampleRate(4)
+                .addField(DeterministicSampler.TRACE_ID_FIELD, "trace-" + i);
+            if (sampler.sample(event)) {
+                sampled++;
+            }
+        }
+
+        assertThat(sampled / 10_000d).isCloseTo(0.25, offset(0.02));
+    }
+
+    @Test
+    public void GIVEN_eventsWithTheSameTraceId_WHEN_sampling_EXPECT_sameDecision() {
+        final DeterministicSampler sampler = new DeterministicSampler(DeterministicSampler.TRACE_ID_FIELD);
+        for (int i = 0; i < 100; i++) {
+            final String traceId = "trace-" + i;
+            final boolean decision = DeterministicSampler.sample(traceId, 3);
+            for (int j = 0; j < 5; j++) {
+                final Event event = client.createEvent()
+                    .setSampleRate(3)
+                    .addField(DeterministicSampler.TRACE_ID_FIELD, traceId);
+                assertThat(sampler.sample(event)).isEqualTo(decision);
+            }
+        }
+    }
+
+    @Test
+    public void GIVEN_anEventWithoutTheField_WHEN_sampling_EXPECT_fallbackToDecide() {
+        final Sampler fallback = mock(Sampler.class);
+        final Event event = client.createEvent().setSampleRate(1000).addField("other", "value");
+        when(fallback.sample(event)).thenReturn(true);
+
+        final boolean sampled = new DeterministicSampler(DeterministicSampler.TRACE_ID_FIELD, fallback).sample(event);
+
+        assertThat(sampled).isTrue();
+        verify(fallback).sample(event);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void GIVEN_anEmptyFieldName_WHEN_creatingSampler_EXPECT_IAE() {
+        new DeterministicSampler("");
+    }
+}
@@ -0,0 +1,200 @@
+package io.honeycomb.libhoney.sampling;
+
+import io.honeycomb.libhoney.Event;
+import io.honeycomb.libhoney.HoneyClient;
+import io.honeycomb.libhoney.LibHoney;
+import io.honeycomb.libhoney.transport.Transport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class EmaDynamicSamplerTest {
+    private static final long NEVER = 3_600_000L;
+
+    private HoneyClient client;
+    private EmaDynamicSampler sampler;
+
+    @Before
+    public void setUp() {
+        client = new HoneyClient(LibHoney.options().build(), mock(Transport.class));
+    }
+
+    @After
+    public void tearDown() {
+        if (sampler != null) {
+            sampler.close();
+        }
+    }
+
+    private Event eventWithStatus(final Object status) {
+        return client.createEvent().addField("status", status).addField("route", "/home");
+    }
+
+    private void sampleEvents(final Object status, final int count) {
+        for (int i = 0; i < count; i++) {
+            sampler.sample(eventWithStatus(status));
+        }
+    }
+
+    @Test
+    public void GIVEN_keysWithVeryDifferentCounts_WHEN_calculatingRates_EXPECT_frequentKeysToBeSampledMoreHeavily() {
+        final Map<String, Double> counts = new HashMap<>();
+        counts.put("frequent", 10_000d);
+        counts.put("medium", 100d);
+        counts.put("rare", 2d);
+        final double goalCount = 10_102d / 10;
+
+        final Map<String, Integer> rates = EmaDynamicSampler.calculateSampleRates(counts, goalCount);
+
+        assertThat(rates.get("rare")).isEqualTo(1);
+        assertThat(rates.get("medium")).isGreaterThanOrEqualTo(1).isLessThan(rates.get("frequent"));
+        double sentCount = 0;
+        for (final Map.Entry<String, Double> entry : counts.entrySet()) {
+            sentCount += entry.getValue() / rates.get(entry.getKey());
+        }
+        assertThat(sentCount).isBetween(goalCount * 0.9, goalCount * 1.1);
+    }
+
+    @Test
+    public void GIVEN_aGoalAboveTheTotalCount_WHEN_calculatingRates_EXPECT_everythingToBeKept() {
+        final Map<String, Double> counts = new HashMap<>();
+        counts.put("a", 50d);
+        counts.put("b", 5d);
+
+        final Map<String, Integer> rates = EmaDynamicSampler.calculateSampleRates(counts, 100);
+
+        assertThat(rates).containsEntry("a", 1).containsEntry("b", 1);
+    }
+
+    @Test
+    public void GIVEN_noAdjustmentYet_WHEN_sampling_EXPECT_eventsToBeKeptAtRate1() {
+        sampler = EmaDynamicSampler.builder().setKeyFields("status").setAdjustmentIntervalMillis(NEVER).build();
+        final Event event = eventWithStatus(200).setSampleRate(50);
+
+        final boolean sampled = sampler.sample(event);
+
+        assertThat(sampled).isTrue();
+        assertThat(event.getSampleRate()).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_anAdjustment_WHEN_sampling_EXPECT_adjustedRateToBeWrittenToTheEvent() {
+        sampler = EmaDynamicSampler.builder()
+            .setKeyFields("status", "route")
+            .setGoalSampleRate(10)
+            .setAdjustmentIntervalMillis(NEVER)
+            .build();
+        sampleEvents(200, 10_000);
+        sampleEvents(500, 10);
+
+        sampler.adjustSampleRates();
+        final Event frequent = eventWithStatus(200);
+        final Event rare = eventWithStatus(500);
+        sampler.sample(frequent);
+        sampler.sample(rare);
+
+        assertThat(sampler.getSampleRates()).containsOnlyKeys("200,/home", "500,/home");
+        assertThat(frequent.getSampleRate()).isGreaterThan(10);
+        assertThat(rare.getSampleRate()).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_aGoalThroughput_WHEN_adjusting_EXPECT_ratesToBringTheTotalDownToTheGoal() {
+        sampler = EmaDynamicSampler.builder()
+            .setKeyFields("status")
+            .setGoalThroughputPerSecond(10)
+            .setAdjustmentIntervalMillis(NEVER)
+            .build();
+        sampleEvents(200, 5_000);
+
+        sampler.adjustSampleRates();
+
+        // a 1 hour interval with 10 events per second means a goal of 36000 events, so nothing needs sampling
+        assertThat(sampler.getSampleRates()).containsEntry("200", 1);
+    }
+
+    @Test
+    public void GIVEN_aGoalThroughputBelowTheTraffic_WHEN_adjusting_EXPECT_rateForThatThroughput() {
+        sampler = EmaDynamicSampler.builder()
+            .setKeyFields("status")
+            .setGoalThroughputPerSecond(1)
+            .setAdjustmentIntervalMillis(NEVER)
+            .build();
+        sampleEvents(200, 360_000);
+
+        sampler.adjustSampleRates();
+
+        // a goal of 3600 events for the hour
+        assertThat(sampler.getSampleRates().get("200")).isBetween(100, 101);
+    }
+
+    @Test
+    public void GIVEN_aKeyWithoutFurtherEvents_WHEN_adjustingRepeatedly_EXPECT_keyToAgeOut() {
+        sampler = EmaDynamicSampler.builder()
+            .setKeyFields("status")
+            .setAdjustmentIntervalMillis(NEVER)
+            .build();
+        sampleEvents(200, 100);
+        sampleEvents(500, 1);
+        sampler.adjustSampleRates();
+        assertThat(sampler.getSampleRates()).containsKey("500");
+
+        // the average halves with every interval without events, until it drops below the age out value
+        for (int i = 0; i < 2; i++) {
+            sampleEvents(200, 100);
+            sampler.adjustSampleRates();
+        }
+
+        assertThat(sampler.getSampleRates()).containsOnlyKeys("200");
+    }
+
+    @Test
+    public void GIVEN_moreKeysThanTracked_WHEN_sampling_EXPECT_untrackedKeysToGetTheGoalSampleRate() {
+        sampler = EmaDynamicSampler.builder()
+            .setKeyFields("status")
+            .setGoalSampleRate(7)
+            .setMaxKeys(1)
+            .setAdjustmentIntervalMillis(NEVER)
+            .build();
+        final Event tracked = eventWithStatus(200);
+        final Event untracked = eventWithStatus(500);
+
+        sampler.sample(tracked);
+        sampler.sample(untracked);
+
+        assertThat(tracked.getSampleRate()).isEqualTo(1);
+        assertThat(untracked.getSampleRate()).isEqualTo(7);
+    }
+
+    @Test
+    public void GIVEN_aBurstOfEvents_WHEN_sampling_EXPECT_ratesToBeAdjustedBeforeTheIntervalEnds() throws Exception {
+        sampler = EmaDynamicSampler.builder()
+            .setKeyFields("status")
+            .setGoalThroughputPerSecond(1)
+            .setAdjustmentIntervalMillis(NEVER)
+            .build();
+        sampleEvents(200, 100);
+        sampler.adjustSampleRates();
+        assertThat(sampler.getSampleRates()).containsEntry("200", 1);
+
+        // well beyond the goal of 3600 events for the hour
+        sampleEvents(200, 100_000);
+
+        final long deadline = System.currentTimeMillis() + 5_000L;
+        while (sampler.getSampleRates().get("200") == 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(sampler.getSampleRates().get("200")).isGreaterThan(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void GIVEN_noKeyFields_WHEN_building_EXPECT_IAE() {
+        EmaDynamicSampler.builder().build();
+    }
+}
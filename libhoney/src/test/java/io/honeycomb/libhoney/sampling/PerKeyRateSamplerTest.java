@@ -0,0 +1,80 @@
+package io.honeycomb.libhoney.sampling;
+
+import io.honeycomb.libhoney.Event;
+import io.honeycomb.libhoney.HoneyClient;
+import io.honeycomb.libhoney.LibHoney;
+import io.honeycomb.libhoney.Sampler;
+import io.honeycomb.libhoney.transport.Transport;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PerKeyRateSamplerTest {
+    private HoneyClient client;
+    private Sampler delegate;
+    private PerKeyRateSampler sampler;
+
+    @Before
+    public void setUp() {
+        client = new HoneyClient(LibHoney.options().build(), mock(Transport.class));
+        delegate = mock(Sampler.class);
+        final Map<String, Integer> rates = new HashMap<>();
+        rates.put("200", 100);
+        rates.put("500", 1);
+        sampler = new PerKeyRateSampler("status", rates, delegate);
+    }
+
+    @Test
+    public void GIVEN_anEventWithAConfiguredKey_WHEN_sampling_EXPECT_rateToBeAppliedBeforeDelegating() {
+        final Event event = client.createEvent().setSampleRate(5).addField("status", 200);
+        when(delegate.sample(event)).thenReturn(true);
+
+        final boolean sampled = sampler.sample(event);
+
+        assertThat(sampled).isTrue();
+        assertThat(event.getSampleRate()).isEqualTo(100);
+        verify(delegate).sample(event);
+    }
+
+    @Test
+    public void GIVEN_anEventWithAnUnknownKey_WHEN_sampling_EXPECT_eventToKeepItsRate() {
+        final Event event = client.createEvent().setSampleRate(5).addField("status", 404);
+
+        final boolean sampled = sampler.sample(event);
+
+        assertThat(sampled).isFalse();
+        assertThat(event.getSampleRate()).isEqualTo(5);
+        verify(delegate).sample(event);
+    }
+
+    @Test
+    public void GIVEN_anEventWithoutTheField_WHEN_sampling_EXPECT_eventToKeepItsRate() {
+        final Event event = client.createEvent().setSampleRate(5).addField("other", "200");
+
+        sampler.sample(event);
+
+        assertThat(event.getSampleRate()).isEqualTo(5);
+    }
+
+    @Test
+    public void GIVEN_theDefaultDelegate_WHEN_samplingAKeyWithRate1_EXPECT_eventToBeSampled() {
+        final PerKeyRateSampler defaultSampler =
+            new PerKeyRateSampler("status", Collections.singletonMap("500", 1));
+        final Event event = client.createEvent().setSampleRate(Integer.MAX_VALUE).addField("status", "500");
+
+        assertThat(defaultSampler.sample(event)).isTrue();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void GIVEN_aRateBelow1_WHEN_creatingSampler_EXPECT_IAE() {
+        new PerKeyRateSampler("status", Collections.singletonMap("200", 0));
+    }
+}
@@ -0,0 +1,199 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AimdConcurrencyLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void GIVEN_aMaximum_EXPECT_limitToStartAtATenthOfIt() {
+        assertThat(new AimdConcurrencyLimiter(250).getLimit()).isEqualTo(25);
+        assertThat(new AimdConcurrencyLimiter(5).getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_theLimitIsUsed_WHEN_requestsCompleteNormally_EXPECT_limitToGrowByOneEachUpToTheMaximum()
+        throws InterruptedException {
+        final AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 4);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.acquire();
+            limiter.release(FAST, false);
+            limiter.release(FAST, false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getPending()).isEqualTo(0);
+    }
+
+    @Test
+    public void GIVEN_theLimitIsNotUsed_WHEN_requestsCompleteNormally_EXPECT_limitToStay() throws InterruptedException {
+        final AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 100);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.release(FAST, false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    public void GIVEN_congestedRequests_EXPECT_limitToDropByATenthEachButNotBelow1() throws InterruptedException {
+        final AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(100, 100);
+
+        limiter.acquire();
+        limiter.release(-1, true);
+        assertThat(limiter.getLimit()).isEqualTo(90);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+            limiter.release(-1, true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    public void WHEN_theRequestsPendingAtADecreaseAreCongested_EXPECT_limitToDropOnlyOnce() throws InterruptedException {
+        final AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(100, 100);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+        }
+        for (int i = 0; i < 100; i++) {
+            limiter.release(FAST * 10, true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(90);
+
+        limiter.acquire();
+        limiter.release(FAST * 10, true);
+        assertThat(limiter.getLimit()).isEqualTo(81);
+    }
+
+    @Test
+    public void GIVEN_fastCongestedResponses_WHEN_requestsThenCompleteNormally_EXPECT_baselineToIgnoreThem_AND_limitToGrow()
+        throws InterruptedException {
+        final AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 10);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.release(FAST / 100, true);
+        }
+        assertThat(limiter.getBaselineLatencyNanos()).isEqualTo(-1);
+        final int limitAfterFailures = limiter.getLimit();
+        assertThat(limitAfterFailures).isLessThan(10);
+
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 3; j++) {
+                limiter.acquire();
+            }
+            for (int j = 0; j < 3; j++) {
+                limiter.release(FAST, false);
+            }
+        }
+
+        assertThat(limiter.getBaselineLatencyNanos()).isEqualTo(FAST);
+        assertThat(limiter.getLimit()).isGreaterThan(limitAfterFailures);
+    }
+
+    @Test
+    public void GIVEN_aBaselineLatency_WHEN_aRequestTakesMoreThanTwiceAsLong_EXPECT_limitToDrop() throws InterruptedException {
+        final AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 10);
+        limiter.acquire();
+        limiter.release(FAST, false);
+        assertThat(limiter.getBaselineLatencyNanos()).isEqualTo(FAST);
+
+        limiter.acquire();
+        limiter.release(FAST * 3, false);
+
+        assertThat(limiter.getLimit()).isEqualTo(9);
+        assertThat(limiter.getBaselineLatencyNanos()).isGreaterThan(FAST).isLessThan(FAST * 2);
+    }
+
+    @Test
+    public void GIVEN_requestsWithoutResponse_WHEN_notCongested_EXPECT_limitAndBaselineToStay() throws InterruptedException {
+        final AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(1, 10);
+
+        limiter.acquire();
+        limiter.release(-1, false);
+
+        assertThat(limiter.getLimit()).isEqualTo(1);
+        assertThat(limiter.getBaselineLatencyNanos()).isEqualTo(-1);
+    }
+
+    @Test
+    public void GIVEN_theLimitIsReached_WHEN_acquiring_EXPECT_threadToBlockUntilARelease() throws Exception {
+        final AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(1, 10);
+        limiter.acquire();
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    limiter.acquire();
+                    acquired.countDown();
+                } catch (final InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+
+        assertThat(acquired.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        limiter.release(FAST, false);
+
+        assertThat(acquired.await(1, TimeUnit.SECONDS)).isTrue();
+        thread.join();
+    }
+
+    @Test
+    public void GIVEN_pendingRequests_WHEN_awaitingNoPending_EXPECT_timeoutUntilAllAreReleased() throws InterruptedException {
+        final AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 10);
+        limiter.acquire();
+
+        assertThat(limiter.awaitNoPending(10, TimeUnit.MILLISECONDS)).isFalse();
+        limiter.release(FAST, false);
+        assertThat(limiter.awaitNoPending(10, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    @Test
+    public void WHEN_loweringTheMaximumBelowTheLimit_EXPECT_limitToDropToIt_AND_notGrowBeyondIt()
+        throws InterruptedException {
+        final AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 100);
+
+        limiter.setMaxLimit(4);
+
+        assertThat(limiter.getMaxLimit()).isEqualTo(4);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 4; j++) {
+                limiter.acquire();
+            }
+            for (int j = 0; j < 4; j++) {
+                limiter.release(FAST, false);
+            }
+        }
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    public void WHEN_raisingTheMaximum_EXPECT_limitToGrowUpToIt() throws InterruptedException {
+        final AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 2);
+
+        limiter.setMaxLimit(3);
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.acquire();
+            limiter.release(FAST, false);
+            limiter.release(FAST, false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,186 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.TestUtils;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.ResponseObservable;
+import io.honeycomb.libhoney.responses.Unknown;
+import io.honeycomb.libhoney.transport.batch.BatchConsumer;
+import io.honeycomb.libhoney.transport.batch.Batcher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("unchecked")
+public class BatchRetrierTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private BatchConsumer<ResolvedEvent> consumerMock;
+    private ResponseObservable observableMock;
+    private BatchRetrier retrier;
+
+    @Before
+    public void setUp() {
+        consumerMock = mock(BatchConsumer.class);
+        observableMock = mock(ResponseObservable.class);
+        retrier = new BatchRetrier(2, 1, 1, 1.0, observableMock, null);
+    }
+
+    @After
+    public void tearDown() {
+        retrier.close();
+    }
+
+    @Test
+    public void GIVEN_anInitialAndMaximumBackoff_EXPECT_backoffToDoubleUpToTheMaximum_AND_jitterToStayWithinBounds() {
+        retrier = new BatchRetrier(10, 100, 1_000, 1.0, observableMock, null);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(retrier.backoffMillis(1)).isBetween(50L, 100L);
+            assertThat(retrier.backoffMillis(2)).isBetween(100L, 200L);
+            assertThat(retrier.backoffMillis(4)).isBetween(400L, 800L);
+            assertThat(retrier.backoffMillis(5)).isBetween(500L, 1_000L);
+            assertThat(retrier.backoffMillis(64)).isBetween(500L, 1_000L);
+        }
+    }
+
+    @Test
+    public void GIVEN_budget_WHEN_retrying_EXPECT_eventsToBeMarkedAndSentAgainAsOneBatch() throws InterruptedException {
+        final List<ResolvedEvent> events = createTestEvents(2);
+        retrier.recordSent(events);
+
+        final List<ResolvedEvent> notRetried = retrier.retry(events, consumerMock);
+
+        assertThat(notRetried).isEmpty();
+        verify(consumerMock, timeout(1000)).consume(events);
+        assertThat(events.get(0).getRetryCount()).isEqualTo(1);
+        assertThat(retrier.getRetriedEventCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void GIVEN_aBatcherToRetryThrough_WHEN_retrying_EXPECT_eventsToBeOfferedToIt_AND_rejectedOnesToBePublished()
+        throws InterruptedException {
+        final Batcher<ResolvedEvent> batcherMock = mock(Batcher.class);
+        final List<ResolvedEvent> events = createTestEvents(2);
+        when(batcherMock.offerEvent(events.get(0))).thenReturn(true);
+        when(batcherMock.offerEvent(events.get(1))).thenReturn(false);
+        retrier.retryThrough(batcherMock);
+        retrier.recordSent(events);
+
+        retrier.retry(events, consumerMock);
+
+        final ArgumentCaptor<Unknown> captor = ArgumentCaptor.forClass(Unknown.class);
+        verify(observableMock, timeout(1000)).publish(captor.capture());
+        assertThat(captor.getValue().getReason()).isEqualTo(Unknown.ReasonType.HTTP_CLIENT_ERROR);
+        verify(batcherMock).offerEvent(events.get(0));
+        verify(consumerMock, never()).consume(ArgumentMatchers.<ResolvedEvent>anyList());
+    }
+
+    @Test
+    public void GIVEN_eventsThatUsedUpTheirRetries_WHEN_retrying_EXPECT_themToBeReturned() {
+        final List<ResolvedEvent> events = createTestEvents(2);
+        retrier.recordSent(events);
+        events.get(1).markRetry();
+        events.get(1).markRetry();
+
+        final List<ResolvedEvent> notRetried = retrier.retry(events, consumerMock);
+
+        assertThat(notRetried).containsExactly(events.get(1));
+        assertThat(retrier.getExhaustedEventCount()).isEqualTo(1);
+        assertThat(retrier.getRetriedEventCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_anExhaustedBudget_WHEN_retrying_EXPECT_eventsBeyondTheBudgetToBeReturned() {
+        retrier = new BatchRetrier(2, 1, 1, 0.5, observableMock, null);
+        final List<ResolvedEvent> events = createTestEvents(4);
+        retrier.recordSent(events);
+
+        final List<ResolvedEvent> notRetried = retrier.retry(events, consumerMock);
+
+        assertThat(notRetried).containsExactly(events.get(2), events.get(3));
+        assertThat(retrier.getBudgetExceededEventCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void GIVEN_retriedEvents_WHEN_sendingThemAgain_EXPECT_noBudgetToBeDeposited() {
+        final List<ResolvedEvent> events = createTestEvents(1);
+        events.get(0).markRetry();
+
+        retrier.recordSent(events);
+
+        assertThat(retrier.retry(events, consumerMock)).containsExactly(events.get(0));
+    }
+
+    @Test
+    public void GIVEN_aPendingRetry_WHEN_closing_EXPECT_itToBeAbandonedAndPublished() throws InterruptedException {
+        retrier = new BatchRetrier(2, 60_000, 60_000, 1.0, observableMock, null);
+        final List<ResolvedEvent> events = createTestEvents(2);
+        retrier.recordSent(events);
+        retrier.retry(events, consumerMock);
+        assertThat(retrier.getPendingRetryCount()).isEqualTo(2);
+
+        retrier.close();
+
+        final ArgumentCaptor<Unknown> captor = ArgumentCaptor.forClass(Unknown.class);
+        verify(observableMock, times(2)).publish(captor.capture());
+        assertThat(captor.getValue().getReason()).isEqualTo(Unknown.ReasonType.HTTP_CLIENT_ERROR);
+        assertThat(retrier.getPendingRetryCount()).isEqualTo(0);
+        verify(consumerMock, never()).consume(ArgumentMatchers.<ResolvedEvent>anyList());
+    }
+
+    @Test
+    public void GIVEN_aPendingRetryAndASpool_WHEN_closing_EXPECT_itsEventsToBeSpooledRatherThanPublished()
+        throws IOException {
+        final EventSpool spool = new EventSpool(
+            temporaryFolder.newFolder().toPath(), 64 * 1024, 64 * 1024, 10, SystemClockProvider.getInstance());
+        retrier = new BatchRetrier(2, 60_000, 60_000, 1.0, observableMock, spool);
+        final List<ResolvedEvent> events = createTestEvents(2);
+        retrier.recordSent(events);
+        retrier.retry(events, consumerMock);
+
+        retrier.close();
+
+        assertThat(spool.getSpooledEventCount()).isEqualTo(2);
+        verifyNoInteractions(observableMock);
+        spool.close();
+    }
+
+    @Test
+    public void GIVEN_aClosedRetrier_WHEN_retrying_EXPECT_allEventsToBeReturned() {
+        final List<ResolvedEvent> events = createTestEvents(2);
+        retrier.recordSent(events);
+        retrier.close();
+
+        assertThat(retrier.retry(events, consumerMock)).isEqualTo(events);
+    }
+
+    @Test
+    public void GIVEN_batchStatusCodes_EXPECT_onlyOverloadAndServerErrorsToBeRetryable() {
+        assertThat(BatchRetrier.isRetryableStatus(429)).isTrue();
+        assertThat(BatchRetrier.isRetryableStatus(500)).isTrue();
+        assertThat(BatchRetrier.isRetryableStatus(503)).isTrue();
+        assertThat(BatchRetrier.isRetryableStatus(200)).isFalse();
+        assertThat(BatchRetrier.isRetryableStatus(400)).isFalse();
+        assertThat(BatchRetrier.isRetryableStatus(401)).isFalse();
+    }
+
+    private List<ResolvedEvent> createTestEvents(final int count) {
+        final ResolvedEvent[] events = new ResolvedEvent[count];
+        for (int i = 0; i < count; i++) {
+            events[i] = TestUtils.createTestEvent();
+        }
+        return Arrays.asList(events);
+    }
+}
@@ -0,0 +1,61 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import org.junit.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BlockingOverflowHandlerTest {
+
+    @Test
+    public void GIVEN_aQueueWithSpace_WHEN_offering_EXPECT_eventToBeAcceptedWithoutBlocking() throws Exception {
+        final BlockingOverflowHandler<String> handler = new BlockingOverflowHandler<>(1_000);
+        final BlockingQueue<String> queue = new ArrayBlockingQueue<>(1);
+
+        assertThat(handler.offer(queue, "event")).isTrue();
+
+        assertThat(handler.getBlockedEventCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void GIVEN_aFullQueueThatIsDrainedWithinTheTimeout_WHEN_offering_EXPECT_eventToBeAccepted()
+        throws Exception {
+        final BlockingOverflowHandler<String> handler = new BlockingOverflowHandler<>(5_000);
+        final BlockingQueue<String> queue = new ArrayBlockingQueue<>(1);
+        queue.add("first");
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    queue.poll();
+                }
+            }, 50, TimeUnit.MILLISECONDS);
+
+            assertThat(handler.offer(queue, "second")).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(queue).containsExactly("second");
+        assertThat(handler.getBlockedEventCount()).isEqualTo(1);
+        assertThat(handler.getRejectedEventCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void GIVEN_aFullQueue_WHEN_theTimeoutPasses_EXPECT_eventToBeRejected() throws Exception {
+        final BlockingOverflowHandler<String> handler = new BlockingOverflowHandler<>(10);
+        final BlockingQueue<String> queue = new ArrayBlockingQueue<>(1);
+        queue.add("first");
+
+        assertThat(handler.offer(queue, "second")).isFalse();
+
+        assertThat(handler.getBlockedEventCount()).isEqualTo(1);
+        assertThat(handler.getRejectedEventCount()).isEqualTo(1);
+    }
+}
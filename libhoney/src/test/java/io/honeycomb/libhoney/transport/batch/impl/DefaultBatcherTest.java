@@ -1,8 +1,11 @@
 package io.honeycomb.libhoney.transport.batch.impl;
 
+import io.honeycomb.libhoney.TransportStats;
 import io.honeycomb.libhoney.transport.batch.BatchConsumer;
 import io.honeycomb.libhoney.transport.batch.BatchKeyStrategy;
 import io.honeycomb.libhoney.transport.batch.ClockProvider;
+import io.honeycomb.libhoney.transport.batch.EventSizeEstimator;
+import io.honeycomb.libhoney.transport.batch.OverflowHandler;
 import org.assertj.core.api.AutoCloseableSoftAssertions;
 import org.assertj.core.api.ThrowableAssert;
 import org.junit.After;
@@ -79,6 +82,33 @@ public class DefaultBatcherTest {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void GIVEN_anOverflowHandler_WHEN_offeringAnEvent_EXPECT_theHandlerToDecideWhetherItIsAccepted()
+        throws InterruptedException {
+        // GIVEN a batcher whose overflow handler rejects every event
+        final OverflowHandler<TestEvent> handlerMock = mock(OverflowHandler.class);
+        final BlockingQueue<TestEvent> queue = new ArrayBlockingQueue<>(DEFAULT_QUEUE_CAPACITY);
+        final TestEvent event = new TestEvent("key1", "data1");
+        when(handlerMock.offer(queue, event)).thenReturn(false);
+        batcher = DefaultBatcher.<TestEvent, String>builder()
+            .setBatchKeyStrategy(mockKeyGen)
+            .setBatchConsumer(consumerMock)
+            .setClockProvider(SystemClockProvider.getInstance())
+            .setPendingQueue(queue)
+            .setBatchSize(DEFAULT_BATCH_SIZE)
+            .setBatchTimeoutMillis(DEFAULT_TIMEOUT)
+            .setOverflowHandler(handlerMock)
+            .build();
+
+        // WHEN offering an event
+        final boolean submitted = batcher.offerEvent(event);
+
+        // EXPECT the handler's decision to be returned
+        assertThat(submitted).isFalse();
+        verify(handlerMock).offer(queue, event);
+    }
+
     @Test
     public void GIVEN_aClosedBatcherInstance_EXPECT_submittedEventToBeRejected() throws InterruptedException {
         // GIVEN a closed batcher
@@ -156,6 +186,39 @@ public class DefaultBatcherTest {
         assertThat(allValues).containsExactlyInAnyOrder(expectedBatchWithKey1, expectedBatchWithKey2);
     }
 
+    @Test
+    public void GIVEN_metrics_WHEN_fullAndFlushedBatchesAreConsumed_EXPECT_theirFillToBeRecorded()
+        throws InterruptedException {
+        // GIVEN a batcher with a batch size of 10 that records to metrics
+        final TransportMetrics metrics = new TransportMetrics();
+        batcher = DefaultBatcher.<TestEvent, String>builder()
+            .setBatchKeyStrategy(mockKeyGen)
+            .setBatchConsumer(consumerMock)
+            .setClockProvider(SystemClockProvider.getInstance())
+            .setPendingQueue(new ArrayBlockingQueue<TestEvent>(100))
+            .setBatchSize(10)
+            .setBatchTimeoutMillis(DEFAULT_TIMEOUT)
+            .setMetrics(metrics)
+            .build();
+        assertThat(metrics.snapshot().getGauge(TransportStats.QUEUE_CAPACITY)).isEqualTo(100);
+
+        // WHEN submitting a full batch and a batch of 3 that is flushed on close
+        for (final TestEvent testEvent : createEvents(13, "key1")) {
+            batcher.offerEvent(testEvent);
+        }
+        verify(consumerMock, timeout(1000)).consume(ArgumentMatchers.<TestEvent>anyList());
+        batcher.close();
+
+        // EXPECT both batches to be recorded with their fill
+        final TransportStats stats = metrics.snapshot();
+        assertThat(stats.getCounter(TransportStats.BATCHES)).isEqualTo(2);
+        final TransportStats.HistogramStats fill = stats.getHistogram(TransportStats.BATCH_FILL_PERCENT);
+        assertThat(fill.getCount()).isEqualTo(2);
+        assertThat(fill.getSum()).isEqualTo(130);
+        assertThat(fill.getMax()).isEqualTo(100);
+        assertThat(stats.getGauge(TransportStats.QUEUE_DEPTH)).isEqualTo(0);
+    }
+
     @Test
     public void GIVEN_batchSizeLimitOf10_EXPECT_batchToBeConsumedAfter10Events() throws InterruptedException {
         // GIVEN a batcher with a configured batch size of 10
@@ -194,6 +257,60 @@ public class DefaultBatcherTest {
         assertThat(allValues2).containsOnly(batchWithKey1.subList(0, 10), batchWithKey1.subList(10, 20));
     }
 
+    @Test
+    public void GIVEN_ringBufferQueueAndBatchSizeLimitOf10_WHEN_submitting25Events_EXPECT_2batchesToBeConsumedAndRestFlushed() throws InterruptedException {
+        // GIVEN a batcher with a ring buffer queue and a configured batch size of 10
+        batcherWithRingBufferQueueAndBatchSize10();
+        // AND 25 events are submitted to the batcher
+        final List<TestEvent> batchWithKey1 = createEvents(25, "key1");
+        for (final TestEvent testEvent : batchWithKey1) {
+            assertThat(batcher.offerEvent(testEvent)).isTrue();
+        }
+
+        // EXPECT 2 batches of 10 to be consumed
+        verify(consumerMock, timeout(1000).times(2)).consume(captor.capture());
+        // AND the remaining 5 to be flushed on close
+        batcher.close();
+        verify(consumerMock, times(3)).consume(captor.capture());
+        assertThat(captor.getAllValues()).containsOnly(
+            batchWithKey1.subList(0, 10), batchWithKey1.subList(10, 20), batchWithKey1.subList(20, 25));
+    }
+
+    @Test
+    public void GIVEN_maxBatchBytesOf10_WHEN_submittingEventsOf4Bytes_EXPECT_batchToBeConsumedBeforeItExceedsTheLimit() throws InterruptedException {
+        // GIVEN a batcher with a limit of 10 bytes per batch, and a batch size that is not reached
+        batcherWithMaxBatchBytes10();
+        // AND 3 events of 4 bytes each are submitted to the batcher
+        final List<TestEvent> events = Arrays.asList(
+            new TestEvent("key1", "aaaa"), new TestEvent("key1", "bbbb"), new TestEvent("key1", "cccc"));
+        for (final TestEvent testEvent : events) {
+            assertThat(batcher.offerEvent(testEvent)).isTrue();
+        }
+
+        // EXPECT the first 2 events to be consumed as a batch, as the third would exceed the limit
+        verify(consumerMock, timeout(1000).times(1)).consume(captor.capture());
+        assertThat(captor.getValue()).containsExactly(events.get(0), events.get(1));
+        // AND the third to be flushed on close
+        batcher.close();
+        verify(consumerMock, times(2)).consume(captor.capture());
+        assertThat(captor.getValue()).containsExactly(events.get(2));
+    }
+
+    @Test
+    public void GIVEN_maxBatchBytesOf10_WHEN_submittingAnEventLargerThanThat_EXPECT_itToBeConsumedInABatchOfItsOwn() throws InterruptedException {
+        // GIVEN a batcher with a limit of 10 bytes per batch, and a batch size that is not reached
+        batcherWithMaxBatchBytes10();
+        // AND an event of 4 bytes followed by an event of 12 bytes are submitted to the batcher
+        final TestEvent small = new TestEvent("key1", "aaaa");
+        final TestEvent large = new TestEvent("key1", "bbbbbbbbbbbb");
+        batcher.offerEvent(small);
+        batcher.offerEvent(large);
+
+        // EXPECT both events to be consumed in separate batches right away
+        verify(consumerMock, timeout(1000).times(2)).consume(captor.capture());
+        assertThat(captor.getAllValues()).containsExactly(singletonList(small), singletonList(large));
+    }
+
     @Test
     public void GIVEN_batchSizeLimitOf10_WHEN_submittingEventsFor2BatchesInInterleavingManner_EXPECT_2batchesToBeCorrectlyConsumed() throws InterruptedException {
         // GIVEN a batcher with a configured batch size of 10
@@ -275,6 +392,30 @@ public class DefaultBatcherTest {
         expectConsumerInteractions(1);
     }
 
+    @Test
+    public void GIVEN_aBatcherWithTimeout_WHEN_raisingTheTimeout_EXPECT_newBatchesToBeConsumedAfterTheNewTimeout()
+        throws InterruptedException, BrokenBarrierException {
+        // GIVEN a batcher with the clock set to 0 and a timeout of 10
+        batcherWithBlockingMockQueueAndMockClockAndTimeoutOf10();
+        mockQueue.sync();
+
+        // WHEN raising the timeout to 20 before an event is submitted and processed
+        batcher.setBatchTimeoutMillis(20);
+        batcher.offerEvent(new TestEvent("key1", "data1"));
+        mockQueue.cycleAndSync();
+        assertThat(batcher.getBatchTimeoutMillis()).isEqualTo(20);
+
+        // EXPECT no interaction at the previous timeout
+        mockClock.setCurrentTime(10);
+        mockQueue.cycleAndSync();
+        expectConsumerInteractions(0);
+
+        // BUT the event to be consumed at the new timeout
+        mockClock.setCurrentTime(20);
+        mockQueue.cycleAndSync();
+        expectConsumerInteractions(1);
+    }
+
     @Test
     public void GIVEN_aBatcherWithTimeout_EXPECT_nonFullBatchesToBeEventuallyConsumedInSequence()
         throws InterruptedException, BrokenBarrierException {
@@ -425,6 +566,42 @@ public class DefaultBatcherTest {
     }
 
 
+    @Test
+    public void GIVEN_5EventsWithDifferentKeysSubmittedAtDifferentTimes_WHEN_SomeReachTheirTimeout_EXPECT_OnlyThoseToBeConsumedInOrder()
+        throws InterruptedException, BrokenBarrierException {
+        // GIVEN a batcher with the clock set to 0 and a timeout of 10
+        batcherWithBlockingMockQueueAndMockClockAndTimeoutOf10();
+        // AND events with different keys submitted at times 0 to 4
+        final List<TestEvent> events = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final TestEvent event = new TestEvent("key" + i, "data" + i);
+            events.add(event);
+            batcher.offerEvent(event);
+            mockClock.setCurrentTime(i);
+            mockQueue.cycleAndSync();
+        }
+        expectConsumerInteractions(0);
+
+        // WHEN moving the time to 12
+        mockClock.setCurrentTime(12);
+        mockQueue.cycleAndSync();
+
+        // EXPECT the batches started at 0, 1 and 2 to have been consumed, in that order
+        verify(consumerMock, timeout(1000).times(3)).consume(captor.capture());
+        assertThat(captor.getAllValues()).containsExactly(
+            singletonList(events.get(0)), singletonList(events.get(1)), singletonList(events.get(2)));
+
+        // AND WHEN moving the time to 14
+        mockClock.setCurrentTime(14);
+        mockQueue.cycleAndSync();
+
+        // EXPECT the remaining 2 batches to have been consumed
+        verify(consumerMock, timeout(1000).times(5)).consume(captor.capture());
+        final List<List<TestEvent>> capturedBatches = captor.getAllValues(); // includes the batches captured before
+        assertThat(capturedBatches.subList(capturedBatches.size() - 2, capturedBatches.size())).containsExactly(
+            singletonList(events.get(3)), singletonList(events.get(4)));
+    }
+
     @Test
     public void GIVEN_noEventWithSpecifcKeyIsSubmittedForAWhile_EXPECT_InternalBatchDataStructureToBeCleanedUp()
         throws InterruptedException, BrokenBarrierException {
@@ -602,6 +779,34 @@ public class DefaultBatcherTest {
             DEFAULT_TIMEOUT);
     }
 
+    private void batcherWithMaxBatchBytes10() {
+        batcher = DefaultBatcher.<TestEvent, String>builder()
+            .setBatchKeyStrategy(mockKeyGen)
+            .setBatchConsumer(consumerMock)
+            .setClockProvider(SystemClockProvider.getInstance())
+            .setPendingQueue(new ArrayBlockingQueue<TestEvent>(DEFAULT_QUEUE_CAPACITY))
+            .setBatchSize(DEFAULT_BATCH_SIZE)
+            .setBatchTimeoutMillis(DEFAULT_TIMEOUT)
+            .setSizeEstimator(new EventSizeEstimator<TestEvent>() {
+                @Override
+                public long estimateSize(final TestEvent event) {
+                    return event.getData().length();
+                }
+            })
+            .setMaxBatchBytes(10L)
+            .build();
+    }
+
+    private void batcherWithRingBufferQueueAndBatchSize10() {
+        batcher = new DefaultBatcher<>(
+            mockKeyGen,
+            consumerMock,
+            SystemClockProvider.getInstance(),
+            new MpscRingBufferQueue<TestEvent>(DEFAULT_QUEUE_CAPACITY),
+            10,
+            DEFAULT_TIMEOUT);
+    }
+
     private void batcherWithBlockingMockQueueAndMockClockAndTimeoutOf10() {
         mockQueue = new TestBlockingQueue(DEFAULT_QUEUE_CAPACITY, true);
         batcher = new DefaultBatcher<>(
@@ -0,0 +1,112 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.TestUtils;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.ClientRejected;
+import io.honeycomb.libhoney.responses.ResponseObservable;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class DropOldestOverflowHandlerTest {
+    private ResponseObservable observableMock;
+    private DropOldestOverflowHandler handler;
+
+    @Before
+    public void setUp() {
+        observableMock = mock(ResponseObservable.class);
+        handler = new DropOldestOverflowHandler(observableMock);
+    }
+
+    @Test
+    public void GIVEN_aQueueWithSpace_WHEN_offering_EXPECT_nothingToBeDropped() {
+        final BlockingQueue<ResolvedEvent> queue = new ArrayBlockingQueue<>(2);
+
+        assertThat(handler.offer(queue, TestUtils.createTestEvent())).isTrue();
+
+        assertThat(handler.getDroppedEventCount()).isEqualTo(0);
+        verifyNoInteractions(observableMock);
+    }
+
+    @Test
+    public void GIVEN_aFullQueue_WHEN_offering_EXPECT_theOldestEventToBeDroppedAndPublished() {
+        final BlockingQueue<ResolvedEvent> queue = new ArrayBlockingQueue<>(2);
+        final ResolvedEvent oldest = TestUtils.createTestEvent();
+        final ResolvedEvent older = TestUtils.createTestEvent();
+        final ResolvedEvent newest = TestUtils.createTestEvent();
+        queue.add(oldest);
+        queue.add(older);
+
+        assertThat(handler.offer(queue, newest)).isTrue();
+
+        assertThat(queue).containsExactly(older, newest);
+        assertThat(handler.getDroppedEventCount()).isEqualTo(1);
+        assertThat(handler.getRejectedEventCount()).isEqualTo(0);
+        final ArgumentCaptor<ClientRejected> captor = ArgumentCaptor.forClass(ClientRejected.class);
+        verify(observableMock).publish(captor.capture());
+        assertThat(captor.getValue().getReason()).isEqualTo(ClientRejected.RejectionReason.QUEUE_OVERFLOW);
+    }
+
+    @Test
+    public void GIVEN_manyProducersAndAConsumer_WHEN_overflowing_EXPECT_everyEventToBeAccountedFor()
+        throws Exception {
+        final int producers = 8;
+        final int eventsPerProducer = 5_000;
+        final BlockingQueue<ResolvedEvent> queue = new ArrayBlockingQueue<>(64);
+        final AtomicInteger accepted = new AtomicInteger();
+        final AtomicLong consumed = new AtomicLong();
+        final CountDownLatch producersDone = new CountDownLatch(producers);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < producers; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < eventsPerProducer; j++) {
+                        if (handler.offer(queue, TestUtils.createTestEvent())) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                    producersDone.countDown();
+                }
+            }));
+        }
+        final Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (producersDone.getCount() > 0 || !queue.isEmpty()) {
+                        if (queue.poll(1, TimeUnit.MILLISECONDS) != null) {
+                            consumed.incrementAndGet();
+                        }
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        consumer.start();
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+
+        assertThat(producersDone.await(10, TimeUnit.SECONDS)).isTrue();
+        consumer.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertThat(consumer.isAlive()).isFalse();
+        assertThat(queue).isEmpty();
+        assertThat(accepted.get() + handler.getRejectedEventCount()).isEqualTo(producers * eventsPerProducer);
+        assertThat(consumed.get() + handler.getDroppedEventCount()).isEqualTo(accepted.get());
+    }
+}
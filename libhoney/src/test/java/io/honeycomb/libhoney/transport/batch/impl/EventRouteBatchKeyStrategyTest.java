@@ -0,0 +1,34 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.TestUtils;
+import io.honeycomb.libhoney.eventdata.EventRoute;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import org.junit.Test;
+
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventRouteBatchKeyStrategyTest {
+    @Test
+    public void GIVEN_anEventWithConfiguredHostSetAndKey_WHEN_invokingKeyStrategy_EXPECT_routeOfThoseToBeProduced() throws Exception {
+        final EventRouteBatchKeyStrategy keyStrategy = new EventRouteBatchKeyStrategy();
+        final ResolvedEvent eventToKey = TestUtils.createTestEvent();
+
+        final EventRoute key = keyStrategy.getKey(eventToKey);
+
+        assertThat(key).isEqualTo(new EventRoute(URI.create("http://example.com"), "testkey", "testset"));
+    }
+
+    @Test
+    public void GIVEN_anEventWhoseDatasetWasChanged_WHEN_invokingKeyStrategy_EXPECT_routeWithNewDataset() throws Exception {
+        final EventRouteBatchKeyStrategy keyStrategy = new EventRouteBatchKeyStrategy();
+        final ResolvedEvent eventToKey = TestUtils.createTestEvent();
+        keyStrategy.getKey(eventToKey);
+
+        eventToKey.setDataset("otherset");
+        final EventRoute key = keyStrategy.getKey(eventToKey);
+
+        assertThat(key).isEqualTo(new EventRoute(URI.create("http://example.com"), "testkey", "otherset"));
+    }
+}
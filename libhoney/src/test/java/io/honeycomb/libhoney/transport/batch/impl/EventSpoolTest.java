@@ -0,0 +1,364 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.TestUtils;
+import io.honeycomb.libhoney.eventdata.EventRoute;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.ResponseObservable;
+import io.honeycomb.libhoney.transport.batch.BatchConsumer;
+import io.honeycomb.libhoney.transport.batch.Batcher;
+import io.honeycomb.libhoney.transport.batch.OverflowHandler;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("unchecked")
+public class EventSpoolTest {
+    private static final int SEGMENT_BYTES = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+    private Batcher<ResolvedEvent> batcherMock;
+    private final List<EventSpool> spools = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        directory = temporaryFolder.newFolder("spool").toPath();
+        batcherMock = mock(Batcher.class);
+        when(batcherMock.offerEvent(any(ResolvedEvent.class))).thenReturn(true);
+    }
+
+    @After
+    public void tearDown() {
+        for (final EventSpool spool : spools) {
+            spool.close();
+        }
+    }
+
+    @Test
+    public void GIVEN_spooledEvents_WHEN_reopening_EXPECT_themToBeReplayedInOrder_AND_theSegmentToBeDeleted()
+        throws IOException {
+        final EventSpool spool = openSpool(SEGMENT_BYTES, SEGMENT_BYTES * 4);
+        for (int i = 0; i < 3; i++) {
+            assertThat(spool.append(createTestEvent(i))).isTrue();
+        }
+        spool.close();
+
+        final EventSpool reopened = openSpool(SEGMENT_BYTES, SEGMENT_BYTES * 4);
+        assertThat(reopened.getSpoolBytes()).isEqualTo(SEGMENT_BYTES);
+        reopened.startReplay(batcherMock);
+
+        final ArgumentCaptor<ResolvedEvent> captor = ArgumentCaptor.forClass(ResolvedEvent.class);
+        verify(batcherMock, timeout(1000).times(3)).offerEvent(captor.capture());
+        final ResolvedEvent first = captor.getAllValues().get(0);
+        assertThat(first.getFields()).containsEntry("index", 0).containsEntry("name", "event");
+        assertThat(first.getWriteKey()).isEqualTo("testkey");
+        assertThat(first.getDataset()).isEqualTo("testset");
+        assertThat(first.getApiHost().toString()).isEqualTo("http://example.com");
+        assertThat(first.getTimestamp()).isEqualTo(5555L);
+        assertThat(captor.getAllValues().get(2).getFields()).containsEntry("index", 2);
+        awaitReplayed(reopened, 3);
+        assertThat(segmentFiles()).isEmpty();
+    }
+
+    @Test
+    public void GIVEN_aReplayingSpool_WHEN_appendingEvents_EXPECT_themToBeReplayedWithoutWaitingForAFullSegment()
+        throws IOException {
+        final EventSpool spool = openSpool(SEGMENT_BYTES, SEGMENT_BYTES * 4);
+        spool.startReplay(batcherMock);
+
+        spool.append(createTestEvent(0));
+        spool.append(createTestEvent(1));
+
+        verify(batcherMock, timeout(1000).times(2)).offerEvent(any(ResolvedEvent.class));
+        assertThat(spool.getSpooledEventCount()).isEqualTo(2);
+        awaitReplayed(spool, 2, SEGMENT_BYTES);
+    }
+
+    @Test
+    public void GIVEN_aReplayingSpool_WHEN_eventsTrickleIn_EXPECT_themToBeReplayedFromTheSameSegment()
+        throws Exception {
+        final EventSpool spool = openSpool(SEGMENT_BYTES, SEGMENT_BYTES * 4);
+        spool.startReplay(batcherMock);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(spool.append(createTestEvent(i))).isTrue();
+            awaitReplayed(spool, i + 1, SEGMENT_BYTES);
+            Thread.sleep(20); // long enough for the replayer to go idle in between
+        }
+
+        assertThat(segmentFiles()).hasSize(1);
+        final ArgumentCaptor<ResolvedEvent> captor = ArgumentCaptor.forClass(ResolvedEvent.class);
+        verify(batcherMock, times(3)).offerEvent(captor.capture());
+        assertThat(captor.getAllValues().get(2).getFields()).containsEntry("index", 2);
+    }
+
+    @Test
+    public void GIVEN_eventsReplayedFromTheActiveSegment_WHEN_reopening_EXPECT_themNotToBeReplayedAgain()
+        throws IOException {
+        final EventSpool spool = openSpool(SEGMENT_BYTES, SEGMENT_BYTES * 4);
+        spool.startReplay(batcherMock);
+        spool.append(createTestEvent(0));
+        awaitReplayed(spool, 1, SEGMENT_BYTES);
+        spool.close();
+
+        final Batcher<ResolvedEvent> secondBatcherMock = mock(Batcher.class);
+        final EventSpool reopened = openSpool(SEGMENT_BYTES, SEGMENT_BYTES * 4);
+        reopened.startReplay(secondBatcherMock);
+
+        awaitReplayed(reopened, 0);
+        assertThat(segmentFiles()).isEmpty();
+        verifyNoInteractions(secondBatcherMock);
+    }
+
+    @Test
+    public void GIVEN_aPosixFileSystem_WHEN_spooling_EXPECT_directoryAndSegmentsToBeAccessibleToTheOwnerOnly()
+        throws IOException {
+        Assume.assumeTrue(directory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        directory = directory.resolve("created");
+        final EventSpool spool = openSpool(SEGMENT_BYTES, SEGMENT_BYTES * 4);
+
+        spool.append(createTestEvent(0));
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(directory))).isEqualTo("rwx------");
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(segmentFiles().get(0).toPath())))
+            .isEqualTo("rw-------");
+    }
+
+    @Test
+    public void GIVEN_aCorruptRecord_WHEN_replaying_EXPECT_itToBeSkipped() throws IOException {
+        final EventSpool spool = openSpool(SEGMENT_BYTES, SEGMENT_BYTES * 4);
+        for (int i = 0; i < 3; i++) {
+            spool.append(createTestEvent(i));
+        }
+        spool.close();
+        corruptSecondRecord(segmentFiles().get(0));
+
+        final EventSpool reopened = openSpool(SEGMENT_BYTES, SEGMENT_BYTES * 4);
+        reopened.startReplay(batcherMock);
+
+        final ArgumentCaptor<ResolvedEvent> captor = ArgumentCaptor.forClass(ResolvedEvent.class);
+        verify(batcherMock, timeout(1000).times(2)).offerEvent(captor.capture());
+        assertThat(captor.getAllValues().get(0).getFields()).containsEntry("index", 0);
+        assertThat(captor.getAllValues().get(1).getFields()).containsEntry("index", 2);
+        awaitReplayed(reopened, 2);
+        assertThat(reopened.getCorruptRecordCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_fullSegments_WHEN_appending_EXPECT_rotationUpToTheMaximumSize_AND_furtherEventsToBeRejected()
+        throws IOException {
+        final int eventBytes = SpoolRecordCodec.encode(createTestEvent(0)).length + SpoolSegment.RECORD_OVERHEAD_BYTES;
+        final int segmentBytes = SpoolSegment.HEADER_BYTES + eventBytes * 2;
+        final EventSpool spool = openSpool(segmentBytes, segmentBytes * 2);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(spool.append(createTestEvent(i))).isTrue();
+        }
+        assertThat(spool.append(createTestEvent(4))).isFalse();
+
+        assertThat(segmentFiles()).hasSize(2);
+        assertThat(spool.getSpoolBytes()).isEqualTo(segmentBytes * 2);
+        assertThat(spool.getSpooledEventCount()).isEqualTo(4);
+        assertThat(spool.getRejectedEventCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_anEventLargerThanASegment_WHEN_appending_EXPECT_itToBeRejected() throws IOException {
+        final EventSpool spool = openSpool(64, 1024);
+
+        assertThat(spool.append(createTestEvent(0))).isFalse();
+        assertThat(segmentFiles()).isEmpty();
+    }
+
+    @Test
+    public void GIVEN_aReplayStoppedHalfway_WHEN_reopening_EXPECT_onlyTheRemainingEventsToBeReplayed()
+        throws IOException {
+        final Batcher<ResolvedEvent> fullBatcher = mock(Batcher.class);
+        when(fullBatcher.offerEvent(any(ResolvedEvent.class))).thenReturn(true, false);
+        final EventSpool spool = openSpool(SEGMENT_BYTES, SEGMENT_BYTES * 4);
+        for (int i = 0; i < 3; i++) {
+            spool.append(createTestEvent(i));
+        }
+        spool.startReplay(fullBatcher);
+        verify(fullBatcher, timeout(1000).atLeast(2)).offerEvent(any(ResolvedEvent.class));
+        spool.close();
+
+        final EventSpool reopened = openSpool(SEGMENT_BYTES, SEGMENT_BYTES * 4);
+        reopened.startReplay(batcherMock);
+
+        final ArgumentCaptor<ResolvedEvent> captor = ArgumentCaptor.forClass(ResolvedEvent.class);
+        verify(batcherMock, timeout(1000).times(2)).offerEvent(captor.capture());
+        assertThat(captor.getAllValues().get(0).getFields()).containsEntry("index", 1);
+        assertThat(captor.getAllValues().get(1).getFields()).containsEntry("index", 2);
+    }
+
+    @Test(expected = IOException.class)
+    public void GIVEN_aDirectoryInUse_WHEN_openingAnotherSpool_EXPECT_IOException() throws IOException {
+        openSpool(SEGMENT_BYTES, SEGMENT_BYTES);
+
+        openSpool(SEGMENT_BYTES, SEGMENT_BYTES);
+    }
+
+    @Test
+    public void GIVEN_aBatcherThatShedsEvents_WHEN_replayingIntoAFullQueue_EXPECT_noEventToBeShed() throws Exception {
+        final ResponseObservable observableMock = mock(ResponseObservable.class);
+
+        replayIntoAFullQueue(new SheddingOverflowHandler(0.5, observableMock));
+
+        verifyNoInteractions(observableMock);
+    }
+
+    @Test
+    public void GIVEN_aBatcherThatDropsTheOldestEvents_WHEN_replayingIntoAFullQueue_EXPECT_noEventToBeDropped()
+        throws Exception {
+        final ResponseObservable observableMock = mock(ResponseObservable.class);
+
+        replayIntoAFullQueue(new DropOldestOverflowHandler(observableMock));
+
+        verifyNoInteractions(observableMock);
+    }
+
+    @Test
+    public void GIVEN_aBatcherThatRejectsEvents_WHEN_replayingIntoAFullQueue_EXPECT_noRejectionToBeCounted()
+        throws Exception {
+        replayIntoAFullQueue(new RejectingOverflowHandler<ResolvedEvent>());
+    }
+
+    /*
+     * Fills the queue of a batcher whose worker is stuck in the consumer, replays spooled events while the queue is
+     * full, and then unblocks the consumer. Neither the live nor the replayed events may be affected by the overflow
+     * handler, and all of them must be consumed in the end.
+     */
+    private void replayIntoAFullQueue(final OverflowHandler<ResolvedEvent> overflowHandler) throws Exception {
+        final int capacity = 4;
+        final CountDownLatch consumerBlocked = new CountDownLatch(1);
+        final CountDownLatch releaseConsumer = new CountDownLatch(1);
+        final List<ResolvedEvent> consumed = new CopyOnWriteArrayList<>();
+        final BatchConsumer<ResolvedEvent> consumerMock = mock(BatchConsumer.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws InterruptedException {
+                consumerBlocked.countDown();
+                releaseConsumer.await();
+                consumed.addAll((List<ResolvedEvent>) invocation.getArgument(0));
+                return null;
+            }
+        }).when(consumerMock).consume(ArgumentMatchers.<ResolvedEvent>anyList());
+        final BlockingQueue<ResolvedEvent> queue = new ArrayBlockingQueue<>(capacity);
+        final DefaultBatcher<ResolvedEvent, ?> batcher = DefaultBatcher.<ResolvedEvent, EventRoute>builder()
+            .setBatchKeyStrategy(new EventRouteBatchKeyStrategy())
+            .setBatchConsumer(consumerMock)
+            .setClockProvider(SystemClockProvider.getInstance())
+            .setPendingQueue(queue)
+            .setBatchSize(1)
+            .setBatchTimeoutMillis(1)
+            .setOverflowHandler(overflowHandler)
+            .build();
+        try {
+            assertThat(batcher.offerEvent(createTestEvent(-1))).isTrue();
+            assertThat(consumerBlocked.await(1, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < capacity; i++) {
+                assertThat(queue.offer(createTestEvent(-1))).isTrue();
+            }
+            final EventSpool spool = openSpool(SEGMENT_BYTES, SEGMENT_BYTES * 4);
+            for (int i = 0; i < 3; i++) {
+                assertThat(spool.append(createTestEvent(i))).isTrue();
+            }
+
+            spool.startReplay(batcher.withoutOverflowHandling());
+            Thread.sleep(100);
+            assertThat(queue).hasSize(capacity);
+            releaseConsumer.countDown();
+
+            awaitReplayed(spool, 3, SEGMENT_BYTES);
+            batcher.close();
+            assertThat(consumed).hasSize(1 + capacity + 3);
+            assertThat(overflowHandler.getDroppedEventCount()).isEqualTo(0);
+            assertThat(overflowHandler.getRejectedEventCount()).isEqualTo(0);
+        } finally {
+            releaseConsumer.countDown();
+            batcher.close();
+        }
+    }
+
+    private EventSpool openSpool(final int segmentBytes, final long maxBytes) throws IOException {
+        final EventSpool spool = new EventSpool(
+            directory, segmentBytes, maxBytes, 10, SystemClockProvider.getInstance());
+        spools.add(spool);
+        return spool;
+    }
+
+    private ResolvedEvent createTestEvent(final int index) {
+        final ResolvedEvent event = TestUtils.createTestEvent();
+        event.addField("index", index);
+        event.addField("name", "event");
+        return event;
+    }
+
+    private List<File> segmentFiles() {
+        final List<File> files = new ArrayList<>();
+        for (final File file : directory.toFile().listFiles()) {
+            if (file.getName().endsWith(".spool")) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private void corruptSecondRecord(final File segment) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(SpoolSegment.HEADER_BYTES);
+            final int firstLength = file.readInt();
+            final long secondPayload = SpoolSegment.HEADER_BYTES + SpoolSegment.RECORD_OVERHEAD_BYTES * 2 + firstLength;
+            file.seek(secondPayload);
+            final int original = file.read();
+            file.seek(secondPayload);
+            file.write(original ^ 0xFF);
+        }
+    }
+
+    private void awaitReplayed(final EventSpool spool, final long count) {
+        awaitReplayed(spool, count, 0);
+    }
+
+    /*
+     * The segment being appended to is replayed in place, so it is only deleted once it has been sealed. Its space is
+     * therefore still taken up after its events have been replayed.
+     */
+    private void awaitReplayed(final EventSpool spool, final long count, final long remainingBytes) {
+        final long deadline = System.currentTimeMillis() + 1000;
+        while ((spool.getReplayedEventCount() < count || spool.getSpoolBytes() > remainingBytes)
+            && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        assertThat(spool.getReplayedEventCount()).isEqualTo(count);
+        assertThat(spool.getSpoolBytes()).isEqualTo(remainingBytes);
+    }
+}
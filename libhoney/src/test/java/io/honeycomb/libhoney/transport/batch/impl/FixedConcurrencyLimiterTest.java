@@ -0,0 +1,66 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FixedConcurrencyLimiterTest {
+
+    @Test
+    public void GIVEN_congestedRequests_EXPECT_limitToStay() throws InterruptedException {
+        final FixedConcurrencyLimiter limiter = new FixedConcurrencyLimiter(3);
+
+        limiter.acquire();
+        limiter.acquire();
+        assertThat(limiter.getPending()).isEqualTo(2);
+        limiter.release(-1, true);
+        limiter.release(-1, true);
+
+        assertThat(limiter.getLimit()).isEqualTo(3);
+        assertThat(limiter.getPending()).isEqualTo(0);
+    }
+
+    @Test
+    public void GIVEN_pendingRequests_WHEN_awaitingNoPending_EXPECT_timeoutUntilAllAreReleased_AND_permitsToBeKept()
+        throws InterruptedException {
+        final FixedConcurrencyLimiter limiter = new FixedConcurrencyLimiter(2);
+        limiter.acquire();
+
+        assertThat(limiter.awaitNoPending(10, TimeUnit.MILLISECONDS)).isFalse();
+        limiter.release(0, false);
+        assertThat(limiter.awaitNoPending(10, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(limiter.getPending()).isEqualTo(0);
+    }
+
+    @Test
+    public void GIVEN_pendingRequests_WHEN_loweringTheMaximum_EXPECT_noFurtherRequestUntilEnoughAreReleased()
+        throws InterruptedException {
+        final FixedConcurrencyLimiter limiter = new FixedConcurrencyLimiter(3);
+        limiter.acquire();
+        limiter.acquire();
+
+        limiter.setMaxLimit(1);
+
+        assertThat(limiter.getMaxLimit()).isEqualTo(1);
+        assertThat(limiter.getPending()).isEqualTo(2);
+        limiter.release(0, false);
+        assertThat(limiter.awaitNoPending(10, TimeUnit.MILLISECONDS)).isFalse();
+        limiter.release(0, false);
+        assertThat(limiter.getPending()).isEqualTo(0);
+        assertThat(limiter.awaitNoPending(10, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    @Test
+    public void WHEN_raisingTheMaximum_EXPECT_morePermits() throws InterruptedException {
+        final FixedConcurrencyLimiter limiter = new FixedConcurrencyLimiter(1);
+        limiter.acquire();
+
+        limiter.setMaxLimit(2);
+        limiter.acquire();
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getPending()).isEqualTo(2);
+    }
+}
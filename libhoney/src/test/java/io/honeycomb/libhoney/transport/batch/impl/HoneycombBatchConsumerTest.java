@@ -5,13 +5,18 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.Lists;
 import io.honeycomb.libhoney.TestUtils;
+import io.honeycomb.libhoney.TransportOptions;
+import io.honeycomb.libhoney.TransportStats;
 import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.BatchResponse;
 import io.honeycomb.libhoney.responses.ClientRejected;
 import io.honeycomb.libhoney.responses.ResponseObservable;
 import io.honeycomb.libhoney.responses.ServerAccepted;
 import io.honeycomb.libhoney.responses.ServerRejected;
 import io.honeycomb.libhoney.responses.Unknown;
 import io.honeycomb.libhoney.transport.json.BatchRequestSerializer;
+import io.honeycomb.libhoney.transport.json.StreamingBatchRequestSerializer;
+import io.honeycomb.libhoney.transport.msgpack.MsgPackBatchRequestSerializer;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpVersion;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
@@ -24,6 +29,8 @@ import org.apache.http.util.EntityUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.msgpack.core.MessagePack;
+import org.msgpack.value.Value;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
@@ -42,6 +49,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -181,6 +189,74 @@ public class HoneycombBatchConsumerTest {
         assertThat(Lists.newArrayList(wheatEvent.get("data").fieldNames())).containsExactlyInAnyOrder("field", "meadow");
     }
 
+    @Test
+    public void GIVEN_gzipCompression_AND_bodyAboveThreshold_EXPECT_requestToContainGzippedBatchWithContentEncodingHeader()
+        throws InterruptedException, IOException {
+        consumer = new HoneycombBatchConsumer(clientMock, observableMock, new StreamingBatchRequestSerializer(),
+            new TransportOptions.Builder()
+                .setRequestCompression(TransportOptions.RequestCompression.GZIP)
+                .setCompressionThreshold(0)
+                .build(),
+            null, new TransportMetrics());
+        final List<ResolvedEvent> events = createTestEvents();
+
+        consumer.consume(events);
+        final HttpEntityEnclosingRequestBase value = (HttpEntityEnclosingRequestBase) captureRequest();
+
+        assertThat(value.getFirstHeader("Content-Encoding").getValue()).isEqualTo("gzip");
+        assertThat(value.getEntity().getContentType().getValue()).contains("application/json");
+        final ArrayNode batchArray = new ObjectMapper().readValue(
+            new GZIPInputStream(value.getEntity().getContent()), ArrayNode.class);
+        assertThat(batchArray.size()).isEqualTo(2);
+        assertThat(batchArray.get(0).get("data").get("field").textValue()).isEqualTo("barley");
+    }
+
+    @Test
+    public void GIVEN_gzipCompression_AND_bodyBelowThreshold_EXPECT_requestToBeSentUncompressed()
+        throws InterruptedException, IOException {
+        consumer = new HoneycombBatchConsumer(clientMock, observableMock, new StreamingBatchRequestSerializer(),
+            new TransportOptions.Builder()
+                .setRequestCompression(TransportOptions.RequestCompression.GZIP)
+                .setCompressionThreshold(100_000)
+                .build(),
+            null, new TransportMetrics());
+        final List<ResolvedEvent> events = createTestEvents();
+
+        consumer.consume(events);
+        final HttpEntityEnclosingRequestBase value = (HttpEntityEnclosingRequestBase) captureRequest();
+
+        assertThat(value.getFirstHeader("Content-Encoding")).isNull();
+        final ArrayNode batchArray = new ObjectMapper().readValue(EntityUtils.toString(value.getEntity()), ArrayNode.class);
+        assertThat(batchArray.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void GIVEN_msgpackEncoding_EXPECT_requestToContainMsgpackEntity() throws InterruptedException, IOException {
+        consumer = new HoneycombBatchConsumer(clientMock, observableMock, new MsgPackBatchRequestSerializer(),
+            new TransportOptions.Builder()
+                .setBatchEncoding(TransportOptions.BatchEncoding.MSGPACK)
+                .build(),
+            null, new TransportMetrics());
+        final List<ResolvedEvent> events = createTestEvents();
+
+        consumer.consume(events);
+        final HttpEntityEnclosingRequestBase value = (HttpEntityEnclosingRequestBase) captureRequest();
+
+        assertThat(value.getEntity().getContentType().getValue()).isEqualTo("application/msgpack");
+        final Value batch = MessagePack.newDefaultUnpacker(value.getEntity().getContent()).unpackValue();
+        assertThat(batch.asArrayValue().size()).isEqualTo(2);
+    }
+
+    @Test
+    public void GIVEN_noCompression_EXPECT_requestToBeSentWithoutContentEncodingHeader() throws InterruptedException {
+        final List<ResolvedEvent> events = createTestEvents();
+
+        consumer.consume(events);
+        final HttpUriRequest value = captureRequest();
+
+        assertThat(value.getFirstHeader("Content-Encoding")).isNull();
+    }
+
     @Test
     public void GIVEN_anEventWithItsTimestampSetToNow_EXPECT_requestToContainCorrectlyFormattedTimeField()
         throws InterruptedException, IOException, ParseException {
@@ -351,6 +427,36 @@ public class HoneycombBatchConsumerTest {
         assertThat(captor.getValue().getException()).isInstanceOf(SomeException.class);
     }
 
+    @Test
+    public void GIVEN_metrics_WHEN_requestsCompleteAndFail_EXPECT_themToBeRecorded() throws Exception {
+        final TransportMetrics metrics = new TransportMetrics();
+        consumer = new HoneycombBatchConsumer(clientMock, observableMock, new StreamingBatchRequestSerializer(),
+            new TransportOptions.Builder().setMaxRetries(0).build(), null, metrics);
+        consumer.consume(createTestEvents());
+        consumer.consume(createTestEvents());
+        final ArgumentCaptor<FutureCallback> captor = ArgumentCaptor.forClass(FutureCallback.class);
+        final ArgumentCaptor<HttpUriRequest> requestCaptor = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(clientMock, times(2)).execute(requestCaptor.capture(), captor.capture());
+        final long bodyBytes = ((HttpEntityEnclosingRequestBase) requestCaptor.getValue()).getEntity().getContentLength();
+
+        TransportStats stats = metrics.snapshot();
+        assertThat(stats.getCounter(TransportStats.REQUESTS_SENT)).isEqualTo(2);
+        assertThat(stats.getCounter(TransportStats.EVENTS_SENT)).isEqualTo(4);
+        assertThat(stats.getCounter(TransportStats.BYTES_SENT)).isEqualTo(bodyBytes * 2);
+        assertThat(stats.getGauge(TransportStats.REQUESTS_IN_FLIGHT)).isEqualTo(2);
+
+        captor.getAllValues().get(0).completed(new BasicHttpResponse(new HttpVersion(1, 1), 200, "All groovy!"));
+        captor.getAllValues().get(1).failed(new IOException("connection reset"));
+
+        stats = metrics.snapshot();
+        assertThat(stats.getGauge(TransportStats.REQUESTS_IN_FLIGHT)).isEqualTo(0);
+        assertThat(stats.getCounter(TransportStats.REQUESTS_SUCCEEDED)).isEqualTo(1);
+        assertThat(stats.getCounter(TransportStats.REQUESTS_FAILED)).isEqualTo(1);
+        assertThat(stats.getHistogram(TransportStats.REQUEST_LATENCY_MILLIS).getCount()).isEqualTo(1);
+        assertThat(stats.getGauge(TransportStats.CONCURRENCY_LIMIT))
+            .isEqualTo(TransportOptions.DEFAULT_MAX_PENDING_BATCH_REQUESTS);
+    }
+
     @Test
     public void WHEN_completingARequest_BUT_NoObserversRegistered_EXPECT_observersToNotBeNotified() throws InterruptedException, UnsupportedEncodingException {
         final FutureCallback<HttpResponse> httpResponseFutureCallback = setupCallback();
@@ -367,9 +473,24 @@ public class HoneycombBatchConsumerTest {
         httpResponseFutureCallback.completed(result);
 
         verify(observableMock).hasObservers();
+        verify(observableMock).hasBatchObservers();
         verifyNoMoreInteractions(observableMock);
     }
 
+    @Test
+    public void WHEN_completingARequest_BUT_onlyBatchObserversRegistered_EXPECT_oneBatchResponseToBePublished()
+        throws InterruptedException, UnsupportedEncodingException {
+        when(observableMock.hasBatchObservers()).thenReturn(true);
+        final FutureCallback<HttpResponse> httpResponseFutureCallback = setupCallback();
+        final BasicHttpResponse result = new BasicHttpResponse(new HttpVersion(1, 1), 200, "All groovy!");
+        result.setEntity(new StringEntity("[{\"status\": 202}, {\"status\": 202}]"));
+
+        httpResponseFutureCallback.completed(result);
+
+        verify(observableMock).publish(any(BatchResponse.class));
+        verify(observableMock, never()).publish(any(ServerAccepted.class));
+    }
+
     @Test
     public void WHEN_completingARequest_EXPECT_observersToBeNotified() throws InterruptedException, UnsupportedEncodingException {
         when(observableMock.hasObservers()).thenReturn(true);
@@ -548,6 +669,127 @@ public class HoneycombBatchConsumerTest {
         verify(observableMock, times(1000)).publish(any(ServerAccepted.class));
     }
 
+    @Test
+    public void GIVEN_retries_WHEN_failingARequestWithAnIOException_EXPECT_batchToBeSentAgainWithoutNotifyingObservers()
+        throws InterruptedException {
+        consumer = createRetryingConsumer(2);
+        final List<ResolvedEvent> events = createTestEvents();
+        consumer.consume(events);
+
+        captureCallback().failed(new IOException("Connection reset"));
+
+        final List<HttpUriRequest> requests = captureRequests(2);
+        assertThat(requests.get(1).getURI()).isEqualTo(requests.get(0).getURI());
+        assertThat(events.get(0).getRetryCount()).isEqualTo(1);
+        assertThat(events.get(1).getRetryCount()).isEqualTo(1);
+        verify(observableMock, never()).publish(any(Unknown.class));
+    }
+
+    @Test
+    public void GIVEN_retries_WHEN_failingARequestWithAnotherException_EXPECT_observersToBeNotifiedWithoutRetry()
+        throws InterruptedException {
+        consumer = createRetryingConsumer(2);
+        final FutureCallback<HttpResponse> httpResponseFutureCallback = setupCallback();
+
+        httpResponseFutureCallback.failed(new SomeException());
+
+        verify(observableMock, times(2)).publish(any(Unknown.class));
+        verify(clientMock, times(1)).execute(any(HttpUriRequest.class), any(FutureCallback.class));
+    }
+
+    @Test
+    public void GIVEN_retries_WHEN_serverKeepsRespondingWith503_EXPECT_batchToBeRetriedUntilExhaustedAndThenRejected()
+        throws InterruptedException, UnsupportedEncodingException {
+        when(observableMock.hasObservers()).thenReturn(true);
+        consumer = createRetryingConsumer(1);
+        consumer.consume(createTestEvents());
+
+        captureCallback().completed(createResponse(503, "{\"error\": \"unavailable\"}"));
+        verify(observableMock, never()).publish(any(ServerRejected.class));
+        captureCallbacks(2).get(1).completed(createResponse(503, "{\"error\": \"unavailable\"}"));
+
+        final ArgumentCaptor<ServerRejected> captor = ArgumentCaptor.forClass(ServerRejected.class);
+        verify(observableMock, times(2)).publish(captor.capture());
+        assertThat(captor.getValue().getBatchData().getBatchStatusCode()).isEqualTo(503);
+        assertThat(captor.getValue().getMetrics().getRetryCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_retries_AND_responseWithOneEventRejectedWith429_WHEN_completingRequest_EXPECT_onlyThatEventToBeRetried()
+        throws InterruptedException, IOException {
+        when(observableMock.hasObservers()).thenReturn(true);
+        consumer = createRetryingConsumer(1);
+        final List<ResolvedEvent> events = createTestEvents();
+        consumer.consume(events);
+
+        captureCallback().completed(createResponse(200, "[{\"status\": 202}, {\"status\": 429, \"error\": \"slow down\"}]"));
+
+        verify(observableMock, times(1)).publish(any(ServerAccepted.class));
+        verify(observableMock, never()).publish(any(ServerRejected.class));
+        final HttpEntityEnclosingRequestBase retry = (HttpEntityEnclosingRequestBase) captureRequests(2).get(1);
+        final ArrayNode batchArray = new ObjectMapper().readValue(EntityUtils.toString(retry.getEntity()), ArrayNode.class);
+        assertThat(batchArray.size()).isEqualTo(1);
+        assertThat(batchArray.get(0).get("data").get("field").textValue()).isEqualTo("wheat");
+        assertThat(events.get(0).getRetryCount()).isEqualTo(0);
+        assertThat(events.get(1).getRetryCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_anAimdConcurrencyLimiter_WHEN_serverRespondsWith503_EXPECT_limitToDrop()
+        throws InterruptedException, UnsupportedEncodingException {
+        consumer = new HoneycombBatchConsumer(clientMock, observableMock, new StreamingBatchRequestSerializer(),
+            new TransportOptions.Builder()
+                .setMaximumPendingBatchRequests(100)
+                .setConcurrencyLimiter(TransportOptions.ConcurrencyLimiterType.AIMD)
+                .build(),
+            null, new TransportMetrics());
+        assertThat(consumer.getConcurrencyLimit()).isEqualTo(10);
+        final FutureCallback<HttpResponse> httpResponseFutureCallback = setupCallback();
+        assertThat(consumer.getPendingRequestCount()).isEqualTo(1);
+
+        httpResponseFutureCallback.completed(createResponse(503, "{\"error\": \"unavailable\"}"));
+
+        assertThat(consumer.getConcurrencyLimit()).isEqualTo(9);
+        assertThat(consumer.getPendingRequestCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void GIVEN_noBoundOnTheMaximumPendingRequests_EXPECT_noConcurrencyLimit() {
+        consumer = new HoneycombBatchConsumer(clientMock, observableMock, batchRequestSerializer, -1, 200);
+
+        assertThat(consumer.getConcurrencyLimit()).isEqualTo(-1);
+        assertThat(consumer.getPendingRequestCount()).isEqualTo(-1);
+    }
+
+    private HoneycombBatchConsumer createRetryingConsumer(final int maxRetries) {
+        return new HoneycombBatchConsumer(clientMock, observableMock, new StreamingBatchRequestSerializer(),
+            new TransportOptions.Builder()
+                .setMaxRetries(maxRetries)
+                .setRetryInitialBackoffMillis(1)
+                .setRetryMaxBackoffMillis(1)
+                .setRetryBudgetRatio(1.0)
+                .build(),
+            null, new TransportMetrics());
+    }
+
+    private BasicHttpResponse createResponse(final int status, final String body) throws UnsupportedEncodingException {
+        final BasicHttpResponse result = new BasicHttpResponse(new HttpVersion(1, 1), status, "");
+        result.setEntity(new StringEntity(body));
+        return result;
+    }
+
+    private List<FutureCallback> captureCallbacks(final int count) {
+        final ArgumentCaptor<FutureCallback> captor = ArgumentCaptor.forClass(FutureCallback.class);
+        verify(clientMock, timeout(1000).times(count)).execute(any(HttpUriRequest.class), captor.capture());
+        return captor.getAllValues();
+    }
+
+    private List<HttpUriRequest> captureRequests(final int count) {
+        final ArgumentCaptor<HttpUriRequest> captor = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(clientMock, timeout(1000).times(count)).execute(captor.capture(), any(FutureCallback.class));
+        return captor.getAllValues();
+    }
+
     private FutureCallback<HttpResponse> setupCallback() throws InterruptedException {
         final List<ResolvedEvent> events = createTestEvents();
         consumer.consume(events);
@@ -0,0 +1,92 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.TestUtils;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.json.StreamingBatchRequestSerializer;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HoneycombEventSizeEstimatorTest {
+    private final HoneycombEventSizeEstimator estimator = new HoneycombEventSizeEstimator();
+
+    @Test
+    public void GIVEN_anEventWithoutFields_EXPECT_estimateToCoverTheSerializedSize() throws IOException {
+        assertEstimateCoversSerializedSize(TestUtils.createTestEvent(new Date()));
+    }
+
+    @Test
+    public void GIVEN_scalarFields_EXPECT_estimateToCoverTheSerializedSize() throws IOException {
+        final ResolvedEvent event = TestUtils.createTestEvent(new Date());
+        event.addField("str", "a \"quoted\" str\n with a tab\t and é, € and 😀");
+        event.addField("int", Integer.MIN_VALUE);
+        event.addField("long", Long.MAX_VALUE);
+        event.addField("double", -2.2250738585072014E-308);
+        event.addField("float", 1.5f);
+        event.addField("bool", false);
+        event.addField("null", null);
+
+        assertEstimateCoversSerializedSize(event);
+    }
+
+    @Test
+    public void GIVEN_nestedFields_EXPECT_estimateToCoverTheSerializedSize() throws IOException {
+        final Map<String, Object> nested = new HashMap<>();
+        nested.put("innerStr", "str");
+        nested.put("innerList", Arrays.<Object>asList("element1", 2, null));
+        final ResolvedEvent event = TestUtils.createTestEvent(new Date());
+        event.addField("map", nested);
+        event.addField("arr", new Object[]{"a", 1L, true});
+
+        assertEstimateCoversSerializedSize(event);
+    }
+
+    @Test
+    public void GIVEN_aLargeStringField_EXPECT_estimateToBeCloseToTheSerializedSize() throws IOException {
+        final StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            value.append("value");
+        }
+        final ResolvedEvent event = TestUtils.createTestEvent(new Date());
+        event.addField("large", value.toString());
+
+        final long estimate = estimator.estimateSize(event);
+
+        assertThat(estimate).isBetween(serializedSize(event), serializedSize(event) + 100L);
+    }
+
+    @Test
+    public void GIVEN_anEstimatedEvent_WHEN_estimatingAgain_EXPECT_cachedEstimateToBeReturned() {
+        final ResolvedEvent event = TestUtils.createTestEvent();
+        event.addField("key", "value");
+        final long estimate = estimator.estimateSize(event);
+
+        event.addField("another", "value");
+
+        assertThat(event.getEstimatedSize()).isEqualTo(estimate);
+        assertThat(estimator.estimateSize(event)).isEqualTo(estimate);
+    }
+
+    private void assertEstimateCoversSerializedSize(final ResolvedEvent event) throws IOException {
+        assertThat(estimator.estimateSize(event)).isGreaterThanOrEqualTo(serializedSize(event));
+    }
+
+    /**
+     * @return the number of bytes the event adds to a batch request body.
+     */
+    private static long serializedSize(final ResolvedEvent event) throws IOException {
+        final List<ResolvedEvent> batch = Collections.singletonList(event);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new StreamingBatchRequestSerializer().serialize(batch, outputStream);
+        return outputStream.size() - 2L + 1L; // without the array's brackets, but with a separating comma
+    }
+}
@@ -0,0 +1,162 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MpscRingBufferQueueTest {
+
+    @Test
+    public void GIVEN_aQueueWithNonPowerOf2Capacity_WHEN_offeringBeyondCapacity_EXPECT_offerToBeRejected() {
+        final MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<>(3);
+
+        assertThat(queue.offer(1)).isTrue();
+        assertThat(queue.offer(2)).isTrue();
+        assertThat(queue.offer(3)).isTrue();
+        assertThat(queue.offer(4)).isFalse();
+        assertThat(queue.size()).isEqualTo(3);
+        assertThat(queue.remainingCapacity()).isZero();
+    }
+
+    @Test
+    public void GIVEN_multipleLapsAroundTheRing_EXPECT_elementsToBeReturnedInFifoOrder() {
+        final MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<>(3);
+        final List<Integer> polled = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(queue.offer(i)).isTrue();
+            assertThat(queue.offer(i + 100)).isTrue();
+            polled.add(queue.poll());
+            polled.add(queue.poll());
+        }
+
+        assertThat(queue.poll()).isNull();
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(polled).startsWith(0, 100, 1, 101, 2, 102).hasSize(20);
+    }
+
+    @Test
+    public void GIVEN_aFullQueue_WHEN_drainingWithALimit_EXPECT_onlyThatManyToBeDrainedAndCapacityToBeFreed() {
+        final MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<>(5);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        final List<Integer> drained = new ArrayList<>();
+
+        final int count = queue.drainTo(drained, 3);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(drained).containsExactly(0, 1, 2);
+        assertThat(queue.size()).isEqualTo(2);
+        assertThat(queue.contains(3)).isTrue();
+        assertThat(queue.contains(0)).isFalse();
+        assertThat(queue.offer(5)).isTrue();
+    }
+
+    @Test
+    public void GIVEN_anEmptyQueue_WHEN_pollingWithTimeout_EXPECT_nullAfterTimeout() throws InterruptedException {
+        final MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<>(5);
+
+        final long start = System.nanoTime();
+        final Integer element = queue.poll(20, TimeUnit.MILLISECONDS);
+
+        assertThat(element).isNull();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    public void GIVEN_aWaitingConsumer_WHEN_offering_EXPECT_consumerToBeWokenUp() throws Exception {
+        final MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<>(5);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Integer> taken = executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return queue.take();
+                }
+            });
+            Thread.sleep(50);
+
+            queue.offer(42);
+
+            assertThat(taken.get(1, TimeUnit.SECONDS)).isEqualTo(42);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void GIVEN_aWaitingConsumer_WHEN_interrupted_EXPECT_interruptedException() throws Exception {
+        final MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<>(5);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    queue.take();
+                } catch (final InterruptedException ex) {
+                    interrupted.countDown();
+                }
+            }
+        });
+        consumer.start();
+        Thread.sleep(50);
+
+        consumer.interrupt();
+
+        assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void GIVEN_concurrentProducers_WHEN_consuming_EXPECT_everyElementToBeReceivedExactlyOnce() throws Exception {
+        final int producers = 4;
+        final int perProducer = 50_000;
+        final MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<>(100);
+        final ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            for (int p = 0; p < producers; p++) {
+                final int offset = p * perProducer;
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < perProducer; i++) {
+                            try {
+                                queue.put(offset + i);
+                            } catch (final InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                                return;
+                            }
+                        }
+                    }
+                });
+            }
+
+            final Set<Integer> received = new HashSet<>();
+            final List<Integer> drained = new ArrayList<>();
+            while (received.size() < producers * perProducer) {
+                final Integer element = queue.poll(1, TimeUnit.SECONDS);
+                assertThat(element).isNotNull();
+                assertThat(received.add(element)).isTrue();
+                queue.drainTo(drained, 10);
+                for (final Integer drainedElement : drained) {
+                    assertThat(received.add(drainedElement)).isTrue();
+                }
+                drained.clear();
+            }
+            assertThat(queue.poll()).isNull();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
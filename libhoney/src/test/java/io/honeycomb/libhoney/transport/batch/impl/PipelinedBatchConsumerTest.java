@@ -0,0 +1,182 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.transport.batch.BatchConsumer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SuppressWarnings("unchecked")
+public class PipelinedBatchConsumerTest {
+    private BatchConsumer<String> delegate;
+    private PipelinedBatchConsumer<String> consumer;
+    private CountDownLatch unblockDelegate;
+    private ExecutorService testExecutor;
+
+    @Before
+    public void setUp() throws Exception {
+        delegate = mock(BatchConsumer.class);
+        unblockDelegate = new CountDownLatch(1);
+        testExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        unblockDelegate.countDown();
+        testExecutor.shutdownNow();
+        if (consumer != null) {
+            consumer.close();
+        }
+    }
+
+    @Test
+    public void WHEN_consumingBatches_EXPECT_delegateToReceiveThemOnWorkerThreads() throws Exception {
+        consumer = new PipelinedBatchConsumer<>(delegate, 2, 10);
+
+        consumer.consume(singletonList("a"));
+        consumer.consume(singletonList("b"));
+
+        verify(delegate, timeout(1000)).consume(singletonList("a"));
+        verify(delegate, timeout(1000)).consume(singletonList("b"));
+    }
+
+    @Test
+    public void WHEN_consumingBatches_EXPECT_workerThreadsToBeNamedDaemonThreads() throws Exception {
+        final BlockingQueue<Thread> workerThreads = new LinkedBlockingQueue<>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                workerThreads.add(Thread.currentThread());
+                return null;
+            }
+        }).when(delegate).consume(ArgumentMatchers.<String>anyList());
+        consumer = new PipelinedBatchConsumer<>(delegate, 2, 10);
+
+        consumer.consume(singletonList("a"));
+
+        final Thread workerThread = workerThreads.poll(1, TimeUnit.SECONDS);
+        assertThat(workerThread.getName()).matches("libhoney-pipeline-worker-[12]");
+        assertThat(workerThread.isDaemon()).isTrue();
+    }
+
+    @Test
+    public void GIVEN_aBlockingDelegate_WHEN_stageIsFull_EXPECT_consumeToBlockUntilSpaceIsAvailable() throws Exception {
+        blockDelegate();
+        consumer = new PipelinedBatchConsumer<>(delegate, 1, 2);
+        consumer.consume(singletonList("taken by worker"));
+        verify(delegate, timeout(1000)).consume(ArgumentMatchers.<String>anyList());
+        consumer.consume(singletonList("staged 1"));
+        consumer.consume(singletonList("staged 2"));
+
+        final Future<?> blocked = testExecutor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                consumer.consume(singletonList("blocked"));
+                return null;
+            }
+        });
+        try {
+            blocked.get(100, TimeUnit.MILLISECONDS);
+            fail("Expected consume to block while the stage is full");
+        } catch (final TimeoutException expected) {
+            assertThat(consumer.getStageSize()).isEqualTo(2);
+        }
+
+        unblockDelegate.countDown();
+        blocked.get(1, TimeUnit.SECONDS);
+        verify(delegate, timeout(1000).times(4)).consume(ArgumentMatchers.<String>anyList());
+    }
+
+    @Test
+    public void GIVEN_stagedBatches_WHEN_closing_EXPECT_batchesToBeConsumedBeforeDelegateIsClosed() throws Exception {
+        blockDelegate();
+        consumer = new PipelinedBatchConsumer<>(delegate, 1, 10);
+        consumer.consume(singletonList("a"));
+        consumer.consume(singletonList("b"));
+        consumer.consume(singletonList("c"));
+        unblockDelegate.countDown();
+
+        consumer.close();
+
+        final InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate).consume(singletonList("a"));
+        inOrder.verify(delegate).consume(singletonList("b"));
+        inOrder.verify(delegate).consume(singletonList("c"));
+        inOrder.verify(delegate).close();
+    }
+
+    @Test
+    public void GIVEN_aWorkerBlockedInTheDelegate_WHEN_closing_EXPECT_interruptedBatchToBeConsumedOnClosingThread()
+        throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                if (calls.getAndIncrement() == 0) {
+                    unblockDelegate.await(); // only returns by being interrupted
+                }
+                return null;
+            }
+        }).when(delegate).consume(ArgumentMatchers.<String>anyList());
+        consumer = new PipelinedBatchConsumer<>(delegate, 1, 10);
+        consumer.consume(singletonList("a"));
+        verify(delegate, timeout(1000)).consume(singletonList("a"));
+
+        consumer.close();
+
+        final InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate, times(2)).consume(singletonList("a"));
+        inOrder.verify(delegate).close();
+    }
+
+    @Test
+    public void GIVEN_aFailingDelegate_WHEN_consuming_EXPECT_workerToCarryOnWithNextBatch() throws Exception {
+        doThrow(new IllegalStateException("test")).when(delegate).consume(singletonList("a"));
+        consumer = new PipelinedBatchConsumer<>(delegate, 1, 10);
+
+        consumer.consume(singletonList("a"));
+        consumer.consume(singletonList("b"));
+
+        verify(delegate, timeout(1000)).consume(singletonList("b"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void GIVEN_noWorkers_EXPECT_constructionToFail() {
+        new PipelinedBatchConsumer<>(delegate, 0, 10);
+    }
+
+    private void blockDelegate() throws InterruptedException {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                unblockDelegate.await();
+                return null;
+            }
+        }).when(delegate).consume(ArgumentMatchers.<String>anyList());
+    }
+}
@@ -0,0 +1,45 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.TransportStats;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RequestMetricsTest {
+    private final TransportMetrics metrics = new TransportMetrics();
+    private final RequestMetrics requestMetrics = new RequestMetrics(metrics);
+
+    @Test
+    public void GIVEN_sentRequests_WHEN_theyComplete_EXPECT_theirOutcomeAndLatencyToBeRecorded() {
+        for (int i = 0; i < 3; i++) {
+            requestMetrics.requestStarted();
+            requestMetrics.requestSent(10, 100);
+        }
+        assertThat(requestMetrics.getInFlightCount()).isEqualTo(3);
+
+        requestMetrics.requestCompleted(200, TimeUnit.MILLISECONDS.toNanos(5));
+        requestMetrics.requestCompleted(400, TimeUnit.MILLISECONDS.toNanos(50));
+        requestMetrics.requestFailed();
+
+        final TransportStats stats = metrics.snapshot();
+        assertThat(stats.getCounter(TransportStats.REQUESTS_SENT)).isEqualTo(3);
+        assertThat(stats.getCounter(TransportStats.EVENTS_SENT)).isEqualTo(30);
+        assertThat(stats.getCounter(TransportStats.BYTES_SENT)).isEqualTo(300);
+        assertThat(stats.getCounter(TransportStats.REQUESTS_SUCCEEDED)).isEqualTo(1);
+        assertThat(stats.getCounter(TransportStats.REQUESTS_FAILED)).isEqualTo(2);
+        assertThat(stats.getGauge(TransportStats.REQUESTS_IN_FLIGHT)).isEqualTo(0);
+        assertThat(stats.getHistogram(TransportStats.REQUEST_LATENCY_MILLIS).getCount()).isEqualTo(2);
+        assertThat(stats.getHistogram(TransportStats.REQUEST_LATENCY_MILLIS).getMax()).isEqualTo(50);
+    }
+
+    @Test
+    public void GIVEN_aRequestWithoutLatency_WHEN_itCompletes_EXPECT_noLatencyToBeRecorded() {
+        requestMetrics.requestStarted();
+
+        requestMetrics.requestCompleted(200, -1L);
+
+        assertThat(metrics.snapshot().getHistogram(TransportStats.REQUEST_LATENCY_MILLIS).getCount()).isEqualTo(0);
+    }
+}
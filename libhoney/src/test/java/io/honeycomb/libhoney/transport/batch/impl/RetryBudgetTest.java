@@ -0,0 +1,65 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void GIVEN_aNewBudget_EXPECT_noRetriesToBeAvailable() {
+        final RetryBudget budget = new RetryBudget(0.1);
+
+        assertThat(budget.getAvailableRetries()).isEqualTo(0);
+        assertThat(budget.tryWithdraw()).isFalse();
+    }
+
+    @Test
+    public void GIVEN_aRatioOf10Percent_WHEN_sending100Events_EXPECT_10RetriesToBeAvailable() {
+        final RetryBudget budget = new RetryBudget(0.1);
+
+        budget.deposit(50);
+        budget.deposit(50);
+
+        assertThat(budget.getAvailableRetries()).isEqualTo(10);
+        for (int i = 0; i < 10; i++) {
+            assertThat(budget.tryWithdraw()).isTrue();
+        }
+        assertThat(budget.tryWithdraw()).isFalse();
+    }
+
+    @Test
+    public void GIVEN_aRatioOf10Percent_WHEN_sendingTooFewEventsForAWholeRetry_EXPECT_fractionsToAddUp() {
+        final RetryBudget budget = new RetryBudget(0.1);
+
+        budget.deposit(7);
+        assertThat(budget.tryWithdraw()).isFalse();
+        budget.deposit(3);
+
+        assertThat(budget.tryWithdraw()).isTrue();
+    }
+
+    @Test
+    public void GIVEN_aRatioOfZero_WHEN_sendingEvents_EXPECT_noRetriesToBeAvailable() {
+        final RetryBudget budget = new RetryBudget(0);
+
+        budget.deposit(1_000);
+
+        assertThat(budget.tryWithdraw()).isFalse();
+    }
+
+    @Test
+    public void GIVEN_aLongPeriodWithoutFailures_EXPECT_savedUpRetriesToBeCapped() {
+        final RetryBudget budget = new RetryBudget(1.0);
+
+        budget.deposit(1_000_000);
+        budget.deposit(1);
+
+        assertThat(budget.getAvailableRetries()).isEqualTo(1_000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void GIVEN_aRatioAbove1_EXPECT_IllegalArgumentException() {
+        new RetryBudget(1.5);
+    }
+}
@@ -0,0 +1,114 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.transport.batch.BatchKeyStrategy;
+import io.honeycomb.libhoney.transport.batch.Batcher;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+public class ShardedBatcherTest {
+    private static final BatchKeyStrategy<String, String> FIRST_CHAR_KEY = new BatchKeyStrategy<String, String>() {
+        @Override
+        public String getKey(final String event) {
+            return event.substring(0, 1);
+        }
+    };
+
+    private Batcher<String> shard0;
+    private Batcher<String> shard1;
+    private Batcher<String> shard2;
+    private ShardedBatcher<String, String> batcher;
+
+    @Before
+    public void setUp() {
+        shard0 = mock(Batcher.class);
+        shard1 = mock(Batcher.class);
+        shard2 = mock(Batcher.class);
+        when(shard0.offerEvent(anyString())).thenReturn(true);
+        when(shard1.offerEvent(anyString())).thenReturn(true);
+        when(shard2.offerEvent(anyString())).thenReturn(false);
+        batcher = new ShardedBatcher<>(FIRST_CHAR_KEY, Arrays.asList(shard0, shard1, shard2));
+    }
+
+    @Test
+    public void GIVEN_eventsWithTheSameKey_WHEN_offering_EXPECT_themToBeRoutedToTheSameShard() {
+        final Batcher<String> expectedShard = shardFor("a");
+
+        batcher.offerEvent("a1");
+        batcher.offerEvent("a2");
+
+        verify(expectedShard).offerEvent("a1");
+        verify(expectedShard).offerEvent("a2");
+    }
+
+    @Test
+    public void GIVEN_aShardThatRejects_WHEN_offering_EXPECT_rejectionToBePassedOn() {
+        for (final String key : Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h")) {
+            final boolean accepted = batcher.offerEvent(key + "1");
+            assertThat(accepted).isEqualTo(shardFor(key) != shard2);
+        }
+    }
+
+    @Test
+    public void GIVEN_arbitraryHashes_EXPECT_shardIndexToBeWithinBounds() {
+        for (final int hash : new int[]{0, 1, -1, Integer.MIN_VALUE, Integer.MAX_VALUE, 0xFFFF0000}) {
+            final Object key = keyWithHash(hash);
+            assertThat(ShardedBatcher.shardIndex(key, 3)).isBetween(0, 2);
+        }
+    }
+
+    @Test
+    public void WHEN_closing_EXPECT_allShardsToBeClosed() throws Exception {
+        batcher.close();
+
+        verify(shard0).close();
+        verify(shard1).close();
+        verify(shard2).close();
+    }
+
+    @Test
+    public void GIVEN_aShardFailingToClose_WHEN_closing_EXPECT_otherShardsToBeClosedAndFailureToBeRethrown()
+        throws Exception {
+        final Exception failure = new IllegalStateException("test");
+        doThrow(failure).when(shard0).close();
+
+        try {
+            batcher.close();
+            fail("Expected close to fail");
+        } catch (final Exception ex) {
+            assertThat(ex).isSameAs(failure);
+        }
+        verify(shard1).close();
+        verify(shard2).close();
+        verify(shard0, never()).offerEvent(anyString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void GIVEN_noShards_EXPECT_constructionToFail() {
+        new ShardedBatcher<>(FIRST_CHAR_KEY, Arrays.<Batcher<String>>asList());
+    }
+
+    private Batcher<String> shardFor(final String key) {
+        return Arrays.asList(shard0, shard1, shard2).get(ShardedBatcher.shardIndex(key, 3));
+    }
+
+    private static Object keyWithHash(final int hash) {
+        return new Object() {
+            @Override
+            public int hashCode() {
+                return hash;
+            }
+        };
+    }
+}
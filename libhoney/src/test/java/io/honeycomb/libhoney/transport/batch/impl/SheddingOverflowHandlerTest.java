@@ -0,0 +1,95 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.TestUtils;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.ClientRejected;
+import io.honeycomb.libhoney.responses.ResponseObservable;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class SheddingOverflowHandlerTest {
+    private ResponseObservable observableMock;
+    private SheddingOverflowHandler handler;
+
+    @Before
+    public void setUp() {
+        observableMock = mock(ResponseObservable.class);
+        handler = new SheddingOverflowHandler(0.5, observableMock);
+    }
+
+    @Test
+    public void GIVEN_fillLevels_EXPECT_shedRateToRiseFromTheThresholdTowardsTheMaximum() {
+        assertThat(handler.shedRate(0, 100)).isEqualTo(1);
+        assertThat(handler.shedRate(49, 100)).isEqualTo(1);
+        assertThat(handler.shedRate(50, 100)).isEqualTo(1);
+        assertThat(handler.shedRate(75, 100)).isEqualTo(2);
+        assertThat(handler.shedRate(90, 100)).isEqualTo(5);
+        assertThat(handler.shedRate(99, 100)).isEqualTo(50);
+        assertThat(handler.shedRate(100, 100)).isEqualTo(SheddingOverflowHandler.MAX_SHED_RATE);
+    }
+
+    @Test
+    public void GIVEN_aQueueBelowTheThreshold_WHEN_offering_EXPECT_eventToBeAcceptedUnchanged() {
+        final BlockingQueue<ResolvedEvent> queue = new ArrayBlockingQueue<>(10);
+        final ResolvedEvent event = TestUtils.createTestEvent(3);
+
+        assertThat(handler.offer(queue, event)).isTrue();
+
+        assertThat(queue).containsExactly(event);
+        assertThat(event.getSampleRate()).isEqualTo(3);
+        verifyNoInteractions(observableMock);
+    }
+
+    @Test
+    public void GIVEN_aQueueBeyondTheThreshold_WHEN_offeringManyEvents_EXPECT_keptEventsToCarryTheRaisedSampleRate_AND_theRestToBeShed() {
+        final BlockingQueue<ResolvedEvent> queue = new ArrayBlockingQueue<>(10_000);
+        for (int i = 0; i < 7_500; i++) {
+            queue.add(TestUtils.createTestEvent());
+        }
+
+        int kept = 0;
+        for (int i = 0; i < 1_000; i++) {
+            final ResolvedEvent event = TestUtils.createTestEvent(3);
+            assertThat(handler.offer(queue, event)).isTrue();
+            if (queue.remove(event)) {
+                kept++;
+                assertThat(event.getSampleRate()).isEqualTo(6);
+            }
+        }
+
+        assertThat(kept).isBetween(400, 600);
+        assertThat(handler.getDroppedEventCount()).isEqualTo(1_000 - kept);
+        final ArgumentCaptor<ClientRejected> captor = ArgumentCaptor.forClass(ClientRejected.class);
+        verify(observableMock, times(1_000 - kept)).publish(captor.capture());
+        assertThat(captor.getValue().getReason()).isEqualTo(ClientRejected.RejectionReason.NOT_SAMPLED);
+    }
+
+    @Test
+    public void GIVEN_aFullQueue_WHEN_anEventIsKept_EXPECT_itToBeRejected() {
+        handler = new SheddingOverflowHandler(0, observableMock);
+        final BlockingQueue<ResolvedEvent> queue = new ArrayBlockingQueue<>(1);
+        queue.add(TestUtils.createTestEvent());
+
+        int rejected = 0;
+        for (int i = 0; i < 5_000; i++) {
+            if (!handler.offer(queue, TestUtils.createTestEvent())) {
+                rejected++;
+            }
+        }
+
+        assertThat(rejected).isPositive();
+        assertThat(handler.getRejectedEventCount()).isEqualTo(rejected);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void GIVEN_aThresholdOf1_EXPECT_IllegalArgumentException() {
+        new SheddingOverflowHandler(1, observableMock);
+    }
+}
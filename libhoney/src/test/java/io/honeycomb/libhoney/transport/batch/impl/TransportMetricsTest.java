@@ -0,0 +1,69 @@
+package io.honeycomb.libhoney.transport.batch.impl;
+
+import io.honeycomb.libhoney.TransportStats;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TransportMetricsTest {
+    private final TransportMetrics metrics = new TransportMetrics();
+
+    @Test
+    public void GIVEN_theSameName_WHEN_gettingACounterOrHistogram_EXPECT_theSameInstance() {
+        assertThat(metrics.counter("a")).isSameAs(metrics.counter("a"));
+        assertThat(metrics.histogram("b", 1, 2)).isSameAs(metrics.histogram("b", 5));
+    }
+
+    @Test
+    public void GIVEN_readingsUnderTheSameName_WHEN_takingASnapshot_EXPECT_themToBeSummed() {
+        metrics.registerGauge("gauge", reading(3));
+        metrics.registerGauge("gauge", reading(4));
+        metrics.counter("counter").add(5);
+        metrics.registerCounter("counter", reading(6));
+
+        final TransportStats stats = metrics.snapshot();
+
+        assertThat(stats.getGauge("gauge")).isEqualTo(7);
+        assertThat(stats.getCounter("counter")).isEqualTo(11);
+        assertThat(stats.getGauge("absent")).isEqualTo(-1);
+        assertThat(stats.getCounter("absent")).isEqualTo(0);
+        assertThat(stats.getHistogram("absent")).isNull();
+    }
+
+    @Test
+    public void GIVEN_aHistogram_WHEN_takingASnapshot_EXPECT_itsPercentilesToBeBoundedByTheBuckets() {
+        final long[] bounds = {10, 100, 1_000};
+        for (int i = 1; i <= 100; i++) {
+            metrics.histogram("latency", bounds).record(i <= 90 ? 5 : 500);
+        }
+        metrics.histogram("latency", bounds).record(5_000);
+
+        final TransportStats.HistogramStats latency = metrics.snapshot().getHistogram("latency");
+
+        assertThat(latency.getCount()).isEqualTo(101);
+        assertThat(latency.getCounts()).containsExactly(90, 0, 10, 1);
+        assertThat(latency.getPercentile(50)).isEqualTo(10);
+        assertThat(latency.getPercentile(95)).isEqualTo(1_000);
+        assertThat(latency.getPercentile(100)).isEqualTo(5_000);
+        assertThat(latency.getMax()).isEqualTo(5_000);
+        assertThat(latency.getMean()).isEqualTo((90 * 5 + 10 * 500 + 5_000) / 101.0);
+    }
+
+    @Test
+    public void GIVEN_queueGauges_EXPECT_theFillRatioToBeDerivedFromThem() {
+        metrics.registerGauge(TransportStats.QUEUE_DEPTH, reading(25));
+        metrics.registerGauge(TransportStats.QUEUE_CAPACITY, reading(100));
+
+        assertThat(metrics.snapshot().getQueueFillRatio()).isEqualTo(0.25);
+        assertThat(new TransportMetrics().snapshot().getQueueFillRatio()).isEqualTo(-1);
+    }
+
+    private static TransportMetrics.Reading reading(final long value) {
+        return new TransportMetrics.Reading() {
+            @Override
+            public long read() {
+                return value;
+            }
+        };
+    }
+}
@@ -1,22 +1,39 @@
 package io.honeycomb.libhoney.transport.impl;
 
 import io.honeycomb.libhoney.TestUtils;
+import io.honeycomb.libhoney.TransportOptions;
 import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.ClientRejected;
 import io.honeycomb.libhoney.responses.ResponseObservable;
 import io.honeycomb.libhoney.transport.batch.BatchConsumer;
 import io.honeycomb.libhoney.transport.batch.Batcher;
+import io.honeycomb.libhoney.transport.batch.impl.EventSpool;
+import io.honeycomb.libhoney.transport.batch.impl.HoneycombEventSizeEstimator;
+import io.honeycomb.libhoney.transport.batch.impl.TransportMetrics;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 
+import java.lang.management.ManagementFactory;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @SuppressWarnings("unchecked")
 public class BatchingHttpTransportTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
     private BatchingHttpTransport transport;
     private Batcher<ResolvedEvent> mockBatcher;
@@ -45,6 +62,64 @@ public class BatchingHttpTransportTest {
         verify(mockBatcher).offerEvent(event);
     }
 
+    @Test
+    public void GIVEN_aFullQueueAndASpool_WHEN_submittingEvent_EXPECT_itToBeSpooled() throws Exception {
+        final EventSpool spool = new EventSpool(new TransportOptions.Builder()
+            .setSpoolDirectory(temporaryFolder.newFolder("spool"))
+            .build());
+        transport = new BatchingHttpTransport(
+            mockBatcher, mockConsumer, mockservable, null, Long.MAX_VALUE, spool, null, new TransportMetrics());
+        final ResolvedEvent event = TestUtils.createTestEvent();
+        when(mockBatcher.offerEvent(event)).thenReturn(false);
+
+        final boolean submit = transport.submit(event);
+
+        assertThat(submit).isTrue();
+        assertThat(spool.getSpooledEventCount()).isEqualTo(1);
+        transport.close();
+    }
+
+    @Test
+    public void GIVEN_aFullQueueAndNoSpool_WHEN_submittingEvent_EXPECT_itToBeRejected() throws Exception {
+        final ResolvedEvent event = TestUtils.createTestEvent();
+        when(mockBatcher.offerEvent(event)).thenReturn(false);
+
+        assertThat(transport.submit(event)).isFalse();
+    }
+
+    @Test
+    public void GIVEN_anEventLargerThanTheMaxEventBytes_WHEN_submitting_EXPECT_itToBeRejectedWithoutBeingOfferedToTheBatcher() throws Exception {
+        transport = new BatchingHttpTransport(
+            mockBatcher, mockConsumer, mockservable, new HoneycombEventSizeEstimator(), 100L, null, null,
+            new TransportMetrics());
+        final ResolvedEvent event = TestUtils.createTestEvent();
+        event.addField("large", "this string alone is longer than the one hundred bytes the transport allows per event");
+
+        final boolean submit = transport.submit(event);
+
+        assertThat(submit).isTrue();
+        verify(mockBatcher, never()).offerEvent(event);
+        final ArgumentCaptor<ClientRejected> captor = ArgumentCaptor.forClass(ClientRejected.class);
+        verify(mockservable).publish(captor.capture());
+        assertThat(captor.getValue().getReason()).isEqualTo(ClientRejected.RejectionReason.EVENT_TOO_LARGE);
+    }
+
+    @Test
+    public void GIVEN_anEventWithinTheMaxEventBytes_WHEN_submitting_EXPECT_batcherToBeOfferedEvent() throws Exception {
+        transport = new BatchingHttpTransport(
+            mockBatcher, mockConsumer, mockservable, new HoneycombEventSizeEstimator(), 100L, null, null,
+            new TransportMetrics());
+        final ResolvedEvent event = TestUtils.createTestEvent();
+        event.addField("small", "value");
+        when(mockBatcher.offerEvent(event)).thenReturn(true);
+
+        final boolean submit = transport.submit(event);
+
+        assertThat(submit).isTrue();
+        verify(mockBatcher).offerEvent(event);
+        verifyNoInteractions(mockservable);
+    }
+
     @Test
     public void GIVEN_submittedEventAndThusEnqueueTimeHavingBeenMarked_WHEN_callingMarkStartHttpPost_EXPECT_QueueDurationToReturnPositiveDuration() throws Exception {
         final ResolvedEvent event = TestUtils.createTestEvent();
@@ -71,4 +146,45 @@ public class BatchingHttpTransportTest {
         inOrder.verify(mockConsumer).close();
         inOrder.verify(mockservable).close();
     }
+
+    @Test
+    public void GIVEN_jmxEnabled_WHEN_initialising_EXPECT_anMBeanToExposeAndTuneTheTransport_UNTIL_closed()
+        throws Exception {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final BatchingHttpTransport jmxTransport = BatchingHttpTransport.init(new TransportOptions.Builder()
+            .setJmxEnabled(true)
+            .setBatcherShards(2)
+            .setQueueCapacity(100)
+            .build());
+        final ObjectName name = jmxTransport.getMBeanName();
+        try {
+            assertThat(name.toString()).startsWith(BatchingHttpTransport.MBEAN_NAME_PREFIX);
+            assertThat(server.getAttribute(name, "QueueCapacity")).isEqualTo(100);
+            assertThat(server.getAttribute(name, "QueueDepth")).isEqualTo(0);
+            assertThat(server.getAttribute(name, "BatcherShards")).isEqualTo(2);
+            assertThat(server.getAttribute(name, "InFlightRequests")).isEqualTo(0L);
+            assertThat(server.getAttribute(name, "MaxConnections"))
+                .isEqualTo(TransportOptions.DEFAULT_MAX_CONNECTIONS);
+            assertThat(server.getAttribute(name, "LeasedConnections")).isEqualTo(0);
+
+            server.setAttribute(name, new Attribute("BatchTimeoutMillis", 250L));
+            server.setAttribute(name, new Attribute("MaxPendingRequests", 10));
+
+            assertThat(server.getAttribute(name, "BatchTimeoutMillis")).isEqualTo(250L);
+            assertThat(server.getAttribute(name, "MaxPendingRequests")).isEqualTo(10);
+        } finally {
+            jmxTransport.close();
+        }
+        assertThat(server.isRegistered(name)).isFalse();
+    }
+
+    @Test
+    public void GIVEN_jmxDisabled_WHEN_initialising_EXPECT_noMBean() throws Exception {
+        final BatchingHttpTransport plainTransport = BatchingHttpTransport.init(new TransportOptions.Builder().build());
+        try {
+            assertThat(plainTransport.getMBeanName()).isNull();
+        } finally {
+            plainTransport.close();
+        }
+    }
 }
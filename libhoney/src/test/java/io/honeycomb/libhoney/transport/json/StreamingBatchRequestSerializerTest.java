@@ -0,0 +1,198 @@
+package io.honeycomb.libhoney.transport.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.honeycomb.libhoney.eventdata.EventRoute;
+import io.honeycomb.libhoney.eventdata.LayeredFieldMap;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.eventdata.SharedFieldMap;
+import io.honeycomb.libhoney.transport.batch.impl.HoneycombBatchConsumer;
+import io.honeycomb.libhoney.transport.batch.impl.SystemClockProvider;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StreamingBatchRequestSerializerTest {
+    private static final ObjectReader OBJECT_READER = new ObjectMapper().reader();
+
+    private final StreamingBatchRequestSerializer streamingSerializer = new StreamingBatchRequestSerializer();
+    private final StreamingJsonSerializer<List<ResolvedEvent>> legacySerializer =
+        HoneycombBatchConsumer.toStreamingSerializer(new BatchRequestSerializer());
+
+    @Test
+    public void GIVEN_scalarFields_WHEN_serializing_THEN_outputMatchesBatchRequestSerializer() throws Exception {
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put("int", 123);
+        fields.put("long", 1234567890123L);
+        fields.put("double", 1.5);
+        fields.put("float", 2.5f);
+        fields.put("str", "a \"quoted\" str é");
+        fields.put("bool", true);
+
+        assertSameAsLegacy(Arrays.asList(createEvent(fields, 1L), createEvent(fields, 1522067296123L)));
+    }
+
+    @Test
+    public void GIVEN_nestedFields_WHEN_serializing_THEN_outputMatchesBatchRequestSerializer() throws Exception {
+        final Map<String, Object> nested = new HashMap<>();
+        nested.put("innerStr", "str");
+        nested.put("innerList", Arrays.<Object>asList("element1", 2, null));
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put("map", nested);
+        fields.put("arr", new int[]{1, 2, 3});
+        fields.put("uri", URI.create("http://example.com"));
+
+        assertSameAsLegacy(Collections.singletonList(createEvent(fields, 5555L)));
+    }
+
+    @Test
+    public void GIVEN_eventsLayeredOverSharedFields_WHEN_serializing_THEN_outputMatchesBatchRequestSerializer()
+        throws Exception {
+        assertSameAsLegacy(createLayeredEvents());
+    }
+
+    @Test
+    public void GIVEN_eventsLayeredOverSharedFields_WHEN_serializing_THEN_overlaidFieldsReplaceSharedOnes()
+        throws Exception {
+        final byte[] serialized = serialize(streamingSerializer, createLayeredEvents());
+
+        assertEquals("["
+            + "{\"time\":\"1970-01-01T00:00:00.001Z\",\"samplerate\":3,\"data\":{\"shared1\":\"a\",\"shared2\":2}},"
+            + "{\"time\":\"1970-01-01T00:00:00.001Z\",\"samplerate\":3,"
+            + "\"data\":{\"own\":true,\"shared1\":\"a\",\"shared2\":2}},"
+            + "{\"time\":\"1970-01-01T00:00:00.001Z\",\"samplerate\":3,\"data\":{\"shared1\":\"b\"}},"
+            + "{\"time\":\"1970-01-01T00:00:00.001Z\",\"samplerate\":3,\"data\":{\"own\":1}}"
+            + "]", serialized);
+    }
+
+    @Test
+    public void GIVEN_sharedFieldsWithAMutableValue_WHEN_serializingRepeatedly_THEN_itsCurrentStateIsWritten()
+        throws Exception {
+        final List<String> list = new ArrayList<>();
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put("list", list);
+        final SharedFieldMap sharedFields = new SharedFieldMap(fields);
+
+        final byte[] first = serialize(streamingSerializer, createLayeredEvent(sharedFields));
+        list.add("x");
+        final byte[] second = serialize(streamingSerializer, createLayeredEvent(sharedFields));
+
+        assertEquals("[{\"time\":\"1970-01-01T00:00:00.001Z\",\"samplerate\":3,\"data\":{\"list\":[]}}]", first);
+        assertEquals("[{\"time\":\"1970-01-01T00:00:00.001Z\",\"samplerate\":3,\"data\":{\"list\":[\"x\"]}}]",
+            second);
+    }
+
+    @Test
+    public void GIVEN_nullValuesAndNullTimestamp_WHEN_serializing_THEN_theyAreOmitted() throws Exception {
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put("key1", null);
+        fields.put("key2", "non-null");
+
+        final byte[] serialized = serialize(streamingSerializer, Collections.singletonList(createEvent(fields, null)));
+
+        assertEquals("[{\"samplerate\":3,\"data\":{\"key2\":\"non-null\"}}]", serialized);
+    }
+
+    @Test
+    public void GIVEN_emptyBatch_WHEN_serializing_THEN_emptyArrayIsWritten() throws Exception {
+        final byte[] serialized = serialize(streamingSerializer, Collections.<ResolvedEvent>emptyList());
+
+        assertThat(new String(serialized, "UTF-8")).isEqualTo("[]");
+    }
+
+    @Test
+    public void WHEN_serializing_THEN_outputStreamIsNotClosed() throws Exception {
+        final boolean[] closed = new boolean[1];
+        final OutputStream outputStream = new ByteArrayOutputStream() {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+
+        streamingSerializer.serialize(Collections.<ResolvedEvent>emptyList(), outputStream);
+
+        assertThat(closed[0]).isFalse();
+    }
+
+    private void assertSameAsLegacy(final List<ResolvedEvent> batch) throws IOException {
+        final byte[] expected = serialize(legacySerializer, batch);
+        final byte[] actual = serialize(streamingSerializer, batch);
+        Assert.assertEquals(OBJECT_READER.readTree(expected), OBJECT_READER.readTree(actual));
+    }
+
+    private static byte[] serialize(final StreamingJsonSerializer<List<ResolvedEvent>> serializer,
+                                    final List<ResolvedEvent> batch) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        serializer.serialize(new ArrayList<>(batch), outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static void assertEquals(final String expected, final byte[] actual) throws IOException {
+        final JsonNode expectedTree = OBJECT_READER.readTree(expected);
+        final JsonNode actualTree = OBJECT_READER.readTree(actual);
+        Assert.assertEquals(expectedTree, actualTree);
+    }
+
+    /*
+     * Events over the same shared fields: unchanged, with an added field, with a field replaced and one removed, and
+     * with both replaced by a null value and removed respectively, plus an added field.
+     */
+    public static List<ResolvedEvent> createLayeredEvents() {
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put("shared1", "a");
+        fields.put("shared2", 2);
+        fields.put("sharedNull", null);
+        final SharedFieldMap sharedFields = new SharedFieldMap(fields);
+        final List<LayeredFieldMap> layeredFields = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            layeredFields.add(new LayeredFieldMap(sharedFields));
+        }
+        layeredFields.get(1).put("own", true);
+        layeredFields.get(2).put("shared1", "b");
+        layeredFields.get(2).remove("shared2");
+        layeredFields.get(3).put("shared1", null);
+        layeredFields.get(3).remove("shared2");
+        layeredFields.get(3).put("own", 1);
+
+        final EventRoute route = new EventRoute(URI.create("http://example.com"), "testkey", "testset");
+        final List<ResolvedEvent> events = new ArrayList<>();
+        for (final LayeredFieldMap eventFields : layeredFields) {
+            events.add(new ResolvedEvent(route, 3, 1L, eventFields, Collections.<String, Object>emptyMap(),
+                SystemClockProvider.getInstance()));
+        }
+        return events;
+    }
+
+    public static List<ResolvedEvent> createLayeredEvent(final SharedFieldMap sharedFields) {
+        final EventRoute route = new EventRoute(URI.create("http://example.com"), "testkey", "testset");
+        return Collections.singletonList(new ResolvedEvent(route, 3, 1L, new LayeredFieldMap(sharedFields),
+            Collections.<String, Object>emptyMap(), SystemClockProvider.getInstance()));
+    }
+
+    private static ResolvedEvent createEvent(final Map<String, Object> fields, final Long timestamp) {
+        return new ResolvedEvent(
+            URI.create("http://example.com"),
+            "testkey",
+            "testset",
+            3,
+            timestamp,
+            fields,
+            Collections.<String, Object>emptyMap(),
+            SystemClockProvider.getInstance());
+    }
+}
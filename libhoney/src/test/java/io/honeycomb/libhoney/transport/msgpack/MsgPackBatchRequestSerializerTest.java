@@ -0,0 +1,203 @@
+package io.honeycomb.libhoney.transport.msgpack;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.eventdata.SharedFieldMap;
+import io.honeycomb.libhoney.transport.batch.impl.SystemClockProvider;
+import io.honeycomb.libhoney.transport.json.StreamingBatchRequestSerializer;
+import io.honeycomb.libhoney.transport.json.StreamingBatchRequestSerializerTest;
+import io.honeycomb.libhoney.transport.json.StreamingJsonSerializer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.msgpack.core.MessagePack;
+import org.msgpack.value.ArrayValue;
+import org.msgpack.value.ExtensionValue;
+import org.msgpack.value.MapValue;
+import org.msgpack.value.Value;
+import org.msgpack.value.ValueFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MsgPackBatchRequestSerializerTest {
+    private static final ObjectReader OBJECT_READER = new ObjectMapper().reader();
+
+    private final MsgPackBatchRequestSerializer serializer = new MsgPackBatchRequestSerializer();
+    private final StreamingBatchRequestSerializer jsonSerializer = new StreamingBatchRequestSerializer();
+
+    @Test
+    public void GIVEN_scalarFields_WHEN_serializing_THEN_structureMatchesJsonEncoding() throws Exception {
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put("int", 123);
+        fields.put("long", 1234567890123L);
+        fields.put("short", (short) -300);
+        fields.put("double", 1.5);
+        fields.put("float", 2.5f);
+        fields.put("str", "a \"quoted\" str é");
+        fields.put("bool", true);
+
+        assertSameStructureAsJson(Arrays.asList(createEvent(fields, 1L), createEvent(fields, 1522067296123L)));
+    }
+
+    @Test
+    public void GIVEN_nestedAndOtherFields_WHEN_serializing_THEN_structureMatchesJsonEncoding() throws Exception {
+        final Map<String, Object> nested = new HashMap<>();
+        nested.put("innerStr", "str");
+        nested.put("innerList", Arrays.<Object>asList("element1", 2, null));
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put("map", nested);
+        fields.put("arr", new int[]{1, 2, 3});
+        fields.put("objects", new Object[]{"a", 1L});
+        fields.put("uri", URI.create("http://example.com"));
+
+        assertSameStructureAsJson(Collections.singletonList(createEvent(fields, 5555L)));
+    }
+
+    @Test
+    public void GIVEN_eventsLayeredOverSharedFields_WHEN_serializing_THEN_structureMatchesJsonEncoding()
+        throws Exception {
+        assertSameStructureAsJson(StreamingBatchRequestSerializerTest.createLayeredEvents());
+    }
+
+    @Test
+    public void GIVEN_sharedFieldsWithAMutableValue_WHEN_serializingRepeatedly_THEN_itsCurrentStateIsWritten()
+        throws Exception {
+        final List<String> list = new ArrayList<>();
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put("list", list);
+        final List<ResolvedEvent> batch =
+            StreamingBatchRequestSerializerTest.createLayeredEvent(new SharedFieldMap(fields));
+
+        final byte[] first = serialize(serializer, batch);
+        list.add("x");
+        final byte[] second = serialize(serializer, batch);
+
+        assertThat(listField(first).size()).isEqualTo(0);
+        assertThat(listField(second).size()).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_aTimestamp_WHEN_serializing_THEN_timeIsWrittenAsTimestampExtension() throws Exception {
+        final List<ResolvedEvent> batch =
+            Collections.singletonList(createEvent(Collections.<String, Object>emptyMap(), 1522067296123L));
+
+        final MapValue event = unpack(serialize(serializer, batch)).asArrayValue().get(0).asMapValue();
+        final ExtensionValue time = event.map().get(ValueFactory.newString("time")).asExtensionValue();
+
+        assertThat(time.getType()).isEqualTo((byte) -1);
+        final long data = ByteBuffer.wrap(time.getData()).getLong();
+        assertThat(data & 0x3ffffffffL).isEqualTo(1522067296L);
+        assertThat(data >>> 34).isEqualTo(123_000_000L);
+    }
+
+    @Test
+    public void GIVEN_nullValuesAndNullTimestamp_WHEN_serializing_THEN_theyAreOmitted() throws Exception {
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put("key1", null);
+        fields.put("key2", "non-null");
+
+        final Value batch = unpack(serialize(serializer, Collections.singletonList(createEvent(fields, null))));
+
+        Assert.assertEquals(
+            OBJECT_READER.readTree("[{\"samplerate\":3,\"data\":{\"key2\":\"non-null\"}}]"),
+            OBJECT_READER.readTree(batch.toJson()));
+    }
+
+    @Test
+    public void GIVEN_emptyBatch_WHEN_serializing_THEN_emptyArrayIsWritten() throws Exception {
+        final Value batch = unpack(serialize(serializer, Collections.<ResolvedEvent>emptyList()));
+
+        assertThat(batch.asArrayValue().size()).isZero();
+    }
+
+    @Test
+    public void GIVEN_numericFields_WHEN_serializing_THEN_bodyIsSmallerThanJson() throws Exception {
+        final Map<String, Object> fields = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            fields.put("metric" + i, i * 1000.5);
+            fields.put("count" + i, i * 100_000L);
+        }
+        final List<ResolvedEvent> batch = Collections.singletonList(createEvent(fields, 1522067296123L));
+
+        assertThat(serialize(serializer, batch).length).isLessThan(serialize(jsonSerializer, batch).length);
+    }
+
+    @Test
+    public void WHEN_serializing_THEN_outputStreamIsNotClosed() throws Exception {
+        final boolean[] closed = new boolean[1];
+        final OutputStream outputStream = new ByteArrayOutputStream() {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+
+        serializer.serialize(Collections.<ResolvedEvent>emptyList(), outputStream);
+
+        assertThat(closed[0]).isFalse();
+    }
+
+    /*
+     * The time field differs by design (timestamp extension vs. RFC3339 string), so it is compared separately.
+     */
+    private void assertSameStructureAsJson(final List<ResolvedEvent> batch) throws IOException {
+        final JsonNode expected = OBJECT_READER.readTree(serialize(jsonSerializer, batch));
+        final Value actual = unpack(serialize(serializer, batch));
+
+        final Iterator<JsonNode> expectedEvents = expected.elements();
+        for (final Value event : actual.asArrayValue()) {
+            final JsonNode expectedEvent = expectedEvents.next();
+            final Map<Value, Value> eventMap = event.asMapValue().map();
+            assertThat(eventMap.containsKey(ValueFactory.newString("time"))).isEqualTo(expectedEvent.has("time"));
+            Assert.assertEquals(expectedEvent.get("samplerate"),
+                OBJECT_READER.readTree(eventMap.get(ValueFactory.newString("samplerate")).toJson()));
+            Assert.assertEquals(expectedEvent.get("data"),
+                OBJECT_READER.readTree(eventMap.get(ValueFactory.newString("data")).toJson()));
+        }
+        assertThat(expectedEvents.hasNext()).isFalse();
+    }
+
+    private static byte[] serialize(final StreamingJsonSerializer<List<ResolvedEvent>> serializer,
+                                    final List<ResolvedEvent> batch) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        serializer.serialize(batch, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static ArrayValue listField(final byte[] bytes) throws IOException {
+        final MapValue event = unpack(bytes).asArrayValue().get(0).asMapValue();
+        final MapValue data = event.map().get(ValueFactory.newString("data")).asMapValue();
+        return data.map().get(ValueFactory.newString("list")).asArrayValue();
+    }
+
+    private static Value unpack(final byte[] bytes) throws IOException {
+        return MessagePack.newDefaultUnpacker(bytes).unpackValue();
+    }
+
+    private static ResolvedEvent createEvent(final Map<String, Object> fields, final Long timestamp) {
+        return new ResolvedEvent(
+            URI.create("http://example.com"),
+            "testkey",
+            "testset",
+            3,
+            timestamp,
+            fields,
+            Collections.<String, Object>emptyMap(),
+            SystemClockProvider.getInstance());
+    }
+}
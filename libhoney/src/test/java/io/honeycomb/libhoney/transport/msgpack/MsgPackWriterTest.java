@@ -0,0 +1,169 @@
+package io.honeycomb.libhoney.transport.msgpack;
+
+import org.junit.Test;
+import org.msgpack.core.ExtensionTypeHeader;
+import org.msgpack.core.MessageFormat;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MsgPackWriterTest {
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final MsgPackWriter writer = new MsgPackWriter(outputStream);
+
+    @Test
+    public void GIVEN_integersAtTheFormatBoundaries_EXPECT_theirMostCompactFormatThatDecodesToTheSameValue()
+        throws IOException {
+        final long[] values = {0, 127, 128, 255, 256, 65535, 65536, 4294967295L, 4294967296L, Long.MAX_VALUE,
+            -1, -32, -33, -128, -129, -32768, -32769, Integer.MIN_VALUE, Integer.MIN_VALUE - 1L, Long.MIN_VALUE};
+        final MessageFormat[] formats = {MessageFormat.POSFIXINT, MessageFormat.POSFIXINT, MessageFormat.UINT8,
+            MessageFormat.UINT8, MessageFormat.UINT16, MessageFormat.UINT16, MessageFormat.UINT32,
+            MessageFormat.UINT32, MessageFormat.UINT64, MessageFormat.UINT64,
+            MessageFormat.NEGFIXINT, MessageFormat.NEGFIXINT, MessageFormat.INT8, MessageFormat.INT8,
+            MessageFormat.INT16, MessageFormat.INT16, MessageFormat.INT32, MessageFormat.INT32,
+            MessageFormat.INT64, MessageFormat.INT64};
+        for (final long value : values) {
+            writer.writeLong(value);
+        }
+
+        final MessageUnpacker unpacker = unpacker();
+        for (int i = 0; i < values.length; i++) {
+            assertThat(unpacker.getNextFormat()).as("format of %d", values[i]).isEqualTo(formats[i]);
+            assertThat(unpacker.unpackLong()).isEqualTo(values[i]);
+        }
+    }
+
+    @Test
+    public void GIVEN_scalars_EXPECT_themToDecodeToTheSameValues() throws IOException {
+        writer.writeNil();
+        writer.writeBoolean(true);
+        writer.writeBoolean(false);
+        writer.writeDouble(1.25);
+        writer.writeFloat(2.5f);
+
+        final MessageUnpacker unpacker = unpacker();
+        unpacker.unpackNil();
+        assertThat(unpacker.unpackBoolean()).isTrue();
+        assertThat(unpacker.unpackBoolean()).isFalse();
+        assertThat(unpacker.getNextFormat()).isEqualTo(MessageFormat.FLOAT64);
+        assertThat(unpacker.unpackDouble()).isEqualTo(1.25);
+        assertThat(unpacker.getNextFormat()).isEqualTo(MessageFormat.FLOAT32);
+        assertThat(unpacker.unpackFloat()).isEqualTo(2.5f);
+    }
+
+    @Test
+    public void GIVEN_stringsOfVariousLengthsAndCharacters_EXPECT_themToDecodeToTheSameValue() throws IOException {
+        final String[] values = {"", "ascii", "é and ü", "€中", "emoji 😀", repeat('x', 31),
+            repeat('x', 32), repeat('y', 255), repeat('y', 256), repeat('z', 65536)};
+        for (final String value : values) {
+            writer.writeString(value);
+        }
+
+        final MessageUnpacker unpacker = unpacker();
+        for (final String value : values) {
+            assertThat(unpacker.unpackString()).isEqualTo(value);
+        }
+    }
+
+    @Test
+    public void GIVEN_anUnpairedSurrogate_EXPECT_itToBeReplaced() throws IOException {
+        writer.writeString("a\ud83db");
+
+        assertThat(unpacker().unpackString()).isEqualTo("a?b");
+    }
+
+    @Test
+    public void GIVEN_arrayAndMapHeaders_EXPECT_theirSizesToDecode() throws IOException {
+        final int[] sizes = {0, 15, 16, 65535, 65536};
+        for (final int size : sizes) {
+            writer.writeArrayHeader(size);
+            writer.writeMapHeader(size);
+        }
+
+        final MessageUnpacker unpacker = unpacker();
+        for (final int size : sizes) {
+            assertThat(unpacker.unpackArrayHeader()).isEqualTo(size);
+            assertThat(unpacker.unpackMapHeader()).isEqualTo(size);
+        }
+    }
+
+    @Test
+    public void GIVEN_timestamps_EXPECT_timestampExtensionInTheSmallestFittingFormat() throws IOException {
+        writer.writeTimestamp(1522067296000L);
+        writer.writeTimestamp(1522067296123L);
+        writer.writeTimestamp(-1L);
+
+        final MessageUnpacker unpacker = unpacker();
+        final ExtensionTypeHeader timestamp32 = unpacker.unpackExtensionTypeHeader();
+        assertThat(timestamp32.getType()).isEqualTo((byte) -1);
+        assertThat(timestamp32.getLength()).isEqualTo(4);
+        assertThat(ByteBuffer.wrap(unpacker.readPayload(4)).getInt() & 0xffffffffL).isEqualTo(1522067296L);
+
+        final ExtensionTypeHeader timestamp64 = unpacker.unpackExtensionTypeHeader();
+        assertThat(timestamp64.getType()).isEqualTo((byte) -1);
+        assertThat(timestamp64.getLength()).isEqualTo(8);
+        final long data64 = ByteBuffer.wrap(unpacker.readPayload(8)).getLong();
+        assertThat(data64 & 0x3ffffffffL).isEqualTo(1522067296L);
+        assertThat(data64 >>> 34).isEqualTo(123_000_000L);
+
+        final ExtensionTypeHeader timestamp96 = unpacker.unpackExtensionTypeHeader();
+        assertThat(timestamp96.getType()).isEqualTo((byte) -1);
+        assertThat(timestamp96.getLength()).isEqualTo(12);
+        final ByteBuffer data96 = ByteBuffer.wrap(unpacker.readPayload(12));
+        assertThat(data96.getInt()).isEqualTo(999_000_000);
+        assertThat(data96.getLong()).isEqualTo(-1L);
+    }
+
+    @Test
+    public void GIVEN_moreThanTheBufferSize_EXPECT_everythingToBeWrittenAfterFlush() throws IOException {
+        for (int i = 0; i < 10_000; i++) {
+            writer.writeLong(i);
+        }
+        assertThat(outputStream.size()).isLessThan(10_000 * 3);
+
+        final MessageUnpacker unpacker = unpacker();
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(unpacker.unpackLong()).isEqualTo(i);
+        }
+        assertThat(unpacker.hasNext()).isFalse();
+    }
+
+    @Test
+    public void GIVEN_rawBytesOfVariousLengths_EXPECT_themToBeWrittenUnchangedAndInOrder() throws IOException {
+        final ByteArrayOutputStream rawStream = new ByteArrayOutputStream();
+        final MsgPackWriter rawWriter = new MsgPackWriter(rawStream);
+        rawWriter.writeString(repeat('x', 20_000));
+        rawWriter.flush();
+        final byte[] large = rawStream.toByteArray();
+
+        writer.writeString("before");
+        writer.writeRaw(new byte[]{(byte) 0xa1, 'a'});
+        writer.writeRaw(large);
+        writer.writeLong(1);
+
+        final MessageUnpacker unpacker = unpacker();
+        assertThat(unpacker.unpackString()).isEqualTo("before");
+        assertThat(unpacker.unpackString()).isEqualTo("a");
+        assertThat(unpacker.unpackString()).isEqualTo(repeat('x', 20_000));
+        assertThat(unpacker.unpackLong()).isEqualTo(1);
+        assertThat(unpacker.hasNext()).isFalse();
+    }
+
+    private MessageUnpacker unpacker() throws IOException {
+        writer.flush();
+        return MessagePack.newDefaultUnpacker(outputStream.toByteArray());
+    }
+
+    private static String repeat(final char c, final int times) {
+        final StringBuilder builder = new StringBuilder(times);
+        for (int i = 0; i < times; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package io.honeycomb.libhoney.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ByteBufferPoolTest {
+
+    @Test
+    public void GIVEN_aReleasedBuffer_WHEN_acquiring_EXPECT_itToBeReusedAndEmpty() {
+        final ByteBufferPool pool = new ByteBufferPool(4, 16, 2);
+        final PooledByteArrayOutputStream buffer = pool.acquire();
+        buffer.write(new byte[]{1, 2, 3}, 0, 3);
+
+        buffer.release();
+        final PooledByteArrayOutputStream reacquired = pool.acquire();
+
+        assertThat(reacquired).isSameAs(buffer);
+        assertThat(reacquired.size()).isZero();
+        assertThat(pool.getAvailableCount()).isZero();
+    }
+
+    @Test
+    public void GIVEN_writesBeyondInitialCapacity_EXPECT_bufferToGrowAndKeepContents() {
+        final ByteBufferPool pool = new ByteBufferPool(2, 16, 2);
+        final PooledByteArrayOutputStream buffer = pool.acquire();
+
+        for (int i = 0; i < 10; i++) {
+            buffer.write(i);
+        }
+
+        assertThat(buffer.size()).isEqualTo(10);
+        assertThat(buffer.capacity()).isGreaterThanOrEqualTo(10);
+        assertThat(buffer.getBuffer()).startsWith(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+
+    @Test
+    public void GIVEN_aStreamLongerThanTheCapacity_WHEN_readingFromIt_EXPECT_bufferToGrowAndHoldAllOfIt()
+        throws IOException {
+        final ByteBufferPool pool = new ByteBufferPool(2, 16, 2);
+        final PooledByteArrayOutputStream buffer = pool.acquire();
+        buffer.write(9);
+
+        buffer.readFrom(new ByteArrayInputStream(new byte[]{0, 1, 2, 3, 4}));
+
+        assertThat(buffer.size()).isEqualTo(6);
+        assertThat(buffer.toByteArray()).containsExactly(9, 0, 1, 2, 3, 4);
+    }
+
+    @Test
+    public void GIVEN_aBufferThatGrewBeyondTheRetainedCapacity_WHEN_releasing_EXPECT_itToBeDropped() {
+        final ByteBufferPool pool = new ByteBufferPool(4, 8, 2);
+        final PooledByteArrayOutputStream buffer = pool.acquire();
+        buffer.write(new byte[20], 0, 20);
+
+        buffer.release();
+
+        assertThat(pool.getAvailableCount()).isZero();
+        assertThat(pool.acquire()).isNotSameAs(buffer);
+    }
+
+    @Test
+    public void GIVEN_morePooledBuffersThanRetained_WHEN_releasing_EXPECT_excessToBeDropped() {
+        final ByteBufferPool pool = new ByteBufferPool(4, 8, 2);
+        final PooledByteArrayOutputStream first = pool.acquire();
+        final PooledByteArrayOutputStream second = pool.acquire();
+        final PooledByteArrayOutputStream third = pool.acquire();
+
+        first.release();
+        second.release();
+        third.release();
+
+        assertThat(pool.getAvailableCount()).isEqualTo(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void GIVEN_retainedCapacitySmallerThanInitial_EXPECT_constructionToFail() {
+        new ByteBufferPool(8, 4, 2);
+    }
+}
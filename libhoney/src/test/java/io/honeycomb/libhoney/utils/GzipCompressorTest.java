@@ -0,0 +1,119 @@
+package io.honeycomb.libhoney.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GzipCompressorTest {
+
+    @Test
+    public void GIVEN_someBytes_WHEN_compressing_EXPECT_gzipStreamThatDecompressesToTheInput() throws IOException {
+        final GzipCompressor compressor = new GzipCompressor(Deflater.DEFAULT_COMPRESSION, 1);
+        final byte[] input = repeat("{\"field\":\"barley\",\"pasture\":\"grass\"},", 1000);
+
+        final byte[] compressed = compress(compressor, input, 0, input.length);
+
+        assertThat(compressed.length).isLessThan(input.length);
+        assertThat(decompress(compressed)).isEqualTo(input);
+    }
+
+    @Test
+    public void GIVEN_anOffsetAndLength_WHEN_compressing_EXPECT_onlyThatRangeToBeCompressed() throws IOException {
+        final GzipCompressor compressor = new GzipCompressor(Deflater.BEST_SPEED, 1);
+        final byte[] input = "xxhelloxx".getBytes(StandardCharsets.UTF_8);
+
+        final byte[] compressed = compress(compressor, input, 2, 5);
+
+        assertThat(new String(decompress(compressed), StandardCharsets.UTF_8)).isEqualTo("hello");
+    }
+
+    @Test
+    public void GIVEN_noInput_WHEN_compressing_EXPECT_validEmptyGzipStream() throws IOException {
+        final GzipCompressor compressor = new GzipCompressor(Deflater.DEFAULT_COMPRESSION, 1);
+
+        final byte[] compressed = compress(compressor, new byte[0], 0, 0);
+
+        assertThat(decompress(compressed)).isEmpty();
+    }
+
+    @Test
+    public void GIVEN_consecutiveCompressions_EXPECT_deflaterToBeReusedWithoutCarryingOverState() throws IOException {
+        final GzipCompressor compressor = new GzipCompressor(Deflater.DEFAULT_COMPRESSION, 1);
+        final byte[] first = repeat("first", 100);
+        final byte[] second = repeat("second", 100);
+
+        compress(compressor, first, 0, first.length);
+        assertThat(compressor.getAvailableCount()).isEqualTo(1);
+        final byte[] compressed = compress(compressor, second, 0, second.length);
+
+        assertThat(compressor.getAvailableCount()).isEqualTo(1);
+        assertThat(decompress(compressed)).isEqualTo(second);
+    }
+
+    @Test
+    public void GIVEN_noRetainedDeflaters_WHEN_compressing_EXPECT_nothingToBePooled() throws IOException {
+        final GzipCompressor compressor = new GzipCompressor(Deflater.DEFAULT_COMPRESSION, 0);
+        final byte[] input = repeat("event", 10);
+
+        final byte[] compressed = compress(compressor, input, 0, input.length);
+
+        assertThat(compressor.getAvailableCount()).isZero();
+        assertThat(decompress(compressed)).isEqualTo(input);
+    }
+
+    @Test
+    public void GIVEN_aClosedCompressor_WHEN_compressing_EXPECT_itToStillWorkButNotPool() throws IOException {
+        final GzipCompressor compressor = new GzipCompressor(Deflater.DEFAULT_COMPRESSION, 1);
+        final byte[] input = repeat("event", 10);
+        compress(compressor, input, 0, input.length);
+
+        compressor.close();
+        final byte[] compressed = compress(compressor, input, 0, input.length);
+
+        assertThat(compressor.getAvailableCount()).isZero();
+        assertThat(decompress(compressed)).isEqualTo(input);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void GIVEN_anInvalidLevel_EXPECT_IllegalArgumentException() {
+        new GzipCompressor(10, 1);
+    }
+
+    private static byte[] compress(final GzipCompressor compressor,
+                                   final byte[] input,
+                                   final int offset,
+                                   final int length) {
+        final PooledByteArrayOutputStream output = new ByteBufferPool(16, 1024, 1).acquire();
+        compressor.compress(input, offset, length, output);
+        final byte[] compressed = new byte[output.size()];
+        System.arraycopy(output.getBuffer(), 0, compressed, 0, output.size());
+        return compressed;
+    }
+
+    private static byte[] decompress(final byte[] compressed) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            final byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] repeat(final String value, final int times) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(value);
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,36 @@
+package io.honeycomb.libhoney.utils;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HistogramTest {
+
+    @Test
+    public void GIVEN_values_EXPECT_themToBeCountedInTheBucketOfTheirInclusiveUpperBound() {
+        final Histogram histogram = new Histogram(10, 100);
+
+        histogram.record(-5);
+        histogram.record(10);
+        histogram.record(11);
+        histogram.record(100);
+        histogram.record(101);
+
+        assertThat(histogram.getCounts()).containsExactly(2, 2, 1);
+        assertThat(histogram.getSum()).isEqualTo(217);
+        assertThat(histogram.getMax()).isEqualTo(101);
+    }
+
+    @Test
+    public void GIVEN_noValues_EXPECT_maxToBeMinValue() {
+        final Histogram histogram = new Histogram(1);
+
+        assertThat(histogram.getCounts()).containsExactly(0, 0);
+        assertThat(histogram.getMax()).isEqualTo(Long.MIN_VALUE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void GIVEN_boundsOutOfOrder_EXPECT_IllegalArgumentException() {
+        new Histogram(10, 5);
+    }
+}
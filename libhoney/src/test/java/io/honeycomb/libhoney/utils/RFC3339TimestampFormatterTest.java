@@ -0,0 +1,60 @@
+package io.honeycomb.libhoney.utils;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RFC3339TimestampFormatterTest {
+
+    @Test
+    public void GIVEN_epochZero_EXPECT_formattedInUtc() {
+        assertThat(RFC3339TimestampFormatter.format(0L)).isEqualTo("1970-01-01T00:00:00.000Z");
+    }
+
+    @Test
+    public void GIVEN_knownTimestamp_EXPECT_formattedWithMillis() {
+        assertThat(RFC3339TimestampFormatter.format(1525176103925L)).isEqualTo("2018-05-01T12:01:43.925Z");
+    }
+
+    @Test
+    public void GIVEN_leapDayAndTimestampBeforeEpoch_EXPECT_formattedCorrectly() {
+        assertThat(RFC3339TimestampFormatter.format(951782400001L)).isEqualTo("2000-02-29T00:00:00.001Z");
+        assertThat(RFC3339TimestampFormatter.format(-1L)).isEqualTo("1969-12-31T23:59:59.999Z");
+    }
+
+    @Test
+    public void GIVEN_timestampsWithinAndAcrossSeconds_EXPECT_cachedPrefixToBeReusedOnlyWithinSecond() {
+        assertThat(RFC3339TimestampFormatter.format(1525176103001L)).isEqualTo("2018-05-01T12:01:43.001Z");
+        assertThat(RFC3339TimestampFormatter.format(1525176103999L)).isEqualTo("2018-05-01T12:01:43.999Z");
+        assertThat(RFC3339TimestampFormatter.format(1525176104000L)).isEqualTo("2018-05-01T12:01:44.000Z");
+    }
+
+    @Test
+    public void GIVEN_offset_WHEN_formattingIntoArray_EXPECT_charsWrittenAtOffset() {
+        final char[] destination = new char[RFC3339TimestampFormatter.FORMATTED_LENGTH + 2];
+
+        final int length = RFC3339TimestampFormatter.format(1525176103925L, destination, 2);
+
+        assertThat(length).isEqualTo(RFC3339TimestampFormatter.FORMATTED_LENGTH);
+        assertThat(new String(destination, 2, length)).isEqualTo("2018-05-01T12:01:43.925Z");
+    }
+
+    @Test
+    public void GIVEN_randomTimestamps_EXPECT_sameOutputAsSimpleDateFormatInUtc() {
+        final SimpleDateFormat reference = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.ENGLISH);
+        reference.setTimeZone(TimeZone.getTimeZone("UTC"));
+        final Random random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            // between 1970 and roughly 2100
+            final long timestamp = (long) (random.nextDouble() * 4_102_444_800_000L);
+            assertThat(RFC3339TimestampFormatter.format(timestamp)).isEqualTo(reference.format(new Date(timestamp)));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.honeycomb.libhoney.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StripedCounterTest {
+
+    @Test
+    public void GIVEN_updatesFromASingleThread_EXPECT_sumToReflectThem() {
+        final StripedCounter counter = new StripedCounter(4);
+
+        counter.increment();
+        counter.add(10);
+        counter.decrement();
+
+        assertThat(counter.sum()).isEqualTo(10);
+    }
+
+    @Test
+    public void GIVEN_concurrentUpdates_EXPECT_noUpdateToBeLost() throws InterruptedException {
+        final StripedCounter counter = new StripedCounter();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int j = 0; j < 10_000; j++) {
+                        counter.increment();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(counter.sum()).isEqualTo(80_000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void GIVEN_0Stripes_EXPECT_IllegalArgumentException() {
+        new StripedCounter(0);
+    }
+}